@@ -41,7 +41,7 @@ public class ShowHistoryValueOfCmd implements Command {
 			System.out.println(time);
 			
 			RelativeTimestamp rt = new RelativeTimestamp(-time, TimeType.MILISCOUNT);
-			Value val = wm.findHistoricalValue(wm.getHistoryLogCopy(), attributeName, rt);
+			Value val = wm.findHistoricalValue(wm.getHistoryView(false), attributeName, rt);
 			
 			String ds = new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm:ss:SSS").format(new java.util.Date (val.getTimestamp()));
 			System.out.println("now:    " +  new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm:ss:SSS").format(new java.util.Date()));
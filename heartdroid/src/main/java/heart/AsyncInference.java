@@ -0,0 +1,232 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart;
+
+import heart.inference.InferenceAlgorithm;
+import heart.inference.InferenceMode;
+import heart.xtt.XTTModel;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A non-blocking entry point to the inference. Each call returns immediately with a
+ * {@link CompletableFuture} that is completed with the state of the model attributes
+ * when the inference finishes, or exceptionally if it fails.
+ *
+ * The inferences are run on a pluggable {@link Executor} using the sessions from a {@link SessionPool},
+ * so they do not affect each other. Callbacks and actions called during the inference may block,
+ * hence by default one virtual thread per inference is used when the runtime supports virtual threads,
+ * and a bounded pool of daemon threads otherwise (see {@link #getDefaultExecutor()}).
+ *
+ * On JDK 21 to 23 a virtual thread that blocks while holding a monitor pins its carrier thread,
+ * so the inference holds {@link java.util.concurrent.locks.ReentrantLock locks} rather than monitors
+ * around the calls that may block, and the callbacks of the attributes are invoked without holding any lock.
+ * The callbacks and actions should not block inside their own {@code synchronized} blocks either,
+ * or the inferences may stall once all the carrier threads are pinned.
+ */
+public class AsyncInference {
+    /**
+     * Number of threads per available processor in the default executor used when virtual threads are not supported.
+     */
+    public static final int PLATFORM_THREADS_PER_PROCESSOR = 4;
+
+    private final SessionPool sessionPool;
+    private final Executor executor;
+
+    /**
+     * Creates the asynchronous inference for the model, using the {@link #getDefaultExecutor() default executor}.
+     *
+     * @param model the model used in the inferences
+     */
+    public AsyncInference(XTTModel model) {
+        this(new SessionPool(model), getDefaultExecutor());
+    }
+
+    /**
+     * @param model    the model used in the inferences
+     * @param executor the executor running the inferences
+     */
+    public AsyncInference(XTTModel model, Executor executor) {
+        this(new SessionPool(model), executor);
+    }
+
+    /**
+     * @param sessionPool the pool providing the sessions for the inferences
+     * @param executor    the executor running the inferences
+     */
+    public AsyncInference(SessionPool sessionPool, Executor executor) {
+        this.sessionPool = sessionPool;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<State> fixedOrderInference(String[] tablesNames, Configuration conf) {
+        return infer(InferenceMode.FIXED_ORDER, new InferenceAlgorithm.TableParameters(tablesNames), conf);
+    }
+
+    public CompletableFuture<State> dataDrivenInference(String[] tablesNames, Configuration conf) {
+        return infer(InferenceMode.DATA_DRIVEN, new InferenceAlgorithm.TableParameters(tablesNames), conf);
+    }
+
+    public CompletableFuture<State> goalDrivenInference(String[] tablesNames, Configuration conf) {
+        return infer(InferenceMode.GOAL_DRIVEN, new InferenceAlgorithm.TableParameters(tablesNames), conf);
+    }
+
+    /**
+     * Starts the inference in the given mode, starting from the given tables.
+     *
+     * @param mode the inference mode
+     * @param tp   the tables the inference starts from
+     * @param conf the configuration of the inference, including its initial state
+     * @return the future completed with the values of all the attributes of the model after the inference
+     */
+    public CompletableFuture<State> infer(final InferenceMode mode, final InferenceAlgorithm.TableParameters tp,
+                                          final Configuration conf) {
+        return submit(new Task() {
+            @Override
+            public void run(Session session) {
+                session.infer(mode, tp, conf);
+            }
+        });
+    }
+
+    /**
+     * Starts the inference in the given mode, looking for the values of the given attributes.
+     *
+     * @param mode the inference mode
+     * @param ap   the attributes which values should be inferred
+     * @param conf the configuration of the inference, including its initial state
+     * @return the future completed with the values of all the attributes of the model after the inference
+     */
+    public CompletableFuture<State> infer(final InferenceMode mode, final InferenceAlgorithm.AttributeParameters ap,
+                                          final Configuration conf) {
+        return submit(new Task() {
+            @Override
+            public void run(Session session) {
+                session.infer(mode, ap, conf);
+            }
+        });
+    }
+
+    private CompletableFuture<State> submit(final Task task) {
+        final CompletableFuture<State> result = new CompletableFuture<State>();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (result.isDone()) {
+                        // cancelled before it was started
+                        return;
+                    }
+                    Session session = sessionPool.acquire();
+                    try {
+                        task.run(session);
+                        result.complete(session.getCurrentState());
+                    } catch (Throwable t) {
+                        result.completeExceptionally(t);
+                    } finally {
+                        sessionPool.release(session);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // the executor rejected the task
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    public SessionPool getSessionPool() {
+        return sessionPool;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the executor used when none is given explicitly. If the runtime supports virtual threads,
+     * it starts a new virtual thread for each inference, so that the inferences waiting for callbacks
+     * do not hold platform threads. Otherwise it is a pool of {@link #PLATFORM_THREADS_PER_PROCESSOR}
+     * daemon threads per available processor. The executor is created once and shared.
+     *
+     * @return the default executor
+     */
+    public static Executor getDefaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * @return true if the {@link #getDefaultExecutor() default executor} uses virtual threads
+     */
+    public static boolean isDefaultExecutorVirtual() {
+        return DefaultExecutorHolder.VIRTUAL;
+    }
+
+    private interface Task {
+        void run(Session session);
+    }
+
+    private static class DefaultExecutorHolder {
+        static final Executor EXECUTOR;
+        static final boolean VIRTUAL;
+
+        static {
+            ExecutorService virtual = createVirtualThreadExecutor();
+            VIRTUAL = virtual != null;
+            EXECUTOR = virtual != null ? virtual : createPlatformThreadExecutor();
+        }
+
+        /**
+         * The virtual threads are not available on older runtimes, including Android,
+         * hence the executor is looked up reflectively.
+         */
+        private static ExecutorService createVirtualThreadExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        private static ExecutorService createPlatformThreadExecutor() {
+            final AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(
+                    PLATFORM_THREADS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors(),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "heart-async-inference-" + counter.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+    }
+}
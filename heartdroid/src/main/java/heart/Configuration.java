@@ -30,6 +30,11 @@ import heart.uncertainty.ConflictSetFirstWin;
 import heart.uncertainty.ConflictSetResolution;
 import heart.uncertainty.UncertainTrueEvaluator;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
 /**
  * This is the class that contains configuration for the inference process for HeaRT
  * It is used to provide appropriate UncertainTrue evaluators, conflict set resolution mechanisms
@@ -45,6 +50,35 @@ public class Configuration{
 	private ConflictSetResolution conflictSetResolution;
 	private State initialState;
     private boolean tokenPassingEnabled;
+    private boolean incrementalInferenceEnabled;
+    private int parallelism;
+    private ForkJoinPool forkJoinPool;
+    private int parallelRuleThreshold;
+    private boolean ruleIndexEnabled;
+    private boolean adaptiveConditionOrderingEnabled;
+    private boolean tableCompilationEnabled;
+    private long timeBudgetNanos;
+    private boolean priorityOrderingEnabled;
+    private boolean goalTerminationEnabled;
+    private boolean memoizationEnabled;
+
+    /**
+     * The default number of rules in a table above which the rules are evaluated concurrently.
+     */
+    public static final int DEFAULT_PARALLEL_RULE_THRESHOLD = 1024;
+
+    /**
+     * The maximal number of the pools created for the configurations that did not provide their own pool.
+     * The configurations with other parallelism levels use the {@link ForkJoinPool#commonPool() common pool}.
+     */
+    public static final int MAX_SHARED_POOLS = 8;
+
+    /**
+     * Pools created for the configurations that did not provide their own pool,
+     * shared by all configurations with the same parallelism level. They are never shut down,
+     * so they live as long as the process, but their idle worker threads terminate.
+     */
+    private static final Map<Integer, ForkJoinPool> sharedPools = new HashMap<Integer, ForkJoinPool>();
 	
 	/**
 	 * A private constructor that is called by the {@link Builder} object to build
@@ -57,6 +91,19 @@ public class Configuration{
 		setUncertainTrueEvaluator(builder.getUte());
 		setInitialState(builder.getInitialState());
         setTokenPassingEnabled(builder.isTokenPassingEnabled());
+        this.incrementalInferenceEnabled = builder.isIncrementalInferenceEnabled();
+        this.parallelism = builder.getParallelism();
+        this.parallelRuleThreshold = builder.getParallelRuleThreshold();
+        this.ruleIndexEnabled = builder.isRuleIndexEnabled();
+        this.adaptiveConditionOrderingEnabled = builder.isAdaptiveConditionOrderingEnabled();
+        this.tableCompilationEnabled = builder.isTableCompilationEnabled();
+        this.timeBudgetNanos = builder.getTimeBudgetNanos();
+        this.priorityOrderingEnabled = builder.isPriorityOrderingEnabled();
+        this.goalTerminationEnabled = builder.isGoalTerminationEnabled();
+        this.memoizationEnabled = builder.isMemoizationEnabled();
+        if (parallelism > 1) {
+            this.forkJoinPool = builder.getForkJoinPool() != null ? builder.getForkJoinPool() : getSharedPool(parallelism);
+        }
 	}
 
 
@@ -105,6 +152,13 @@ public class Configuration{
 	}
 
 
+    /**
+     * Tells if the inference is driven by the tokens passed along the links of the rules.
+     * In this mode a table is processed only when it received a token: either it is not a target
+     * of any link, or a rule linking to it (or to one of its rules) has fired.
+     *
+     * @return true if the token passing is enabled
+     */
     public boolean isTokenPassingEnabled() {
         return tokenPassingEnabled;
     }
@@ -113,11 +167,190 @@ public class Configuration{
         this.tokenPassingEnabled = tokenPassingEnabled;
     }
 
+    /**
+     * Tells if the inference should process only the tables affected by the attributes
+     * that changed since the previous incremental inference performed on the same
+     * {@link WorkingMemory}, with the same model and the same tables.
+     * The final state is the same as if all the tables were processed.
+     *
+     * @return true if the incremental inference is enabled
+     */
+    public boolean isIncrementalInferenceEnabled() {
+        return incrementalInferenceEnabled;
+    }
+
+    /**
+     * Returns the number of tables that can be processed concurrently.
+     * When it is greater than one, the inference splits the tables into layers of
+     * independent tables and processes each layer on the {@link #getForkJoinPool()}.
+     *
+     * @return the parallelism level, 1 for the sequential inference
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the pool used to process the tables concurrently, or null for the sequential inference
+     */
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    /**
+     * Returns the number of rules in a table from which the conditions of the rules are evaluated
+     * concurrently on the {@link #getForkJoinPool()}. The decisions are always executed sequentially.
+     * It has no effect on the sequential inference.
+     *
+     * @return the minimal number of rules evaluated concurrently
+     */
+    public int getParallelRuleThreshold() {
+        return parallelRuleThreshold;
+    }
+
+    /**
+     * Tells if the inference should evaluate only the rules selected by the {@link heart.xtt.TableIndex}
+     * of the table. The index is used only with the {@link ALSVEvaluator}. The rules it excludes are
+     * not evaluated at all, so a {@link heart.exceptions.NotInTheDomainException} one of them would raise
+     * is not reported and the remaining rules still fire. Apart from that, it gives the same results
+     * as evaluating all the rules.
+     *
+     * @return true if the table indexes are used
+     */
+    public boolean isRuleIndexEnabled() {
+        return ruleIndexEnabled;
+    }
+
+    /**
+     * Tells if the conditions of the rules should be evaluated in the adaptive mode,
+     * see {@link heart.xtt.Rule#evaluate(WorkingMemory, UncertainTrueEvaluator, boolean)}.
+     *
+     * @return true if the adaptive condition ordering is enabled
+     */
+    public boolean isAdaptiveConditionOrderingEnabled() {
+        return adaptiveConditionOrderingEnabled;
+    }
+
+    /**
+     * Tells if the rules should be evaluated with the {@link heart.xtt.CompiledTable compiled form} of their tables.
+     * The compiled tables are used only with the {@link ALSVEvaluator}, for which they give the same results
+     * as the interpreter. They take precedence over the adaptive condition ordering.
+     *
+     * @return true if the table compilation is enabled
+     */
+    public boolean isTableCompilationEnabled() {
+        return tableCompilationEnabled;
+    }
+
+    /**
+     * Returns the time the inference may take. When it runs out, the inference stops between tables
+     * or between rules, leaving the state obtained so far in the {@link WorkingMemory}.
+     * The tables that were not processed are reported by {@link heart.inference.InferenceAlgorithm#getUnprocessedTables()}.
+     *
+     * @return the time budget in nanoseconds, 0 if the inference is not limited
+     */
+    public long getTimeBudgetNanos() {
+        return timeBudgetNanos;
+    }
+
+    /**
+     * Tells if the tables should be processed in the order of their priorities
+     * (see {@link heart.xtt.Table#getPriority()}), as far as the dependencies between them allow.
+     * It is useful together with the time budget, as the most important tables are processed first.
+     *
+     * @return true if the tables are ordered by their priorities
+     */
+    public boolean isPriorityOrderingEnabled() {
+        return priorityOrderingEnabled;
+    }
+
+    /**
+     * Tells if the goal-driven inference should stop as soon as all its goal attributes are resolved,
+     * i.e. they were concluded with a certainty above the satisfiability threshold of the evaluator.
+     * Tables that cannot affect any unresolved goal are skipped.
+     *
+     * @return true if the inference stops when its goals are resolved
+     */
+    public boolean isGoalTerminationEnabled() {
+        return goalTerminationEnabled;
+    }
+
+    /**
+     * Tells if the results of the inferences over pure tables (see {@link heart.xtt.XTTModel#isPure()})
+     * should be stored in the {@link heart.inference.ResultCache} of the model, so that the inferences
+     * with the same initial state apply the stored result instead of processing the tables.
+     *
+     * @return true if the memoization is enabled
+     */
+    public boolean isMemoizationEnabled() {
+        return memoizationEnabled;
+    }
+
+    private static ForkJoinPool getSharedPool(int parallelism) {
+        if (parallelism == ForkJoinPool.getCommonPoolParallelism()) {
+            return ForkJoinPool.commonPool();
+        }
+        synchronized (sharedPools) {
+            ForkJoinPool pool = sharedPools.get(parallelism);
+            if (pool == null) {
+                if (sharedPools.size() >= MAX_SHARED_POOLS) {
+                    // the number of the tables processed concurrently does not affect the result of the inference
+                    return ForkJoinPool.commonPool();
+                }
+                pool = new ForkJoinPool(parallelism);
+                sharedPools.put(parallelism, pool);
+            }
+            return pool;
+        }
+    }
+
 	public static class Builder{
 		private UncertainTrueEvaluator ute;
 		private ConflictSetResolution csr;
 		private State initialState;
         private boolean tokenPassingEnabled = false;
+        private boolean incrementalInferenceEnabled = false;
+        private int parallelism = 1;
+        private ForkJoinPool forkJoinPool;
+        private int parallelRuleThreshold = DEFAULT_PARALLEL_RULE_THRESHOLD;
+        private boolean ruleIndexEnabled = false;
+        private boolean adaptiveConditionOrderingEnabled = false;
+        private boolean tableCompilationEnabled = false;
+        private long timeBudgetNanos = 0;
+        private boolean priorityOrderingEnabled = false;
+        private boolean goalTerminationEnabled = false;
+        private boolean memoizationEnabled = false;
+
+        /**
+         * Creates a builder with the default values of all the parameters.
+         */
+        public Builder() {
+        }
+
+        /**
+         * Creates a builder initialized with all the parameters of the given configuration.
+         * It allows to derive a configuration that differs only in some parameters,
+         * for instance the initial state.
+         *
+         * @param configuration the configuration which parameters should be copied
+         */
+        public Builder(Configuration configuration) {
+            this.ute = configuration.getUncertainTrueEvaluator();
+            this.csr = configuration.getConflictSetResolution();
+            this.initialState = configuration.getInitialState();
+            this.tokenPassingEnabled = configuration.isTokenPassingEnabled();
+            this.incrementalInferenceEnabled = configuration.isIncrementalInferenceEnabled();
+            this.parallelism = configuration.getParallelism();
+            this.forkJoinPool = configuration.getForkJoinPool();
+            this.parallelRuleThreshold = configuration.getParallelRuleThreshold();
+            this.ruleIndexEnabled = configuration.isRuleIndexEnabled();
+            this.adaptiveConditionOrderingEnabled = configuration.isAdaptiveConditionOrderingEnabled();
+            this.tableCompilationEnabled = configuration.isTableCompilationEnabled();
+            this.timeBudgetNanos = configuration.getTimeBudgetNanos();
+            this.priorityOrderingEnabled = configuration.isPriorityOrderingEnabled();
+            this.goalTerminationEnabled = configuration.isGoalTerminationEnabled();
+            this.memoizationEnabled = configuration.isMemoizationEnabled();
+        }
 		
 		/**
 		 * The method build the {@link Configuration} object that is later user during the inference process.
@@ -132,6 +365,12 @@ public class Configuration{
 			if(ute == null) setUte( new ALSVEvaluator());
 			if(csr == null) setCsr(new ConflictSetFirstWin());
 			if(initialState == null) setInitialState(new State());
+			if(parallelism < 1) {
+				throw new BuilderException("Parallelism has to be a positive number, but "+parallelism+" was given.");
+			}
+			if(parallelRuleThreshold < 1) {
+				throw new BuilderException("Parallel rule threshold has to be a positive number, but "+parallelRuleThreshold+" was given.");
+			}
 			
 			return new Configuration(this);
 		}
@@ -213,8 +452,220 @@ public class Configuration{
             return tokenPassingEnabled;
         }
 
+        /**
+         * Enables the token passing. In this mode the tables that are targets of rule links are processed
+         * only when a fired rule passes them a token. A token passed to a rule restricts the evaluation
+         * of its table to the linked rules. The incremental inference and the concurrent processing
+         * of tables are not used in this mode.
+         *
+         * @param tokenPassingEnabled true to enable the token passing
+         */
         public void setTokenPassingEnabled(boolean tokenPassingEnabled) {
             this.tokenPassingEnabled = tokenPassingEnabled;
         }
+
+        /**
+         * The same as {@link #setTokenPassingEnabled(boolean)}, but it can be chained
+         * with the other setters of the builder.
+         *
+         * @param tokenPassingEnabled true to enable the token passing
+         * @return the {@link Builder} reference
+         */
+        public Builder withTokenPassingEnabled(boolean tokenPassingEnabled) {
+            setTokenPassingEnabled(tokenPassingEnabled);
+            return this;
+        }
+
+        public boolean isIncrementalInferenceEnabled() {
+            return incrementalInferenceEnabled;
+        }
+
+        /**
+         * Enables the incremental inference. In this mode the tables which inputs did not change
+         * since the previous incremental inference on the same {@link WorkingMemory} are not processed again.
+         * Tables that use callbacks, actions or time-based operators are always processed.
+         *
+         * @param incrementalInferenceEnabled true to enable the incremental inference
+         * @return the {@link Builder} reference
+         */
+        public Builder setIncrementalInferenceEnabled(boolean incrementalInferenceEnabled) {
+            this.incrementalInferenceEnabled = incrementalInferenceEnabled;
+            return this;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Sets the number of tables that can be processed concurrently.
+         * Tables that do not depend on each other are processed in parallel, and the final state
+         * is the same as the one obtained with the sequential inference.
+         * If no pool is given with {@link #setForkJoinPool(ForkJoinPool)}, a pool shared by
+         * all configurations with the same parallelism level is used. It is the {@link ForkJoinPool#commonPool()
+         * common pool} if its parallelism is the same, or once {@link Configuration#MAX_SHARED_POOLS} pools were created.
+         * The shared pools are never shut down, so they live as long as the process.
+         *
+         * @param parallelism the parallelism level, 1 (default) for the sequential inference
+         * @return the {@link Builder} reference
+         */
+        public Builder setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public ForkJoinPool getForkJoinPool() {
+            return forkJoinPool;
+        }
+
+        /**
+         * Sets the pool used to process the tables concurrently.
+         * The pool is used only if the parallelism level is greater than one.
+         * The caller owns the pool and shuts it down when the inferences using it are finished.
+         *
+         * @param forkJoinPool the pool to use
+         * @return the {@link Builder} reference
+         */
+        public Builder setForkJoinPool(ForkJoinPool forkJoinPool) {
+            this.forkJoinPool = forkJoinPool;
+            return this;
+        }
+
+        public int getParallelRuleThreshold() {
+            return parallelRuleThreshold;
+        }
+
+        /**
+         * Sets the number of rules in a table from which the conditions of the rules are evaluated
+         * concurrently, in chunks. The satisfied rules are collected in the order of the table, so
+         * the conflict set resolution chooses the same rules as in the sequential evaluation.
+         * It is used only if the parallelism level is greater than one.
+         *
+         * @param parallelRuleThreshold the minimal number of rules evaluated concurrently,
+         *                              {@link #DEFAULT_PARALLEL_RULE_THRESHOLD} by default
+         * @return the {@link Builder} reference
+         */
+        public Builder setParallelRuleThreshold(int parallelRuleThreshold) {
+            this.parallelRuleThreshold = parallelRuleThreshold;
+            return this;
+        }
+
+        public boolean isRuleIndexEnabled() {
+            return ruleIndexEnabled;
+        }
+
+        /**
+         * Enables or disables selecting the rules to evaluate with the indexes of the tables.
+         * The indexes are disabled by default and they are used only with the {@link ALSVEvaluator}.
+         * The rules excluded by an index are not evaluated, so the errors their conditions would raise,
+         * that otherwise interrupt the table, are not reported.
+         *
+         * @param ruleIndexEnabled true to evaluate only the rules selected by the indexes of the tables
+         * @return the {@link Builder} reference
+         */
+        public Builder setRuleIndexEnabled(boolean ruleIndexEnabled) {
+            this.ruleIndexEnabled = ruleIndexEnabled;
+            return this;
+        }
+
+        public boolean isAdaptiveConditionOrderingEnabled() {
+            return adaptiveConditionOrderingEnabled;
+        }
+
+        /**
+         * Enables the adaptive condition ordering. In this mode the evaluation of a rule stops at the first
+         * condition that is not satisfied, and the conditions are periodically reordered basing on the
+         * statistics collected at runtime (see {@link heart.xtt.Rule#getConditionStatistics()}).
+         *
+         * @param adaptiveConditionOrderingEnabled true to enable the adaptive condition ordering
+         * @return the {@link Builder} reference
+         */
+        public Builder setAdaptiveConditionOrderingEnabled(boolean adaptiveConditionOrderingEnabled) {
+            this.adaptiveConditionOrderingEnabled = adaptiveConditionOrderingEnabled;
+            return this;
+        }
+
+        public boolean isTableCompilationEnabled() {
+            return tableCompilationEnabled;
+        }
+
+        /**
+         * Enables the evaluation of the rules with the compiled form of their tables,
+         * see {@link heart.xtt.CompiledTable}. The tables are compiled when they are processed for the first time.
+         *
+         * @param tableCompilationEnabled true to enable the table compilation
+         * @return the {@link Builder} reference
+         */
+        public Builder setTableCompilationEnabled(boolean tableCompilationEnabled) {
+            this.tableCompilationEnabled = tableCompilationEnabled;
+            return this;
+        }
+
+        public long getTimeBudgetNanos() {
+            return timeBudgetNanos;
+        }
+
+        /**
+         * Limits the time of the inference. When the budget runs out, the inference stops between tables
+         * or between rules, and the state obtained so far is left in the {@link WorkingMemory}.
+         *
+         * @param budget the time the inference may take, 0 or less for no limit
+         * @param unit the unit of the budget
+         * @return the {@link Builder} reference
+         */
+        public Builder setTimeBudget(long budget, TimeUnit unit) {
+            this.timeBudgetNanos = budget > 0 ? unit.toNanos(budget) : 0;
+            return this;
+        }
+
+        public boolean isPriorityOrderingEnabled() {
+            return priorityOrderingEnabled;
+        }
+
+        /**
+         * Enables processing the tables with higher priorities first, as far as the dependencies between
+         * the tables allow. The final state of a complete inference does not change.
+         *
+         * @param priorityOrderingEnabled true to order the tables by their priorities
+         * @return the {@link Builder} reference
+         */
+        public Builder setPriorityOrderingEnabled(boolean priorityOrderingEnabled) {
+            this.priorityOrderingEnabled = priorityOrderingEnabled;
+            return this;
+        }
+
+        public boolean isGoalTerminationEnabled() {
+            return goalTerminationEnabled;
+        }
+
+        /**
+         * Enables stopping the goal-driven inference as soon as all the goal attributes are resolved.
+         * The goals are the attributes given to the inference, or the conclusions of the given tables.
+         * The incremental inference is not used in this mode, as the skipped tables leave some attributes not inferred.
+         *
+         * @param goalTerminationEnabled true to stop the inference when its goals are resolved
+         * @return the {@link Builder} reference
+         */
+        public Builder setGoalTerminationEnabled(boolean goalTerminationEnabled) {
+            this.goalTerminationEnabled = goalTerminationEnabled;
+            return this;
+        }
+
+        public boolean isMemoizationEnabled() {
+            return memoizationEnabled;
+        }
+
+        /**
+         * Enables the memoization of the inference results. It is used only when all the tables to process
+         * have no callbacks, actions and time-based operators, and the goal termination and the token passing are disabled.
+         * The final state is the same as if the tables were processed.
+         *
+         * @param memoizationEnabled true to enable the memoization
+         * @return the {@link Builder} reference
+         */
+        public Builder setMemoizationEnabled(boolean memoizationEnabled) {
+            this.memoizationEnabled = memoizationEnabled;
+            return this;
+        }
     }
 }
\ No newline at end of file
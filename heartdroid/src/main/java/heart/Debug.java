@@ -72,6 +72,17 @@ public class Debug {
 	 */
 	public static Level debugLevel = Level.VERBOS;
 	
+	/**
+	 * Tells if the messages of a given level are logged. It should be checked before building
+	 * messages on the hot paths of the inference, so that the strings are not created in vain.
+	 * 
+	 * @param level the debug level of the message
+	 * @return true if the message of this level would be printed
+	 */
+	public static boolean isEnabled(Level level){
+		return level.compareTo(debugLevel) <= 0 || level == Level.WARNING;
+	}
+
 	/**
 	 * The method that logs current action and prints it either to the 
 	 * System.err in desktop environment or with Log.d in Android.
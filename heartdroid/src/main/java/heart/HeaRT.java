@@ -33,16 +33,18 @@ import heart.Debug.Level;
 import heart.exceptions.AttributeNotRegisteredException;
 import heart.exceptions.NotInTheDomainException;
 import heart.exceptions.UnknownValueException;
-import heart.inference.DataDrivenInference;
-import heart.inference.FixedOrderInference;
-import heart.inference.GoalDrivenInference;
-import heart.inference.InferenceAlgorithm;
 import heart.uncertainty.ConflictSet;
 import heart.uncertainty.UncertainTrue;
 import heart.xtt.Rule;
 import heart.xtt.Table;
 import heart.xtt.XTTModel;
 
+/**
+ * A facade running the inference on a single, default working memory shared by the whole application.
+ * The inferences started with its methods are executed one after another.
+ * Applications serving concurrent requests should use separate {@link Session} objects
+ * (see {@link XTTModel#newSession()} and {@link SessionPool}) instead.
+ */
 public class HeaRT {
 	
 	private static final WorkingMemory wm = new WorkingMemory();
@@ -52,7 +54,7 @@ public class HeaRT {
 	}
 	
 	public static void fixedOrderInference(XTTModel model, String[] tablesNames, Configuration cs) throws UnsupportedOperationException, NotInTheDomainException, AttributeNotRegisteredException{
-		new FixedOrderInference(wm,model,cs).start(new InferenceAlgorithm.TableParameters(tablesNames));
+		new Session(model, wm).fixedOrderInference(tablesNames, cs);
 	}
 	
 	public static void dataDrivenInference(XTTModel model, String[] tablesNames) throws UnsupportedOperationException, NotInTheDomainException, AttributeNotRegisteredException{
@@ -60,7 +62,7 @@ public class HeaRT {
 	}
 	
 	public static void dataDrivenInference(XTTModel model, String[] tablesNames, Configuration cs)throws UnsupportedOperationException, NotInTheDomainException, AttributeNotRegisteredException{
-        new DataDrivenInference(wm,model,cs).start(new InferenceAlgorithm.TableParameters(tablesNames));
+		new Session(model, wm).dataDrivenInference(tablesNames, cs);
 	}
 	
 	public static void goalDrivenInference(XTTModel model, String[] tablesNames)throws UnsupportedOperationException, NotInTheDomainException, AttributeNotRegisteredException{
@@ -68,7 +70,7 @@ public class HeaRT {
 	}
 	
 	public static void goalDrivenInference(XTTModel model, String[] tablesNames,  Configuration cs)throws UnsupportedOperationException, NotInTheDomainException, AttributeNotRegisteredException{
-        new GoalDrivenInference(wm,model,cs).start(new InferenceAlgorithm.TableParameters(tablesNames));
+		new Session(model, wm).goalDrivenInference(tablesNames, cs);
 	}
 
 
@@ -0,0 +1,165 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart;
+
+import heart.inference.InferenceAlgorithm;
+import heart.inference.InferenceMode;
+import heart.xtt.XTTModel;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An inference session for a single {@link XTTModel}.
+ * The model is read-only during the inference, so it can be shared by many sessions,
+ * while each session owns a {@link WorkingMemory} holding the values of the attributes,
+ * the history log and the snapshots.
+ *
+ * Sessions created for the same model can run inference in parallel, each in its own thread.
+ * The inferences performed on a single session are executed one after another.
+ * Sessions can be reused for unrelated requests with {@link #reset()}, or pooled with a {@link SessionPool}.
+ */
+public class Session {
+    private final XTTModel model;
+    private final WorkingMemory wm;
+
+    /**
+     * Creates a session with a new working memory.
+     *
+     * @param model the model used by the session
+     */
+    public Session(XTTModel model) {
+        this(model, new WorkingMemory());
+    }
+
+    /**
+     * Creates a session that operates on the given working memory.
+     * The sessions sharing the working memory execute their inferences one after another.
+     *
+     * @param model the model used by the session
+     * @param wm    the working memory of the session
+     */
+    Session(XTTModel model, WorkingMemory wm) {
+        this.model = model;
+        this.wm = wm;
+    }
+
+    public void fixedOrderInference(String[] tablesNames) {
+        fixedOrderInference(tablesNames, new Configuration.Builder().getDefaultConfiguration());
+    }
+
+    public void fixedOrderInference(String[] tablesNames, Configuration conf) {
+        infer(InferenceMode.FIXED_ORDER, new InferenceAlgorithm.TableParameters(tablesNames), conf);
+    }
+
+    public void dataDrivenInference(String[] tablesNames) {
+        dataDrivenInference(tablesNames, new Configuration.Builder().getDefaultConfiguration());
+    }
+
+    public void dataDrivenInference(String[] tablesNames, Configuration conf) {
+        infer(InferenceMode.DATA_DRIVEN, new InferenceAlgorithm.TableParameters(tablesNames), conf);
+    }
+
+    public void goalDrivenInference(String[] tablesNames) {
+        goalDrivenInference(tablesNames, new Configuration.Builder().getDefaultConfiguration());
+    }
+
+    public void goalDrivenInference(String[] tablesNames, Configuration conf) {
+        infer(InferenceMode.GOAL_DRIVEN, new InferenceAlgorithm.TableParameters(tablesNames), conf);
+    }
+
+    /**
+     * Runs the inference in the given mode, starting from the given tables.
+     *
+     * @param mode the inference mode
+     * @param tp   the tables the inference starts from
+     * @param conf the configuration of the inference
+     * @return the finished inference, which tells e.g. which tables were not processed before the time budget ran out
+     */
+    public InferenceAlgorithm infer(InferenceMode mode, InferenceAlgorithm.TableParameters tp, Configuration conf) {
+        ReentrantLock lock = wm.getSessionLock();
+        lock.lock();
+        try {
+            InferenceAlgorithm inference = mode.create(wm, model, conf);
+            inference.start(tp);
+            return inference;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the inference in the given mode, looking for the values of the given attributes.
+     *
+     * @param mode the inference mode
+     * @param ap   the attributes which values should be inferred
+     * @param conf the configuration of the inference
+     * @return the finished inference, which tells e.g. which tables were not processed before the time budget ran out
+     */
+    public InferenceAlgorithm infer(InferenceMode mode, InferenceAlgorithm.AttributeParameters ap, Configuration conf) {
+        ReentrantLock lock = wm.getSessionLock();
+        lock.lock();
+        try {
+            InferenceAlgorithm inference = mode.create(wm, model, conf);
+            inference.start(ap);
+            return inference;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the values of all the attributes of the model
+     */
+    public State getCurrentState() {
+        ReentrantLock lock = wm.getSessionLock();
+        lock.lock();
+        try {
+            return wm.getCurrentState(model);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Clears the working memory of the session, so that it can be used for an unrelated request.
+     */
+    public void reset() {
+        ReentrantLock lock = wm.getSessionLock();
+        lock.lock();
+        try {
+            wm.reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public XTTModel getModel() {
+        return model;
+    }
+
+    public WorkingMemory getWorkingMemory() {
+        return wm;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart;
+
+import heart.xtt.XTTModel;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of {@link Session} objects for a single {@link XTTModel}.
+ * It allows to serve many concurrent requests without creating a new
+ * {@link WorkingMemory} for each of them. A session is taken from the pool with {@link #acquire()},
+ * used by a single request and given back with {@link #release(Session)}, which resets it.
+ */
+public class SessionPool {
+    private final XTTModel model;
+    private final int maxIdle;
+    private final ConcurrentLinkedQueue<Session> idle = new ConcurrentLinkedQueue<Session>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * Creates a pool keeping at most as many idle sessions as there are available processors.
+     *
+     * @param model the model of the sessions
+     */
+    public SessionPool(XTTModel model) {
+        this(model, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param model   the model of the sessions
+     * @param maxIdle maximal number of idle sessions kept by the pool. The sessions released
+     *                when the pool is full are discarded.
+     */
+    public SessionPool(XTTModel model, int maxIdle) {
+        if (maxIdle < 0) {
+            throw new IllegalArgumentException("Maximal number of idle sessions cannot be negative, but " + maxIdle + " was given.");
+        }
+        this.model = model;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * @return an idle session from the pool, or a new one if the pool is empty
+     */
+    public Session acquire() {
+        Session session = idle.poll();
+        if (session == null) {
+            return new Session(model);
+        }
+        idleCount.decrementAndGet();
+        return session;
+    }
+
+    /**
+     * Resets the session and returns it to the pool. The session must not be used after it was released.
+     *
+     * @param session the session acquired from this pool
+     */
+    public void release(Session session) {
+        if (session.getModel() != model) {
+            throw new IllegalArgumentException("The session was not created for the model of the pool.");
+        }
+        session.reset();
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(session);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of the idle sessions kept by the pool
+     */
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    public XTTModel getModel() {
+        return model;
+    }
+}
@@ -0,0 +1,551 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+
+package heart;
+
+import heart.alsvfd.Value;
+import heart.exceptions.BuilderException;
+import heart.inference.InferenceAlgorithm;
+import heart.inference.InferenceMode;
+import heart.xtt.XTTModel;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A streaming stage that runs the data-driven inference for a continuous flow of attribute updates,
+ * for instance readings of sensors.
+ *
+ * The updates are put into a bounded queue. A single worker thread takes them in micro-batches:
+ * it waits for the first update, then collects the ones that arrive within {@link Builder#setMaxBatchDelay(long)}
+ * milliseconds, up to {@link Builder#setMaxBatchSize(int)} updates. Updates of the same attribute within
+ * a batch are coalesced, only the latest value is used. The inference is started from the values
+ * of all the attributes received so far, so an attribute keeps its last value until a new one arrives.
+ * After each batch the {@link Listener} is notified with the attributes which values were changed.
+ *
+ * The listener is called on the worker thread. When it, or the inference, is slower than the producers,
+ * the queue fills up and {@link #submit(StateElement)} blocks, so the memory used by the pending
+ * updates stays bounded.
+ */
+public class StreamingInference implements AutoCloseable {
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    private static final StateElement END_OF_STREAM = new StateElement();
+    /**
+     * How often {@link #close()} checks if the worker is still running while waiting for a free space in the queue.
+     */
+    private static final long CLOSE_POLL_MILLIS = 100;
+
+    private final Session session;
+    private final InferenceAlgorithm.TableParameters tableParameters;
+    private final Configuration configuration;
+    private final int maxBatchSize;
+    private final long maxBatchDelay;
+    private final Listener listener;
+    private final BlockingQueue<StateElement> queue;
+    private final Thread worker;
+
+    private final Map<String, Value> inputs = new LinkedHashMap<String, Value>();
+    private final Map<String, Value> published = new HashMap<String, Value>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private StreamingInference(Builder builder) {
+        this.session = builder.getSession() != null ? builder.getSession() : new Session(builder.getModel());
+        this.tableParameters = new InferenceAlgorithm.TableParameters(builder.getTablesNames());
+        this.configuration = builder.getConfiguration();
+        this.maxBatchSize = builder.getMaxBatchSize();
+        this.maxBatchDelay = builder.getMaxBatchDelay();
+        this.listener = builder.getListener();
+        this.queue = new ArrayBlockingQueue<StateElement>(builder.getQueueCapacity());
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                process();
+            }
+        }, "heart-streaming-" + THREAD_NUMBER.incrementAndGet());
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Starts the worker thread. Updates submitted before are queued and processed in the first batch.
+     *
+     * @return this stream
+     * @throws IllegalStateException if the stream was already started or closed
+     */
+    public StreamingInference start() {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("The stream is already started.");
+        }
+        worker.start();
+        return this;
+    }
+
+    /**
+     * Submits an update, waiting for a free space in the queue if necessary.
+     *
+     * @param update the new value of an attribute
+     * @throws InterruptedException if the thread was interrupted while waiting
+     * @throws IllegalStateException if the stream is closed
+     */
+    public void submit(StateElement update) throws InterruptedException {
+        checkOpen();
+        queue.put(update);
+        submitted.incrementAndGet();
+    }
+
+    /**
+     * Submits an update of the attribute, waiting for a free space in the queue if necessary.
+     *
+     * @param attributeName the name of the attribute
+     * @param value the new value of the attribute
+     * @throws InterruptedException if the thread was interrupted while waiting
+     * @throws IllegalStateException if the stream is closed
+     */
+    public void submit(String attributeName, Value value) throws InterruptedException {
+        submit(new StateElement(attributeName, value));
+    }
+
+    /**
+     * Submits an update, giving up if the queue stays full for the given time.
+     *
+     * @param update the new value of an attribute
+     * @param timeout how long to wait for a free space in the queue
+     * @param unit the unit of the timeout
+     * @return true if the update was accepted, false if the queue was full
+     * @throws InterruptedException if the thread was interrupted while waiting
+     * @throws IllegalStateException if the stream is closed
+     */
+    public boolean offer(StateElement update, long timeout, TimeUnit unit) throws InterruptedException {
+        checkOpen();
+        if (queue.offer(update, timeout, unit)) {
+            submitted.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stops accepting updates, processes the ones already queued and waits until the worker finishes.
+     * The listener is notified with {@link Listener#onClose()}. Updates submitted concurrently
+     * with closing may be dropped.
+     *
+     * If the thread is interrupted while waiting, the method returns with the interrupt flag set,
+     * and the worker finishes the queued updates in the background.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (started.compareAndSet(false, true)) {
+            worker.start();
+        }
+        try {
+            // the worker may have already finished, then nobody would take the end of the stream from a full queue
+            while (worker.isAlive() && !queue.offer(END_OF_STREAM, CLOSE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                // wait for a free space in the queue
+            }
+            worker.join();
+        } catch (InterruptedException e) {
+            // lets the worker finish in the background, unless the queue is full
+            queue.offer(END_OF_STREAM);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The stream is closed.");
+        }
+    }
+
+    private void process() {
+        try {
+            for (StateElement se : session.getCurrentState()) {
+                published.put(se.getAttributeName(), se.getValue());
+            }
+            boolean end = false;
+            while (!end) {
+                Map<String, Value> batch = new LinkedHashMap<String, Value>();
+                StateElement update = queue.take();
+                if (update == END_OF_STREAM) {
+                    break;
+                }
+                batch.put(update.getAttributeName(), update.getValue());
+                int events = 1;
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchDelay);
+                while (events < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    update = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (update == null) {
+                        break;
+                    }
+                    if (update == END_OF_STREAM) {
+                        end = true;
+                        break;
+                    }
+                    batch.put(update.getAttributeName(), update.getValue());
+                    events++;
+                }
+                Update result = infer(batch, events);
+                try {
+                    listener.onUpdate(result);
+                } catch (RuntimeException e) {
+                    Debug.debug(Debug.heartTag, Debug.Level.WARNING, "Streaming inference listener failed: " + e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Debug.debug(Debug.heartTag, Debug.Level.WARNING, "Streaming inference interrupted.");
+        } finally {
+            closed = true;
+            // releases the producers waiting for a free space, their updates would not be processed anyway
+            queue.clear();
+            listener.onClose();
+        }
+    }
+
+    private Update infer(Map<String, Value> batch, int events) {
+        long start = System.nanoTime();
+        inputs.putAll(batch);
+        State state = new State();
+        for (Map.Entry<String, Value> e : inputs.entrySet()) {
+            state.addStateElement(new StateElement(e.getKey(), e.getValue()));
+        }
+        State changes = new State();
+        Exception failure = null;
+        try {
+            Configuration conf = new Configuration.Builder(configuration)
+                    .setInitialState(state)
+                    .build();
+            session.infer(InferenceMode.DATA_DRIVEN, tableParameters, conf);
+            for (StateElement se : session.getCurrentState()) {
+                if (!sameValue(published.get(se.getAttributeName()), se.getValue())) {
+                    changes.addStateElement(se);
+                    published.put(se.getAttributeName(), se.getValue());
+                }
+            }
+        } catch (BuilderException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        batches.incrementAndGet();
+        Update update = new Update(events, batch, changes, failure, System.nanoTime() - start);
+        Debug.debug(Debug.heartTag, Debug.Level.TABLES, update.toString());
+        return update;
+    }
+
+    private static boolean sameValue(Value a, Value b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getClass() == b.getClass()
+                && a.getCertaintyFactor() == b.getCertaintyFactor()
+                && a.toString().equals(b.toString());
+    }
+
+    /**
+     * @return the session which working memory holds the results of the stream
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * @return number of the updates accepted so far
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * @return number of the batches processed so far
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * @return number of the updates waiting in the queue
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Receives the results of the stream. All the methods are called on the worker thread of the stream,
+     * so a slow listener slows down the producers instead of letting the queue grow.
+     */
+    public interface Listener {
+        /**
+         * Called after the inference for a batch of updates.
+         *
+         * @param update the result of the batch
+         */
+        void onUpdate(Update update);
+
+        /**
+         * Called once, after the last batch was processed.
+         */
+        void onClose();
+    }
+
+    /**
+     * The result of the inference run for a single batch of updates.
+     */
+    public static class Update {
+        private final int eventCount;
+        private final State inputs;
+        private final State changes;
+        private final Exception failure;
+        private final long elapsedNanos;
+
+        Update(int eventCount, Map<String, Value> batch, State changes, Exception failure, long elapsedNanos) {
+            this.eventCount = eventCount;
+            this.inputs = new State();
+            for (Map.Entry<String, Value> e : batch.entrySet()) {
+                this.inputs.addStateElement(new StateElement(e.getKey(), e.getValue()));
+            }
+            this.changes = changes;
+            this.failure = failure;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return number of the updates in the batch, including the coalesced ones
+         */
+        public int getEventCount() {
+            return eventCount;
+        }
+
+        /**
+         * @return the latest values of the attributes updated in the batch
+         */
+        public State getInputs() {
+            return inputs;
+        }
+
+        /**
+         * @return the attributes which values were changed by the batch, with their new values.
+         * Empty if the inference failed.
+         */
+        public State getChanges() {
+            return changes;
+        }
+
+        /**
+         * @return the exception that interrupted the inference, or null if it succeeded
+         */
+        public Exception getFailure() {
+            return failure;
+        }
+
+        /**
+         * @return the time of the inference in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Streaming inference processed " + eventCount + " updates of " + inputs.getStateElements().size()
+                    + " attributes in " + (elapsedNanos / 1000) + " us, " + changes.getStateElements().size()
+                    + " attributes changed" + (failure != null ? ", failed: " + failure.getMessage() : "");
+        }
+    }
+
+    public static class Builder {
+        /**
+         * The default capacity of the queue of pending updates.
+         */
+        public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+        /**
+         * The default maximal number of updates processed in a single batch.
+         */
+        public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+        private XTTModel model;
+        private Session session;
+        private String[] tablesNames;
+        private Configuration configuration;
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private long maxBatchDelay = 0;
+        private Listener listener;
+
+        /**
+         * The method builds the {@link StreamingInference} object. The stream has to be started with {@link StreamingInference#start()}.
+         * If no configuration was given, the default one is used.
+         *
+         * @return the {@link StreamingInference} object
+         * @throws BuilderException if the model, the tables or the listener are missing, or the sizes are not positive
+         */
+        public StreamingInference build() throws BuilderException {
+            if (model == null && session == null) {
+                throw new BuilderException("Streaming inference requires a model or a session.");
+            }
+            if (tablesNames == null) {
+                throw new BuilderException("Streaming inference requires the tables the data-driven inference starts from.");
+            }
+            if (listener == null) {
+                throw new BuilderException("Streaming inference requires a listener.");
+            }
+            if (queueCapacity < 1 || maxBatchSize < 1) {
+                throw new BuilderException("Queue capacity and maximal batch size have to be positive numbers, but "
+                        + queueCapacity + " and " + maxBatchSize + " were given.");
+            }
+            if (maxBatchDelay < 0) {
+                throw new BuilderException("Maximal batch delay can't be negative, but " + maxBatchDelay + " was given.");
+            }
+            if (configuration == null) {
+                configuration = new Configuration.Builder().build();
+            }
+            return new StreamingInference(this);
+        }
+
+        public XTTModel getModel() {
+            return model;
+        }
+
+        /**
+         * @param model the model used by the stream. A new session is created for the stream, unless one is given.
+         * @return the {@link Builder} reference
+         */
+        public Builder setModel(XTTModel model) {
+            this.model = model;
+            return this;
+        }
+
+        public Session getSession() {
+            return session;
+        }
+
+        /**
+         * @param session the session which working memory is used by the stream
+         * @return the {@link Builder} reference
+         */
+        public Builder setSession(Session session) {
+            this.session = session;
+            return this;
+        }
+
+        public String[] getTablesNames() {
+            return tablesNames;
+        }
+
+        /**
+         * @param tablesNames the tables the data-driven inference starts from
+         * @return the {@link Builder} reference
+         */
+        public Builder setTablesNames(String... tablesNames) {
+            this.tablesNames = tablesNames;
+            return this;
+        }
+
+        public Configuration getConfiguration() {
+            return configuration;
+        }
+
+        /**
+         * @param configuration the template of the configurations used in the inferences.
+         *                      Its initial state is replaced with the values received by the stream.
+         * @return the {@link Builder} reference
+         */
+        public Builder setConfiguration(Configuration configuration) {
+            this.configuration = configuration;
+            return this;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        /**
+         * @param queueCapacity maximal number of pending updates, {@link #DEFAULT_QUEUE_CAPACITY} by default
+         * @return the {@link Builder} reference
+         */
+        public Builder setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        /**
+         * @param maxBatchSize maximal number of updates processed in a single inference, {@link #DEFAULT_MAX_BATCH_SIZE} by default
+         * @return the {@link Builder} reference
+         */
+        public Builder setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public long getMaxBatchDelay() {
+            return maxBatchDelay;
+        }
+
+        /**
+         * Sets how long the worker waits for more updates after the first one of a batch arrived.
+         * By default it is zero, so a batch contains only the updates that are already queued.
+         *
+         * @param maxBatchDelay the delay in milliseconds
+         * @return the {@link Builder} reference
+         */
+        public Builder setMaxBatchDelay(long maxBatchDelay) {
+            this.maxBatchDelay = maxBatchDelay;
+            return this;
+        }
+
+        public Listener getListener() {
+            return listener;
+        }
+
+        /**
+         * @param listener the listener receiving the results of the batches
+         * @return the {@link Builder} reference
+         */
+        public Builder setListener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+    }
+}
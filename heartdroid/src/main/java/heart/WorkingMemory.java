@@ -29,10 +29,17 @@ import heart.alsvfd.Null;
 import heart.alsvfd.SimpleNumeric;
 import heart.alsvfd.SimpleSymbolic;
 import heart.alsvfd.Value;
+import heart.alsvfd.expressions.StatisticalExpression;
 import heart.exceptions.AttributeNotRegisteredException;
 import heart.exceptions.NotInTheDomainException;
 import heart.exceptions.RelativeTimestampException;
 import heart.exceptions.UnknownValueException;
+import heart.history.DeltaHistoryStore;
+import heart.history.HistoryStore;
+import heart.history.HistoryView;
+import heart.history.WindowAggregates;
+import heart.history.StateHistoryStore;
+import heart.inference.IncrementalBaseline;
 import heart.inference.InferenceAlgorithm;
 import heart.uncertainty.AmbiguityResolver;
 import heart.uncertainty.DefaultAmbiguityResolver;
@@ -44,6 +51,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 
@@ -66,14 +75,14 @@ public class WorkingMemory {
      * The timestamp that is valid at the time. This is used to guarantee the atomicity of inference process.
      * This timestamp is only used when {@link #isTimeLocked()} return true.
      */
-    private long currentTimestamp;
+    private volatile long currentTimestamp;
 
     /**
      * True if in the reasoning mode, false otherwise.
      * It assures that all the operations performed during reasoning
      * are atomic as a whole
      */
-    private boolean timeLock;
+    private volatile boolean timeLock;
 
     /**
      * Ambiguity resolver that in case of several ambiguous values returns
@@ -90,26 +99,86 @@ public class WorkingMemory {
 	private HashMap<String, AVEntry> registeredAttributes; 
 	
 	/**
-	 * The list of states of the system. The resolution of how often the system state is logged is set
-	 * by the flag.
+	 * The store of the states of the system. The resolution of how often the system state is logged is set
+	 * by the flag. The store is thread-safe, the accesses to the {@link #snapshots} are synchronized on the map.
 	 */
-	private LinkedList<State> historyLog;
+	private volatile HistoryStore historyLog;
 	
 	/**
 	 * The list of snapshots of the system state. This is different from the {@link #historyLog} as it allows custom names,
 	 * and can be invoked by the user on demand.
 	 */
-	private HashMap<String,State> snapshots;
+	private final HashMap<String,State> snapshots;
+
+	/**
+	 * Names of the attributes which values were set or unregistered outside of the
+	 * inference process since the last call to {@link #clearChangedAttributes()}.
+	 */
+	private HashSet<String> changedAttributes;
+
+	/**
+	 * Names of the attributes which values were assigned or which were unregistered since the last
+	 * call to {@link #recordLog()}. They allow to record only the changes in a {@link DeltaHistoryStore}.
+	 */
+	private final Set<String> unloggedAttributes = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Aggregates of the windows of the history log used by the statistical expressions,
+	 * updated by {@link #recordLog()}.
+	 */
+	private final WindowAggregates windowAggregates = new WindowAggregates();
+
+	/**
+	 * Summary of the last incremental inference performed on this working memory.
+	 * It is null when the next inference has to process all the tables.
+	 */
+	private IncrementalBaseline incrementalBaseline;
+
+	/**
+	 * The lock held by the {@link Session sessions} of this working memory while they use it,
+	 * so that their inferences are executed one after another.
+	 */
+	private final ReentrantLock sessionLock = new ReentrantLock();
 	
 	/**
 	 * Default constructor for the working memory object.
 	 */
 	public WorkingMemory() {
+		this(new StateHistoryStore(MAX_HISTORY_SIZE));
+	}
+
+	/**
+	 * Creates the working memory that records the history log in the given store.
+	 *
+	 * @param historyStore the store of the history log, e.g. a {@link heart.history.ColumnarHistoryStore}
+	 */
+	public WorkingMemory(HistoryStore historyStore) {
 		registeredAttributes = new HashMap<String, AVEntry>();
-		historyLog = new LinkedList<State>();
+		historyLog = historyStore;
 		snapshots = new HashMap<String, State>();
+		changedAttributes = new HashSet<String>();
         timeLock = false;
 	}
+
+    /**
+     * Brings the working memory back to the state it had right after construction:
+     * unregisters all the attributes and removes the history log, the snapshots
+     * and the summary of the last incremental inference.
+     * It allows to reuse one working memory object for many unrelated inferences,
+     * without the results of one of them affecting the others.
+     */
+    public void reset(){
+        registeredAttributes.clear();
+        historyLog.clear();
+        synchronized (snapshots) {
+            snapshots.clear();
+        }
+        changedAttributes.clear();
+        unloggedAttributes.clear();
+        windowAggregates.clear();
+        incrementalBaseline = null;
+        timeLock = false;
+    }
 	
 	/**
 	 * The method sets values of the attributes defined by state parameter.
@@ -169,6 +238,7 @@ public class WorkingMemory {
 		try {
 			if(!registeredAttributes.containsKey(attribute.getName())) {
 				registeredAttributes.put(attribute.getName(), new AVEntry(attribute, new Null()));
+				unloggedAttributes.add(attribute.getName());
 			}
 		} catch (NotInTheDomainException e) {
 			// This will not happend, as the Null ca always be assigned as an attribute value
@@ -207,7 +277,10 @@ public class WorkingMemory {
 	 * @param name a name of the attribute to unregister
 	 */
 	public void unregisterAttribute(String name){
-		registeredAttributes.remove(name);
+		if(registeredAttributes.remove(name) != null){
+			changedAttributes.add(name);
+			unloggedAttributes.add(name);
+		}
 	}
 	
 	/**
@@ -238,7 +311,7 @@ public class WorkingMemory {
 		if(ave != null){
 			return ave.getValue();
 		}else{
-			return new Null();
+			return Null.INSTANCE;
 		}
 	}
 	
@@ -254,7 +327,7 @@ public class WorkingMemory {
 		if(ave != null){
 			return ave.getValue();
 		}else{
-			return new Null();
+			return Null.INSTANCE;
 		}
 	}
 
@@ -276,9 +349,11 @@ public class WorkingMemory {
 	 *                        should begin
 	 * @return the value of the attribute, or {@link heart.alsvfd.Null} if such value does not exist
 	 */
-	public Value findHistoricalValue(LinkedList<State> states, String attributeName, RelativeTimestamp rt){
-		State s = findHistoricalState(states, rt);
-		return s.getValueOfAttribute(attributeName);
+	public Value findHistoricalValue(List<State> states, String attributeName, RelativeTimestamp rt){
+		states = randomAccess(states);
+		int index = findHistoricalIndex(states, rt);
+		if(index < 0) return new Null();
+		return valueOf(states, index, attributeName);
 
 	}
 
@@ -298,29 +373,50 @@ public class WorkingMemory {
 	 *                        should begin
 	 * @return the state from a given point in time
 	 */
-	public State findHistoricalState(LinkedList<State> states, RelativeTimestamp rt){
-		State result = new State();
+	public State findHistoricalState(List<State> states, RelativeTimestamp rt){
+		states = randomAccess(states);
+		int index = findHistoricalIndex(states, rt);
+		if(index < 0) return new State();
+		return states.get(index);
+	}
+
+	/**
+	 * Finds the state from the point in time indicated by the #rt parameter. The states are expected to be
+	 * ordered by their timestamps, as the {@link #recordLog()} makes them, so the state given
+	 * as the number of milliseconds is found with a binary search.
+	 *
+	 * @return the index of the state, or -1 if there is no such state
+	 * (see {@link #findHistoricalState(List, RelativeTimestamp)})
+	 */
+	private int findHistoricalIndex(List<State> states, RelativeTimestamp rt){
 		switch(rt.getTimeType()){
 			case MILISCOUNT:
 				long timestamp = this.getCurrentTimestamp() + rt.getRelativeTimeDifference();
-				for(State s : states){
-					if(s.getTimestamp() >= timestamp){
-                        if(timestamp < states.getFirst().getTimestamp()){
-                            Debug.debug(Debug.heartTag,
-                                    Debug.Level.WARNING,
-                                    "Timestamp to obtain the state value is smaller than the first existing state in Working Memory. " +
-                                            "The result of the operation may be different than desired.");
-                        }
-						return s;
+				int low = 0;
+				int high = states.size();
+				while(low < high){
+					int middle = (low + high) >>> 1;
+					if(timestampOf(states, middle) < timestamp){
+						low = middle + 1;
+					}else{
+						high = middle;
 					}
 				}
-				return result;
+				if(low == states.size()){
+					return -1;
+				}
+				if(timestamp < timestampOf(states, 0)){
+					Debug.debug(Debug.heartTag,
+							Debug.Level.WARNING,
+							"Timestamp to obtain the state value is smaller than the first existing state in Working Memory. " +
+									"The result of the operation may be different than desired.");
+				}
+				return low;
 			case STATECOUNT:
-				if(rt.getRelativeTimeDifference() + states.size() < 0) return states.getFirst();
-				State s = states.get(states.size()+ (int)rt.getRelativeTimeDifference());
-				return s;
+				if(rt.getRelativeTimeDifference() + states.size() < 0) return 0;
+				return states.size()+ (int)rt.getRelativeTimeDifference();
 		}
-		return result;
+		return -1;
 	}
 
 
@@ -332,13 +428,13 @@ public class WorkingMemory {
      * If the starting point timestamp is older than the first state in the {@link #historyLog},
      * the time span is filled with {@link Null} values.
 	 *
-     * @param states list of states where the value of the attribute is searched
+     * @param states list of states where the value of the attribute is searched, e.g. a {@link #getHistoryView(boolean)}
 	 * @param period relative time period
 	 * @param attributeName name of the attribute which values has to be found
 	 * @return list of values of the attribute in a given period
 	 */
-	public LinkedList<Value> findHistoricalValues(LinkedList<State> states, RelativeTimePeriod period, String attributeName){
-
+	public LinkedList<Value> findHistoricalValues(List<State> states, RelativeTimePeriod period, String attributeName){
+        states = randomAccess(states);
         if(period.getFrom().getTimeType().equals(RelativeTimestamp.TimeType.MILISCOUNT)) {
             return findHistoricalValuesOverTime(states,period,attributeName);
         }else {
@@ -347,41 +443,52 @@ public class WorkingMemory {
 
 	}
 
-    private LinkedList<Value> findHistoricalValuesOverTime(LinkedList<State> states, RelativeTimePeriod period, String attributeName){
+    private LinkedList<Value> findHistoricalValuesOverTime(List<State> states, RelativeTimePeriod period, String attributeName){
         LinkedList<Value> result = new LinkedList<Value>();
 
-        State previousState = null;
+        long previousTimestamp = 0;
+        Value previousValue = null;
         try {
-            State startingPoint = findHistoricalState(states, period.from);
+            int startIndex = findHistoricalIndex(states, period.from);
+            long startingPoint = startIndex < 0 ? System.currentTimeMillis() : timestampOf(states, startIndex);
             long timestamp = this.getCurrentTimestamp() + period.getFrom().getRelativeTimeDifference();
-            if(timestamp < startingPoint.getTimestamp()){
-                long nullingLimit = (startingPoint.getTimestamp()-timestamp)/(period.getStep());
+            if(timestamp < startingPoint){
+                long nullingLimit = (startingPoint-timestamp)/(period.getStep());
                 for(int counter = 0; counter < nullingLimit; counter++){
                     result.add(new Null());
                 }
             }
-            int startIndex = states.indexOf(startingPoint);
-            Iterator<State> it = states.listIterator(startIndex);
-            while (it.hasNext()) {
-                State s = it.next();
-                if (previousState == null) {
+            if(startIndex < 0){
+                // This happens when the state is not present in the list
+                return result;
+            }
+            for (int index = startIndex; index < states.size(); index++) {
+                long stateTimestamp = timestampOf(states, index);
+                if (previousValue == null) {
                     // we are at the begining;
-                    previousState = s;
-                    result.add(s.getValueOfAttribute(attributeName));
+                    previousTimestamp = stateTimestamp;
+                    previousValue = valueOf(states, index, attributeName);
+                    result.add(previousValue);
                 } else {
-                    Value previousValue = previousState.getValueOfAttribute(attributeName);
-                    for (long virtualSample = previousState.getTimestamp() + period.step;
+                    boolean sampled = false;
+                    for (long virtualSample = previousTimestamp + period.step;
                          (virtualSample - period.to.getRelativeTimeDifference() <= getCurrentTimestamp());
                          virtualSample += period.step) {
-                        if (virtualSample < s.getTimestamp()) {
+                        if (virtualSample < stateTimestamp) {
                             result.add(previousValue);
                         } else {
-                            previousState = s;
-                            result.add(s.getValueOfAttribute(attributeName));
+                            previousTimestamp = stateTimestamp;
+                            previousValue = valueOf(states, index, attributeName);
+                            result.add(previousValue);
+                            sampled = true;
                             break;
                         }
 
                     }
+                    if (!sampled) {
+                        // the end of the period was reached, the later states are outside of it
+                        break;
+                    }
                 }
             }
         }catch(IndexOutOfBoundsException e){
@@ -391,23 +498,20 @@ public class WorkingMemory {
         return result;
     }
 
-    private LinkedList<Value> findHistoricalValuesOverStatecount(LinkedList<State> states, RelativeTimePeriod period, String attributeName){
+    private LinkedList<Value> findHistoricalValuesOverStatecount(List<State> states, RelativeTimePeriod period, String attributeName){
         LinkedList<Value> result = new LinkedList<Value>();
         try {
-            State startingPoint = findHistoricalState(states, period.from);
+            int startIndex = findHistoricalIndex(states, period.from);
             for(long countDiff = period.getFrom().getRelativeTimeDifference() + states.size();
                 countDiff < 0;
                 countDiff+=period.getStep()){
                 result.add(new Null());
             }
 
-            int startIndex = states.indexOf(startingPoint);
-            Iterator<State> it = states.listIterator(startIndex);
             for(int index = startIndex;
                     index - period.to.getRelativeTimeDifference() <= states.size();
                     index+=period.step ){
-                    State s = states.get(index);
-                    result.add(s.getValueOfAttribute(attributeName));
+                    result.add(valueOf(states, index, attributeName));
             }
         }catch(IndexOutOfBoundsException e){
             // This happens when the state is not present in the list
@@ -416,6 +520,27 @@ public class WorkingMemory {
         return result;
     }
 
+    /**
+     * The lists are accessed by the indexes, so the ones that are not {@link RandomAccess} are copied first.
+     */
+    private static List<State> randomAccess(List<State> states){
+        return states instanceof RandomAccess ? states : new ArrayList<State>(states);
+    }
+
+    private static long timestampOf(List<State> states, int index){
+        if(states instanceof HistoryView){
+            return ((HistoryView) states).getTimestamp(index);
+        }
+        return states.get(index).getTimestamp();
+    }
+
+    private static Value valueOf(List<State> states, int index, String attributeName){
+        if(states instanceof HistoryView){
+            return ((HistoryView) states).getValue(index, attributeName);
+        }
+        return states.get(index).getValueOfAttribute(attributeName);
+    }
+
 
 
     /**
@@ -455,6 +580,41 @@ public class WorkingMemory {
 		ave.setAttributeValue(value);
 	}
 
+    /**
+     * Returns names of the attributes which values were changed outside of the inference
+     * process (i.e. when the time was not locked) since the last {@link #clearChangedAttributes()} call.
+     * Incremental inference uses this set to find the tables that have to be processed again.
+     *
+     * @return names of the changed attributes
+     */
+    public Set<String> getChangedAttributes(){
+        return new HashSet<String>(changedAttributes);
+    }
+
+    /**
+     * Clears the set of changed attributes. It is called after every incremental inference.
+     */
+    public void clearChangedAttributes(){
+        changedAttributes.clear();
+    }
+
+    /**
+     * @return the summary of the last incremental inference, or null if there is none
+     */
+    public IncrementalBaseline getIncrementalBaseline() {
+        return incrementalBaseline;
+    }
+
+    /**
+     * Sets the summary of the last incremental inference. Setting null forces
+     * the next incremental inference to process all the tables.
+     *
+     * @param incrementalBaseline the summary of the inference
+     */
+    public void setIncrementalBaseline(IncrementalBaseline incrementalBaseline) {
+        this.incrementalBaseline = incrementalBaseline;
+    }
+
     /**
      * A method that resolves all the ambiguous assignments that are present in the working memory.
      * This method is automatically called before reasoning process starts and in {@link InferenceAlgorithm#onPostExecute()} method.
@@ -510,7 +670,9 @@ public class WorkingMemory {
 		State snapshot = getCurrentState();
 		snapshot.setName(snapshotName);
 		//TODO: what if the snapshot of a given name exists?
-		snapshots.put(snapshotName, snapshot);
+		synchronized (snapshots) {
+			snapshots.put(snapshotName, snapshot);
+		}
 		recordLog();
 	}
 	
@@ -521,7 +683,9 @@ public class WorkingMemory {
 	 * @return a state representing the snapshot or null if the snapshot of a given name is not present
 	 */
 	public State getSnapshot(String snapshotName){
-		return snapshots.get(snapshotName);
+		synchronized (snapshots) {
+			return snapshots.get(snapshotName);
+		}
 	}
 	
 	/**
@@ -530,24 +694,100 @@ public class WorkingMemory {
 	 * as the logs are more anonymous, as they cannot have custom names, and what is more
 	 * logs may be recorded automatically be the logging mechanism, whereas snapshots 
 	 * can only be made by the programmer explicitly with the {@link #makeSnapshot(String)} call.
+	 *
+	 * If the history log is a {@link DeltaHistoryStore}, only the values of the attributes
+	 * changed since the previous record are passed to it, unless the store expects a keyframe.
 	 */
 	public void recordLog(){
-		State s = getCurrentState();
-		s.setName("log_"+s.getTimestamp());
-		if(historyLog.size() >= MAX_HISTORY_SIZE){
-		    historyLog.removeFirst();
-        }
-		historyLog.addLast(s);
+		HistoryStore store = historyLog;
+		// a concurrent record could make a keyframe due between the check and the record
+		synchronized (store) {
+			if (store instanceof DeltaHistoryStore && !((DeltaHistoryStore) store).isKeyframeDue()) {
+				State changes = new State();
+				changes.setName("log_" + changes.getTimestamp());
+				for (Iterator<String> it = unloggedAttributes.iterator(); it.hasNext(); ) {
+					String name = it.next();
+					it.remove();
+					AVEntry entry = registeredAttributes.get(name);
+					changes.addStateElement(new StateElement(name, entry == null ? new Null() : entry.getValue()));
+				}
+				((DeltaHistoryStore) store).recordChanges(changes);
+			} else {
+				unloggedAttributes.clear();
+				State s = getCurrentState();
+				s.setName("log_"+s.getTimestamp());
+				store.record(s);
+			}
+		}
+		windowAggregates.record(store, this);
 	}
 
 	/**
-	 * It returns shallow copy of the entire history log with all the records made.
-	 * It invokes clone on the {@link #historyLog}.
+	 * It returns a copy of the entire history log with all the records made.
+	 * The states are taken from the {@link #historyLog} store, so depending on the store
+	 * they may be the recorded objects or new ones.
+	 * To read the history without copying it, use {@link #getHistoryView(boolean)}.
 	 * 
 	 * @return the list of all States made with the {@link #recordLog()} method.
 	 */
 	public LinkedList<State> getHistoryLogCopy() {
-		return (LinkedList<State>)historyLog.clone();
+		HistoryStore store = historyLog;
+		synchronized (store) {
+			LinkedList<State> copy = new LinkedList<State>();
+			for (int i = 0; i < store.size(); i++) {
+				copy.add(store.getState(i));
+			}
+			return copy;
+		}
+	}
+
+	/**
+	 * Returns a read-only view of the history log, which does not copy the recorded states.
+	 * The view does not include the states recorded after it was created,
+	 * see {@link HistoryView} for its behaviour when the history changes.
+	 *
+	 * @param includeCurrentState if true, the current state is appended to the view. Its values are read
+	 *                            from this working memory on demand, see {@link HistoryView#withCurrentState(HistoryStore, WorkingMemory)}
+	 * @return the view of the history log
+	 */
+	public HistoryView getHistoryView(boolean includeCurrentState) {
+		return includeCurrentState ? HistoryView.withCurrentState(historyLog, this) : new HistoryView(historyLog, null);
+	}
+
+	/**
+	 * @return the aggregates of the windows of the history log used by the statistical expressions
+	 */
+	public WindowAggregates getWindowAggregates() {
+		return windowAggregates;
+	}
+
+	/**
+	 * Starts keeping the incremental aggregates of all the windows of the history log
+	 * that are used by the statistical expressions of the model. It is invoked by the inference algorithms.
+	 *
+	 * @param model the model which statistical expressions are to be evaluated
+	 */
+	public void trackStatistics(XTTModel model) {
+		List<StatisticalExpression> expressions = model.getDependencyGraph().getStatisticalExpressions();
+		if (!expressions.isEmpty()) {
+			windowAggregates.track(expressions);
+		}
+	}
+
+	/**
+	 * @return the store of the history log
+	 */
+	public HistoryStore getHistoryStore() {
+		return historyLog;
+	}
+
+	/**
+	 * Replaces the store of the history log. The states recorded in the previous store are not moved to the new one.
+	 *
+	 * @param historyStore the new store of the history log
+	 */
+	public void setHistoryStore(HistoryStore historyStore) {
+		this.historyLog = historyStore;
 	}
 
 
@@ -558,7 +798,9 @@ public class WorkingMemory {
 	 * @return the list of all the snapshots made.
 	 */
 	public LinkedList<State> getSnapshots() {
-		return new LinkedList<State>(snapshots.values());
+		synchronized (snapshots) {
+			return new LinkedList<State>(snapshots.values());
+		}
 	}
 
     public long getCurrentTimestamp() {
@@ -573,6 +815,10 @@ public class WorkingMemory {
         this.currentTimestamp = currentTimestamp;
     }
 
+    ReentrantLock getSessionLock() {
+        return sessionLock;
+    }
+
     public void lockTime(){
         timeLock = true;
         setCurrentTimestamp(System.currentTimeMillis());
@@ -587,6 +833,12 @@ public class WorkingMemory {
     }
 
 
+    /**
+     * An entry holding the value of a single attribute.
+     * Its methods are guarded by a {@link ReentrantLock}, as the tables processed concurrently
+     * (see {@link heart.Configuration#getParallelism()}) may read the same attribute at the same time.
+     * A monitor would pin the carrier of a virtual thread while the callback of the attribute runs.
+     */
     protected class AVEntry{
 		/**
 		 * The attribute which value is stored within the entry
@@ -604,6 +856,8 @@ public class WorkingMemory {
 		 * current value of the Attribute. This is where the current state is stored
 		 */
 		private Value value;
+
+		private final ReentrantLock lock = new ReentrantLock();
 		
 		public AVEntry(Attribute attr, Value value) throws NotInTheDomainException{
 		    ambiguousValues = new LinkedList<Value>();
@@ -632,25 +886,45 @@ public class WorkingMemory {
          * @see  #lockTime()
 		 */
 		protected Value getValue(){
-            resolveAmbiguousAttributeValue();
-			try {
-				if (attr.getComm().equals(attr.COMM_IN) && attr.getCallback() != null && isTimeLocked()) {
-					if (value instanceof Null || value.getTimestamp() < getCurrentTimestamp()) {
-						String callbackClass = attr.getCallback();
-						Class<?> actionClass = Class.forName(callbackClass);
-						Object[] objToPass = {attr,WorkingMemory.this};
-						Class<?> paramsTypes[] = {Attribute.class,WorkingMemory.class};
-						Method method = actionClass.getMethod("execute",paramsTypes);
-						Callback callback = (Callback) actionClass.newInstance();
-						method.invoke(callback,objToPass);
-
-						if(!ambiguousValues.isEmpty()){
-                            this.value = getAmbiguityResolver().resolveCumulativeConclusions(ambiguousValues);
-                            ambiguousValues.clear();
-                        }
-					}
+            lock.lock();
+            try {
+                resolveAmbiguousAttributeValue();
+                if (!isCallbackDue()) {
+                    return value;
+                }
+            } finally {
+                lock.unlock();
+            }
 
-				}
+            // the callback sets the value through the working memory, so it is invoked without holding the lock
+            invokeCallback();
+
+            lock.lock();
+            try {
+                if(!ambiguousValues.isEmpty()){
+                    assign(getAmbiguityResolver().resolveCumulativeConclusions(ambiguousValues));
+                    ambiguousValues.clear();
+                }
+                return value;
+            } finally {
+                lock.unlock();
+            }
+		}
+
+        private boolean isCallbackDue(){
+            return attr.getComm().equals(attr.COMM_IN) && attr.getCallback() != null && isTimeLocked()
+                    && (value instanceof Null || value.getTimestamp() < getCurrentTimestamp());
+        }
+
+        private void invokeCallback(){
+			try {
+				String callbackClass = attr.getCallback();
+				Class<?> actionClass = Class.forName(callbackClass);
+				Object[] objToPass = {attr,WorkingMemory.this};
+				Class<?> paramsTypes[] = {Attribute.class,WorkingMemory.class};
+				Method method = actionClass.getMethod("execute",paramsTypes);
+				Callback callback = (Callback) actionClass.newInstance();
+				method.invoke(callback,objToPass);
 			}catch (InstantiationException e) {
 				e.printStackTrace();
 			} catch (InvocationTargetException e) {
@@ -662,10 +936,7 @@ public class WorkingMemory {
 			} catch (ClassNotFoundException e) {
 				e.printStackTrace();
 			}
-
-            return this.value;
-
-		}
+        }
 		
 		/**
 		 * A method that sets a value of the attribute for a value given as a parameter.
@@ -729,10 +1000,16 @@ public class WorkingMemory {
                 toAssign = new Null();
             }
 
-            if(isTimeLocked()){
-                setAmbiguousAttributeValue(toAssign);
-            }else {
-                this.value = toAssign;
+            lock.lock();
+            try {
+                if(isTimeLocked()){
+                    setAmbiguousAttributeValue(toAssign);
+                }else {
+                    assign(toAssign);
+                    changedAttributes.add(attr.getName());
+                }
+            } finally {
+                lock.unlock();
             }
 
         }
@@ -740,21 +1017,52 @@ public class WorkingMemory {
 
 
         void resolveAmbiguousAttributeValue(){
-            if(!ambiguousValues.isEmpty()){
-                this.value = getAmbiguityResolver().resolveCumulativeConclusions(ambiguousValues);
+            lock.lock();
+            try {
+                if(!ambiguousValues.isEmpty()){
+                    assign(getAmbiguityResolver().resolveCumulativeConclusions(ambiguousValues));
+                }
+            } finally {
+                lock.unlock();
             }
         }
 
         void clearAmbiguousValues(){
-            ambiguousValues.clear();
+            lock.lock();
+            try {
+                ambiguousValues.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Assigns the value and marks the attribute as changed for the {@link #recordLog()},
+         * unless the value is the same as the current one.
+         */
+        private void assign(Value v){
+            Value previous = value;
+            value = v;
+            if (v == previous) {
+                return;
+            }
+            if (v.getClass() != previous.getClass() || v.getCertaintyFactor() != previous.getCertaintyFactor()
+                    || !(v instanceof Null || v.equals(previous))) {
+                unloggedAttributes.add(attr.getName());
+            }
         }
 
         void setAmbiguousAttributeValue(Value v){
-		    if(v instanceof Null){
-		        ambiguousValues.clear();
-		        value = v;
-            }else {
-                ambiguousValues.addLast(v);
+            lock.lock();
+            try {
+                if(v instanceof Null){
+                    ambiguousValues.clear();
+                    assign(v);
+                }else {
+                    ambiguousValues.addLast(v);
+                }
+            } finally {
+                lock.unlock();
             }
         }
 
@@ -34,8 +34,6 @@ import heart.uncertainty.UncertainTrue;
 import heart.uncertainty.UncertainTrueEvaluator;
 import heart.xtt.Attribute;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.*;
 
 public class Formulae {
@@ -129,92 +127,19 @@ public class Formulae {
 	
 	protected AttributeExpressionInterface lhs;
 	protected ConditionalOperator op;
+	protected UncertainTrueEvaluator.Operator operator;
     protected TimeBasedParameter tbp;
 	protected ExpressionInterface rhs;
 	
 	public UncertainTrue evaluate(WorkingMemory wm, UncertainTrueEvaluator ute)
             throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
-            try {
-                switch (op) {
-                    case EQ:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainEq",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainEq(lhs, rhs, wm);
-                        }
-                    case NEQ:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainNeq",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainNeq(lhs, rhs, wm);
-                        }
-                    case IN:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainIn",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainIn(lhs, rhs, wm);
-                        }
-                    case NOTIN:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainNotin",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainNotin(lhs, rhs, wm);
-                        }
-                    case SUBSET:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainSubset",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainSubset(lhs, rhs, wm);
-                        }
-                    case SUPSET:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainSupset",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainSupset(lhs, rhs, wm);
-                        }
-                    case SIM:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainSim",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainSim(lhs, rhs, wm);
-                        }
-                    case NOTSIM:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainNotsim",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainNotsim(lhs, rhs, wm);
-                        }
-                    case LT:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainLt",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainLt(lhs, rhs, wm);
-                        }
-                    case LTE:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainLte",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainLte(lhs, rhs, wm);
-                        }
-                    case GT:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainGt",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainGt(lhs, rhs, wm);
-                        }
-                    case GTE:
-                        if (tbp != null) {
-                            return ute.evaluateTimeRange(lhs,rhs,tbp,ute.getClass().getMethod("evaluateUncertainGte",ExpressionInterface.class,ExpressionInterface.class,WorkingMemory.class),wm);
-                        } else {
-                            return ute.evaluateUncertainGte(lhs, rhs, wm);
-                        }
-                    default:
-                        throw new UnsupportedOperationException("Operator " + op + " not defined in ALSV(FD).");
-                }
-            }catch(NoSuchMethodException e){
-                // This will never happen, so just remain silent
-                //return only to make the compiler happy
-                return new UncertainTrue(0.0f);
+            if (operator == null) {
+                throw new UnsupportedOperationException("Operator " + op + " not defined in ALSV(FD).");
+            }
+            if (tbp != null) {
+                return ute.evaluateTimeRange(lhs, rhs, tbp, operator, wm);
+            } else {
+                return operator.evaluate(ute, lhs, rhs, wm);
             }
 	}
 	
@@ -233,6 +158,14 @@ public class Formulae {
 	 */
 	protected void setOp(ConditionalOperator op) {
 		this.op = op;
+		this.operator = UncertainTrueEvaluator.Operator.of(op);
+	}
+
+	/**
+	 * @return the operator of the evaluator that corresponds to the operator of the formula
+	 */
+	public UncertainTrueEvaluator.Operator getEvaluatorOperator() {
+		return operator;
 	}
 
 	public ExpressionInterface getLHS() {
@@ -263,6 +196,22 @@ public class Formulae {
         return this.lhs.getAttribute();
     }
 
+    /**
+     * Creates a copy of the formula that compares the same attribute with another value.
+     *
+     * @param op the operator of the new formula
+     * @param rhs the right-hand side of the new formula
+     * @return a new formula with the left-hand side and the time based parameter of this one
+     */
+    public Formulae withRHS(ConditionalOperator op, ExpressionInterface rhs) {
+        Formulae f = new Formulae();
+        f.setLHS(this.lhs);
+        f.setOp(op);
+        f.setRHS(rhs);
+        f.tbp = this.tbp;
+        return f;
+    }
+
 	@Override
 	public String toString() {
 		return lhs+" "+op+(tbp != null ? tbp : "")+" "+rhs;
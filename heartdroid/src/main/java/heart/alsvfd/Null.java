@@ -38,6 +38,13 @@ import heart.xtt.Type;
  */
 public class Null extends Value{
 
+	/**
+	 * The shared instance returned for the attributes that have no value at all, e.g. by
+	 * {@link WorkingMemory#getAttributeValue(heart.xtt.Attribute)}, so that reading them does not allocate objects.
+	 * Its certainty factor and timestamp cannot be modified; use {@link #clone()} to obtain a modifiable copy.
+	 */
+	public static final Null INSTANCE = new Null();
+
 	@Override
 	public boolean eq(Value v, Type t) throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
 		if(t != null && !v.isInTheDomain(t))  throw new NotInTheDomainException(t.getDomain(), v, "Value "+v+" not in the domain");
@@ -156,5 +163,23 @@ public class Null extends Value{
 		return new Null();
 	}
 
+	@Override
+	public void setCertaintyFactor(float certaintyFactor) {
+		checkModifiable();
+		super.setCertaintyFactor(certaintyFactor);
+	}
+
+	@Override
+	public void setTimestamp(long timestamp) {
+		checkModifiable();
+		super.setTimestamp(timestamp);
+	}
+
+	private void checkModifiable() {
+		if(this == INSTANCE){
+			throw new UnsupportedOperationException("The shared Null instance cannot be modified.");
+		}
+	}
+
 
 }
@@ -355,8 +355,9 @@ public class SetValue extends Value implements Iterable<Value>{
 	@Override
 	public boolean isInTheDomain(Type t) throws UnsupportedOperationException,
             NotInTheDomainException, UnknownValueException {
-		for (Value setElement : getValues()) {
-			if (!setElement.isInTheDomain(t))
+		List<Value> elements = getValues();
+		for (int i = 0; i < elements.size(); i++) {
+			if (!elements.get(i).isInTheDomain(t))
 				return false;
 		}
 		return true;
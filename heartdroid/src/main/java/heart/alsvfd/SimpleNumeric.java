@@ -33,6 +33,8 @@ import heart.exceptions.NotInTheDomainException;
 import heart.exceptions.UnknownValueException;
 import heart.xtt.Type;
 
+import java.util.List;
+
 public class SimpleNumeric extends Value {
 	public static final String INF_PLUS = "+inf";
 	public static final String INF_MINUS = "-inf";
@@ -143,45 +145,48 @@ public class SimpleNumeric extends Value {
 	private boolean computeSetExpresion(Value v, Type t, SetOperations operation)
             throws NotInTheDomainException, UnknownValueException {
 		checkForExceptions(v, t, operation);
-		try {
-			SetValue sv = (SetValue) v;
-			for (Value subset : sv.getValues()) {
-				if (subset instanceof SimpleSymbolic
-						|| subset instanceof SimpleNumeric) {
-					// In a case when a subset is just a value, compare
-					if (this.eq(subset, t))
-						return true;
-				} else {
-					// In a case when subset is another set, or range value, go
-					// recursively
-					if (this.in(subset, t))
-						return true;
-				}
+		if (v instanceof SetValue) {
+			return computeSetMembership((SetValue) v, t);
+		} else if (v instanceof Range) {
+			Range rnv = (Range) v;
+			if (this.gt(rnv.getFrom(), t) && this.lt(rnv.getTo(), t)) {
+				return true;
+			} else if (rnv.isLeftInclusive() && this.eq(rnv.getFrom(), t)) {
+				return true;
+			} else if (rnv.isRightInclusive() && this.eq(rnv.getTo(), t)) {
+				return true;
 			}
-			return false;
+		} else if(v instanceof Null) {
+			throw new UnknownValueException("Error while evaluating "+this+" gt "+v+". Operator not supported for this types.");
+		} else {
+			throw new UnsupportedOperationException(
+					"Error while checking membership of numeric value. Set or range value expected, not "
+							+ v);
+		}
 
-		} catch (ClassCastException e) {
-			if (v instanceof Range) {
-				Range rnv = (Range) v;
-				if (this.gt(rnv.getFrom(), t) && this.lt(rnv.getTo(), t)) {
-					return true;
-				} else if (rnv.isLeftInclusive() && this.eq(rnv.getFrom(), t)) {
-					return true;
-				} else if (rnv.isRightInclusive() && this.eq(rnv.getTo(), t)) {
+		return false;
+	}
+
+	/**
+	 * Checks if the value is equal to an element of the set or belongs to one of its ranges.
+	 */
+	private boolean computeSetMembership(SetValue sv, Type t)
+            throws NotInTheDomainException, UnknownValueException {
+		List<Value> subsets = sv.getValues();
+		for (int i = 0; i < subsets.size(); i++) {
+			Value subset = subsets.get(i);
+			if (subset instanceof SimpleSymbolic
+					|| subset instanceof SimpleNumeric) {
+				// In a case when a subset is just a value, compare
+				if (this.eq(subset, t))
 					return true;
-				}
 			} else {
-                if(v instanceof Null) {
-                    throw new UnknownValueException("Error while evaluating "+this+" gt "+v+". Operator not supported for this types.");
-                }else {
-                    throw new UnsupportedOperationException(
-                            "Error while checking membership of numeric value. Set or range value expected, not "
-                                    + v);
-                }
+				// In a case when subset is another set, or range value, go
+				// recursively
+				if (this.in(subset, t))
+					return true;
 			}
-
 		}
-
 		return false;
 	}
 
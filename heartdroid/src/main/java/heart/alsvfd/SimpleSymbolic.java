@@ -30,6 +30,8 @@ import heart.exceptions.NotInTheDomainException;
 import heart.exceptions.UnknownValueException;
 import heart.xtt.Type;
 
+import java.util.List;
+
 public class SimpleSymbolic extends Value {
 	public static final String NOT_ORDERED_ERROR_MESSAGE = "Can not use this operation for not ordered values!";
 	
@@ -125,17 +127,18 @@ public class SimpleSymbolic extends Value {
 	public boolean in(Value v, Type t) throws UnsupportedOperationException,
             NotInTheDomainException, UnknownValueException {
 		checkNullAndAny(v);		
-		try {
-			if (t != null) {
-				if (!this.isInTheDomain(t))
-					throw new NotInTheDomainException(t.getDomain(), this,
-							"Value " + this + " not in the domain");
-				if (!v.isInTheDomain(t))
-					throw new NotInTheDomainException(t.getDomain(), v,
-							"Value " + v + " not in the domain");
-			}			
-			SetValue sv = (SetValue) v;
-			for (Value subset : sv.getValues()) {
+		if (t != null) {
+			if (!this.isInTheDomain(t))
+				throw new NotInTheDomainException(t.getDomain(), this,
+						"Value " + this + " not in the domain");
+			if (!v.isInTheDomain(t))
+				throw new NotInTheDomainException(t.getDomain(), v,
+						"Value " + v + " not in the domain");
+		}			
+		if (v instanceof SetValue) {
+			List<Value> subsets = ((SetValue) v).getValues();
+			for (int i = 0; i < subsets.size(); i++) {
+				Value subset = subsets.get(i);
 				if (subset instanceof SimpleSymbolic
 						|| subset instanceof SimpleNumeric) {
 					// In a case when a subset is just a value, compare
@@ -150,22 +153,19 @@ public class SimpleSymbolic extends Value {
 			}
 			return false;
 
-		} catch (ClassCastException e) {
-			if (v instanceof Range) {
-				Range rnv = (Range) v;
-				if (this.gt(rnv.getFrom(), t) && this.lt(rnv.getTo(), t)) {
-					return true;
-				} else if (rnv.isLeftInclusive() && this.eq(rnv.getFrom(), t)) {
-					return true;
-				} else if (rnv.isRightInclusive() && this.eq(rnv.getTo(), t)) {
-					return true;
-				}
-			} else if(v instanceof Null) {
-                throw new UnknownValueException("Error while evaluating "+this+" gt "+v+". Operator not supported for this types.");
-            }else{
-
-				throw new UnsupportedOperationException(getWrongValueMessage(v));
+		} else if (v instanceof Range) {
+			Range rnv = (Range) v;
+			if (this.gt(rnv.getFrom(), t) && this.lt(rnv.getTo(), t)) {
+				return true;
+			} else if (rnv.isLeftInclusive() && this.eq(rnv.getFrom(), t)) {
+				return true;
+			} else if (rnv.isRightInclusive() && this.eq(rnv.getTo(), t)) {
+				return true;
 			}
+		} else if(v instanceof Null) {
+			throw new UnknownValueException("Error while evaluating "+this+" gt "+v+". Operator not supported for this types.");
+		} else {
+			throw new UnsupportedOperationException(getWrongValueMessage(v));
 		}
 		return false;
 	}
@@ -237,12 +237,23 @@ public class SimpleSymbolic extends Value {
 	 *         parameter. If no match is found null is returned.
 	 */
 	public static SimpleSymbolic findInTheDomain(SimpleSymbolic v, Type t) {
-		for (Value domainElement : t.getDomain().getValues()) {
+		SimpleSymbolic domainValue = findDomainElement(v, t);
+		return domainValue != null ? new SimpleSymbolic(domainValue) : null;
+	}
+
+	/**
+	 * Works as {@link #findInTheDomain(SimpleSymbolic, Type)}, but returns the element of the domain
+	 * instead of its copy, so it must not be modified. It is used by the comparisons, which only read it.
+	 */
+	private static SimpleSymbolic findDomainElement(SimpleSymbolic v, Type t) {
+		List<Value> domain = t.getDomain().getValues();
+		for (int i = 0; i < domain.size(); i++) {
+			Value domainElement = domain.get(i);
 			if (domainElement instanceof SimpleSymbolic) {
 				SimpleSymbolic domainValue = (SimpleSymbolic) domainElement;
 				// check for symbolic names
 				if (domainValue.getValue().equals(v.getValue())) {
-					return new SimpleSymbolic(domainValue);
+					return domainValue;
 				}
 			}
 		}
@@ -262,14 +273,25 @@ public class SimpleSymbolic extends Value {
 	 *         parameter. If no match is found null is returned.
 	 */
 	public static SimpleSymbolic findInTheDomain(SimpleNumeric v, Type t) {
+		SimpleSymbolic domainValue = findDomainElement(v, t);
+		return domainValue != null ? new SimpleSymbolic(domainValue) : null;
+	}
+
+	/**
+	 * Works as {@link #findInTheDomain(SimpleNumeric, Type)}, but returns the element of the domain
+	 * instead of its copy, so it must not be modified.
+	 */
+	private static SimpleSymbolic findDomainElement(SimpleNumeric v, Type t) {
 		if(!t.getOrdered().equals(Type.ORDERED_YES)) 
 			throw new UnsupportedOperationException(SimpleSymbolic.NOT_ORDERED_ERROR_MESSAGE);
-		for (Value domainElement : t.getDomain().getValues()) {
+		List<Value> domain = t.getDomain().getValues();
+		for (int i = 0; i < domain.size(); i++) {
+			Value domainElement = domain.get(i);
 			if (domainElement instanceof SimpleSymbolic) {
 				SimpleSymbolic domainValue = (SimpleSymbolic) domainElement;
 				// check for symbolic names
 				if (domainValue.getOrder().equals(v.getValue().intValue())) {
-					return new SimpleSymbolic(domainValue);
+					return domainValue;
 				}
 			}
 		}
@@ -278,7 +300,7 @@ public class SimpleSymbolic extends Value {
 
 	@Override
 	public boolean isInTheDomain(Type t) {
-		return (findInTheDomain(this, t) != null);
+		return (findDomainElement(this, t) != null);
 	}
 
 	@Override
@@ -299,7 +321,8 @@ public class SimpleSymbolic extends Value {
 			return (SimpleSymbolic) value;
 		}
 		Value temp = value;
-		value = findInTheDomain(value, type);		
+		value = value instanceof SimpleSymbolic ? findDomainElement((SimpleSymbolic) value, type)
+				: findDomainElement((SimpleNumeric) value, type);
 		// not in the domain
 		if (value == null) {
 			throw new NotInTheDomainException(type.getDomain(),temp,
@@ -80,26 +80,38 @@ public class BinaryExpression implements ExpressionInterface {
         this.op = op;
     }
 
-    private Value staticEvaluate(Value left, Value right) throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+    public ExpressionInterface getLeftOperand() {
+        return lhs;
+    }
+
+    public ExpressionInterface getRightOperand() {
+        return rhs;
+    }
+
+    public BinaryOperator getOperator() {
+        return op;
+    }
+
+    Value staticEvaluate(Value left, Value right) throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
         Value result = null;
 
         switch (op) {
-            case SUM:System.out.println("Adding "+left +" to "+ right);
+            case SUM:
                 result = left.add(right, null);
                 break;
-            case SUB:System.out.println("Subing "+left +" to "+ right);
+            case SUB:
                 result = left.sub(right, null);
                 break;
-            case MUL: System.out.println("Mul "+left +" to "+ right);
+            case MUL:
                 result = left.mul(right, null);
                 break;
-            case DIV:System.out.println("Div "+left +" to "+ right);
+            case DIV:
                 result = left.div(right, null);
                 break;
-            case MOD:System.out.println("Mod "+left +" to "+ right);
+            case MOD:
                 result = left.mod(right,null);
                 break;
-            case POW:System.out.println("Pow "+left +" to "+ right);
+            case POW:
                 result  = left.pow(right,null);
                 break;
             case UNION:
@@ -0,0 +1,395 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.alsvfd.expressions;
+
+import heart.Debug;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.Value;
+import heart.exceptions.NotInTheDomainException;
+import heart.exceptions.UnknownValueException;
+import heart.xtt.Attribute;
+import heart.xtt.Type;
+
+/**
+ * Compiles expression trees into trees of specialized nodes, which give the same results
+ * as the original expressions, but evaluate faster:
+ * <ul>
+ * <li>subtrees that do not read any attribute are evaluated once, during the compilation,</li>
+ * <li>arithmetic subtrees over numeric attributes and constants are evaluated on primitive doubles,
+ * so that only the final result is allocated. When any operand turns out not to be a {@link SimpleNumeric}
+ * (e.g. it is {@link Null}), the subtree is evaluated in the regular way,</li>
+ * <li>the other expressions, e.g. the ones looking up the history log, are used as they are.</li>
+ * </ul>
+ * The compiled expressions are immutable and can be shared by many threads.
+ */
+public final class ExpressionCompiler {
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * Compiles the expression.
+     *
+     * @param expression the expression to compile
+     * @return the compiled expression, or the given one if it cannot be improved
+     */
+    public static ExpressionInterface compile(ExpressionInterface expression) {
+        if (expression == null) {
+            return null;
+        }
+        Node node = compileNode(expression);
+        if (node instanceof Opaque || node instanceof AttributeRead || expression instanceof Value) {
+            return expression;
+        }
+        return node;
+    }
+
+    private static Node compileNode(ExpressionInterface e) {
+        Node node;
+        if (e instanceof BinaryExpression) {
+            BinaryExpression b = (BinaryExpression) e;
+            node = new Binary(b, compileNode(b.getLeftOperand()), compileNode(b.getRightOperand()));
+        } else if (e instanceof UnaryExpression) {
+            UnaryExpression u = (UnaryExpression) e;
+            node = new Unary(u, compileNode(u.getArgument()));
+        } else if (e instanceof Value || e instanceof DomainExpression) {
+            return new Constant(e, evaluateConstant(e));
+        } else if (e instanceof Attribute) {
+            return new AttributeRead((Attribute) e);
+        } else {
+            return new Opaque(e);
+        }
+        if (node.isConstant()) {
+            Value folded = evaluateConstant(node);
+            if (folded != null) {
+                return new Constant(e, folded);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @return the value of the expression that does not read the working memory, or null if it cannot be evaluated statically
+     */
+    private static Value evaluateConstant(ExpressionInterface e) {
+        try {
+            Value v = e.evaluate(null);
+            return v instanceof Null ? null : v;
+        } catch (NotInTheDomainException ex) {
+            return null;
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Thrown by {@link Node#evaluateNumber(WorkingMemory)} when an operand is not a number.
+     * A single instance without the stack trace is used, as it only redirects the evaluation.
+     */
+    private static class NotNumeric extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        static final NotNumeric INSTANCE = new NotNumeric();
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static abstract class Node implements ExpressionInterface {
+        protected final ExpressionInterface original;
+
+        Node(ExpressionInterface original) {
+            this.original = original;
+        }
+
+        /**
+         * @return true if the node can be evaluated with {@link #evaluateNumber(WorkingMemory)}
+         */
+        abstract boolean isNumeric();
+
+        /**
+         * @return true if the node does not read the working memory
+         */
+        abstract boolean isConstant();
+
+        /**
+         * @return the value of {@link #evaluate(WorkingMemory)} as a primitive
+         * @throws NotNumeric if the value is not a {@link SimpleNumeric}
+         */
+        abstract double evaluateNumber(WorkingMemory wm);
+
+        @Override
+        public Type evaluateType(WorkingMemory wm) {
+            return original.evaluateType(wm);
+        }
+
+        @Override
+        public String toString() {
+            return original.toString();
+        }
+    }
+
+    private static class Constant extends Node {
+        private final Value value;
+
+        Constant(ExpressionInterface original, Value value) {
+            super(original);
+            this.value = value;
+        }
+
+        @Override
+        boolean isNumeric() {
+            return value instanceof SimpleNumeric && ((SimpleNumeric) value).getValue() != null;
+        }
+
+        @Override
+        boolean isConstant() {
+            return value != null;
+        }
+
+        @Override
+        double evaluateNumber(WorkingMemory wm) {
+            if (!isNumeric()) {
+                throw NotNumeric.INSTANCE;
+            }
+            return ((SimpleNumeric) value).getValue();
+        }
+
+        @Override
+        public Value evaluate(WorkingMemory wm) throws UnsupportedOperationException, NotInTheDomainException {
+            return value != null ? value : original.evaluate(wm);
+        }
+    }
+
+    private static class AttributeRead extends Node {
+        private final Attribute attribute;
+        private final boolean numeric;
+
+        AttributeRead(Attribute attribute) {
+            super(attribute);
+            this.attribute = attribute;
+            // the value of an attribute with a callback should be read only once
+            boolean callback = Attribute.COMM_IN.equals(attribute.getComm()) && attribute.getCallback() != null;
+            this.numeric = !callback && attribute.getType() != null && attribute.getType().isNumeric();
+        }
+
+        @Override
+        boolean isNumeric() {
+            return numeric;
+        }
+
+        @Override
+        boolean isConstant() {
+            return false;
+        }
+
+        @Override
+        double evaluateNumber(WorkingMemory wm) {
+            Value v = wm.getAttributeValue(attribute);
+            if (!(v instanceof SimpleNumeric) || ((SimpleNumeric) v).getValue() == null) {
+                throw NotNumeric.INSTANCE;
+            }
+            return ((SimpleNumeric) v).getValue();
+        }
+
+        @Override
+        public Value evaluate(WorkingMemory wm) throws UnsupportedOperationException, NotInTheDomainException {
+            return wm.getAttributeValue(attribute);
+        }
+    }
+
+    private static class Opaque extends Node {
+        Opaque(ExpressionInterface original) {
+            super(original);
+        }
+
+        @Override
+        boolean isNumeric() {
+            return false;
+        }
+
+        @Override
+        boolean isConstant() {
+            return false;
+        }
+
+        @Override
+        double evaluateNumber(WorkingMemory wm) {
+            throw NotNumeric.INSTANCE;
+        }
+
+        @Override
+        public Value evaluate(WorkingMemory wm) throws UnsupportedOperationException, NotInTheDomainException {
+            return original.evaluate(wm);
+        }
+    }
+
+    private static class Binary extends Node {
+        private final BinaryExpression expression;
+        private final BinaryExpression.BinaryOperator op;
+        private final Node left;
+        private final Node right;
+        private final boolean numeric;
+
+        Binary(BinaryExpression expression, Node left, Node right) {
+            super(expression);
+            this.expression = expression;
+            this.op = expression.getOperator();
+            this.left = left;
+            this.right = right;
+            boolean arithmetic = op == BinaryExpression.BinaryOperator.SUM || op == BinaryExpression.BinaryOperator.SUB
+                    || op == BinaryExpression.BinaryOperator.MUL || op == BinaryExpression.BinaryOperator.DIV
+                    || op == BinaryExpression.BinaryOperator.MOD || op == BinaryExpression.BinaryOperator.POW;
+            this.numeric = arithmetic && left.isNumeric() && right.isNumeric();
+        }
+
+        @Override
+        boolean isNumeric() {
+            return numeric;
+        }
+
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+
+        @Override
+        double evaluateNumber(WorkingMemory wm) {
+            if (!numeric) {
+                throw NotNumeric.INSTANCE;
+            }
+            double a = left.evaluateNumber(wm);
+            double b = right.evaluateNumber(wm);
+            switch (op) {
+                case SUM:
+                    return a + b;
+                case SUB:
+                    return a - b;
+                case MUL:
+                    return a * b;
+                case DIV:
+                    return a / b;
+                case MOD:
+                    return a % b;
+                default:
+                    return Math.pow(a, b);
+            }
+        }
+
+        @Override
+        public Value evaluate(WorkingMemory wm) throws UnsupportedOperationException, NotInTheDomainException {
+            if (numeric) {
+                try {
+                    return new SimpleNumeric(evaluateNumber(wm));
+                } catch (NotNumeric e) {
+                    // evaluated in the regular way below
+                }
+            }
+            Value l = left.evaluate(wm);
+            Value r = right.evaluate(wm);
+            try {
+                return expression.staticEvaluate(l, r);
+            } catch (UnknownValueException e) {
+                Debug.debug(Debug.heartTag,
+                        Debug.Level.WARNING,
+                        "Evaluating expression "+expression.toString()+" failed due to Null values. Returning Null as a result.");
+                return new Null();
+            }
+        }
+    }
+
+    private static class Unary extends Node {
+        private final UnaryExpression expression;
+        private final UnaryExpression.UnaryOperator op;
+        private final Node argument;
+        private final boolean numeric;
+
+        Unary(UnaryExpression expression, Node argument) {
+            super(expression);
+            this.expression = expression;
+            this.op = expression.getOperator();
+            this.argument = argument;
+            this.numeric = op != UnaryExpression.UnaryOperator.POWERSET && argument.isNumeric();
+        }
+
+        @Override
+        boolean isNumeric() {
+            return numeric;
+        }
+
+        @Override
+        boolean isConstant() {
+            return argument.isConstant();
+        }
+
+        @Override
+        double evaluateNumber(WorkingMemory wm) {
+            if (!numeric) {
+                throw NotNumeric.INSTANCE;
+            }
+            double x = argument.evaluateNumber(wm);
+            switch (op) {
+                case ABS:
+                    return Math.abs(x);
+                case COSINUS:
+                    return Math.cos(x);
+                case SINUS:
+                    return Math.sin(x);
+                case TANGENS:
+                    return Math.tan(x);
+                case LOGARITHM:
+                    return Math.log(x);
+                default:
+                    if (x % 1 != 0) {
+                        // the regular evaluation reports the error
+                        throw NotNumeric.INSTANCE;
+                    }
+                    double result = 1;
+                    for (double counter = 1; counter <= x; counter++) {
+                        result *= counter;
+                    }
+                    return result;
+            }
+        }
+
+        @Override
+        public Value evaluate(WorkingMemory wm) throws UnsupportedOperationException, NotInTheDomainException {
+            // the certainty factor of the argument is passed to the result, so it has to be evaluated as a value
+            Value a = argument.evaluate(wm);
+            try {
+                return expression.staticEvaluate(a);
+            } catch (UnknownValueException e) {
+                Debug.debug(Debug.heartTag,
+                        Debug.Level.WARNING,
+                        "Evaluating expression "+expression.toString()+" failed due to Null values. Returning Null as a result.");
+                return new Null();
+            }
+        }
+    }
+}
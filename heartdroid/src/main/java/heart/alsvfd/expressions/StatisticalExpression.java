@@ -34,6 +34,7 @@ import heart.exceptions.BuilderException;
 import heart.exceptions.NotInTheDomainException;
 import heart.exceptions.StaticEvaluationException;
 import heart.exceptions.UnknownValueException;
+import heart.history.HistoryView;
 import heart.xtt.Attribute;
 import heart.xtt.Type;
 
@@ -61,6 +62,14 @@ public class StatisticalExpression implements AttributeExpressionInterface {
         return this.attribute;
     }
 
+    public StatisticalOperator getOperator() {
+        return op;
+    }
+
+    public RelativeTimePeriod getPeriod() {
+        return period;
+    }
+
     public static enum StatisticalOperator {
         MAX("max"), MIN("min"), MEAN("mean"), VAR("var"),
         STDEV("stdev"), TREND("trend"), MODE("mode"), MED("med"),ENT("entropy");
@@ -99,8 +108,7 @@ public class StatisticalExpression implements AttributeExpressionInterface {
      * @throws NotInTheDomainException
      */
     public Value max(String attributeName, RelativeTimePeriod period, WorkingMemory wm) throws NotInTheDomainException {
-        LinkedList<State> allStates = wm.getHistoryLogCopy();
-        allStates.addLast(wm.getCurrentState());
+        HistoryView allStates = wm.getHistoryView(true);
         LinkedList<Value> values = wm.findHistoricalValues(allStates,period, attributeName);
 
         Value result = values.getFirst();
@@ -129,8 +137,7 @@ public class StatisticalExpression implements AttributeExpressionInterface {
      * @throws NotInTheDomainException
      */
     public Value min(String attributeName, RelativeTimePeriod period, WorkingMemory wm) throws NotInTheDomainException {
-        LinkedList<State> allStates = wm.getHistoryLogCopy();
-        allStates.addLast(wm.getCurrentState());
+        HistoryView allStates = wm.getHistoryView(true);
         LinkedList<Value> values = wm.findHistoricalValues(allStates,period, attributeName);
         Value result = values.getFirst();
         for(Value v : values){
@@ -158,8 +165,7 @@ public class StatisticalExpression implements AttributeExpressionInterface {
      * @throws NotInTheDomainException
      */
     public Value med(String attributeName, RelativeTimePeriod period, WorkingMemory wm) throws NotInTheDomainException{
-        LinkedList<State> allStates = wm.getHistoryLogCopy();
-        allStates.addLast(wm.getCurrentState());
+        HistoryView allStates = wm.getHistoryView(true);
         LinkedList<Value> values = wm.findHistoricalValues(allStates,period, attributeName);
         LinkedList<Value> filtered = new LinkedList<Value>();
         for(Value v : values){
@@ -251,8 +257,7 @@ public class StatisticalExpression implements AttributeExpressionInterface {
      * @throws NotInTheDomainException
      */
     public Value trend(String attributeName, RelativeTimePeriod period, WorkingMemory wm){
-        LinkedList<State> allStates = wm.getHistoryLogCopy();
-        allStates.addLast(wm.getCurrentState());
+        HistoryView allStates = wm.getHistoryView(true);
         LinkedList<Value> values = wm.findHistoricalValues(allStates,period, attributeName);
         LinkedList<Value> filtered = new LinkedList<Value>();
         LinkedList<Double> timevector = new LinkedList<Double>();
@@ -322,8 +327,7 @@ public class StatisticalExpression implements AttributeExpressionInterface {
      * @throws NotInTheDomainException
      */
     public Value var(String attributeName, RelativeTimePeriod period,WorkingMemory wm) throws NotInTheDomainException {
-        LinkedList<State> allStates = wm.getHistoryLogCopy();
-        allStates.addLast(wm.getCurrentState());
+        HistoryView allStates = wm.getHistoryView(true);
         LinkedList<Value> values = wm.findHistoricalValues(allStates,period, attributeName);
         LinkedList<Value> filtered = new LinkedList<Value>();
         for(Value v : values){
@@ -338,9 +342,12 @@ public class StatisticalExpression implements AttributeExpressionInterface {
             }
         }
 
-        SimpleNumeric mean = (SimpleNumeric) mean(attributeName, period, wm);
-
-        Double rawMean = mean.getValue();
+        // the same mean as the one returned by mean(), without fetching the values again
+        double rawMean = 0.0;
+        for(Value v : filtered){
+            rawMean += ((SimpleNumeric) v).getValue();
+        }
+        rawMean /= filtered.size();
         Double rawVar = new Double(0);
         for(Value v : filtered){
             Double rawElement = ((SimpleNumeric) v).getValue();
@@ -361,8 +368,7 @@ public class StatisticalExpression implements AttributeExpressionInterface {
      * @throws NotInTheDomainException
      */
     public Value entropy(String attributeName, RelativeTimePeriod period, WorkingMemory wm) throws NotInTheDomainException {
-        LinkedList<State> allStates = wm.getHistoryLogCopy();
-        allStates.addLast(wm.getCurrentState());
+        HistoryView allStates = wm.getHistoryView(true);
         LinkedList<Value> values = wm.findHistoricalValues(allStates,period, attributeName);
         LinkedList<Value> filtered = new LinkedList<Value>();
         for(Value v : values) {
@@ -416,8 +422,7 @@ public class StatisticalExpression implements AttributeExpressionInterface {
      * @throws NotInTheDomainException
      */
     public Value mode(String attributeName, RelativeTimePeriod period, WorkingMemory wm){
-        LinkedList<State> allStates = wm.getHistoryLogCopy();
-        allStates.addLast(wm.getCurrentState());
+        HistoryView allStates = wm.getHistoryView(true);
         LinkedList<Value> values = wm.findHistoricalValues(allStates,period, attributeName);
         Hashtable<Value,Integer> statistics = new Hashtable<Value, Integer>();
 
@@ -455,8 +460,7 @@ public class StatisticalExpression implements AttributeExpressionInterface {
      * @throws NotInTheDomainException
      */
     public Value mean(String attributeName, RelativeTimePeriod period, WorkingMemory wm) throws NotInTheDomainException {
-        LinkedList<State> allStates = wm.getHistoryLogCopy();
-        allStates.addLast(wm.getCurrentState());
+        HistoryView allStates = wm.getHistoryView(true);
         LinkedList<Value> values = wm.findHistoricalValues(allStates,period, attributeName);
         Value sum = new SimpleNumeric(0.0);
         Double no = 0.0;
@@ -480,9 +484,18 @@ public class StatisticalExpression implements AttributeExpressionInterface {
         return new Null();
     }
 
+    /**
+     * Evaluates the operator. If the {@link WorkingMemory#getWindowAggregates() window aggregates}
+     * of the working memory track the period of this expression, the result is taken from them,
+     * otherwise it is computed from the values found in the history log.
+     */
     @Override
     public Value evaluate(WorkingMemory wm) throws UnsupportedOperationException, NotInTheDomainException {
         String attributeName = this.getAttributeName();
+        Value aggregated = wm.getWindowAggregates().evaluate(attributeName, op, period, wm);
+        if (aggregated != null) {
+            return aggregated;
+        }
         switch (op) {
             case MAX:
                 return max(attributeName, period, wm);
@@ -74,7 +74,15 @@ public class UnaryExpression implements ExpressionInterface {
         this.op = op;
     }
 
-    private Value staticEvaluate(Value argument) throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+    public ExpressionInterface getArgument() {
+        return arg;
+    }
+
+    public UnaryOperator getOperator() {
+        return op;
+    }
+
+    Value staticEvaluate(Value argument) throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
         Value result = null;
 
         switch (op) {
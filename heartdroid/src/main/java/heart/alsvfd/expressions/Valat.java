@@ -44,7 +44,7 @@ public class Valat implements AttributeExpressionInterface {
 
     @Override
     public Value evaluate(WorkingMemory wm) throws UnsupportedOperationException, NotInTheDomainException {
-        return wm.findHistoricalValue(wm.getHistoryLogCopy(),this.getAttributeName(),at);
+        return wm.findHistoricalValue(wm.getHistoryView(false),this.getAttributeName(),at);
     }
 
     /**
@@ -72,7 +72,6 @@ public class Valat implements AttributeExpressionInterface {
 
     public static class Builder implements AttributeExpressionBuilderInterface {
         private String attributeName;
-        private Attribute attribute;
         private RelativeTimestamp at;
         private String debugInfo;
 
@@ -97,7 +96,7 @@ public class Valat implements AttributeExpressionInterface {
                         "argument.\n%s", this.debugInfo));
             }
             Valat expression = new Valat();
-            expression.attribute = this.attribute;
+            expression.attribute = atts.get(this.attributeName);
             expression.at = this.at;
             return expression;
         }
@@ -0,0 +1,302 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+
+package heart.history;
+
+import heart.State;
+import heart.StateElement;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.alsvfd.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link HistoryStore} that keeps the history in columns of primitive values, one column per attribute:
+ * numeric values are stored as doubles and symbolic ones as ordinals of the symbols seen so far.
+ * A recorded state costs a few bytes per attribute, instead of the objects held by the {@link StateHistoryStore}.
+ *
+ * Values that can't be stored in a primitive column, e.g. sets, ranges or values with certainty factors
+ * other than 1, turn the column of their attribute into a column of objects. The values returned by the store
+ * are created on demand and have the timestamp of their state. Attributes without values (see {@link Null})
+ * are not included in the states returned by {@link #getState(int)}.
+ */
+public class ColumnarHistoryStore extends RingBufferHistoryStore {
+    /**
+     * A NaN that is not produced by the arithmetic, marking the slots of numeric columns without values.
+     */
+    private static final long NULL_BITS = 0x7ff8000000000badL;
+
+    private final Map<String, Column> columns = new LinkedHashMap<String, Column>();
+
+    /**
+     * @param capacity maximal number of the states held by the store
+     */
+    public ColumnarHistoryStore(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    protected void store(int slot, State state) {
+        for (Column c : columns.values()) {
+            c.clear(slot);
+        }
+        for (StateElement se : state) {
+            Value v = se.getValue();
+            Column c = columns.get(se.getAttributeName());
+            if (c == null) {
+                if (v == null || v instanceof Null) {
+                    continue;
+                }
+                c = createColumn(v);
+                columns.put(se.getAttributeName(), c);
+            }
+            if (!c.set(slot, v)) {
+                c = new ObjectColumn(c);
+                c.set(slot, v);
+                columns.put(se.getAttributeName(), c);
+            }
+        }
+    }
+
+    private Column createColumn(Value v) {
+        if (v instanceof SimpleNumeric) {
+            return new NumericColumn();
+        } else if (v instanceof SimpleSymbolic) {
+            return new SymbolicColumn();
+        }
+        return new ObjectColumn();
+    }
+
+    @Override
+    protected void resize(int length) {
+        for (Column c : columns.values()) {
+            c.resize(length);
+        }
+        if (length == 0) {
+            columns.clear();
+        }
+    }
+
+    @Override
+    public synchronized Value getValue(int index, String attributeName) {
+        int slot = slot(index);
+        Column c = columns.get(attributeName);
+        return c == null ? Null.INSTANCE : c.get(slot, getTimestamp(index));
+    }
+
+    @Override
+    public synchronized State getState(int index) {
+        int slot = slot(index);
+        long timestamp = getTimestamp(index);
+        State state = new State();
+        state.setTimestamp(timestamp);
+        state.setName("log_" + timestamp);
+        for (Map.Entry<String, Column> e : columns.entrySet()) {
+            Value v = e.getValue().get(slot, timestamp);
+            if (!(v instanceof Null)) {
+                state.addStateElement(new StateElement(e.getKey(), v));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * The values of a single attribute, indexed with the slots of the buffer.
+     */
+    private abstract class Column {
+        /**
+         * @return false if the value can't be stored in this column
+         */
+        abstract boolean set(int slot, Value v);
+
+        abstract Value get(int slot, long timestamp);
+
+        /**
+         * Marks the slot as having no value.
+         */
+        abstract void clear(int slot);
+
+        abstract void resize(int length);
+    }
+
+    private class NumericColumn extends Column {
+        private double[] values;
+
+        NumericColumn() {
+            values = new double[length()];
+            Arrays.fill(values, Double.longBitsToDouble(NULL_BITS));
+        }
+
+        @Override
+        boolean set(int slot, Value v) {
+            if (v == null || v instanceof Null) {
+                clear(slot);
+                return true;
+            }
+            if (!(v instanceof SimpleNumeric) || v.getCertaintyFactor() != 1.0f || ((SimpleNumeric) v).getValue() == null) {
+                return false;
+            }
+            values[slot] = ((SimpleNumeric) v).getValue();
+            return true;
+        }
+
+        @Override
+        Value get(int slot, long timestamp) {
+            double d = values[slot];
+            if (Double.doubleToRawLongBits(d) == NULL_BITS) {
+                return Null.INSTANCE;
+            }
+            SimpleNumeric v = new SimpleNumeric(d);
+            v.setTimestamp(timestamp);
+            return v;
+        }
+
+        @Override
+        void clear(int slot) {
+            values[slot] = Double.longBitsToDouble(NULL_BITS);
+        }
+
+        @Override
+        void resize(int length) {
+            double[] resized = new double[length];
+            if (length > 0) {
+                Arrays.fill(resized, Double.longBitsToDouble(NULL_BITS));
+                copyInOrder(values, resized);
+            }
+            values = resized;
+        }
+    }
+
+    private class SymbolicColumn extends Column {
+        private final List<SimpleSymbolic> symbols = new ArrayList<SimpleSymbolic>();
+        private final Map<String, Integer> ordinals = new HashMap<String, Integer>();
+        private int[] values;
+
+        SymbolicColumn() {
+            values = new int[length()];
+            Arrays.fill(values, -1);
+        }
+
+        @Override
+        boolean set(int slot, Value v) {
+            if (v == null || v instanceof Null) {
+                clear(slot);
+                return true;
+            }
+            if (!(v instanceof SimpleSymbolic) || v.getCertaintyFactor() != 1.0f) {
+                return false;
+            }
+            String key = v.toString();
+            Integer ordinal = ordinals.get(key);
+            if (ordinal == null) {
+                SimpleSymbolic symbol = (SimpleSymbolic) v;
+                ordinal = symbols.size();
+                symbols.add(new SimpleSymbolic(symbol.getValue(), symbol.getOrder()));
+                ordinals.put(key, ordinal);
+            }
+            values[slot] = ordinal;
+            return true;
+        }
+
+        @Override
+        Value get(int slot, long timestamp) {
+            int ordinal = values[slot];
+            if (ordinal < 0) {
+                return Null.INSTANCE;
+            }
+            SimpleSymbolic v = new SimpleSymbolic(symbols.get(ordinal));
+            v.setTimestamp(timestamp);
+            return v;
+        }
+
+        @Override
+        void clear(int slot) {
+            values[slot] = -1;
+        }
+
+        @Override
+        void resize(int length) {
+            int[] resized = new int[length];
+            if (length > 0) {
+                Arrays.fill(resized, -1);
+                copyInOrder(values, resized);
+            }
+            values = resized;
+        }
+    }
+
+    private class ObjectColumn extends Column {
+        private Value[] values;
+
+        ObjectColumn() {
+            values = new Value[length()];
+        }
+
+        /**
+         * Creates a column with the values of another one, used when it can't store a new value.
+         */
+        ObjectColumn(Column other) {
+            this();
+            for (int i = 0; i < size(); i++) {
+                int slot = slot(i);
+                Value v = other.get(slot, getTimestamp(i));
+                values[slot] = v instanceof Null ? null : v;
+            }
+        }
+
+        @Override
+        boolean set(int slot, Value v) {
+            values[slot] = v instanceof Null ? null : v;
+            return true;
+        }
+
+        @Override
+        Value get(int slot, long timestamp) {
+            Value v = values[slot];
+            return v == null ? Null.INSTANCE : v;
+        }
+
+        @Override
+        void clear(int slot) {
+            values[slot] = null;
+        }
+
+        @Override
+        void resize(int length) {
+            Value[] resized = new Value[length];
+            if (length > 0) {
+                copyInOrder(values, resized);
+            }
+            values = resized;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+
+package heart.history;
+
+import heart.State;
+import heart.StateElement;
+import heart.alsvfd.Null;
+import heart.alsvfd.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link HistoryStore} that records only the values that changed since the previous state,
+ * with a full keyframe every {@link #getKeyframeInterval()} states. The memory it uses and the cost
+ * of {@link heart.WorkingMemory#recordLog()} depend on how many attributes change, not on the size of the model.
+ *
+ * The states are kept in segments, each starting with a keyframe. Reading a value finds the last change
+ * of the attribute in its segment with a binary search, or takes it from the keyframe. When the next state
+ * would not fit into the full store, the whole oldest segment is removed, so once filled the store holds between
+ * {@code capacity - keyframeInterval + 1} and {@code capacity} states.
+ *
+ * The {@link heart.WorkingMemory} recognizes this store and passes it only the changed attributes,
+ * see {@link #isKeyframeDue()} and {@link #recordChanges(State)}.
+ */
+public class DeltaHistoryStore implements HistoryStore {
+    /**
+     * The default number of states between two keyframes. It is limited to the half of the capacity,
+     * so that removing the oldest segment leaves at least the half of the history.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+
+    private final int capacity;
+    private final int keyframeInterval;
+    private final List<Segment> segments = new ArrayList<Segment>();
+    private int size;
+    private long recorded;
+    private long storedValues;
+
+    /**
+     * Creates the store with the {@link #DEFAULT_KEYFRAME_INTERVAL default keyframe interval},
+     * or the half of the capacity if it is smaller.
+     *
+     * @param capacity maximal number of the states held by the store
+     */
+    public DeltaHistoryStore(int capacity) {
+        this(capacity, Math.max(1, Math.min(capacity / 2, DEFAULT_KEYFRAME_INTERVAL)));
+    }
+
+    /**
+     * @param capacity         maximal number of the states held by the store
+     * @param keyframeInterval number of the states between two keyframes, not greater than the capacity
+     */
+    public DeltaHistoryStore(int capacity, int keyframeInterval) {
+        if (keyframeInterval < 1 || keyframeInterval > capacity) {
+            throw new IllegalArgumentException("Keyframe interval has to be a positive number not greater than the capacity "
+                    + capacity + ", but " + keyframeInterval + " was given.");
+        }
+        this.capacity = capacity;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * @return true if the next recorded state has to be a full keyframe
+     */
+    public synchronized boolean isKeyframeDue() {
+        return segments.isEmpty() || segments.get(segments.size() - 1).count == keyframeInterval;
+    }
+
+    /**
+     * Records a full state. If a keyframe is not due, only the values are stored as the changes.
+     *
+     * @param state the state to be recorded
+     */
+    @Override
+    public synchronized void record(State state) {
+        if (isKeyframeDue()) {
+            evictIfFull();
+            Segment segment = new Segment(state, keyframeInterval);
+            segments.add(segment);
+            size++;
+            recorded++;
+            storedValues += segment.keyframe.size();
+        } else {
+            recordChanges(state);
+        }
+    }
+
+    /**
+     * Records a state given by the values of the attributes that changed since the previously recorded state.
+     * If a keyframe is due, the state is recorded as a keyframe, which makes it lose the values
+     * of the attributes that did not change.
+     *
+     * @param changes the changed values. Its timestamp is used as the timestamp of the record.
+     */
+    public synchronized void recordChanges(State changes) {
+        if (isKeyframeDue()) {
+            record(changes);
+            return;
+        }
+        evictIfFull();
+        Segment segment = segments.get(segments.size() - 1);
+        int offset = segment.count;
+        segment.timestamps[offset] = changes.getTimestamp();
+        for (StateElement se : changes) {
+            segment.addChange(se.getAttributeName(), offset, se.getValue());
+            storedValues++;
+        }
+        segment.count++;
+        size++;
+        recorded++;
+    }
+
+    /**
+     * Removes the oldest segment if the next state would not fit into the store.
+     * All the segments but the last one are full, so the indexes of the remaining states stay consistent.
+     */
+    private void evictIfFull() {
+        if (size == capacity) {
+            Segment removed = segments.remove(0);
+            size -= removed.count;
+            storedValues -= removed.getStoredValueCount();
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public synchronized long getRecordedCount() {
+        return recorded;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * @return number of the values held by the store, in the keyframes and as the changes
+     */
+    public synchronized long getStoredValueCount() {
+        return storedValues;
+    }
+
+    @Override
+    public synchronized long getTimestamp(int index) {
+        checkIndex(index);
+        return segments.get(index / keyframeInterval).timestamps[index % keyframeInterval];
+    }
+
+    @Override
+    public synchronized Value getValue(int index, String attributeName) {
+        checkIndex(index);
+        Value v = segments.get(index / keyframeInterval).getValue(attributeName, index % keyframeInterval);
+        return v == null ? Null.INSTANCE : v;
+    }
+
+    @Override
+    public synchronized State getState(int index) {
+        checkIndex(index);
+        Segment segment = segments.get(index / keyframeInterval);
+        int offset = index % keyframeInterval;
+        Map<String, Value> values = new LinkedHashMap<String, Value>(segment.keyframe);
+        for (Map.Entry<String, Changes> e : segment.changes.entrySet()) {
+            Value v = e.getValue().getValue(offset);
+            if (v != null) {
+                values.put(e.getKey(), v);
+            }
+        }
+        State state = new State();
+        state.setTimestamp(segment.timestamps[offset]);
+        state.setName("log_" + state.getTimestamp());
+        for (Map.Entry<String, Value> e : values.entrySet()) {
+            state.addStateElement(new StateElement(e.getKey(), e.getValue()));
+        }
+        return state;
+    }
+
+    @Override
+    public synchronized void clear() {
+        segments.clear();
+        size = 0;
+        storedValues = 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * A keyframe followed by the changes recorded after it.
+     */
+    private static class Segment {
+        private final Map<String, Value> keyframe = new HashMap<String, Value>();
+        private final Map<String, Changes> changes = new HashMap<String, Changes>();
+        private final long[] timestamps;
+        private int count;
+
+        Segment(State keyframe, int length) {
+            for (StateElement se : keyframe) {
+                this.keyframe.put(se.getAttributeName(), se.getValue());
+            }
+            this.timestamps = new long[length];
+            this.timestamps[0] = keyframe.getTimestamp();
+            this.count = 1;
+        }
+
+        void addChange(String attributeName, int offset, Value value) {
+            Changes c = changes.get(attributeName);
+            if (c == null) {
+                c = new Changes();
+                changes.put(attributeName, c);
+            }
+            c.add(offset, value);
+        }
+
+        /**
+         * @return the value of the attribute in the state of the given offset, or null if it is not known
+         */
+        Value getValue(String attributeName, int offset) {
+            Changes c = changes.get(attributeName);
+            Value v = c == null ? null : c.getValue(offset);
+            return v != null ? v : keyframe.get(attributeName);
+        }
+
+        long getStoredValueCount() {
+            long result = keyframe.size();
+            for (Changes c : changes.values()) {
+                result += c.count;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The changes of a single attribute within a segment, ordered by their offsets.
+     */
+    private static class Changes {
+        private int[] offsets = new int[2];
+        private Value[] values = new Value[2];
+        private int count;
+
+        void add(int offset, Value value) {
+            if (count > 0 && offsets[count - 1] == offset) {
+                values[count - 1] = value;
+                return;
+            }
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+            }
+            offsets[count] = offset;
+            values[count] = value;
+            count++;
+        }
+
+        /**
+         * @return the last value set at or before the offset, or null if there is none
+         */
+        Value getValue(int offset) {
+            int position = Arrays.binarySearch(offsets, 0, count, offset);
+            if (position < 0) {
+                position = -position - 2;
+            }
+            return position >= 0 ? values[position] : null;
+        }
+    }
+}
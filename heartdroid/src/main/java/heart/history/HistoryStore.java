@@ -0,0 +1,92 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+
+package heart.history;
+
+import heart.State;
+import heart.alsvfd.Value;
+
+/**
+ * Storage of the history log of a {@link heart.WorkingMemory}, i.e. the states recorded
+ * with {@link heart.WorkingMemory#recordLog()}. The states are indexed from the oldest one (0)
+ * to the most recent one ({@link #size()} - 1). When the store is full, recording a state
+ * removes the oldest one.
+ *
+ * Implementations are thread-safe. A sequence of reads that has to see the same history
+ * should be performed while holding the lock of the store.
+ */
+public interface HistoryStore {
+
+    /**
+     * Appends a state to the history.
+     *
+     * @param state the state to be recorded. Its timestamp is used as the timestamp of the record.
+     */
+    void record(State state);
+
+    /**
+     * @return number of the recorded states
+     */
+    int size();
+
+    /**
+     * @return maximal number of the states held by the store
+     */
+    int getCapacity();
+
+    /**
+     * @return number of the states recorded since the store was created, including the ones removed from it.
+     * It never decreases, also when the store is {@link #clear() cleared}, so the state of index {@code i}
+     * is the state recorded as {@code getRecordedCount() - size() + i}.
+     */
+    long getRecordedCount();
+
+    /**
+     * @param index index of the state, 0 being the oldest one
+     * @return the timestamp of the state
+     * @throws IndexOutOfBoundsException if there is no such state
+     */
+    long getTimestamp(int index);
+
+    /**
+     * @param index         index of the state, 0 being the oldest one
+     * @param attributeName name of the attribute
+     * @return the value of the attribute in the state, or {@link heart.alsvfd.Null} if it had no value
+     * @throws IndexOutOfBoundsException if there is no such state
+     */
+    Value getValue(int index, String attributeName);
+
+    /**
+     * @param index index of the state, 0 being the oldest one
+     * @return the state
+     * @throws IndexOutOfBoundsException if there is no such state
+     */
+    State getState(int index);
+
+    /**
+     * Removes all the recorded states.
+     */
+    void clear();
+}
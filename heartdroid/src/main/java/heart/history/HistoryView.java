@@ -0,0 +1,170 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+
+package heart.history;
+
+import heart.State;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.Value;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read-only view of the states held by a {@link HistoryStore}, optionally followed by the current state.
+ * Creating the view does not copy the history, and the states and values are read from the store on demand.
+ *
+ * The view covers the states recorded before it was created: the states recorded later are not visible in it,
+ * so its size does not change. A state of the view may be removed from the store by a concurrent record
+ * (when the store is full) or by {@link HistoryStore#clear()}. Such a state is read as if it was never recorded:
+ * it has no values, so {@link #getValue(int, String)} returns {@link Null}, and its timestamp is
+ * {@link #EVICTED_TIMESTAMP}, which keeps the states of the view ordered by their timestamps.
+ */
+public class HistoryView extends AbstractList<State> implements RandomAccess {
+    /**
+     * The timestamp of the states removed from the store after the view was created.
+     */
+    public static final long EVICTED_TIMESTAMP = Long.MIN_VALUE;
+
+    private final HistoryStore store;
+    private final long first;
+    private final int recorded;
+    private final State current;
+    private final WorkingMemory currentMemory;
+    private final long currentTimestamp;
+
+    /**
+     * @param store   the store with the recorded states
+     * @param current the state appended after the recorded ones, or null if the view contains only the history
+     */
+    public HistoryView(HistoryStore store, State current) {
+        this(store, current, null, current == null ? 0 : current.getTimestamp());
+    }
+
+    /**
+     * Creates a view followed by the current state of the working memory. The values of the current state
+     * are read from the working memory on demand, so creating the view does not build the state.
+     *
+     * @param store         the store with the recorded states
+     * @param currentMemory the working memory which values form the last state of the view
+     * @return the view of the history followed by the current state
+     */
+    public static HistoryView withCurrentState(HistoryStore store, WorkingMemory currentMemory) {
+        return new HistoryView(store, null, currentMemory, System.currentTimeMillis());
+    }
+
+    private HistoryView(HistoryStore store, State current, WorkingMemory currentMemory, long currentTimestamp) {
+        this.store = store;
+        this.current = current;
+        this.currentMemory = currentMemory;
+        this.currentTimestamp = currentTimestamp;
+        synchronized (store) {
+            this.recorded = store.size();
+            this.first = store.getRecordedCount() - recorded;
+        }
+    }
+
+    @Override
+    public int size() {
+        return hasCurrent() ? recorded + 1 : recorded;
+    }
+
+    @Override
+    public State get(int index) {
+        if (isCurrent(index)) {
+            if (current != null) {
+                return current;
+            }
+            State state = currentMemory.getCurrentState();
+            state.setTimestamp(currentTimestamp);
+            return state;
+        }
+        synchronized (store) {
+            int position = position(index);
+            if (position >= 0) {
+                return store.getState(position);
+            }
+        }
+        State evicted = new State();
+        evicted.setTimestamp(EVICTED_TIMESTAMP);
+        return evicted;
+    }
+
+    /**
+     * @param index index of the state in the view
+     * @return the timestamp of the state, or {@link #EVICTED_TIMESTAMP} if the state was removed from the store
+     */
+    public long getTimestamp(int index) {
+        if (isCurrent(index)) {
+            return currentTimestamp;
+        }
+        synchronized (store) {
+            int position = position(index);
+            return position >= 0 ? store.getTimestamp(position) : EVICTED_TIMESTAMP;
+        }
+    }
+
+    /**
+     * Reads the value without building the whole state, which the stores other than {@link StateHistoryStore} would create.
+     *
+     * @param index         index of the state in the view
+     * @param attributeName name of the attribute
+     * @return the value of the attribute in the state, or {@link heart.alsvfd.Null} if it had no value
+     * or the state was removed from the store
+     */
+    public Value getValue(int index, String attributeName) {
+        if (isCurrent(index)) {
+            return current != null ? current.getValueOfAttribute(attributeName) : currentMemory.getAttributeValue(attributeName);
+        }
+        synchronized (store) {
+            int position = position(index);
+            if (position >= 0) {
+                return store.getValue(position, attributeName);
+            }
+        }
+        return Null.INSTANCE;
+    }
+
+    private boolean hasCurrent() {
+        return current != null || currentMemory != null;
+    }
+
+    private boolean isCurrent(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return index == recorded;
+    }
+
+    /**
+     * @return the index in the store of the state of the given index in the view, or -1 if the state was removed.
+     * The caller holds the lock of the store.
+     */
+    private int position(int index) {
+        long position = first + index - (store.getRecordedCount() - store.size());
+        return position < 0 ? -1 : (int) position;
+    }
+}
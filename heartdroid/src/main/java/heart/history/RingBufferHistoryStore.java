@@ -0,0 +1,151 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+
+package heart.history;
+
+import heart.State;
+
+/**
+ * A base of the history stores that keep the states in a ring buffer, giving O(1) access
+ * to a state by its index. The buffer grows by doubling until it reaches the capacity of the store,
+ * from then on every new state overwrites the oldest one.
+ *
+ * Subclasses keep their data in arrays indexed with the slots of the buffer.
+ */
+abstract class RingBufferHistoryStore implements HistoryStore {
+    private static final int INITIAL_LENGTH = 16;
+
+    private final int capacity;
+    private long[] timestamps = new long[0];
+    private int head;
+    private int size;
+    private long recorded;
+
+    protected RingBufferHistoryStore(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity of the history has to be a positive number, but " + capacity + " was given.");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void record(State state) {
+        store(append(state.getTimestamp()), state);
+    }
+
+    /**
+     * Stores the state in the given slot of the buffer.
+     */
+    protected abstract void store(int slot, State state);
+
+    /**
+     * Reallocates the arrays of the subclass to the new length, moving the elements with {@link #copyInOrder(Object, Object)}.
+     */
+    protected abstract void resize(int length);
+
+    /**
+     * Reserves the slot for a new state, growing the buffer or dropping the oldest state when necessary.
+     *
+     * @return the slot of the new state
+     */
+    protected int append(long timestamp) {
+        int length = timestamps.length;
+        if (size == length && length < capacity) {
+            int newLength = (int) Math.min(capacity, Math.max(INITIAL_LENGTH, 2L * length));
+            long[] newTimestamps = new long[newLength];
+            copyInOrder(timestamps, newTimestamps);
+            resize(newLength);
+            timestamps = newTimestamps;
+            head = 0;
+            length = newLength;
+        }
+        int slot;
+        if (size < length) {
+            slot = (head + size) % length;
+            size++;
+        } else {
+            slot = head;
+            head = (head + 1) % length;
+        }
+        timestamps[slot] = timestamp;
+        recorded++;
+        return slot;
+    }
+
+    /**
+     * Copies the elements of the buffer to the beginning of a new array, from the oldest to the most recent one.
+     */
+    protected void copyInOrder(Object source, Object target) {
+        int length = timestamps.length;
+        int firstPart = Math.min(size, length - head);
+        System.arraycopy(source, head, target, 0, firstPart);
+        System.arraycopy(source, 0, target, firstPart, size - firstPart);
+    }
+
+    /**
+     * @return the current length of the arrays of the buffer
+     */
+    protected int length() {
+        return timestamps.length;
+    }
+
+    /**
+     * @return the slot of the buffer holding the state of the given index
+     */
+    protected int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (head + index) % timestamps.length;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public synchronized long getRecordedCount() {
+        return recorded;
+    }
+
+    @Override
+    public synchronized long getTimestamp(int index) {
+        return timestamps[slot(index)];
+    }
+
+    @Override
+    public synchronized void clear() {
+        timestamps = new long[0];
+        head = 0;
+        size = 0;
+        resize(0);
+    }
+}
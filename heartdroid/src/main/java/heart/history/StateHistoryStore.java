@@ -0,0 +1,69 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+
+package heart.history;
+
+import heart.State;
+import heart.alsvfd.Value;
+
+/**
+ * The default {@link HistoryStore}, which keeps the recorded {@link State} objects as they are.
+ * The states share the values with the working memory, so it is cheap to record a state,
+ * but every state costs an object per attribute.
+ */
+public class StateHistoryStore extends RingBufferHistoryStore {
+    private State[] states = new State[0];
+
+    /**
+     * @param capacity maximal number of the states held by the store
+     */
+    public StateHistoryStore(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    protected void store(int slot, State state) {
+        states[slot] = state;
+    }
+
+    @Override
+    protected void resize(int length) {
+        State[] resized = new State[length];
+        if (length > 0) {
+            copyInOrder(states, resized);
+        }
+        states = resized;
+    }
+
+    @Override
+    public synchronized Value getValue(int index, String attributeName) {
+        return states[slot(index)].getValueOfAttribute(attributeName);
+    }
+
+    @Override
+    public synchronized State getState(int index) {
+        return states[slot(index)];
+    }
+}
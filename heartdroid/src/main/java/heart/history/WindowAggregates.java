@@ -0,0 +1,498 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+
+package heart.history;
+
+import heart.RelativeTimePeriod;
+import heart.RelativeTimestamp;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.Value;
+import heart.alsvfd.expressions.StatisticalExpression;
+import heart.alsvfd.expressions.StatisticalExpression.StatisticalOperator;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Incremental aggregates of the sliding windows of attribute values used by the {@link StatisticalExpression}s.
+ * The aggregates are updated every time {@link WorkingMemory#recordLog()} records a state, so the
+ * {@link StatisticalOperator#MAX max}, {@link StatisticalOperator#MIN min}, {@link StatisticalOperator#MEAN mean},
+ * {@link StatisticalOperator#VAR var}, {@link StatisticalOperator#STDEV stdev} and {@link StatisticalOperator#TREND trend}
+ * of a window are computed in O(1), instead of from all the values of the window.
+ *
+ * Every window keeps a running Welford mean and variance, the sums of the least-squares fit
+ * and monotonic deques of the candidates for the minimum and the maximum. The sums are recomputed from the values
+ * of the window once per its length, so the rounding errors do not accumulate.
+ *
+ * Only the windows given as a number of states with the step of one state are tracked (see {@link #isSupported(RelativeTimePeriod)}).
+ * The other windows, the other operators and the windows holding values that are not numeric are evaluated
+ * by the {@link StatisticalExpression} from the history log, as {@link #evaluate} returns null for them.
+ * The results are the same as the ones computed from the history log, up to the rounding errors.
+ */
+public class WindowAggregates {
+    private final Map<String, Window> windows = new HashMap<String, Window>();
+    private volatile boolean tracking;
+
+    /**
+     * @param period the period of a statistical expression
+     * @return true if the aggregates of the period can be kept incrementally
+     */
+    public static boolean isSupported(RelativeTimePeriod period) {
+        long from = period.getFrom().getRelativeTimeDifference();
+        long to = period.getTo().getRelativeTimeDifference();
+        return period.getFrom().getTimeType() == RelativeTimestamp.TimeType.STATECOUNT
+                && period.getStep() == 1 && from < 0 && to >= from && -from <= WorkingMemory.MAX_HISTORY_SIZE;
+    }
+
+    /**
+     * Starts tracking the windows of the given expressions. The windows that are already tracked are left intact.
+     *
+     * @param expressions the statistical expressions, e.g. from {@link heart.xtt.DependencyGraph#getStatisticalExpressions()}
+     */
+    public synchronized void track(Collection<StatisticalExpression> expressions) {
+        for (StatisticalExpression e : expressions) {
+            track(e.getAttributeName(), e.getPeriod());
+        }
+    }
+
+    /**
+     * Starts tracking the window of the values of the attribute. Its aggregates are built from the history log
+     * when they are needed for the first time.
+     *
+     * @param attributeName name of the attribute
+     * @param period        the period of the window
+     */
+    public synchronized void track(String attributeName, RelativeTimePeriod period) {
+        if (!isSupported(period)) {
+            return;
+        }
+        String key = key(attributeName, period);
+        if (!windows.containsKey(key)) {
+            windows.put(key, new Window(attributeName, period));
+            tracking = true;
+        }
+    }
+
+    /**
+     * @return number of the tracked windows
+     */
+    public synchronized int size() {
+        return windows.size();
+    }
+
+    /**
+     * Stops tracking all the windows.
+     */
+    public synchronized void clear() {
+        windows.clear();
+        tracking = false;
+    }
+
+    /**
+     * Adds the values of the state just recorded in the store to the tracked windows.
+     *
+     * @param store the store of the history log
+     * @param wm    the working memory holding the recorded values
+     */
+    public void record(HistoryStore store, WorkingMemory wm) {
+        if (!tracking) {
+            return;
+        }
+        synchronized (store) {
+            synchronized (this) {
+                for (Window w : windows.values()) {
+                    w.record(store, wm);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates the statistical operator over the history log of the working memory followed by its current state,
+     * the same way as {@link StatisticalExpression#evaluate(WorkingMemory)} does.
+     *
+     * @return the result, or null if the window is not tracked or the operator cannot be evaluated incrementally
+     */
+    public Value evaluate(String attributeName, StatisticalOperator op, RelativeTimePeriod period, WorkingMemory wm) {
+        if (!tracking || !isSupported(period)) {
+            return null;
+        }
+        HistoryStore store = wm.getHistoryStore();
+        synchronized (store) {
+            synchronized (this) {
+                Window w = windows.get(key(attributeName, period));
+                return w == null ? null : w.evaluate(op, store, wm);
+            }
+        }
+    }
+
+    private static String key(String attributeName, RelativeTimePeriod period) {
+        long from = period.getFrom().getRelativeTimeDifference();
+        long to = period.getTo().getRelativeTimeDifference();
+        // all the ends from -1 on select the current state
+        return attributeName + "/" + from + "/" + (to >= -1 ? -1 : to);
+    }
+
+    /**
+     * The values of an attribute in the states of indexes from {@code size + first} to {@code size + last}
+     * of the history log of the given size, and the aggregates of their numeric values.
+     *
+     * The last {@code lag} recorded values are kept before they enter the window. The values are indexed
+     * with the number of the states recorded before them.
+     */
+    private static class Window {
+        private final String attributeName;
+        private final int first;
+        private final int length;
+        private final int lag;
+        private final boolean withCurrent;
+
+        // the last length + lag values recorded
+        private final Value[] values;
+        private int head;
+        private int count;
+        private long recorded;
+        private HistoryStore store;
+
+        // aggregates of the values in the window
+        private int numeric;
+        private int foreign;
+        private double mean;
+        private double m2;
+        private long base;
+        private double sumX;
+        private double sumXX;
+        private double sumY;
+        private double sumXY;
+        private final Deque maxima;
+        private final Deque minima;
+        private int removals;
+
+        Window(String attributeName, RelativeTimePeriod period) {
+            long from = period.getFrom().getRelativeTimeDifference();
+            long to = period.getTo().getRelativeTimeDifference();
+            long last = Math.min(-1, to + 1);
+            this.attributeName = attributeName;
+            this.first = (int) (from + 1);
+            this.length = (int) Math.max(0, last - first + 1);
+            this.lag = (int) (-last - 1);
+            this.withCurrent = to >= -1;
+            this.values = new Value[length + lag];
+            this.maxima = new Deque(length);
+            this.minima = new Deque(length);
+        }
+
+        void record(HistoryStore store, WorkingMemory wm) {
+            if (store != this.store || recorded != store.getRecordedCount() - 1) {
+                // the store was replaced or states were recorded bypassing the working memory
+                this.store = null;
+                return;
+            }
+            push(wm.getAttributeValue(attributeName));
+            trim(store.size());
+        }
+
+        Value evaluate(StatisticalOperator op, HistoryStore store, WorkingMemory wm) {
+            if (store != this.store || recorded != store.getRecordedCount()) {
+                rebuild(store);
+            }
+            trim(store.size());
+            int inWindow = Math.max(0, count - lag);
+            int leadingNulls = Math.max(0, -(store.size() + first));
+            Value current = withCurrent ? wm.getAttributeValue(attributeName) : null;
+            int size = leadingNulls + inWindow + (withCurrent ? 1 : 0);
+            if (size == 0 || foreign > 0 || (current != null && !isNumeric(current) && !(current instanceof Null))) {
+                return null;
+            }
+            boolean withNumeric = current instanceof SimpleNumeric;
+            int n = numeric + (withNumeric ? 1 : 0);
+            double y = withNumeric ? ((SimpleNumeric) current).getValue() : 0;
+
+            switch (op) {
+                case MAX:
+                case MIN:
+                    Value firstValue = leadingNulls > 0 ? new Null() : (inWindow > 0 ? value(0) : current);
+                    if (firstValue instanceof Null) {
+                        return firstValue;
+                    }
+                    Deque deque = op == StatisticalOperator.MAX ? maxima : minima;
+                    Value result = deque.isEmpty() ? null : valueAt(deque.front());
+                    if (withNumeric && (result == null || (op == StatisticalOperator.MAX ? number(result) < y : number(result) > y))) {
+                        result = current;
+                    }
+                    return result;
+                case MEAN:
+                    if (n == 0) {
+                        return new SimpleNumeric(Double.NaN);
+                    }
+                    return new SimpleNumeric(withNumeric ? mean + (y - mean) / n : mean);
+                case VAR:
+                    return new SimpleNumeric(variance(withNumeric, y, n));
+                case STDEV:
+                    return new SimpleNumeric(Math.sqrt(variance(withNumeric, y, n)));
+                case TREND:
+                    if (size < 2) {
+                        return new SimpleNumeric(0.0, 0.0f);
+                    }
+                    if (n < 2) {
+                        return new SimpleNumeric(Double.NaN);
+                    }
+                    double sx = sumX, sxx = sumXX, sy = sumY, sxy = sumXY;
+                    if (withNumeric) {
+                        double x = recorded - base;
+                        sx += x;
+                        sxx += x * x;
+                        sy += y;
+                        sxy += x * y;
+                    }
+                    // the fit made by StatisticalExpression.trend() shifts the times by one after computing their mean,
+                    // which adds the number of the values to the variance of the times
+                    return new SimpleNumeric((sxy - sx * sy / n) / (sxx - sx * sx / n + n));
+                default:
+                    return null;
+            }
+        }
+
+        private double variance(boolean withNumeric, double y, int n) {
+            double m2 = this.m2;
+            if (withNumeric) {
+                double delta = y - mean;
+                m2 += delta * (y - (mean + delta / n));
+            }
+            return m2 / (n - 1);
+        }
+
+        /**
+         * Appends the value, moving the value recorded lag states before into the window
+         * and removing the oldest value from the window if it is full.
+         */
+        private void push(Value v) {
+            if (values.length == 0) {
+                recorded++;
+                return;
+            }
+            if (count == values.length) {
+                removeOldest();
+            }
+            values[(head + count) % values.length] = v;
+            count++;
+            recorded++;
+            if (count > lag) {
+                add(index(count - lag - 1));
+            }
+        }
+
+        /**
+         * Removes the values older than the history log of the given size.
+         */
+        private void trim(int size) {
+            while (count > size) {
+                removeOldest();
+            }
+        }
+
+        private void removeOldest() {
+            if (count > lag) {
+                remove(index(0));
+            }
+            values[head] = null;
+            head = (head + 1) % values.length;
+            count--;
+        }
+
+        private void rebuild(HistoryStore store) {
+            this.store = store;
+            this.recorded = store.getRecordedCount();
+            head = 0;
+            count = 0;
+            int size = store.size();
+            for (int i = Math.max(0, size - values.length); i < size; i++) {
+                values[count++] = store.getValue(i, attributeName);
+            }
+            recompute();
+        }
+
+        /**
+         * Computes the aggregates from the values of the window.
+         */
+        private void recompute() {
+            numeric = 0;
+            foreign = 0;
+            mean = 0;
+            m2 = 0;
+            sumX = sumXX = sumY = sumXY = 0;
+            maxima.clear();
+            minima.clear();
+            removals = 0;
+            base = index(0);
+            for (int i = 0; i < count - lag; i++) {
+                add(index(i));
+            }
+        }
+
+        private void add(long index) {
+            Value v = valueAt(index);
+            if (!isNumeric(v)) {
+                if (!(v instanceof Null)) {
+                    foreign++;
+                }
+                return;
+            }
+            double y = number(v);
+            numeric++;
+            double delta = y - mean;
+            mean += delta / numeric;
+            m2 += delta * (y - mean);
+            double x = index - base;
+            sumX += x;
+            sumXX += x * x;
+            sumY += y;
+            sumXY += x * y;
+            while (!maxima.isEmpty() && number(valueAt(maxima.back())) < y) {
+                maxima.removeBack();
+            }
+            maxima.addBack(index);
+            while (!minima.isEmpty() && number(valueAt(minima.back())) > y) {
+                minima.removeBack();
+            }
+            minima.addBack(index);
+        }
+
+        private void remove(long index) {
+            Value v = valueAt(index);
+            if (!isNumeric(v)) {
+                if (!(v instanceof Null)) {
+                    foreign--;
+                }
+                return;
+            }
+            if (++removals >= Math.max(length, 16)) {
+                // the removed value is still the oldest one, so it is skipped when the window is recomputed
+                base = index + 1;
+                numeric = 0;
+                foreign = 0;
+                mean = m2 = 0;
+                sumX = sumXX = sumY = sumXY = 0;
+                maxima.clear();
+                minima.clear();
+                removals = 0;
+                for (int i = 1; i < count - lag; i++) {
+                    add(index(i));
+                }
+                return;
+            }
+            double y = number(v);
+            numeric--;
+            if (numeric == 0) {
+                mean = m2 = 0;
+            } else {
+                double delta = y - mean;
+                mean -= delta / numeric;
+                m2 -= delta * (y - mean);
+            }
+            double x = index - base;
+            sumX -= x;
+            sumXX -= x * x;
+            sumY -= y;
+            sumXY -= x * y;
+            if (!maxima.isEmpty() && maxima.front() == index) {
+                maxima.removeFront();
+            }
+            if (!minima.isEmpty() && minima.front() == index) {
+                minima.removeFront();
+            }
+        }
+
+        /**
+         * @return the index of the value at the given position, 0 being the oldest value kept
+         */
+        private long index(int position) {
+            return recorded - count + position;
+        }
+
+        private Value value(int position) {
+            return values[(head + position) % values.length];
+        }
+
+        private Value valueAt(long index) {
+            return value((int) (index - (recorded - count)));
+        }
+
+        private static boolean isNumeric(Value v) {
+            return v instanceof SimpleNumeric;
+        }
+
+        private static double number(Value v) {
+            return ((SimpleNumeric) v).getValue();
+        }
+    }
+
+    /**
+     * A double-ended queue of indexes of a bounded size.
+     */
+    private static class Deque {
+        private final long[] elements;
+        private int head;
+        private int size;
+
+        Deque(int capacity) {
+            elements = new long[Math.max(1, capacity)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long front() {
+            return elements[head];
+        }
+
+        long back() {
+            return elements[(head + size - 1) % elements.length];
+        }
+
+        void addBack(long index) {
+            elements[(head + size) % elements.length] = index;
+            size++;
+        }
+
+        void removeFront() {
+            head = (head + 1) % elements.length;
+            size--;
+        }
+
+        void removeBack() {
+            size--;
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+    }
+}
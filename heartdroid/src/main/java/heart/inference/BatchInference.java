@@ -0,0 +1,455 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.inference;
+
+import heart.Configuration;
+import heart.Debug;
+import heart.State;
+import heart.WorkingMemory;
+import heart.exceptions.BuilderException;
+import heart.xtt.XTTModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the same inference for many independent initial states.
+ * The states are processed by a pool of workers. Every worker owns a single
+ * {@link WorkingMemory}, which is {@link WorkingMemory#reset() reset} before each state,
+ * so the inferences do not affect each other, in particular through the history log.
+ *
+ * The inference is configured with a template {@link Configuration}. For each state,
+ * a configuration that differs from the template only in the initial state is used.
+ * The results are returned in the order of the initial states.
+ *
+ * A run can be cancelled from any thread with {@link Run#cancel()}. The states that
+ * were being processed at that moment are finished, all the remaining ones are skipped.
+ * Every run has its own {@link Run} context, so concurrent runs of the same batch do not share
+ * their cancellation or counters. The context can be created and cancelled before the run is started,
+ * see {@link #run(Collection, Run)}.
+ */
+public class BatchInference {
+    private final XTTModel model;
+    private final InferenceMode mode;
+    private final InferenceAlgorithm.TableParameters tableParameters;
+    private final InferenceAlgorithm.AttributeParameters attributeParameters;
+    private final Configuration configuration;
+    private final int workers;
+    private final ExecutorService executorService;
+
+    /**
+     * The runs that are currently in progress, and the one started last.
+     */
+    private final Set<Run> activeRuns = Collections.newSetFromMap(new ConcurrentHashMap<Run, Boolean>());
+    private volatile Run lastRun;
+
+    private BatchInference(Builder builder) {
+        this.model = builder.getModel();
+        this.mode = builder.getInferenceMode();
+        this.tableParameters = builder.getTableParameters();
+        this.attributeParameters = builder.getAttributeParameters();
+        this.configuration = builder.getConfiguration();
+        this.workers = builder.getWorkers();
+        this.executorService = builder.getExecutorService();
+    }
+
+    /**
+     * Runs the inference for all the given states and waits until it is finished or cancelled.
+     *
+     * @param initialStates the initial states, one for each inference
+     * @return the results of the batch
+     * @throws InterruptedException if the calling thread was interrupted while waiting.
+     * The batch is cancelled in such a case.
+     */
+    public Result run(Collection<State> initialStates) throws InterruptedException {
+        return run(initialStates, new Run());
+    }
+
+    /**
+     * Runs the inference for all the given states within the given context, and waits until it is finished or cancelled.
+     * The context can be cancelled from another thread at any moment, also before this method is called.
+     *
+     * @param initialStates the initial states, one for each inference
+     * @param run the context of this run, that has not been used by any other run
+     * @return the results of the batch
+     * @throws InterruptedException if the calling thread was interrupted while waiting.
+     * The run is cancelled in such a case.
+     * @throws IllegalStateException if the context was already used
+     */
+    public Result run(Collection<State> initialStates, final Run run) throws InterruptedException {
+        if (!run.started.compareAndSet(false, true)) {
+            throw new IllegalStateException("The run context was already used.");
+        }
+        final State[] states = initialStates.toArray(new State[initialStates.size()]);
+        final State[] results = new State[states.length];
+        final Map<Integer, Exception> failures = Collections.synchronizedMap(new TreeMap<Integer, Exception>());
+        final AtomicInteger next = new AtomicInteger();
+
+        activeRuns.add(run);
+        lastRun = run;
+        long start = System.nanoTime();
+
+        ExecutorService executor = executorService != null ? executorService : Executors.newFixedThreadPool(workers);
+        List<Future<?>> futures = new ArrayList<Future<?>>(workers);
+        try {
+            for (int w = 0; w < Math.min(workers, states.length); w++) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        WorkingMemory wm = new WorkingMemory();
+                        int i;
+                        while (!run.isCancelled() && (i = next.getAndIncrement()) < states.length) {
+                            try {
+                                results[i] = infer(wm, states[i]);
+                            } catch (BuilderException e) {
+                                failures.put(i, e);
+                            } catch (RuntimeException e) {
+                                failures.put(i, e);
+                            }
+                            run.processed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Batch inference worker failed.", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            run.cancel();
+            throw e;
+        } finally {
+            activeRuns.remove(run);
+            if (executorService == null) {
+                executor.shutdown();
+            }
+        }
+
+        Result result = new Result(Arrays.asList(results), failures, run.getProcessedCount(),
+                System.nanoTime() - start, run.isCancelled());
+        Debug.debug(Debug.heartTag, Debug.Level.TABLES, result.toString());
+        return result;
+    }
+
+    private State infer(WorkingMemory wm, State initialState) throws BuilderException {
+        wm.reset();
+        Configuration conf = new Configuration.Builder(configuration)
+                .setInitialState(initialState)
+                .build();
+        InferenceAlgorithm inference = mode.create(wm, model, conf);
+        if (tableParameters != null) {
+            inference.start(tableParameters);
+        } else {
+            inference.start(attributeParameters);
+        }
+        return wm.getCurrentState(model);
+    }
+
+    /**
+     * Cancels all the runs of the batch that are currently in progress. The states that were not started yet are skipped.
+     * Runs started afterwards are not affected, use {@link Run#cancel()} to cancel a particular run.
+     */
+    public void cancel() {
+        for (Run run : activeRuns) {
+            run.cancel();
+        }
+    }
+
+    /**
+     * @return true if the run that was started last has been cancelled
+     */
+    public boolean isCancelled() {
+        Run run = lastRun;
+        return run != null && run.isCancelled();
+    }
+
+    /**
+     * @return number of states processed so far by the run that was started last
+     */
+    public int getProcessedCount() {
+        Run run = lastRun;
+        return run != null ? run.getProcessedCount() : 0;
+    }
+
+    public XTTModel getModel() {
+        return model;
+    }
+
+    public InferenceMode getInferenceMode() {
+        return mode;
+    }
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * The context of a single run of the batch, see {@link #run(Collection, Run)}.
+     * It allows to cancel the run and to follow its progress from other threads.
+     */
+    public static class Run {
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicInteger processed = new AtomicInteger();
+
+        /**
+         * Cancels the run. The states that were not started yet are skipped.
+         * If the run has not been started yet, it will skip all the states.
+         */
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        /**
+         * @return number of the states processed so far, including the failed ones
+         */
+        public int getProcessedCount() {
+            return processed.get();
+        }
+    }
+
+    /**
+     * The results of a batch inference together with its throughput.
+     */
+    public static class Result {
+        private final List<State> states;
+        private final Map<Integer, Exception> failures;
+        private final int processedCount;
+        private final long elapsedNanos;
+        private final boolean cancelled;
+
+        Result(List<State> states, Map<Integer, Exception> failures, int processedCount, long elapsedNanos, boolean cancelled) {
+            this.states = Collections.unmodifiableList(states);
+            this.failures = Collections.unmodifiableMap(new TreeMap<Integer, Exception>(failures));
+            this.processedCount = processedCount;
+            this.elapsedNanos = elapsedNanos;
+            this.cancelled = cancelled;
+        }
+
+        /**
+         * @return the states of the model attributes after each inference, in the order of the initial states.
+         * The element is null if the state was skipped because of cancellation, or its inference failed.
+         */
+        public List<State> getStates() {
+            return states;
+        }
+
+        /**
+         * @return the exceptions thrown by the failed inferences, indexed with the positions of their initial states
+         */
+        public Map<Integer, Exception> getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return number of the states that were processed, including the failed ones
+         */
+        public int getProcessedCount() {
+            return processedCount;
+        }
+
+        /**
+         * @return the wall-clock time of the batch in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return number of the states processed per second
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : processedCount * 1e9 / elapsedNanos;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public String toString() {
+            return "Batch inference processed " + processedCount + " of " + states.size() + " states"
+                    + " in " + (elapsedNanos / 1000000) + " ms (" + String.format("%.1f", getThroughput()) + " states/s), "
+                    + failures.size() + " failed" + (cancelled ? ", cancelled" : "");
+        }
+    }
+
+    public static class Builder {
+        private XTTModel model;
+        private InferenceMode inferenceMode = InferenceMode.FIXED_ORDER;
+        private InferenceAlgorithm.TableParameters tableParameters;
+        private InferenceAlgorithm.AttributeParameters attributeParameters;
+        private Configuration configuration;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private ExecutorService executorService;
+
+        /**
+         * The method builds the {@link BatchInference} object.
+         * If no configuration was given, the default one is used.
+         *
+         * @return the {@link BatchInference} object
+         * @throws BuilderException if the model or the inference parameters are missing,
+         * or the number of workers is not positive
+         */
+        public BatchInference build() throws BuilderException {
+            if (model == null) {
+                throw new BuilderException("Batch inference requires a model.");
+            }
+            if (inferenceMode == null) {
+                throw new BuilderException("Batch inference requires an inference mode.");
+            }
+            if ((tableParameters == null) == (attributeParameters == null)) {
+                throw new BuilderException("Exactly one of table parameters and attribute parameters has to be given.");
+            }
+            if (workers < 1) {
+                throw new BuilderException("Number of workers has to be a positive number, but " + workers + " was given.");
+            }
+            if (configuration == null) {
+                configuration = new Configuration.Builder().build();
+            }
+            return new BatchInference(this);
+        }
+
+        public XTTModel getModel() {
+            return model;
+        }
+
+        /**
+         * @param model the model used in all the inferences
+         * @return the {@link Builder} reference
+         */
+        public Builder setModel(XTTModel model) {
+            this.model = model;
+            return this;
+        }
+
+        public InferenceMode getInferenceMode() {
+            return inferenceMode;
+        }
+
+        /**
+         * @param inferenceMode the inference mode, {@link InferenceMode#FIXED_ORDER} by default
+         * @return the {@link Builder} reference
+         */
+        public Builder setInferenceMode(InferenceMode inferenceMode) {
+            this.inferenceMode = inferenceMode;
+            return this;
+        }
+
+        public InferenceAlgorithm.TableParameters getTableParameters() {
+            return tableParameters;
+        }
+
+        /**
+         * @param tableParameters the tables passed to {@link InferenceAlgorithm#start(InferenceAlgorithm.TableParameters)}
+         * @return the {@link Builder} reference
+         */
+        public Builder setTableParameters(InferenceAlgorithm.TableParameters tableParameters) {
+            this.tableParameters = tableParameters;
+            return this;
+        }
+
+        public InferenceAlgorithm.AttributeParameters getAttributeParameters() {
+            return attributeParameters;
+        }
+
+        /**
+         * @param attributeParameters the attributes passed to {@link InferenceAlgorithm#start(InferenceAlgorithm.AttributeParameters)}
+         * @return the {@link Builder} reference
+         */
+        public Builder setAttributeParameters(InferenceAlgorithm.AttributeParameters attributeParameters) {
+            this.attributeParameters = attributeParameters;
+            return this;
+        }
+
+        public Configuration getConfiguration() {
+            return configuration;
+        }
+
+        /**
+         * @param configuration the template of the configurations used in the inferences.
+         *                      Its initial state is replaced with the states given to {@link BatchInference#run(Collection)}.
+         * @return the {@link Builder} reference
+         */
+        public Builder setConfiguration(Configuration configuration) {
+            this.configuration = configuration;
+            return this;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        /**
+         * @param workers number of the states processed at the same time,
+         *                the number of available processors by default
+         * @return the {@link Builder} reference
+         */
+        public Builder setWorkers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        public ExecutorService getExecutorService() {
+            return executorService;
+        }
+
+        /**
+         * Sets the executor that runs the workers. If it is not given, a thread pool
+         * is created for each batch and shut down when the batch is finished.
+         *
+         * @param executorService the executor running the workers
+         * @return the {@link Builder} reference
+         */
+        public Builder setExecutorService(ExecutorService executorService) {
+            this.executorService = executorService;
+            return this;
+        }
+    }
+}
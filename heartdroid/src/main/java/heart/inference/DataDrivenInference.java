@@ -9,6 +9,7 @@ import heart.exceptions.UnknownValueException;
 import heart.uncertainty.ConflictSet;
 import heart.uncertainty.UncertainTrue;
 import heart.xtt.Attribute;
+import heart.xtt.DependencyGraph;
 import heart.xtt.Rule;
 import heart.xtt.Table;
 import heart.xtt.XTTModel;
@@ -58,7 +59,7 @@ public class DataDrivenInference extends InferenceAlgorithm {
     }
 
     private Stack<Table> initStackForTables(LinkedList<Table> tables){
-        LinkedList<Table> grey = new LinkedList<Table>();
+        Set<Table> grey = new HashSet<Table>();
         LinkedList<Table> result = new LinkedList<Table>();
         for(Table starter : tables){
             LinkedList<Table> reasoningBranch = BFSDive(new LinkedList<Table>(),grey,starter);
@@ -73,26 +74,22 @@ public class DataDrivenInference extends InferenceAlgorithm {
         return initStack;
     }
 
-    protected LinkedList<Table> BFSDive(LinkedList<Table> visited, LinkedList<Table> grey, Table starter){
+    protected LinkedList<Table> BFSDive(LinkedList<Table> visited, Set<Table> grey, Table starter){
+        DependencyGraph graph = getModel().getDependencyGraph();
+        Set<Table> visitedSet = new HashSet<Table>(visited);
         LinkedList<Table> Q = new LinkedList<Table>();
 
         Q.push(starter);
         while(!Q.isEmpty()){
             Table vertex = Q.pop();
-            LinkedList<Table> neighbourhood = new LinkedList<Table>();
-            for(Attribute a: vertex.getConclusion()){
-                LinkedList<Table> partialNeighbourhood = findTablesWithConditions(a);
-                neighbourhood.removeAll(partialNeighbourhood);
-                neighbourhood.addAll(partialNeighbourhood);
-            }
-
-            for(Table n : neighbourhood){
-                if(!grey.contains(n) && !visited.contains(n)){
-                    grey.push(n);
+            for(Table n : graph.getDownstreamTables(vertex)){
+                if(!grey.contains(n) && !visitedSet.contains(n)){
+                    grey.add(n);
                     Q.push(n);
                 }
             }
             visited.add(vertex);
+            visitedSet.add(vertex);
 
         }
         return visited;
@@ -100,22 +97,16 @@ public class DataDrivenInference extends InferenceAlgorithm {
 
 
 
-    protected LinkedList<Table> findTablesWithConditions(Attribute condition){
-        LinkedList<Table> dependats = new LinkedList<Table>();
-        for(Table t: getModel().getTables()){
-            if(t.getPrecondition().contains(condition)){
-                dependats.add(t);
-            }
-        }
-        return dependats;
+    protected LinkedList<Table> findTablesWithConditions(Attribute attribute){
+        return new LinkedList<Table>(getModel().getDependencyGraph().getConsumers(attribute));
     }
 
     protected Table resolveTable(String tableName){
-        for(Table table : getModel().getTables()){
-            if(tableName.equals(table.getName())){
-                return table;
-            }
-        }
-        return null;
+        return getModel().getDependencyGraph().getTable(tableName);
+    }
+
+    @Override
+    protected boolean isPlanCacheable() {
+        return true;
     }
 }
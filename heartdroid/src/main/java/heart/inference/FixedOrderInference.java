@@ -44,12 +44,16 @@ public class FixedOrderInference extends InferenceAlgorithm {
     protected Stack<Table> initStackForTables(TableParameters tp) {
         Stack<Table> initStack = new Stack<Table>();
         for(int i = tp.getTableParameters().length-1; i >= 0; i--){
-            for(Table table : getModel().getTables()){
-                if(tp.getTableParameters()[i].equals(table.getName())){
-                    initStack.push(table);
-                }
+            Table table = getModel().getDependencyGraph().getTable(tp.getTableParameters()[i]);
+            if(table != null){
+                initStack.push(table);
             }
         }
         return initStack;
     }
+
+    @Override
+    protected boolean isPlanCacheable() {
+        return true;
+    }
 }
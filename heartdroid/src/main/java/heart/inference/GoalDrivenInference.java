@@ -4,11 +4,16 @@ import heart.Configuration;
 import heart.WorkingMemory;
 import heart.exceptions.InferenceInterruptedException;
 import heart.xtt.Attribute;
+import heart.xtt.DependencyGraph;
 import heart.xtt.Table;
 import heart.xtt.XTTModel;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 import java.util.Stack;
 
 /**
@@ -54,7 +59,7 @@ public class GoalDrivenInference extends InferenceAlgorithm {
     }
 
     private Stack<Table> initStackForTables(LinkedList<Table> tables){
-        LinkedList<Table> grey = new LinkedList<Table>();
+        Set<Table> grey = new HashSet<Table>();
         LinkedList<Table> result = new LinkedList<Table>();
         for(Table starter : tables){
             LinkedList<Table> reasoningBranch = BFSDive(new LinkedList<Table>(),grey,starter);
@@ -69,47 +74,62 @@ public class GoalDrivenInference extends InferenceAlgorithm {
         return initStack;
     }
 
-    protected LinkedList<Table> BFSDive(LinkedList<Table> visited, LinkedList<Table> grey, Table starter){
+    protected LinkedList<Table> BFSDive(LinkedList<Table> visited, Set<Table> grey, Table starter){
+        DependencyGraph graph = getModel().getDependencyGraph();
+        Set<Table> visitedSet = new HashSet<Table>(visited);
         LinkedList<Table> Q = new LinkedList<Table>();
 
         Q.push(starter);
         while(!Q.isEmpty()){
             Table vertex = Q.pop();
-            LinkedList<Table> neighbourhood = new LinkedList<Table>();
-            for(Attribute a: vertex.getPrecondition()){
-                LinkedList<Table> partialNeighbourhood = findTablesWithConclusions(a);
-                neighbourhood.removeAll(partialNeighbourhood);
-                neighbourhood.addAll(partialNeighbourhood);
-            }
-
-            for(Table n : neighbourhood){
-                if(!grey.contains(n) && !visited.contains(n)){
-                    grey.push(n);
+            for(Table n : graph.getUpstreamTables(vertex)){
+                if(!grey.contains(n) && !visitedSet.contains(n)){
+                    grey.add(n);
                     Q.push(n);
                 }
             }
             visited.add(vertex);
+            visitedSet.add(vertex);
 
         }
         return visited;
     }
 
-    protected LinkedList<Table> findTablesWithConclusions(Attribute condition){
-        LinkedList<Table> predecessors = new LinkedList<Table>();
-        for(Table t: getModel().getTables()){
-            if(t.getConclusion().contains(condition)){
-                predecessors.add(t);
+    /**
+     * The goals of the goal-driven inference are the given attributes,
+     * or the conclusions of the given tables.
+     */
+    @Override
+    protected Collection<Attribute> findGoals(AttributeParameters ap, TableParameters tp) {
+        List<Attribute> goals = new LinkedList<Attribute>();
+        if (ap != null) {
+            for (String attributeName : ap.getAttributeParameters()) {
+                Attribute a = getModel().getAttributeByName(attributeName);
+                if (a != null) {
+                    goals.add(a);
+                }
+            }
+        } else {
+            for (String name : tp.getTableParameters()) {
+                Table t = resolveTable(name);
+                if (t != null) {
+                    goals.addAll(t.getConclusion());
+                }
             }
         }
-        return predecessors;
+        return goals;
+    }
+
+    protected LinkedList<Table> findTablesWithConclusions(Attribute attribute){
+        return new LinkedList<Table>(getModel().getDependencyGraph().getProducers(attribute));
     }
 
     protected Table resolveTable(String tableName){
-        for(Table table : getModel().getTables()){
-            if(tableName.equals(table.getName())){
-                return table;
-            }
-        }
-        return null;
+        return getModel().getDependencyGraph().getTable(tableName);
+    }
+
+    @Override
+    protected boolean isPlanCacheable() {
+        return true;
     }
 }
@@ -0,0 +1,115 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.inference;
+
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.Value;
+import heart.xtt.Attribute;
+import heart.xtt.DependencyGraph;
+import heart.xtt.Table;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches the goal attributes of an inference run with the goal termination enabled
+ * (see {@link heart.Configuration#isGoalTerminationEnabled()}).
+ * For every goal it keeps the tables that conclude it, directly or through the attributes they read.
+ * A goal is resolved when a table concluding it has set its value with a certainty above the threshold.
+ */
+class GoalTracker {
+    private final Map<Attribute, Set<Table>> unresolved = new LinkedHashMap<Attribute, Set<Table>>();
+    private final float threshold;
+
+    /**
+     * @param goals the goal attributes
+     * @param graph the dependency graph of the model
+     * @param threshold the satisfiability threshold of the evaluator
+     */
+    GoalTracker(Collection<Attribute> goals, DependencyGraph graph, float threshold) {
+        this.threshold = threshold;
+        for (Attribute goal : goals) {
+            if (goal != null && !unresolved.containsKey(goal)) {
+                unresolved.put(goal, findContributingTables(goal, graph));
+            }
+        }
+    }
+
+    /**
+     * @return the producers of the attribute together with all the tables upstream of them
+     */
+    private static Set<Table> findContributingTables(Attribute goal, DependencyGraph graph) {
+        Set<Table> result = new HashSet<Table>();
+        LinkedList<Table> queue = new LinkedList<Table>(graph.getProducers(goal));
+        while (!queue.isEmpty()) {
+            Table t = queue.pop();
+            if (result.add(t)) {
+                queue.addAll(graph.getUpstreamTables(t));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the table may still affect any of the unresolved goals
+     */
+    synchronized boolean isRelevant(Table table) {
+        for (Set<Table> tables : unresolved.values()) {
+            if (tables.contains(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if all the goals are resolved
+     */
+    synchronized boolean isResolved() {
+        return unresolved.isEmpty();
+    }
+
+    /**
+     * Marks the goals concluded by the processed table as resolved, if they got certain enough values.
+     *
+     * @param table the table that has just been processed
+     * @param wm the working memory of the inference
+     */
+    synchronized void update(Table table, WorkingMemory wm) {
+        for (Attribute goal : table.getConclusion()) {
+            if (unresolved.containsKey(goal)) {
+                Value v = wm.getAttributeValue(goal);
+                if (!(v instanceof Null) && v.getCertaintyFactor() > threshold) {
+                    unresolved.remove(goal);
+                }
+            }
+        }
+    }
+}
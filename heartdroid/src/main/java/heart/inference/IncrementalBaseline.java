@@ -0,0 +1,164 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.inference;
+
+import heart.Configuration;
+import heart.State;
+import heart.alsvfd.Null;
+import heart.alsvfd.Value;
+import heart.xtt.Attribute;
+import heart.xtt.DependencyGraph;
+import heart.xtt.Table;
+import heart.xtt.XTTModel;
+
+import java.util.*;
+
+/**
+ * A summary of an inference that was run in the incremental mode
+ * (see {@link Configuration#isIncrementalInferenceEnabled()}).
+ * It is stored in the {@link heart.WorkingMemory} and describes the inputs
+ * that produced the values currently held by the working memory.
+ *
+ * The next incremental inference with the same model, plan and uncertainty handling
+ * compares its initial state with these inputs and processes only the tables
+ * that are affected by the difference. All the other tables would produce
+ * exactly the same values, which are already in the working memory.
+ */
+public class IncrementalBaseline {
+    private final XTTModel model;
+    private final Table[] plan;
+    private final Class<?> evaluatorClass;
+    private final Class<?> resolutionClass;
+    private final Map<String, Value> inputs;
+
+    IncrementalBaseline(XTTModel model, Table[] plan, Configuration conf, Map<String, Value> inputs) {
+        this.model = model;
+        this.plan = plan;
+        this.evaluatorClass = conf.getUncertainTrueEvaluator().getClass();
+        this.resolutionClass = conf.getConflictSetResolution().getClass();
+        this.inputs = inputs;
+    }
+
+    /**
+     * Collects values from the initial state for all the attributes of the model.
+     * Values are copied, so that later modifications of the state do not affect the baseline.
+     *
+     * @param state the initial state of the inference
+     * @param model the model which attributes should be collected
+     * @return map from attribute names to their initial values ({@link Null} for missing ones)
+     */
+    static Map<String, Value> collectInputs(State state, XTTModel model) {
+        Map<String, Value> result = new HashMap<String, Value>();
+        for (Attribute a : model.getAttributes()) {
+            Value v = state.getValueOfAttribute(a.getName());
+            result.put(a.getName(), v == null ? new Null() : v.clone());
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the inference with given parameters can continue from this baseline
+     */
+    boolean isCompatible(XTTModel model, Table[] plan, Configuration conf) {
+        return this.model == model
+                && Arrays.equals(this.plan, plan)
+                && evaluatorClass == conf.getUncertainTrueEvaluator().getClass()
+                && resolutionClass == conf.getConflictSetResolution().getClass();
+    }
+
+    /**
+     * Finds the attributes which initial values differ from the ones recorded in this baseline.
+     *
+     * @param newInputs initial values of the new inference
+     * @param externallyChanged names of the attributes modified outside of the inference since the baseline was taken
+     * @return the attributes that have to be reset to their new initial values
+     */
+    Set<Attribute> findChangedInputs(Map<String, Value> newInputs, Set<String> externallyChanged) {
+        Set<Attribute> changed = new HashSet<Attribute>();
+        for (Attribute a : model.getAttributes()) {
+            String name = a.getName();
+            if (externallyChanged.contains(name) || !sameValue(inputs.get(name), newInputs.get(name))) {
+                changed.add(a);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Marks the tables of the plan that have to be processed again.
+     * A table is affected when it reads or concludes an attribute that changed,
+     * when it relies on callbacks, the history log or actions, or when it concludes
+     * an attribute concluded by another affected table. Conclusions of affected tables
+     * are treated as changed as well, so the changes are followed downstream.
+     *
+     * @param plan the inference plan
+     * @param graph the dependency graph of the model
+     * @param changed the changed attributes. It is extended with the conclusions of the affected tables.
+     * @return an array indicating which tables from the plan have to be processed
+     */
+    static boolean[] findAffectedTables(Table[] plan, DependencyGraph graph, Set<Attribute> changed) {
+        boolean[] affected = new boolean[plan.length];
+        boolean modified = true;
+        while (modified) {
+            modified = false;
+            for (int i = 0; i < plan.length; i++) {
+                if (affected[i]) {
+                    continue;
+                }
+                Table t = plan[i];
+                if (graph.hasCallbacks(t) || graph.isHistoryDependent(t) || graph.hasActions(t)
+                        || intersects(graph.getInputAttributes(t), changed)
+                        || intersects(t.getConclusion(), changed)) {
+                    affected[i] = true;
+                    changed.addAll(t.getConclusion());
+                    modified = true;
+                }
+            }
+        }
+        return affected;
+    }
+
+    Map<String, Value> getInputs() {
+        return inputs;
+    }
+
+    private static boolean intersects(Collection<Attribute> attributes, Set<Attribute> changed) {
+        for (Attribute a : attributes) {
+            if (changed.contains(a)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sameValue(Value a, Value b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getClass() == b.getClass()
+                && a.getCertaintyFactor() == b.getCertaintyFactor()
+                && a.toString().equals(b.toString());
+    }
+}
@@ -27,24 +27,42 @@ package heart.inference;
 import heart.Configuration;
 import heart.Debug;
 import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.Value;
 import heart.exceptions.AttributeNotRegisteredException;
 import heart.exceptions.InferenceInterruptedException;
 import heart.exceptions.NotInTheDomainException;
 import heart.exceptions.UnknownValueException;
+import heart.uncertainty.ALSVEvaluator;
 import heart.uncertainty.AmbiguityResolver;
 import heart.uncertainty.ConflictSet;
+import heart.uncertainty.ConflictSetResolution;
+import heart.uncertainty.DefaultAmbiguityResolver;
+import heart.uncertainty.IndexedConflictSetResolution;
 import heart.uncertainty.ConflictSetFireAll;
 import heart.uncertainty.UncertainTrue;
 import heart.xtt.Attribute;
+import heart.xtt.CompiledTable;
+import heart.xtt.DependencyGraph;
 import heart.xtt.Rule;
 import heart.xtt.Table;
+import heart.xtt.TableIndex;
 import heart.xtt.XTTModel;
 
 import java.rmi.activation.ActivationSystem;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EmptyStackException;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Created by sbk on 20.03.15.
@@ -66,7 +84,45 @@ public abstract class InferenceAlgorithm {
     private WorkingMemory wm;
     private XTTModel model;
     private Configuration conf;
-    private Stack<Table> tablesToFire;
+    private Stack<Table> tablesToFire = new Stack<Table>();
+    private Table[] plan = new Table[0];
+    private int planPosition;
+
+    /**
+     * Tokens held by the tables, or null when the token passing is disabled.
+     */
+    private TokenRegistry tokens;
+
+    /**
+     * The rules of the currently processed table that received tokens,
+     * or null if all the rules of the table should be evaluated.
+     */
+    private Set<Rule> linkedRules;
+
+    /**
+     * The goals of the inference, or null when the goal termination is not used.
+     */
+    private GoalTracker goals;
+
+    private boolean timeLimited;
+    private long deadline;
+    private volatile boolean deadlineExceeded;
+    private List<Table> unprocessedTables = Collections.synchronizedList(new ArrayList<Table>());
+
+    /**
+     * The conflict sets reused by the tables processed on the thread that started the inference,
+     * so that processing a table does not allocate them. The tables processed concurrently use their own conflict sets.
+     */
+    private final ConflictSet conflictSetBuffer = new ConflictSet();
+    private final ConflictSet toExecuteBuffer = new ConflictSet();
+    private final TableIndex.Candidates candidatesBuffer = new TableIndex.Candidates();
+    private int[] classesBuffer = new int[0];
+    private Thread bufferOwner;
+
+    /**
+     * The smallest number of rules evaluated by a single task of the concurrent rule evaluation.
+     */
+    private static final int MIN_RULES_CHUNK = 64;
 
 
     /**
@@ -116,10 +172,18 @@ public abstract class InferenceAlgorithm {
 
     /**
      * It removes the first Table from stack and returns it.
+     * The tables pushed during the inference are always returned before the
+     * remaining tables of the initial plan.
      * @return first table form the stack
      */
     public Table popTable(){
-        return tablesToFire.pop();
+        if(!tablesToFire.isEmpty()){
+            return tablesToFire.pop();
+        }
+        if(planPosition < plan.length){
+            return plan[planPosition++];
+        }
+        throw new EmptyStackException();
     }
 
     /**
@@ -127,7 +191,13 @@ public abstract class InferenceAlgorithm {
      * @return first table form the stack
      */
     public Table peakTable(){
-        return tablesToFire.peek();
+        if(!tablesToFire.isEmpty()){
+            return tablesToFire.peek();
+        }
+        if(planPosition < plan.length){
+            return plan[planPosition];
+        }
+        throw new EmptyStackException();
     }
 
     /**
@@ -135,7 +205,20 @@ public abstract class InferenceAlgorithm {
      * @return true if empty, false in other cases
      */
     public boolean isTableStackEmpty(){
-        return tablesToFire.isEmpty();
+        return tablesToFire.isEmpty() && planPosition >= plan.length;
+    }
+
+    /**
+     * Tells whether the stacks created by {@link #initStackForTables(TableParameters)} and
+     * {@link #initStackForAttributes(AttributeParameters)} depend only on the model and the parameters,
+     * so they can be stored in the {@link PlanCache} of the model and reused by subsequent calls.
+     * Algorithms that build the stack basing on the state of the WorkingMemory should return false,
+     * which is the default.
+     *
+     * @return true if the initial stacks of this algorithm can be cached
+     */
+    protected boolean isPlanCacheable(){
+        return false;
     }
 
     /**
@@ -148,55 +231,42 @@ public abstract class InferenceAlgorithm {
      * and move to another table from the stack
      */
     protected void runRules(Table table) throws InferenceInterruptedException, UnsupportedOperationException{
-        ConflictSet conflictSet = new ConflictSet();
-
+        boolean buffered = Thread.currentThread() == bufferOwner;
         try{
-            for(Rule rule : table.getRules()){
-                Debug.debug(Debug.heartTag, Debug.Level.RULES, "Processing rule "+rule.getName()+" (ID: "+rule.getId()+")");
-                UncertainTrue partialResult = null;
-                try {
-                    partialResult = rule.evaluate(getWm(), getConf().getUncertainTrueEvaluator());
-                } catch (UnknownValueException e) {
-                    Debug.debug(Debug.heartTag, Debug.Level.RULES,
-                            "Evaluating rule "+rule.getName()+" (ID: "+rule.getId()+") failed due to Null values. Skipping the rule.");
-                    continue;
-                }
-
-                partialResult.setCertinatyFactor(partialResult.getCertinatyFactor()*rule.getCertaintyFactor());
-
-                if(partialResult.getCertinatyFactor() > getConf().getUncertainTrueEvaluator().getSatisfiabilityThreshold()){
-                    conflictSet.add(rule, partialResult);
-                }
-
-                Debug.debug(Debug.heartTag, Debug.Level.RULES, "Finished evaluating rule "+rule.getName()+" (ID: "+rule.getId()+"). "+
-                        "SATISFIED with ("+partialResult.getCertinatyFactor()+") certainty.");
-
-
-            }
+            ConflictSet conflictSet = evaluateRules(table, buffered ? conflictSetBuffer : new ConflictSet());
 
             //If the conflict set is empty, then fire the ruleToFire
             //Otherwise, launch conflict resolution mechanism
             if(conflictSet.isEmpty()){
-                Debug.debug(Debug.heartTag, Debug.Level.RULES,
-                            "No rule to fire in table "+table.getName()+" (ID: "+table.getId()+").");
+                if(Debug.isEnabled(Debug.Level.RULES)) {
+                    Debug.debug(Debug.heartTag, Debug.Level.RULES,
+                            "No rule to fire in table " + table.getName() + " (ID: " + table.getId() + ").");
+                }
             }else{
-                Debug.debug(Debug.heartTag, Debug.Level.RULES,
-                        "Conflict set of table "+table.getName()+" (ID: "+table.getId()+
-                                ") is not empty (contains "+conflictSet.size()+" rules).");
-
-                LinkedList<AbstractMap.SimpleEntry<Rule, UncertainTrue>> toExecute =
-                        getConf().getUncertainTrueEvaluator().getAmbiguityResolver().resolveDisjunctiveConclusions(conflictSet,wm,getConf().getConflictSetResolution());
-                for(AbstractMap.SimpleEntry<Rule, UncertainTrue> se: toExecute){
-                    Rule r = se.getKey();
-                    if(r.execute(getWm(), se.getValue())) {
-                        Debug.debug(Debug.heartTag, Debug.Level.RULES,
-                                "Rule " + r.getName() + " (ID: " + r.getId() + ") fired.");
-                    }else {
-                        Debug.debug(Debug.heartTag, Debug.Level.RULES,
-                                "Rule " + r.getName() + " (ID: " + r.getId() + ") execution failed.");
+                if(Debug.isEnabled(Debug.Level.RULES)) {
+                    Debug.debug(Debug.heartTag, Debug.Level.RULES,
+                            "Conflict set of table " + table.getName() + " (ID: " + table.getId() +
+                                    ") is not empty (contains " + conflictSet.size() + " rules).");
+                }
+
+                AmbiguityResolver ambiguityResolver = getConf().getUncertainTrueEvaluator().getAmbiguityResolver();
+                ConflictSetResolution resolution = getConf().getConflictSetResolution();
+                if(ambiguityResolver.getClass() == DefaultAmbiguityResolver.class && resolution instanceof IndexedConflictSetResolution){
+                    ConflictSet toExecute = buffered ? toExecuteBuffer : new ConflictSet();
+                    try {
+                        ((IndexedConflictSetResolution) resolution).resolveConflictSet(conflictSet, toExecute);
+                        for (int i = 0; i < toExecute.size(); i++) {
+                            executeRule(toExecute.getRule(i), toExecute.getCertainty(i));
+                        }
+                    } finally {
+                        toExecute.clear();
+                    }
+                }else {
+                    LinkedList<AbstractMap.SimpleEntry<Rule, UncertainTrue>> toExecute =
+                            ambiguityResolver.resolveDisjunctiveConclusions(conflictSet, wm, resolution);
+                    for (AbstractMap.SimpleEntry<Rule, UncertainTrue> se : toExecute) {
+                        executeRule(se.getKey(), se.getValue());
                     }
-                    //TODO: if link to table -- pass token if tdi enabled, otherwise -- ignore
-                    //TODO: if link to rule -- pass token to rule if tdi enables (this rule will be chosen once conflict resolution is fired), otherwise -- ignore
                 }
 
             }
@@ -206,9 +276,245 @@ public abstract class InferenceAlgorithm {
             throw e;
         } catch (NotInTheDomainException e) {
             Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Value "+e.getValue().toString()+" not in the domain "+e.getDomain().toString()+". Inference interrupted.");
+        } finally {
+            if (buffered) {
+                conflictSetBuffer.clear();
+            }
         }
     }
 
+    private void executeRule(Rule r, UncertainTrue certainty) throws NotInTheDomainException {
+        if(r.execute(getWm(), certainty)) {
+            if(Debug.isEnabled(Debug.Level.RULES)) {
+                Debug.debug(Debug.heartTag, Debug.Level.RULES,
+                        "Rule " + r.getName() + " (ID: " + r.getId() + ") fired.");
+            }
+            if (tokens != null) {
+                passTokens(r);
+            }
+        }else {
+            Debug.debug(Debug.heartTag, Debug.Level.RULES,
+                    "Rule " + r.getName() + " (ID: " + r.getId() + ") execution failed.");
+        }
+    }
+
+
+    /**
+     * Evaluates the conditions of all the rules of the table and collects the satisfied ones.
+     * When the table has at least {@link Configuration#getParallelRuleThreshold()} rules and the
+     * configuration provides a pool, the rules are evaluated concurrently in chunks.
+     * In both cases the conflict set keeps the order of the rules from the table.
+     *
+     * @param table the table which rules should be evaluated
+     * @param conflictSet an empty conflict set to which the satisfied rules are added
+     * @return the conflict set with the satisfied rules
+     * @throws NotInTheDomainException thrown by the first rule that failed with this exception
+     * @throws InferenceInterruptedException thrown when the time budget runs out
+     */
+    private ConflictSet evaluateRules(Table table, ConflictSet conflictSet) throws NotInTheDomainException, InferenceInterruptedException {
+        Rule[] rules = table.getRuleArray();
+        int count = rules.length;
+        TableIndex.Candidates candidates = selectRules(table);
+        if (candidates != null) {
+            rules = candidates.getRules();
+            count = candidates.size();
+        }
+        if (linkedRules != null) {
+            rules = selectLinkedRules(rules, count);
+            count = rules.length;
+        }
+        CompiledTable compiled = getCompiledTable(table);
+        int[] classes = null;
+        if (compiled != null) {
+            if (Thread.currentThread() == bufferOwner) {
+                classes = classesBuffer = compiled.classify(getWm(), classesBuffer);
+            } else {
+                classes = compiled.classify(getWm());
+            }
+        }
+        ForkJoinPool pool = getConf().getForkJoinPool();
+        if (pool != null && count >= getConf().getParallelRuleThreshold()) {
+            return evaluateRulesInChunks(rules, count, pool, compiled, classes, conflictSet);
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (isOutOfTime()) {
+                throw new InferenceInterruptedException();
+            }
+            UncertainTrue result = evaluateRule(rules[i], compiled, classes);
+            if (result != null) {
+                conflictSet.add(rules[i], result);
+            }
+        }
+        return conflictSet;
+    }
+
+    /**
+     * Selects the rules of the table that have to be evaluated with the {@link heart.xtt.TableIndex}, if it can be used.
+     * These are only the rules which conditions may be satisfied by the current state.
+     * The thread that started the inference reuses the same buffer for all the tables.
+     *
+     * @param table the table which rules should be evaluated
+     * @return the rules in the order of the table, or null if all the rules of the table have to be evaluated
+     */
+    private TableIndex.Candidates selectRules(Table table) {
+        if (getConf().isRuleIndexEnabled() && getConf().getUncertainTrueEvaluator().getClass() == ALSVEvaluator.class) {
+            TableIndex index = getModel().getTableIndex(table);
+            if (index != null && !index.isEmpty()) {
+                TableIndex.Candidates candidates = Thread.currentThread() == bufferOwner
+                        ? candidatesBuffer : new TableIndex.Candidates();
+                index.findCandidateRules(getWm(), candidates);
+                if(Debug.isEnabled(Debug.Level.RULES)) {
+                    Debug.debug(Debug.heartTag, Debug.Level.RULES, "Index of table " + table.getName() + " (ID: " + table.getId() + ") selected " + candidates.size() + " rules to evaluate.");
+                }
+                return candidates;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keeps only the rules that received tokens, in the order of the table.
+     */
+    private Rule[] selectLinkedRules(Rule[] rules, int count) {
+        List<Rule> result = new ArrayList<Rule>(linkedRules.size());
+        for (int i = 0; i < count; i++) {
+            Rule rule = rules[i];
+            if (linkedRules.contains(rule)) {
+                result.add(rule);
+            }
+        }
+        return result.toArray(new Rule[result.size()]);
+    }
+
+    /**
+     * Returns the compiled form of the table, if the table compilation is enabled and it can be used.
+     *
+     * @param table the table which rules should be evaluated
+     * @return the compiled table, or null if the rules should be interpreted
+     */
+    private CompiledTable getCompiledTable(Table table) {
+        if (getConf().isTableCompilationEnabled() && getConf().getUncertainTrueEvaluator().getClass() == ALSVEvaluator.class) {
+            CompiledTable compiled = getModel().getCompiledTable(table);
+            if (compiled != null && !compiled.isEmpty()) {
+                return compiled;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Splits the rules into chunks and evaluates them on the pool.
+     * Each chunk stops at its first failing rule. The results are merged in the order of the rules,
+     * and the exception of the first failing rule is rethrown, exactly as in the sequential evaluation.
+     */
+    private ConflictSet evaluateRulesInChunks(final Rule[] rules, int count, ForkJoinPool pool,
+                                              final CompiledTable compiled, final int[] classes, ConflictSet conflictSet)
+            throws NotInTheDomainException, InferenceInterruptedException {
+        final UncertainTrue[] results = new UncertainTrue[count];
+        final Exception[] failures = new Exception[count];
+        int chunkSize = Math.max(MIN_RULES_CHUNK, (count + pool.getParallelism() * 4 - 1) / (pool.getParallelism() * 4));
+        Debug.debug(Debug.heartTag, Debug.Level.RULES, "Evaluating " + count + " rules concurrently in chunks of " + chunkSize + ".");
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for (int start = 0; start < count; start += chunkSize) {
+            final int from = start;
+            final int to = Math.min(count, start + chunkSize);
+            tasks.add(pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = from; i < to; i++) {
+                        if (isOutOfTime()) {
+                            return;
+                        }
+                        try {
+                            results[i] = evaluateRule(rules[i], compiled, classes);
+                        } catch (NotInTheDomainException e) {
+                            failures[i] = e;
+                            return;
+                        } catch (RuntimeException e) {
+                            failures[i] = e;
+                            return;
+                        }
+                    }
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        if (deadlineExceeded) {
+            throw new InferenceInterruptedException();
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (failures[i] instanceof NotInTheDomainException) {
+                throw (NotInTheDomainException) failures[i];
+            } else if (failures[i] != null) {
+                throw (RuntimeException) failures[i];
+            }
+            if (results[i] != null) {
+                conflictSet.add(rules[i], results[i]);
+            }
+        }
+        return conflictSet;
+    }
+
+    /**
+     * Evaluates the conditions of a single rule.
+     *
+     * @param compiled the compiled table of the rule, or null if the rule should be interpreted
+     * @param classes the classes of the slots of the compiled table
+     * @return the certainty of the rule, or null if the rule is not satisfied or cannot be evaluated due to Null values
+     */
+    private UncertainTrue evaluateRule(Rule rule, CompiledTable compiled, int[] classes) throws NotInTheDomainException {
+        boolean debug = Debug.isEnabled(Debug.Level.RULES);
+        if (debug) {
+            Debug.debug(Debug.heartTag, Debug.Level.RULES, "Processing rule " + rule.getName() + " (ID: " + rule.getId() + ")");
+        }
+        UncertainTrue partialResult = null;
+        try {
+            if (compiled != null) {
+                partialResult = compiled.evaluate(rule, classes, getWm(), getConf().getUncertainTrueEvaluator());
+            } else {
+                partialResult = rule.evaluate(getWm(), getConf().getUncertainTrueEvaluator(), getConf().isAdaptiveConditionOrderingEnabled());
+            }
+        } catch (UnknownValueException e) {
+            Debug.debug(Debug.heartTag, Debug.Level.RULES,
+                    "Evaluating rule "+rule.getName()+" (ID: "+rule.getId()+") failed due to Null values. Skipping the rule.");
+            return null;
+        }
+
+        // the certainty may be one of the shared constants, so it is replaced instead of being modified
+        if (rule.getCertaintyFactor() != 1.0f) {
+            partialResult = UncertainTrue.valueOf(partialResult.getCertinatyFactor() * rule.getCertaintyFactor());
+        }
+
+        if (debug) {
+            Debug.debug(Debug.heartTag, Debug.Level.RULES, "Finished evaluating rule " + rule.getName() + " (ID: " + rule.getId() + "). " +
+                    "SATISFIED with (" + partialResult.getCertinatyFactor() + ") certainty.");
+        }
+
+        if(partialResult.getCertinatyFactor() > getConf().getUncertainTrueEvaluator().getSatisfiabilityThreshold()){
+            return partialResult;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the goal attributes of the inference, used when the goal termination is enabled
+     * (see {@link Configuration#isGoalTerminationEnabled()}). The inference stops as soon as all of them are resolved,
+     * and skips the tables that cannot affect any unresolved goal.
+     * By default the inference has no goals, so it processes all the tables.
+     * Exactly one of the parameters is non-null.
+     *
+     * @param ap attributes names given to the inference
+     * @param tp tables names given to the inference
+     * @return the goal attributes, or null if the inference has no goals
+     */
+    protected Collection<Attribute> findGoals(AttributeParameters ap, TableParameters tp) {
+        return null;
+    }
 
     /**
      * The method creates an initial stack of Tables that should be processed by the {@link #runRules(Table t)} method.
@@ -244,30 +550,12 @@ public abstract class InferenceAlgorithm {
      * @param ap attributes names which values should be obtain in the inference process
      */
     public final void start(AttributeParameters ap) {
+        startClock();
+        bufferOwner = Thread.currentThread();
         onPreExecute();
-        setTablesToFire(initStackForAttributes(ap));
-        try {
-            getWm().setAmbiguityResolver(conf.getUncertainTrueEvaluator().getAmbiguityResolver());
-            getWm().setCurrentState(getConf().getInitialState(), getModel(), true);
-            getWm().resolveAmbiguousAttributesValues();
-            while (!tablesToFire.isEmpty()) {
-                Table table = tablesToFire.pop();
-                Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Processing table " + table.getName() + " (ID: " + table.getId() + ")");
-                try {
-                    runRules(table);
-                } catch (InferenceInterruptedException e) {
-                    Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Processing table " + table.getName() + " (ID: " + table.getId() + ") interrupted.");
-                }
-                Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Processing table " + table.getName() + " (ID: " + table.getId() + ") finished.");
-
-            }
-        } catch (NotInTheDomainException e) {
-            Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Value "+e.getValue().toString()+" not in the domain "+e.getDomain().toString()+". Inference interrupted.");
-        } catch (AttributeNotRegisteredException e) {
-            Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Attribute "+e.getAttributeName()+" not registered in WirkingMemory. Inference interrupted.");
-        }finally {
-            onPostExecute();
-        }
+        setPlan(orderPlan(resolvePlan(ap, null)));
+        setGoals(ap, null);
+        processTables();
     }
 
 
@@ -283,32 +571,413 @@ public abstract class InferenceAlgorithm {
      *                             This could mean different things in different reasoning modes.
      */
     public final void start(TableParameters tp) {
+        startClock();
+        bufferOwner = Thread.currentThread();
         onPreExecute();
-        setTablesToFire(initStackForTables(tp));
+        setPlan(orderPlan(resolvePlan(null, tp)));
+        setGoals(null, tp);
+        processTables();
+    }
+
+    private void processTables() {
+        IncrementalBaseline baseline = getWm().getIncrementalBaseline();
+        getWm().setIncrementalBaseline(null);
         try {
             getWm().setAmbiguityResolver(conf.getUncertainTrueEvaluator().getAmbiguityResolver());
-            getWm().setCurrentState(getConf().getInitialState(), getModel(), true);
-            getWm().resolveAmbiguousAttributesValues();
-            while (!tablesToFire.isEmpty()) {
-                Table table = tablesToFire.pop();
-                Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Processing table " + table.getName() + " (ID: " + table.getId() + ")");
-                try {
-                    runRules(table);
-                } catch (InferenceInterruptedException e) {
-                    Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Processing table " + table.getName() + " (ID: " + table.getId() + ") interrupted.");
+            getWm().trackStatistics(getModel());
+
+            ResultCache.Key memoKey = createMemoKey();
+            Map<String, Value> memo = memoKey != null ? getModel().getResultCache().get(memoKey) : null;
+
+            Map<String, Value> inputs = null;
+            boolean[] affected = null;
+            if (getConf().isIncrementalInferenceEnabled() && !getConf().isTokenPassingEnabled() && goals == null) {
+                inputs = IncrementalBaseline.collectInputs(getConf().getInitialState(), getModel());
+                if (memo == null && baseline != null && baseline.isCompatible(getModel(), plan, getConf())) {
+                    affected = resetChangedAttributes(baseline, inputs);
                 }
-                Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Processing table " + table.getName() + " (ID: " + table.getId() + ") finished.");
+            }
+            if (affected == null) {
+                getWm().setCurrentState(getConf().getInitialState(), getModel(), true);
+            }
+            getWm().resolveAmbiguousAttributesValues();
 
+            if (memo != null) {
+                applyMemo(memo);
+            } else if (getConf().isTokenPassingEnabled()) {
+                processWithTokens();
+            } else if (getConf().getForkJoinPool() != null) {
+                processInLayers(affected, getConf().getForkJoinPool());
+            } else {
+                processSequentially(affected);
+            }
+
+            if (memo == null && memoKey != null && !deadlineExceeded) {
+                getModel().getResultCache().put(memoKey, collectMemo());
+            }
+
+            // a partial state cannot be used as a baseline of the next incremental inference
+            if (inputs != null && !deadlineExceeded) {
+                getWm().setIncrementalBaseline(new IncrementalBaseline(getModel(), plan, getConf(), inputs));
+                getWm().clearChangedAttributes();
             }
         } catch (NotInTheDomainException e) {
             Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Value "+e.getValue().toString()+" not in the domain "+e.getDomain().toString()+". Inference interrupted.");
         } catch (AttributeNotRegisteredException e) {
             Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Attribute "+e.getAttributeName()+" not registered in WirkingMemory. Inference interrupted.");
         }finally{
+            tokens = null;
+            linkedRules = null;
+            goals = null;
             onPostExecute();
         }
     }
 
+    /**
+     * Creates the key of the inference result in the {@link ResultCache} of the model.
+     *
+     * The result is not memoized with the token passing, as it processes the link targets outside the plan,
+     * which are neither checked for purity nor collected into the result.
+     *
+     * @return the key, or null if the result cannot be memoized
+     */
+    private ResultCache.Key createMemoKey() {
+        if (!getConf().isMemoizationEnabled() || getConf().isTokenPassingEnabled() || goals != null
+                || !getModel().getDependencyGraph().isPure(plan)) {
+            return null;
+        }
+        return new ResultCache.Key(getClass(), plan, getConf().getUncertainTrueEvaluator().getClass(),
+                getConf().getConflictSetResolution().getClass(),
+                ResultCache.Key.canonicalInputs(getConf().getInitialState(), getModel().getAttributes()));
+    }
+
+    /**
+     * Collects the values of the attributes the plan has changed with respect to the initial state.
+     */
+    private Map<String, Value> collectMemo() {
+        getWm().resolveAmbiguousAttributesValues();
+        DependencyGraph graph = getModel().getDependencyGraph();
+        Map<String, Value> delta = new HashMap<String, Value>();
+        for (Table table : plan) {
+            for (Attribute a : graph.getOutputAttributes(table)) {
+                Value v = getWm().getAttributeValue(a);
+                if (!delta.containsKey(a.getName()) && !sameValue(v, getConf().getInitialState().getValueOfAttribute(a.getName()))) {
+                    delta.put(a.getName(), v.clone());
+                }
+            }
+        }
+        return delta;
+    }
+
+    private static boolean sameValue(Value a, Value b) {
+        if (b == null) {
+            return a instanceof Null;
+        }
+        return a.getClass() == b.getClass()
+                && a.getCertaintyFactor() == b.getCertaintyFactor()
+                && a.toString().equals(b.toString());
+    }
+
+    /**
+     * Sets the values of the memoized inference result instead of processing the tables.
+     */
+    private void applyMemo(Map<String, Value> delta) throws NotInTheDomainException, AttributeNotRegisteredException {
+        Debug.debug(Debug.heartTag, Debug.Level.TABLES, "The result of the inference is taken from the cache. " + plan.length + " tables are not processed.");
+        for (Map.Entry<String, Value> e : delta.entrySet()) {
+            getWm().setAttributeValue(getModel().getAttributeByName(e.getKey()), e.getValue().clone(), true);
+        }
+        planPosition = plan.length;
+    }
+
+    /**
+     * Processes the tables from the stack one after another.
+     *
+     * @param affected tables of the plan that have to be processed, or null if all of them have to be processed
+     */
+    private void processSequentially(boolean[] affected) {
+        while (!isTableStackEmpty()) {
+            boolean fromPlan = tablesToFire.isEmpty();
+            int index = planPosition;
+            Table table = popTable();
+            if (affected != null && fromPlan && !affected[index]) {
+                skipTable(table);
+                continue;
+            }
+            processTable(table);
+        }
+    }
+
+    /**
+     * Splits the remaining part of the plan into layers of independent tables
+     * (see {@link heart.xtt.DependencyGraph#splitIntoLayers(Table[])}) and processes the tables of
+     * each layer concurrently. The next layer is started when all the tables of the previous one are finished.
+     * Tables pushed to the stack while processing a layer are processed sequentially before the next layer.
+     * Every attribute is concluded by at most one table within a layer, so the final state
+     * is the same as the one obtained by {@link #processSequentially(boolean[])}.
+     *
+     * @param affected tables of the plan that have to be processed, or null if all of them have to be processed
+     * @param pool the pool that runs the tables
+     */
+    private void processInLayers(boolean[] affected, ForkJoinPool pool) {
+        List<Table> remaining = new ArrayList<Table>();
+        while (planPosition < plan.length) {
+            int index = planPosition;
+            Table table = plan[planPosition++];
+            if (affected != null && !affected[index]) {
+                skipTable(table);
+            } else {
+                remaining.add(table);
+            }
+        }
+
+        List<List<Table>> layers = getModel().getDependencyGraph()
+                .splitIntoLayers(remaining.toArray(new Table[remaining.size()]));
+        for (List<Table> layer : layers) {
+            if (layer.size() == 1) {
+                processTable(layer.get(0));
+            } else {
+                Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Processing " + layer.size() + " tables concurrently.");
+                List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(layer.size());
+                for (final Table table : layer) {
+                    tasks.add(pool.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            processTable(table);
+                        }
+                    }));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
+            }
+            processSequentiallyPushed();
+        }
+    }
+
+    /**
+     * Processes the tables from the stack that received tokens, and skips the other ones.
+     * The tables of the plan that are not targets of any rule link receive their tokens at the start.
+     * If every table of the plan is a link target, the first one receives the token.
+     * Rules that fire pass tokens along their links (see {@link #passTokens(Rule)}).
+     */
+    private void processWithTokens() {
+        tokens = new TokenRegistry();
+        DependencyGraph graph = getModel().getDependencyGraph();
+        for (Table table : plan) {
+            if (!graph.isLinkTarget(table)) {
+                tokens.passToTable(table);
+            }
+        }
+        if (tokens.isEmpty() && plan.length > 0) {
+            tokens.passToTable(plan[0]);
+        }
+
+        while (!isTableStackEmpty()) {
+            Table table = popTable();
+            if (!tokens.hasToken(table)) {
+                Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Skipping table " + table.getName() + " (ID: " + table.getId() + "). It did not receive a token.");
+                continue;
+            }
+            linkedRules = tokens.take(table);
+            try {
+                processTable(table);
+            } finally {
+                linkedRules = null;
+            }
+        }
+    }
+
+    /**
+     * Passes tokens along the links of the fired rule. A table that receives a token and is not waiting
+     * in the remaining part of the plan is pushed to the stack, so it is processed next.
+     * Cyclic links are followed as long as the rules forming the cycle fire.
+     *
+     * @param rule the rule that has fired
+     */
+    private void passTokens(Rule rule) {
+        for (Table table : rule.getTabLinks()) {
+            Debug.debug(Debug.heartTag, Debug.Level.RULES, "Rule " + rule.getName() + " passes a token to table " + table.getName() + ".");
+            if (tokens.passToTable(table)) {
+                schedule(table);
+            }
+        }
+        DependencyGraph graph = getModel().getDependencyGraph();
+        for (Rule linked : rule.getRuleLinks()) {
+            Table table = graph.getTable(linked);
+            if (table == null) {
+                continue;
+            }
+            Debug.debug(Debug.heartTag, Debug.Level.RULES, "Rule " + rule.getName() + " passes a token to rule " + linked.getName() + ".");
+            if (tokens.passToRule(table, linked)) {
+                schedule(table);
+            }
+        }
+    }
+
+    private void schedule(Table table) {
+        for (int i = planPosition; i < plan.length; i++) {
+            if (plan[i] == table) {
+                return;
+            }
+        }
+        pushTable(table);
+    }
+
+    private void processSequentiallyPushed() {
+        while (!tablesToFire.isEmpty()) {
+            processTable(tablesToFire.pop());
+        }
+    }
+
+    private void processTable(Table table) {
+        if (goals != null && !goals.isRelevant(table)) {
+            Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Skipping table " + table.getName() + " (ID: " + table.getId() + "). It cannot affect any unresolved goal.");
+            return;
+        }
+        if (isOutOfTime()) {
+            unprocessedTables.add(table);
+            Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Skipping table " + table.getName() + " (ID: " + table.getId() + "). The time budget is exceeded.");
+            return;
+        }
+        boolean debug = Debug.isEnabled(Debug.Level.TABLES);
+        if (debug) {
+            Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Processing table " + table.getName() + " (ID: " + table.getId() + ")");
+        }
+        try {
+            runRules(table);
+        } catch (InferenceInterruptedException e) {
+            if (deadlineExceeded) {
+                unprocessedTables.add(table);
+            }
+            Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Processing table " + table.getName() + " (ID: " + table.getId() + ") interrupted.");
+        }
+        if (debug) {
+            Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Processing table " + table.getName() + " (ID: " + table.getId() + ") finished.");
+        }
+        if (goals != null) {
+            goals.update(table, getWm());
+            if (goals.isResolved()) {
+                Debug.debug(Debug.heartTag, Debug.Level.TABLES, "All the goals are resolved. The remaining tables are skipped.");
+            }
+        }
+    }
+
+    private void skipTable(Table table) {
+        Debug.debug(Debug.heartTag, Debug.Level.TABLES, "Skipping table " + table.getName() + " (ID: " + table.getId() + "). Its inputs did not change.");
+    }
+
+    /**
+     * Resets the attributes that changed since the previous incremental inference, together with
+     * the conclusions of the tables affected by the change, to their initial values.
+     *
+     * @return an array indicating which tables from the plan have to be processed
+     */
+    private boolean[] resetChangedAttributes(IncrementalBaseline baseline, Map<String, Value> inputs)
+            throws NotInTheDomainException, AttributeNotRegisteredException {
+        Set<Attribute> changed = baseline.findChangedInputs(inputs, getWm().getChangedAttributes());
+        boolean[] affected = IncrementalBaseline.findAffectedTables(plan, getModel().getDependencyGraph(), changed);
+        for (Attribute a : changed) {
+            getWm().setAttributeValue(a, getConf().getInitialState().getValueOfAttribute(a.getName()), true);
+        }
+        return affected;
+    }
+
+    private void startClock() {
+        long budget = getConf().getTimeBudgetNanos();
+        timeLimited = budget > 0;
+        deadline = System.nanoTime() + budget;
+        deadlineExceeded = false;
+        unprocessedTables = Collections.synchronizedList(new ArrayList<Table>());
+    }
+
+    /**
+     * Checks if the time budget of the inference (see {@link Configuration#getTimeBudgetNanos()}) has run out.
+     */
+    private boolean isOutOfTime() {
+        if (timeLimited && !deadlineExceeded && System.nanoTime() - deadline >= 0) {
+            deadlineExceeded = true;
+            Debug.debug(Debug.heartTag, Debug.Level.TABLES, "The time budget of the inference is exceeded. Inference interrupted.");
+        }
+        return deadlineExceeded;
+    }
+
+    /**
+     * Tells if the last inference was stopped because its time budget (see {@link Configuration#getTimeBudgetNanos()})
+     * has run out. In such a case the WorkingMemory holds the state obtained by the tables processed before.
+     *
+     * @return true if the time budget was exceeded
+     */
+    public boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    /**
+     * Returns the tables that were due to be processed when the time budget of the last inference has run out,
+     * including the table interrupted between its rules. The decisions of such a table were not executed.
+     *
+     * @return the tables that were not processed, in the order in which they were abandoned
+     */
+    public List<Table> getUnprocessedTables() {
+        synchronized (unprocessedTables) {
+            return new ArrayList<Table>(unprocessedTables);
+        }
+    }
+
+    private void setGoals(AttributeParameters ap, TableParameters tp) {
+        goals = null;
+        if (getConf().isGoalTerminationEnabled()) {
+            Collection<Attribute> attributes = findGoals(ap, tp);
+            if (attributes != null) {
+                goals = new GoalTracker(attributes, getModel().getDependencyGraph(),
+                        getConf().getUncertainTrueEvaluator().getSatisfiabilityThreshold());
+            }
+        }
+    }
+
+    /**
+     * Orders the plan by the priorities of the tables, if the configuration requires that.
+     */
+    private Table[] orderPlan(Table[] plan) {
+        if (!getConf().isPriorityOrderingEnabled()) {
+            return plan;
+        }
+        return getModel().getDependencyGraph().orderByPriority(plan);
+    }
+
+    /**
+     * Returns the plan for the given parameters, taking it from the {@link PlanCache} of the model
+     * when the algorithm allows for that. Exactly one of the parameters should be non-null.
+     */
+    private Table[] resolvePlan(AttributeParameters ap, TableParameters tp) {
+        PlanCache cache = isPlanCacheable() ? getModel().getPlanCache() : null;
+        PlanCache.Key key = null;
+        if (cache != null) {
+            key = (ap != null)
+                    ? new PlanCache.Key(getClass(), true, ap.getAttributeParameters())
+                    : new PlanCache.Key(getClass(), false, tp.getTableParameters());
+            Table[] cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Stack<Table> initStack = (ap != null) ? initStackForAttributes(ap) : initStackForTables(tp);
+        Table[] result = new Table[initStack.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = initStack.get(result.length - 1 - i);
+        }
+
+        if (cache != null) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    private void setPlan(Table[] plan) {
+        this.plan = plan;
+        this.planPosition = 0;
+        this.tablesToFire = new Stack<Table>();
+    }
 
     public WorkingMemory getWm() {
         return wm;
@@ -335,12 +1004,29 @@ public abstract class InferenceAlgorithm {
         this.conf = conf;
     }
 
+    /**
+     * Returns the stack of tables that are still to be processed.
+     * The remaining part of the initial plan is moved to the returned stack,
+     * so it can be freely modified.
+     *
+     * @return stack of the tables to be processed
+     */
     public Stack<Table> getTablesToFire() {
+        if (planPosition < plan.length) {
+            Stack<Table> merged = new Stack<Table>();
+            for (int i = plan.length - 1; i >= planPosition; i--) {
+                merged.push(plan[i]);
+            }
+            merged.addAll(tablesToFire);
+            planPosition = plan.length;
+            tablesToFire = merged;
+        }
         return tablesToFire;
     }
 
     public void setTablesToFire(Stack<Table> tablesToFire) {
         this.tablesToFire = tablesToFire;
+        this.planPosition = plan.length;
     }
 
 
@@ -0,0 +1,74 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.inference;
+
+import heart.Configuration;
+import heart.WorkingMemory;
+import heart.xtt.XTTModel;
+
+/**
+ * The inference modes supported by HeaRTDroid. Each mode creates
+ * the {@link InferenceAlgorithm} implementing it, which allows to select
+ * the mode at runtime, for instance for the {@link BatchInference}.
+ */
+public enum InferenceMode {
+    /**
+     * The {@link FixedOrderInference}.
+     */
+    FIXED_ORDER {
+        @Override
+        public InferenceAlgorithm create(WorkingMemory wm, XTTModel model, Configuration conf) {
+            return new FixedOrderInference(wm, model, conf);
+        }
+    },
+    /**
+     * The {@link DataDrivenInference}.
+     */
+    DATA_DRIVEN {
+        @Override
+        public InferenceAlgorithm create(WorkingMemory wm, XTTModel model, Configuration conf) {
+            return new DataDrivenInference(wm, model, conf);
+        }
+    },
+    /**
+     * The {@link GoalDrivenInference}.
+     */
+    GOAL_DRIVEN {
+        @Override
+        public InferenceAlgorithm create(WorkingMemory wm, XTTModel model, Configuration conf) {
+            return new GoalDrivenInference(wm, model, conf);
+        }
+    };
+
+    /**
+     * Creates the inference algorithm implementing the mode.
+     *
+     * @param wm    the working memory the inference operates on
+     * @param model the model used in the inference
+     * @param conf  the configuration of the inference
+     * @return the new inference algorithm object
+     */
+    public abstract InferenceAlgorithm create(WorkingMemory wm, XTTModel model, Configuration conf);
+}
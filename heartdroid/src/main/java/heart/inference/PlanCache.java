@@ -0,0 +1,154 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.inference;
+
+import heart.xtt.Table;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of inference plans held by every {@link heart.xtt.XTTModel}.
+ * A plan is an ordered array of tables, exactly in the order in which they would be
+ * popped from the stack returned by {@link InferenceAlgorithm#initStackForTables(InferenceAlgorithm.TableParameters)}
+ * or {@link InferenceAlgorithm#initStackForAttributes(InferenceAlgorithm.AttributeParameters)}.
+ * Plans are keyed by the class of the inference algorithm and the parameters of the
+ * {@link InferenceAlgorithm#start(InferenceAlgorithm.TableParameters)} call.
+ *
+ * The cache belongs to a single model instance, so rebuilding the model
+ * always starts with an empty cache. When the least recently used plan
+ * does not fit in the cache anymore, it is evicted.
+ */
+public class PlanCache {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final int capacity;
+    private final LinkedHashMap<Key, Table[]> plans;
+    private long hits;
+    private long misses;
+
+    public PlanCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity maximal number of plans stored in the cache. Zero disables caching.
+     */
+    public PlanCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Plan cache capacity cannot be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.plans = new LinkedHashMap<Key, Table[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Table[]> eldest) {
+                return size() > PlanCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @param key key of the plan
+     * @return cached plan, or null if there is no plan for the given key
+     */
+    public synchronized Table[] get(Key key) {
+        Table[] plan = plans.get(key);
+        if (plan == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return plan;
+    }
+
+    public synchronized void put(Key key, Table[] plan) {
+        if (capacity > 0) {
+            plans.put(key, plan);
+        }
+    }
+
+    /**
+     * Removes all the plans from the cache. Hit and miss counters are not reset.
+     */
+    public synchronized void invalidate() {
+        plans.clear();
+    }
+
+    public synchronized int size() {
+        return plans.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PlanCache[size=" + plans.size() + ", capacity=" + capacity + ", hits=" + hits + ", misses=" + misses + "]";
+    }
+
+    /**
+     * The key of the plan: the class of the inference algorithm, the kind of the
+     * parameters (tables or attributes) and the parameters themselves.
+     */
+    public static final class Key {
+        private final Class<?> algorithm;
+        private final boolean attributes;
+        private final String[] parameters;
+        private final int hash;
+
+        public Key(Class<?> algorithm, boolean attributes, String[] parameters) {
+            this.algorithm = algorithm;
+            this.attributes = attributes;
+            this.parameters = parameters.clone();
+            this.hash = 31 * (31 * algorithm.hashCode() + (attributes ? 1 : 0)) + Arrays.hashCode(this.parameters);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash
+                    && algorithm == other.algorithm
+                    && attributes == other.attributes
+                    && Arrays.equals(parameters, other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.inference;
+
+import heart.State;
+import heart.alsvfd.Value;
+import heart.xtt.Attribute;
+import heart.xtt.Table;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of inference results held by every {@link heart.xtt.XTTModel}.
+ * It is used for the plans made only of pure tables, i.e. tables without callbacks,
+ * actions and time-based operators (see {@link heart.xtt.DependencyGraph#isPure(Table[])}).
+ * The result of such a plan depends only on the initial state, so it is stored as the
+ * delta between the initial state and the final state of the inference, and the subsequent
+ * inferences with the same initial state apply the delta instead of processing the tables.
+ *
+ * The cache belongs to a single model instance, so reloading the model
+ * always starts with an empty cache. When the least recently used result
+ * does not fit in the cache anymore, it is evicted.
+ */
+public class ResultCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final LinkedHashMap<Key, Map<String, Value>> results;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ResultCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity maximal number of results stored in the cache. Zero disables caching.
+     */
+    public ResultCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Result cache capacity cannot be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.results = new LinkedHashMap<Key, Map<String, Value>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Map<String, Value>> eldest) {
+                if (size() > ResultCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param key key of the result
+     * @return the values of the attributes changed by the inference, or null if there is no result for the given key.
+     * The values are shared by all the callers, so they have to be cloned before being modified.
+     */
+    public synchronized Map<String, Value> get(Key key) {
+        Map<String, Value> delta = results.get(key);
+        if (delta == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return delta;
+    }
+
+    /**
+     * @param key key of the result
+     * @param delta the values of the attributes changed by the inference
+     */
+    public synchronized void put(Key key, Map<String, Value> delta) {
+        if (capacity > 0) {
+            results.put(key, Collections.unmodifiableMap(delta));
+        }
+    }
+
+    /**
+     * Removes all the results from the cache. Hit, miss and eviction counters are not reset.
+     */
+    public synchronized void invalidate() {
+        results.clear();
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the fraction of the lookups that found a result, 0 if there were no lookups
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : ((double) hits) / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResultCache[size=" + results.size() + ", capacity=" + capacity + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+
+    /**
+     * The key of the result: the class of the inference algorithm, the plan, the classes of the uncertainty
+     * evaluator and the conflict set resolution and the canonical form of the initial state.
+     */
+    public static final class Key {
+        private final Class<?> algorithm;
+        private final Table[] plan;
+        private final Class<?> evaluator;
+        private final Class<?> resolution;
+        private final String inputs;
+        private final int hash;
+
+        Key(Class<?> algorithm, Table[] plan, Class<?> evaluator, Class<?> resolution, String inputs) {
+            this.algorithm = algorithm;
+            this.plan = plan.clone();
+            this.evaluator = evaluator;
+            this.resolution = resolution;
+            this.inputs = inputs;
+            int h = algorithm.hashCode();
+            h = 31 * h + Arrays.hashCode(this.plan);
+            h = 31 * h + evaluator.hashCode();
+            h = 31 * h + resolution.hashCode();
+            this.hash = 31 * h + inputs.hashCode();
+        }
+
+        /**
+         * Builds the canonical form of the initial state: the values of all the attributes of the model,
+         * in the order of the model, with their types and certainty factors.
+         *
+         * @param state the initial state of the inference
+         * @param attributes the attributes of the model
+         * @return the canonical form of the state
+         */
+        static String canonicalInputs(State state, List<Attribute> attributes) {
+            StringBuilder sb = new StringBuilder();
+            for (Attribute a : attributes) {
+                Value v = state == null ? null : state.getValueOfAttribute(a.getName());
+                if (v != null) {
+                    sb.append(v.getClass().getName()).append(':').append(v.getCertaintyFactor()).append(':').append(v);
+                }
+                sb.append('\u0000');
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash
+                    && algorithm == other.algorithm
+                    && evaluator == other.evaluator
+                    && resolution == other.resolution
+                    && Arrays.equals(plan, other.plan)
+                    && inputs.equals(other.inputs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
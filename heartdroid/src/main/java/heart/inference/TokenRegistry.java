@@ -0,0 +1,90 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.inference;
+
+import heart.xtt.Rule;
+import heart.xtt.Table;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tokens held by the tables during a single inference run in the token passing mode
+ * (see {@link heart.Configuration#isTokenPassingEnabled()}).
+ * A table may hold a token for the whole table, or tokens for some of its rules only.
+ * The token for the whole table absorbs the tokens for its rules.
+ */
+class TokenRegistry {
+    private final Map<Table, Set<Rule>> tokens = new HashMap<Table, Set<Rule>>();
+
+    /**
+     * Passes a token to the whole table.
+     *
+     * @return true if the table did not hold any token before
+     */
+    boolean passToTable(Table table) {
+        boolean added = !tokens.containsKey(table);
+        tokens.put(table, null);
+        return added;
+    }
+
+    /**
+     * Passes a token to a single rule of the table.
+     *
+     * @return true if the table did not hold any token before
+     */
+    boolean passToRule(Table table, Rule rule) {
+        if (!tokens.containsKey(table)) {
+            Set<Rule> rules = new LinkedHashSet<Rule>();
+            rules.add(rule);
+            tokens.put(table, rules);
+            return true;
+        }
+        Set<Rule> rules = tokens.get(table);
+        if (rules != null) {
+            rules.add(rule);
+        }
+        return false;
+    }
+
+    boolean hasToken(Table table) {
+        return tokens.containsKey(table);
+    }
+
+    boolean isEmpty() {
+        return tokens.isEmpty();
+    }
+
+    /**
+     * Removes the token of the table.
+     *
+     * @return the rules that received the tokens, or null if the whole table received a token
+     */
+    Set<Rule> take(Table table) {
+        return tokens.remove(table);
+    }
+}
@@ -24,7 +24,6 @@
 
 package heart.uncertainty;
 
-import heart.State;
 import heart.WorkingMemory;
 import heart.alsvfd.Formulae;
 import heart.alsvfd.Value;
@@ -33,9 +32,8 @@ import heart.alsvfd.expressions.ExpressionInterface;
 import heart.exceptions.AttributeNotRegisteredException;
 import heart.exceptions.NotInTheDomainException;
 import heart.exceptions.UnknownValueException;
+import heart.history.HistoryView;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.LinkedList;
 
 public class ALSVEvaluator implements UncertainTrueEvaluator{
@@ -43,6 +41,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 	public static final float MIN_CERTAINTY = 0;
 	public static final float MAX_CERTAINTY = 1;
 	private static final float SATISFIABILITY_THRESHOLD = 0.0f;
+	private static final AmbiguityResolver AMBIGUITY_RESOLVER = new DefaultAmbiguityResolver();
 
 	@Override
 	public UncertainTrue evaluateUncertainEq(ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
@@ -50,7 +49,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.eq(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
@@ -59,7 +58,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.neq(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
@@ -68,7 +67,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.in(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
@@ -77,7 +76,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.notin(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
@@ -86,7 +85,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.subset(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
@@ -95,7 +94,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.supset(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
@@ -104,7 +103,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.sim(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
@@ -113,7 +112,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.notsim(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
@@ -122,7 +121,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.lt(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
@@ -131,7 +130,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.lte(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
@@ -140,7 +139,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.gt(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
@@ -149,22 +148,27 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 		Value attributeValue = lhs.evaluate(wm);
 		boolean logicalValue = attributeValue.gte(rhs.evaluate(wm), lhs.evaluateType(wm));
 		
-		return (logicalValue ? new UncertainTrue(getMaxCertainty()): new UncertainTrue(getMinCertainty()));
+		return (logicalValue ? UncertainTrue.valueOf(getMaxCertainty()): UncertainTrue.valueOf(getMinCertainty()));
 	}
 
 	@Override
-	public UncertainTrue evaluateTimeRange(AttributeExpressionInterface lhs, ExpressionInterface rhs, Formulae.TimeBasedParameter tbp, Method evaluatorMethod, WorkingMemory wm) throws NotInTheDomainException {
+	public UncertainTrue evaluateTimeRange(AttributeExpressionInterface lhs, ExpressionInterface rhs, Formulae.TimeBasedParameter tbp, Operator operator, WorkingMemory wm) throws NotInTheDomainException {
 		float percentage=0;
 		int count = 0;
-		LinkedList<State> allStates = wm.getHistoryLogCopy();
-		allStates.addLast(wm.getCurrentState());
+		HistoryView allStates = wm.getHistoryView(true);
 		LinkedList<Value> oldValues = wm.findHistoricalValues(allStates, tbp.getRtp(), lhs.getAttributeName());
 
 		try {
+			WorkingMemory fakeWm = new WorkingMemory();
 			for(Value o: oldValues) {
-				WorkingMemory fakeWm = new WorkingMemory();
 				fakeWm.setAttributeValue(lhs.getAttribute(),o,true);
-				UncertainTrue ut = (UncertainTrue)evaluatorMethod.invoke(this,lhs, rhs, fakeWm);
+				UncertainTrue ut;
+				try {
+					ut = operator.evaluate(this, lhs, rhs, fakeWm);
+				} catch (UnknownValueException | NotInTheDomainException | RuntimeException e) {
+					// a historical value that cannot be evaluated, for any reason, makes the whole condition false
+					return UncertainTrue.NEGATION;
+				}
 				if(ut.getCertinatyFactor() > this.getSatisfiabilityThreshold()){
 					count++;
 				}
@@ -177,31 +181,27 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 			switch(tbp.getQuantifier()){
 				case MIN:
 					if(percentage >= tbp.getPercentage()){
-						return new UncertainTrue(1.0f);
+						return UncertainTrue.TRUE;
 					}
 					break;
 				case MAX:
 					if(percentage <= tbp.getPercentage()){
-						return new UncertainTrue(1.0f);
+						return UncertainTrue.TRUE;
 					}
 					break;
 				case EXACTLY:
 					if(percentage == tbp.getPercentage()){
-						return new UncertainTrue(1.0f);
+						return UncertainTrue.TRUE;
 					}
 					break;
 				default:
 					break;
 			}
 
-		} catch (IllegalAccessException e) {
-			//TODO
-		} catch (InvocationTargetException e) {
-			//TODO
 		} catch (AttributeNotRegisteredException e) {
 			// This will never happen, as autoregister flag is on
 		}
-		return new UncertainTrue(-1.0f);
+		return UncertainTrue.NEGATION;
 	}
 
 	@Override
@@ -221,7 +221,7 @@ public class ALSVEvaluator implements UncertainTrueEvaluator{
 
 	@Override
 	public AmbiguityResolver getAmbiguityResolver() {
-		return new DefaultAmbiguityResolver();
+		return AMBIGUITY_RESOLVER;
 	}
 
 }
@@ -25,7 +25,6 @@
 
 package heart.uncertainty;
 
-import heart.State;
 import heart.WorkingMemory;
 import heart.alsvfd.*;
 
@@ -36,10 +35,9 @@ import heart.alsvfd.expressions.ExpressionInterface;
 import heart.exceptions.AttributeNotRegisteredException;
 import heart.exceptions.NotInTheDomainException;
 import heart.exceptions.UnknownValueException;
+import heart.history.HistoryView;
 import heart.xtt.Type;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.*;
 
 public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
@@ -59,7 +57,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhs.evaluate(wm) instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -67,7 +65,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.eq(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
 
         return evaluateUncertainTrueValue(attributeValue, rhsv, wm, ConditionalOperator.EQ, type, logicalValue);
@@ -84,7 +82,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhs instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -92,7 +90,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.neq(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
         return evaluateUncertainTrueValue(attributeValue, rhsv, wm,  ConditionalOperator.NEQ, type, logicalValue);
 	}
@@ -107,7 +105,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhsv instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -115,7 +113,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.in(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
         return evaluateUncertainTrueValue(attributeValue, rhsv,wm, ConditionalOperator.IN, type, logicalValue);
 	}
@@ -130,7 +128,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhsv instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -138,7 +136,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.notin(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
         return evaluateUncertainTrueValue(attributeValue, rhsv, wm, ConditionalOperator.NOTIN, type, logicalValue);
 	}
@@ -153,7 +151,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhsv instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -161,7 +159,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.subset(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
         return evaluateUncertainTrueValue(attributeValue, rhsv, wm, ConditionalOperator.SUBSET, type, logicalValue);
 	}
@@ -176,7 +174,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhsv instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -184,7 +182,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.supset(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
         return evaluateUncertainTrueValue(attributeValue, rhsv, wm, ConditionalOperator.SUPSET, type, logicalValue);
 	}
@@ -199,7 +197,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhsv instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -207,7 +205,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.sim(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
         return evaluateUncertainTrueValue(attributeValue, rhsv, wm, ConditionalOperator.SIM, type, logicalValue);
 	}
@@ -222,7 +220,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhsv instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -230,7 +228,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.notsim(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
         return evaluateUncertainTrueValue(attributeValue, rhsv, wm, ConditionalOperator.NOTSIM, type, logicalValue);
 	}
@@ -244,7 +242,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhsv instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -252,7 +250,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.lt(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
         return evaluateUncertainTrueValue(attributeValue, rhsv, wm, ConditionalOperator.LT, type, logicalValue);
 	}
@@ -268,7 +266,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhsv instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -276,7 +274,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.lte(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
         return evaluateUncertainTrueValue(attributeValue, rhsv, wm, ConditionalOperator.LTE, type, logicalValue);
 	}
@@ -291,7 +289,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhsv instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -299,7 +297,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.gt(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
         return evaluateUncertainTrueValue(attributeValue, rhsv, wm, ConditionalOperator.GT, type, logicalValue);
 	}
@@ -314,7 +312,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 		// It means that once we consider evaluation in terms of uncertainty, 
 		// If the value is completely unknown everything is possible.
 		if(attributeValue instanceof Null && !(rhsv instanceof Null)){
-			return new UncertainTrue(0.0f);
+			return UncertainTrue.FALSE;
 		}
 
         boolean logicalValue = false;
@@ -322,24 +320,29 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
             logicalValue = attributeValue.gte(rhsv, type);
         } catch (UnknownValueException e) {
             // This in fact will never happen, as the checking condition is checked above
-            return new UncertainTrue(0.0f);
+            return UncertainTrue.FALSE;
         }
         return evaluateUncertainTrueValue(attributeValue, rhsv, wm, ConditionalOperator.GTE, type, logicalValue);
 	}
 
 	@Override
-	public UncertainTrue evaluateTimeRange(AttributeExpressionInterface lhs, ExpressionInterface rhs, Formulae.TimeBasedParameter tbp, Method evaluatorMethod, WorkingMemory wm) throws NotInTheDomainException {
-		LinkedList<State> allStates = wm.getHistoryLogCopy();
-		allStates.addLast(wm.getCurrentState());
+	public UncertainTrue evaluateTimeRange(AttributeExpressionInterface lhs, ExpressionInterface rhs, Formulae.TimeBasedParameter tbp, Operator operator, WorkingMemory wm) throws NotInTheDomainException {
+		HistoryView allStates = wm.getHistoryView(true);
 		LinkedList<Value> oldValues = wm.findHistoricalValues(allStates, tbp.getRtp(), lhs.getAttributeName());
 		ArrayList<Float> evaluationCertainties = new ArrayList<>(oldValues.size());
 
 
 		try {
+			WorkingMemory fakeWm = new WorkingMemory();
 			for(Value o: oldValues) {
-				WorkingMemory fakeWm = new WorkingMemory();
 				fakeWm.setAttributeValue(lhs.getAttribute(),o,true);
-				UncertainTrue ut = (UncertainTrue)evaluatorMethod.invoke(this,lhs, rhs, fakeWm);
+				UncertainTrue ut;
+				try {
+					ut = operator.evaluate(this, lhs, rhs, fakeWm);
+				} catch (UnknownValueException | NotInTheDomainException | RuntimeException e) {
+					// a historical value that cannot be evaluated, for any reason, makes the whole condition false
+					return UncertainTrue.NEGATION;
+				}
 				evaluationCertainties.add(ut.getCertinatyFactor());
 			}
 			Collections.sort(evaluationCertainties,Collections.reverseOrder());
@@ -356,7 +359,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 						}
 						return new UncertainTrue(result);
 					} else if (evaluationCertainties.get(lastElement) == 0) {
-						return new UncertainTrue(0.0f);
+						return UncertainTrue.FALSE;
 					} else {
 						float result = evaluationCertainties.get(lastElement);
 						for (int index = lastElement - 1;
@@ -377,7 +380,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 						}
 						return new UncertainTrue(result);
 					}else if ((lastElement + 1) < evaluationCertainties.size() && evaluationCertainties.get(lastElement + 1) == 0){
-						return new UncertainTrue(0.0f);
+						return UncertainTrue.FALSE;
 					}else if ((lastElement+1) < evaluationCertainties.size() && evaluationCertainties.get(lastElement+1) > 0){
 						float result = -evaluationCertainties.get(lastElement+1);
 						for(int index = lastElement+2;
@@ -397,7 +400,7 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 					}else if(evaluationCertainties.get(lastElement) == 0 ||
 							((lastElement+1) < evaluationCertainties.size() &&
 									evaluationCertainties.get(lastElement+1) == 0)){
-						return new UncertainTrue(0.0f);
+						return UncertainTrue.FALSE;
 					}else if((lastElement+1) < evaluationCertainties.size() &&
 							evaluationCertainties.get(lastElement+1) > 0){
 						//min
@@ -420,14 +423,10 @@ public class CertaintyFactorsEvaluator implements UncertainTrueEvaluator{
 					break;
 			}
 
-		} catch (IllegalAccessException e) {
-			//TODO
-		} catch (InvocationTargetException e) {
-			//TODO
 		} catch (AttributeNotRegisteredException e) {
 			// This will never happen, as autoregister flag is on
 		}
-		return new UncertainTrue(-1.0f);
+		return UncertainTrue.NEGATION;
 	}
 
 	/**
@@ -28,58 +28,209 @@ package heart.uncertainty;
 import heart.xtt.Rule;
 
 import java.util.AbstractMap.SimpleEntry;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
 
 
+/**
+ * The rules which conditions are satisfied, together with their certainties, in the order they were added.
+ * The entries, and the hash table of the rules used for larger sets, are kept in arrays that grow when needed
+ * and are not released by {@link #clear()}, so a conflict set reused for subsequent tables does not allocate
+ * objects once it is large enough.
+ * They can be read by position with {@link #getRule(int)} and {@link #getCertainty(int)};
+ * the {@link SimpleEntry} objects are created only when the set is iterated.
+ */
 public class ConflictSet implements Iterable<SimpleEntry<Rule,UncertainTrue>>{
-	private HashMap<Rule, UncertainTrue> conflictSet;
-	private LinkedList<SimpleEntry<Rule,UncertainTrue>> orderedSet;
+	private static final int INITIAL_CAPACITY = 8;
+	/**
+	 * Above this size the rules are looked up in a hash table, instead of scanning the arrays.
+	 */
+	private static final int INDEX_THRESHOLD = 16;
+
+	private Rule[] rules;
+	private UncertainTrue[] certainties;
+	private int size;
+
+	/**
+	 * Open addressing hash table of the rules, compared by identity. It is filled only when
+	 * the set is larger than {@link #INDEX_THRESHOLD}, and it is kept less than half full.
+	 */
+	private Rule[] index;
+	private boolean indexed;
 	
 	public ConflictSet() {
-		conflictSet = new HashMap<Rule, UncertainTrue>();
-		orderedSet = new LinkedList<SimpleEntry<Rule,UncertainTrue>>();
+		rules = new Rule[INITIAL_CAPACITY];
+		certainties = new UncertainTrue[INITIAL_CAPACITY];
 	}
 	
+	/**
+	 * Adds the rule to the conflict set. If the rule is already in the set, it keeps its position and certainty.
+	 *
+	 * @param key the rule
+	 * @param value the certainty of the rule conditions
+	 */
 	public void add(Rule key,UncertainTrue value){
-		if(conflictSet.put(key, value) == null){
-			orderedSet.add(new SimpleEntry<Rule,UncertainTrue>(key,value));
+		if(contains(key)){
+			return;
+		}
+		if(size == rules.length){
+			rules = Arrays.copyOf(rules, size * 2);
+			certainties = Arrays.copyOf(certainties, size * 2);
+		}
+		rules[size] = key;
+		certainties[size] = value;
+		if(indexed){
+			addToIndex(key);
+		}else if(size == INDEX_THRESHOLD){
+			if(index == null){
+				index = new Rule[4 * INDEX_THRESHOLD];
+			}
+			for(int i = 0; i <= size; i++){
+				addToIndex(rules[i]);
+			}
+			indexed = true;
+		}
+		size++;
+	}
+
+	private boolean contains(Rule key){
+		if(indexed){
+			int mask = index.length - 1;
+			for(int i = hash(key) & mask; index[i] != null; i = (i + 1) & mask){
+				if(index[i] == key){
+					return true;
+				}
+			}
+			return false;
+		}
+		for(int i = 0; i < size; i++){
+			if(rules[i] == key){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the rule, which is not in the hash table yet, doubling the table when it would become half full.
+	 */
+	private void addToIndex(Rule key){
+		if((size + 1) * 2 > index.length){
+			Rule[] old = index;
+			index = new Rule[old.length * 2];
+			for(Rule r : old){
+				if(r != null){
+					put(r);
+				}
+			}
+		}
+		put(key);
+	}
+
+	private void put(Rule key){
+		int mask = index.length - 1;
+		int i = hash(key) & mask;
+		while(index[i] != null){
+			i = (i + 1) & mask;
 		}
+		index[i] = key;
+	}
+
+	private static int hash(Rule key){
+		int h = System.identityHashCode(key);
+		return h ^ (h >>> 16);
 	}
 	
 	public void clear(){
-		conflictSet.clear();
-		orderedSet.clear();
+		Arrays.fill(rules, 0, size, null);
+		Arrays.fill(certainties, 0, size, null);
+		if(indexed){
+			Arrays.fill(index, null);
+			indexed = false;
+		}
+		size = 0;
+	}
+
+	/**
+	 * @param i position of the entry, from 0 to {@link #size()} - 1
+	 * @return the rule at the given position
+	 */
+	public Rule getRule(int i){
+		checkPosition(i);
+		return rules[i];
+	}
+
+	/**
+	 * @param i position of the entry, from 0 to {@link #size()} - 1
+	 * @return the certainty of the rule at the given position
+	 */
+	public UncertainTrue getCertainty(int i){
+		checkPosition(i);
+		return certainties[i];
+	}
+
+	private void checkPosition(int i){
+		if(i < 0 || i >= size){
+			throw new IndexOutOfBoundsException("Position: " + i + ", size: " + size);
+		}
 	}
 
 	@Override
 	public Iterator<SimpleEntry<Rule,UncertainTrue>> iterator() {
-		return orderedSet.iterator();
+		return new Iterator<SimpleEntry<Rule, UncertainTrue>>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public SimpleEntry<Rule, UncertainTrue> next() {
+				if(next >= size){
+					throw new NoSuchElementException();
+				}
+				SimpleEntry<Rule, UncertainTrue> entry = new SimpleEntry<Rule, UncertainTrue>(rules[next], certainties[next]);
+				next++;
+				return entry;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
 	}
 
 	public ConflictSet copy() {
 		ConflictSet cs = new ConflictSet();
-		for(SimpleEntry<Rule,UncertainTrue> c: this){
-			cs.add(c.getKey(),c.getValue());
+		for(int i = 0; i < size; i++){
+			cs.add(rules[i], certainties[i]);
 		}
 		return cs;
 	}
 
 	public boolean isEmpty(){
-		return orderedSet.isEmpty();
+		return size == 0;
 	}
 	
 	public SimpleEntry<Rule, UncertainTrue> getFirst(){
-		return orderedSet.getFirst();
+		if(size == 0){
+			throw new NoSuchElementException();
+		}
+		return new SimpleEntry<Rule, UncertainTrue>(rules[0], certainties[0]);
 	}
 	
 	public SimpleEntry<Rule, UncertainTrue> getLast(){
-		return orderedSet.getLast();
+		if(size == 0){
+			throw new NoSuchElementException();
+		}
+		return new SimpleEntry<Rule, UncertainTrue>(rules[size - 1], certainties[size - 1]);
 	}
 	
 	public int size(){
-		return orderedSet.size(); 
+		return size; 
 	}
 	
 	
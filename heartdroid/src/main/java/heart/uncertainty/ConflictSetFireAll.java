@@ -5,7 +5,7 @@ import heart.xtt.Rule;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.LinkedList;
 
-public class ConflictSetFireAll implements ConflictSetResolution {
+public class ConflictSetFireAll implements IndexedConflictSetResolution {
 
 	@Override
 	public LinkedList<SimpleEntry<Rule, UncertainTrue>> resolveConflictSet(
@@ -19,4 +19,11 @@ public class ConflictSetFireAll implements ConflictSetResolution {
 		return result;
 	}
 
+	@Override
+	public void resolveConflictSet(ConflictSet cs, ConflictSet toExecute) {
+		for(int i = 0; i < cs.size(); i++){
+			toExecute.add(cs.getRule(i), cs.getCertainty(i));
+		}
+	}
+
 }
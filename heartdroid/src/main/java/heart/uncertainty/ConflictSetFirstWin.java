@@ -30,7 +30,7 @@ import heart.xtt.Rule;
 import java.util.LinkedList;
 import java.util.AbstractMap.SimpleEntry;
 
-public class ConflictSetFirstWin implements ConflictSetResolution{
+public class ConflictSetFirstWin implements IndexedConflictSetResolution{
 
 	@Override
 	public LinkedList<SimpleEntry<Rule, UncertainTrue>> resolveConflictSet(ConflictSet cs) {
@@ -39,4 +39,9 @@ public class ConflictSetFirstWin implements ConflictSetResolution{
 		return toExecute;
 	}
 
+	@Override
+	public void resolveConflictSet(ConflictSet cs, ConflictSet toExecute) {
+		toExecute.add(cs.getRule(0), cs.getCertainty(0));
+	}
+
 }
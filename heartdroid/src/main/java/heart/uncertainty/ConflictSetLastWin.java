@@ -8,11 +8,16 @@ import java.util.LinkedList;
 /**
  * Created by sbk on 28.12.16.
  */
-public class ConflictSetLastWin implements ConflictSetResolution {
+public class ConflictSetLastWin implements IndexedConflictSetResolution {
     @Override
     public LinkedList<AbstractMap.SimpleEntry<Rule, UncertainTrue>> resolveConflictSet(ConflictSet cs) {
         LinkedList<AbstractMap.SimpleEntry<Rule, UncertainTrue>> toExecute =  new LinkedList<AbstractMap.SimpleEntry<Rule, UncertainTrue>>();
         toExecute.add(cs.getLast());
         return toExecute;
     }
+
+    @Override
+    public void resolveConflictSet(ConflictSet cs, ConflictSet toExecute) {
+        toExecute.add(cs.getRule(cs.size() - 1), cs.getCertainty(cs.size() - 1));
+    }
 }
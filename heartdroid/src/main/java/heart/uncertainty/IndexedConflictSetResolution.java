@@ -0,0 +1,42 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.uncertainty;
+
+/**
+ * A conflict set resolution that can select the rules to fire without creating new objects.
+ * It is used by the inference instead of {@link #resolveConflictSet(ConflictSet)} when the evaluator
+ * relies on the {@link DefaultAmbiguityResolver}, so the conflict set buffers can be reused between tables.
+ * Both methods have to select the same rules.
+ */
+public interface IndexedConflictSetResolution extends ConflictSetResolution {
+	/**
+	 * Copies the rules that should be fired, together with their certainties, to the given conflict set.
+	 *
+	 * @param cs the conflict set containing all rules that were designated to fire by the reasoning algorithm
+	 * @param toExecute an empty conflict set, to which the selected rules are added in the order they should be fired
+	 */
+	public void resolveConflictSet(ConflictSet cs, ConflictSet toExecute);
+
+}
@@ -36,7 +36,6 @@ import heart.exceptions.NotInTheDomainException;
 import heart.xtt.Attribute;
 import heart.xtt.Rule;
 
-import java.lang.reflect.Method;
 import java.util.AbstractMap;
 import java.util.LinkedList;
 
@@ -169,7 +168,7 @@ public class ProbabilityEvaluator implements UncertainTrueEvaluator{
 	}
 
 	@Override
-	public UncertainTrue evaluateTimeRange(AttributeExpressionInterface lhs, ExpressionInterface rhs, Formulae.TimeBasedParameter tbp, Method evaluatorMethod, WorkingMemory wm) throws NotInTheDomainException {
+	public UncertainTrue evaluateTimeRange(AttributeExpressionInterface lhs, ExpressionInterface rhs, Formulae.TimeBasedParameter tbp, Operator operator, WorkingMemory wm) throws NotInTheDomainException {
 		return null;
 	}
 
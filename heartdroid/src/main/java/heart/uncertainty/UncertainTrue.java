@@ -33,11 +33,44 @@ package heart.uncertainty;
  *
  */
 public class UncertainTrue {
+	/**
+	 * Shared certainty of a formulae that is certainly true, returned by the crisp evaluation.
+	 * It cannot be modified.
+	 */
+	public static final UncertainTrue TRUE = new Constant(1.0f);
+	/**
+	 * Shared certainty of a formulae that is not satisfied, returned by the crisp evaluation.
+	 * It cannot be modified.
+	 */
+	public static final UncertainTrue FALSE = new Constant(0.0f);
+	/**
+	 * Shared certainty of a formulae that is certainly false. It cannot be modified.
+	 */
+	public static final UncertainTrue NEGATION = new Constant(-1.0f);
+
 	private float certinatyFactor;
 	
 	
 	public UncertainTrue(float certaintyFactor) {
-		setCertinatyFactor(certaintyFactor);
+		this.certinatyFactor = certaintyFactor;
+	}
+
+	/**
+	 * Returns a certainty with the given factor. The shared constants are returned
+	 * for the factors 1, 0 and -1, so the evaluation of crisp formulae does not allocate objects.
+	 * 
+	 * @param certaintyFactor the certainty factor
+	 * @return the certainty, which may be shared and thus must not be modified
+	 */
+	public static UncertainTrue valueOf(float certaintyFactor) {
+		if(certaintyFactor == 1.0f){
+			return TRUE;
+		}else if(certaintyFactor == 0.0f){
+			return FALSE;
+		}else if(certaintyFactor == -1.0f){
+			return NEGATION;
+		}
+		return new UncertainTrue(certaintyFactor);
 	}
 
 	/**
@@ -48,6 +81,7 @@ public class UncertainTrue {
 	}
 	/**
 	 * @param certinatyFactor the certinatyFactor to set
+	 * @throws UnsupportedOperationException if this is one of the shared constants
 	 */
 	public void setCertinatyFactor(float certinatyFactor) {
 		this.certinatyFactor = certinatyFactor;
@@ -58,4 +92,15 @@ public class UncertainTrue {
 		return "true ("+ getCertinatyFactor()+")";
 	}
 
+	private static final class Constant extends UncertainTrue {
+		private Constant(float certaintyFactor) {
+			super(certaintyFactor);
+		}
+
+		@Override
+		public void setCertinatyFactor(float certinatyFactor) {
+			throw new UnsupportedOperationException("Shared certainty " + this + " cannot be modified.");
+		}
+	}
+
 }
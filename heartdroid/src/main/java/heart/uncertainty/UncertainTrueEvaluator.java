@@ -35,9 +35,120 @@ import heart.exceptions.NotInTheDomainException;
 import heart.exceptions.UnknownValueException;
 import heart.xtt.Attribute;
 
-import java.lang.reflect.Method;
-
 public interface UncertainTrueEvaluator {
+
+	/**
+	 * The operators of the evaluator as objects, so that the operator of a condition can be resolved
+	 * once, when the {@link Formulae} is built, and then applied to any evaluator without reflection,
+	 * e.g. to every historical value in {@link #evaluateTimeRange(AttributeExpressionInterface, ExpressionInterface, Formulae.TimeBasedParameter, Operator, WorkingMemory)}.
+	 */
+	public enum Operator {
+		EQ {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainEq(lhs, rhs, wm);
+			}
+		},
+		NEQ {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainNeq(lhs, rhs, wm);
+			}
+		},
+		IN {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainIn(lhs, rhs, wm);
+			}
+		},
+		NOTIN {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainNotin(lhs, rhs, wm);
+			}
+		},
+		SUBSET {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainSubset(lhs, rhs, wm);
+			}
+		},
+		SUPSET {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainSupset(lhs, rhs, wm);
+			}
+		},
+		SIM {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainSim(lhs, rhs, wm);
+			}
+		},
+		NOTSIM {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainNotsim(lhs, rhs, wm);
+			}
+		},
+		LT {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainLt(lhs, rhs, wm);
+			}
+		},
+		LTE {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainLte(lhs, rhs, wm);
+			}
+		},
+		GT {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainGt(lhs, rhs, wm);
+			}
+		},
+		GTE {
+			@Override
+			public UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+					throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
+				return ute.evaluateUncertainGte(lhs, rhs, wm);
+			}
+		};
+
+		/**
+		 * Evaluates the condition with the method of the evaluator corresponding to this operator.
+		 *
+		 * @param ute the evaluator
+		 * @param lhs left-hand side of the condition
+		 * @param rhs right-hand side of the condition
+		 * @param wm the working memory holding the values of the attributes
+		 * @return the certainty of the condition
+		 */
+		public abstract UncertainTrue evaluate(UncertainTrueEvaluator ute, ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
+				throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException;
+
+		/**
+		 * @param op the operator of a condition
+		 * @return the corresponding operator of the evaluator, or null if op is null
+		 */
+		public static Operator of(Formulae.ConditionalOperator op) {
+			return op == null ? null : valueOf(op.name());
+		}
+	}
+
 	public UncertainTrue evaluateUncertainEq(ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
             throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException;
 	public UncertainTrue evaluateUncertainNeq(ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
@@ -63,7 +174,17 @@ public interface UncertainTrueEvaluator {
 	public UncertainTrue evaluateUncertainGte(ExpressionInterface lhs, ExpressionInterface rhs, WorkingMemory wm)
             throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException;
 
-	UncertainTrue evaluateTimeRange(AttributeExpressionInterface lhs, ExpressionInterface rhs, Formulae.TimeBasedParameter tbp, Method evaluatorMethod, WorkingMemory wm)
+	/**
+	 * Evaluates a condition with a time-based parameter against the historical values of its attribute.
+	 *
+	 * @param lhs left-hand side of the condition
+	 * @param rhs right-hand side of the condition
+	 * @param tbp the time period and the quantifier of the condition
+	 * @param operator the operator applied to each of the historical values
+	 * @param wm the working memory holding the history log
+	 * @return the certainty of the condition
+	 */
+	UncertainTrue evaluateTimeRange(AttributeExpressionInterface lhs, ExpressionInterface rhs, Formulae.TimeBasedParameter tbp, Operator operator, WorkingMemory wm)
 			throws NotInTheDomainException;
 
 
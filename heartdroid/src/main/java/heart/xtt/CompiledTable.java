@@ -0,0 +1,430 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.xtt;
+
+import heart.WorkingMemory;
+import heart.alsvfd.Formulae;
+import heart.alsvfd.Range;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.alsvfd.Value;
+import heart.exceptions.AttributeNotRegisteredException;
+import heart.exceptions.NotInTheDomainException;
+import heart.exceptions.UnknownValueException;
+import heart.uncertainty.ALSVEvaluator;
+import heart.uncertainty.UncertainTrue;
+import heart.uncertainty.UncertainTrueEvaluator;
+
+import java.util.*;
+
+/**
+ * A compiled form of the rules of a single {@link Table}, used with the crisp {@link ALSVEvaluator}
+ * (see {@link heart.Configuration#isTableCompilationEnabled()}).
+ *
+ * Every attribute compared with constants in the conditions of the table gets a slot.
+ * The values of the attribute are split into classes, for which all these conditions give the same result:
+ * <ul>
+ * <li>for symbolic attributes every value of the domain is a separate class,</li>
+ * <li>for numeric attributes the constants split the axis into segments. For the sorted constants
+ * p[0] &lt; ... &lt; p[k-1] the class 0 is (-inf, p[0]), 2i+1 is the point p[i], 2i+2 is (p[i], p[i+1])
+ * and 2k is (p[k-1], +inf).</li>
+ * </ul>
+ * When the table is compiled, each condition is evaluated by the interpreter for a representative
+ * of every class, and its results are stored in a truth table. During the inference the value of each slot
+ * is read and classified once per table, and the conditions are reduced to truth table lookups.
+ *
+ * The conditions that cannot be compiled, and the classes for which the interpreter failed
+ * or no representative from the domain was found, are evaluated by the interpreter,
+ * in the order in which the conditions were written. Hence the results, including the exceptions,
+ * are the same as the ones of {@link Rule#evaluate(WorkingMemory, UncertainTrueEvaluator)}.
+ */
+public class CompiledTable {
+    private static final byte FALSE = 0;
+    private static final byte TRUE = 1;
+    private static final byte INTERPRET = 2;
+
+    private final Table table;
+    private final Slot[] slots;
+    private final Map<Rule, Condition[]> rules;
+    private final int compiledConditions;
+    private final int interpretedConditions;
+
+    CompiledTable(Table table) {
+        this.table = table;
+
+        Map<Attribute, TreeSet<Double>> numericConstants = new LinkedHashMap<Attribute, TreeSet<Double>>();
+        Set<Attribute> symbolic = new LinkedHashSet<Attribute>();
+        for (Rule r : table.rules) {
+            for (Formulae f : r.conditions) {
+                if (!TableIndex.isIndexable(f)) {
+                    continue;
+                }
+                Attribute a = f.getAttribute();
+                if (a.getType().isSymbolic()) {
+                    symbolic.add(a);
+                } else if (a.getType().isNumeric() && TableIndex.collectPoints(f, null)) {
+                    if (!numericConstants.containsKey(a)) {
+                        numericConstants.put(a, new TreeSet<Double>());
+                    }
+                    TableIndex.collectPoints(f, numericConstants.get(a));
+                }
+            }
+        }
+
+        Map<Attribute, Slot> slotsByAttribute = new LinkedHashMap<Attribute, Slot>();
+        for (Attribute a : symbolic) {
+            Slot slot = SymbolicSlot.build(a, slotsByAttribute.size());
+            if (slot != null) {
+                slotsByAttribute.put(a, slot);
+            }
+        }
+        for (Map.Entry<Attribute, TreeSet<Double>> e : numericConstants.entrySet()) {
+            slotsByAttribute.put(e.getKey(), NumericSlot.build(e.getKey(), e.getValue(), slotsByAttribute.size()));
+        }
+        this.slots = slotsByAttribute.values().toArray(new Slot[slotsByAttribute.size()]);
+
+        int compiled = 0;
+        int interpreted = 0;
+        this.rules = new IdentityHashMap<Rule, Condition[]>();
+        for (Rule r : table.rules) {
+            Condition[] conditions = new Condition[r.conditions.size()];
+            int i = 0;
+            for (Formulae f : r.conditions) {
+                Slot slot = TableIndex.isIndexable(f) ? slotsByAttribute.get(f.getAttribute()) : null;
+                byte[] truth = null;
+                if (slot != null && (slot instanceof SymbolicSlot || TableIndex.collectPoints(f, null))) {
+                    truth = slot.compile(f);
+                }
+                if (truth != null) {
+                    conditions[i++] = new Condition(f, slot.index, truth);
+                    compiled++;
+                } else {
+                    conditions[i++] = new Condition(f, -1, null);
+                    interpreted++;
+                }
+            }
+            rules.put(r, conditions);
+        }
+        this.compiledConditions = compiled;
+        this.interpretedConditions = interpreted;
+    }
+
+    /**
+     * Reads the values of the slots from the working memory and finds their classes.
+     *
+     * @param wm the working memory with the current values of the attributes
+     * @return the classes of the values of the slots, -1 for the values that cannot be classified
+     */
+    public int[] classify(WorkingMemory wm) {
+        return classify(wm, null);
+    }
+
+    /**
+     * Reads the values of the slots from the working memory and finds their classes, storing them in the buffer
+     * if it is large enough, so that the inference evaluating many tables does not allocate an array for each of them.
+     *
+     * @param wm     the working memory with the current values of the attributes
+     * @param buffer the array to store the classes in, or null
+     * @return the buffer, or a new array if the buffer is null or too small.
+     * Only its first {@link #getSlotCount()} elements are the classes of the slots.
+     */
+    public int[] classify(WorkingMemory wm, int[] buffer) {
+        int[] classes = buffer != null && buffer.length >= slots.length ? buffer : new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            classes[i] = slots[i].classify(wm.getAttributeValue(slots[i].attribute));
+        }
+        return classes;
+    }
+
+    /**
+     * Evaluates the conditions of a rule of the table.
+     *
+     * @param rule    the rule of the table
+     * @param classes the classes of the values of the slots returned by {@link #classify(WorkingMemory)}
+     * @param wm      the working memory, used for the conditions evaluated by the interpreter
+     * @param ute     the evaluator of the conditions, an {@link ALSVEvaluator}
+     * @return the certainty of the rule conditions
+     * @throws NotInTheDomainException
+     * @throws UnknownValueException
+     */
+    public UncertainTrue evaluate(Rule rule, int[] classes, WorkingMemory wm, UncertainTrueEvaluator ute)
+            throws NotInTheDomainException, UnknownValueException {
+        Condition[] conditions = rules.get(rule);
+        if (conditions == null) {
+            return rule.evaluate(wm, ute);
+        }
+        boolean satisfied = true;
+        for (Condition c : conditions) {
+            byte result = INTERPRET;
+            if (c.slot >= 0 && classes[c.slot] >= 0) {
+                result = c.truth[classes[c.slot]];
+            }
+            if (result == INTERPRET) {
+                // evaluated even if the rule is already known to be not satisfied, as it may throw an exception
+                result = c.formulae.evaluate(wm, ute).getCertinatyFactor() >= ute.getMaxCertainty() ? TRUE : FALSE;
+            }
+            satisfied &= result == TRUE;
+        }
+        return UncertainTrue.valueOf(satisfied ? ute.getMaxCertainty() : ute.getMinCertainty());
+    }
+
+    public Table getTable() {
+        return table;
+    }
+
+    /**
+     * @return the attributes which values are read into the slots
+     */
+    public List<Attribute> getSlotAttributes() {
+        List<Attribute> result = new LinkedList<Attribute>();
+        for (Slot s : slots) {
+            result.add(s.attribute);
+        }
+        return result;
+    }
+
+    /**
+     * @return number of the attributes which values are classified, the length of the result of {@link #classify(WorkingMemory)}
+     */
+    public int getSlotCount() {
+        return slots.length;
+    }
+
+    /**
+     * @return number of the conditions of the table that were compiled into truth tables
+     */
+    public int getCompiledConditionCount() {
+        return compiledConditions;
+    }
+
+    /**
+     * @return number of the conditions of the table that are always evaluated by the interpreter
+     */
+    public int getInterpretedConditionCount() {
+        return interpretedConditions;
+    }
+
+    /**
+     * @return true if none of the conditions of the table was compiled
+     */
+    public boolean isEmpty() {
+        return compiledConditions == 0;
+    }
+
+    private static class Condition {
+        private final Formulae formulae;
+        private final int slot;
+        private final byte[] truth;
+
+        Condition(Formulae formulae, int slot, byte[] truth) {
+            this.formulae = formulae;
+            this.slot = slot;
+            this.truth = truth;
+        }
+    }
+
+    private static abstract class Slot {
+        protected final Attribute attribute;
+        protected final int index;
+        /**
+         * Working memories holding a representative of each class, null for classes without one.
+         */
+        protected final WorkingMemory[] representatives;
+
+        Slot(Attribute attribute, int index, WorkingMemory[] representatives) {
+            this.attribute = attribute;
+            this.index = index;
+            this.representatives = representatives;
+        }
+
+        abstract int classify(Value value);
+
+        /**
+         * @return the truth table of the condition, or null if the interpreter has to be used for all the classes
+         */
+        byte[] compile(Formulae f) {
+            ALSVEvaluator evaluator = new ALSVEvaluator();
+            byte[] truth = new byte[representatives.length];
+            boolean useful = false;
+            for (int i = 0; i < truth.length; i++) {
+                truth[i] = INTERPRET;
+                if (representatives[i] == null) {
+                    continue;
+                }
+                try {
+                    UncertainTrue result = f.evaluate(representatives[i], evaluator);
+                    truth[i] = result.getCertinatyFactor() >= evaluator.getMaxCertainty() ? TRUE : FALSE;
+                    useful = true;
+                } catch (NotInTheDomainException e) {
+                } catch (UnknownValueException e) {
+                } catch (RuntimeException e) {
+                }
+            }
+            return useful ? truth : null;
+        }
+
+        /**
+         * @return working memory holding the given value of the attribute, or null if the value is not in its domain
+         */
+        static WorkingMemory represent(Attribute a, Value v) {
+            WorkingMemory fakeWm = new WorkingMemory();
+            try {
+                fakeWm.setAttributeValue(a, v, true);
+                return fakeWm;
+            } catch (NotInTheDomainException e) {
+                return null;
+            } catch (AttributeNotRegisteredException e) {
+                return null;
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    private static class SymbolicSlot extends Slot {
+        private final Map<String, Integer> classes;
+
+        private SymbolicSlot(Attribute attribute, int index, WorkingMemory[] representatives, Map<String, Integer> classes) {
+            super(attribute, index, representatives);
+            this.classes = classes;
+        }
+
+        static SymbolicSlot build(Attribute a, int index) {
+            List<Value> domain = a.getType().getDomain().getValues();
+            Map<String, Integer> classes = new HashMap<String, Integer>();
+            WorkingMemory[] representatives = new WorkingMemory[domain.size()];
+            for (Value v : domain) {
+                if (!(v instanceof SimpleSymbolic)) {
+                    return null;
+                }
+                String name = ((SimpleSymbolic) v).getValue();
+                if (!classes.containsKey(name)) {
+                    representatives[classes.size()] = represent(a, v);
+                    classes.put(name, classes.size());
+                }
+            }
+            return new SymbolicSlot(a, index, Arrays.copyOf(representatives, classes.size()), classes);
+        }
+
+        @Override
+        int classify(Value value) {
+            if (!(value instanceof SimpleSymbolic)) {
+                return -1;
+            }
+            Integer c = classes.get(((SimpleSymbolic) value).getValue());
+            return c == null ? -1 : c;
+        }
+    }
+
+    private static class NumericSlot extends Slot {
+        private final double[] points;
+
+        private NumericSlot(Attribute attribute, int index, WorkingMemory[] representatives, double[] points) {
+            super(attribute, index, representatives);
+            this.points = points;
+        }
+
+        static NumericSlot build(Attribute a, TreeSet<Double> constants, int index) {
+            double[] points = new double[constants.size()];
+            int p = 0;
+            for (Double d : constants) {
+                points[p++] = d;
+            }
+            List<Double> bounds = domainBounds(a);
+            WorkingMemory[] representatives = new WorkingMemory[2 * points.length + 1];
+            for (int c = 0; c < representatives.length; c++) {
+                for (double candidate : candidates(points, c, bounds)) {
+                    representatives[c] = represent(a, new SimpleNumeric(candidate));
+                    if (representatives[c] != null) {
+                        break;
+                    }
+                }
+            }
+            return new NumericSlot(a, index, representatives, points);
+        }
+
+        @Override
+        int classify(Value value) {
+            if (!(value instanceof SimpleNumeric) || ((SimpleNumeric) value).getValue() == null) {
+                return -1;
+            }
+            // negative zero is equal to zero, but it is ordered before it by the binary search
+            double x = ((SimpleNumeric) value).getValue() + 0.0;
+            if (Double.isNaN(x)) {
+                return -1;
+            }
+            int position = Arrays.binarySearch(points, x);
+            return position >= 0 ? 2 * position + 1 : 2 * (-position - 1);
+        }
+
+        /**
+         * @return the values of the class in the order in which they are tried as its representative
+         */
+        private static List<Double> candidates(double[] points, int c, List<Double> bounds) {
+            List<Double> result = new ArrayList<Double>();
+            if (c % 2 == 1) {
+                result.add(points[c / 2]);
+                return result;
+            }
+            double lo = c == 0 ? Double.NEGATIVE_INFINITY : points[c / 2 - 1];
+            double hi = c == 2 * points.length ? Double.POSITIVE_INFINITY : points[c / 2];
+            if (c == 0) {
+                result.add(Math.nextAfter(hi, Double.NEGATIVE_INFINITY));
+                result.add(Math.floor(hi) - 1);
+            } else {
+                result.add(Math.nextAfter(lo, Double.POSITIVE_INFINITY));
+                result.add(lo / 2 + hi / 2);
+                result.add(Math.floor(lo) + 1);
+            }
+            result.addAll(bounds);
+            List<Double> inside = new ArrayList<Double>();
+            for (Double d : result) {
+                if (lo < d && d < hi) {
+                    inside.add(d);
+                }
+            }
+            return inside;
+        }
+
+        private static List<Double> domainBounds(Attribute a) {
+            List<Double> result = new ArrayList<Double>();
+            for (Value v : a.getType().getDomain().getValues()) {
+                if (v instanceof SimpleNumeric && ((SimpleNumeric) v).getValue() != null) {
+                    result.add(((SimpleNumeric) v).getValue());
+                } else if (v instanceof Range) {
+                    Value from = ((Range) v).getFrom();
+                    Value to = ((Range) v).getTo();
+                    if (from instanceof SimpleNumeric && ((SimpleNumeric) from).getValue() != null) {
+                        result.add(((SimpleNumeric) from).getValue());
+                    }
+                    if (to instanceof SimpleNumeric && ((SimpleNumeric) to).getValue() != null) {
+                        result.add(((SimpleNumeric) to).getValue());
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
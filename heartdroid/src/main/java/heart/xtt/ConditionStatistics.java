@@ -0,0 +1,139 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.xtt;
+
+import heart.alsvfd.Formulae;
+import heart.alsvfd.Value;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runtime statistics of a single condition of a {@link Rule}, collected when the rule
+ * is evaluated with the adaptive condition ordering (see {@link Rule#evaluate(heart.WorkingMemory, heart.uncertainty.UncertainTrueEvaluator, boolean)}).
+ * They are used to evaluate the cheapest and the most selective conditions first.
+ */
+public class ConditionStatistics {
+    /**
+     * A condition comparing an attribute with a constant value.
+     */
+    public static final int COST_SIMPLE = 0;
+    /**
+     * A condition which right-hand side has to be computed.
+     */
+    public static final int COST_EXPRESSION = 1;
+    /**
+     * A condition reading an attribute which value is obtained with a callback.
+     */
+    public static final int COST_CALLBACK = 2;
+    /**
+     * A condition that looks up the history log.
+     */
+    public static final int COST_HISTORY = 3;
+
+    private final Formulae condition;
+    private final int cost;
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    ConditionStatistics(Formulae condition) {
+        this.condition = condition;
+        this.cost = estimateCost(condition);
+    }
+
+    public Formulae getCondition() {
+        return condition;
+    }
+
+    /**
+     * @return the estimated cost of the condition, one of the COST_* constants
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * @return how many times the condition was evaluated
+     */
+    public long getEvaluations() {
+        return evaluations.get();
+    }
+
+    /**
+     * @return how many evaluations of the condition gave the minimal certainty or an unknown value
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return how many times the condition was not evaluated, because a condition evaluated before it failed
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * @return the fraction of the evaluations that failed, 0 if the condition was never evaluated
+     */
+    public double getSelectivity() {
+        long n = evaluations.get();
+        return n == 0 ? 0 : ((double) failures.get()) / n;
+    }
+
+    void recordEvaluation(boolean failed) {
+        evaluations.incrementAndGet();
+        if (failed) {
+            failures.incrementAndGet();
+        }
+    }
+
+    void recordSkip() {
+        skipped.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return condition + " [cost: " + cost + ", evaluations: " + evaluations + ", failures: " + failures + ", skipped: " + skipped + "]";
+    }
+
+    private static int estimateCost(Formulae f) {
+        Set<Attribute> reads = new HashSet<Attribute>();
+        boolean history = f.hasTimeBasedParameter();
+        history |= DependencyGraph.collectInputs(f.getLHS(), reads);
+        history |= DependencyGraph.collectInputs(f.getRHS(), reads);
+        if (history) {
+            return COST_HISTORY;
+        }
+        for (Attribute a : reads) {
+            if (Attribute.COMM_IN.equals(a.getComm()) && a.getCallback() != null) {
+                return COST_CALLBACK;
+            }
+        }
+        return (f.getRHS() instanceof Value) ? COST_SIMPLE : COST_EXPRESSION;
+    }
+}
@@ -28,6 +28,7 @@ package heart.xtt;
 import heart.WorkingMemory;
 import heart.alsvfd.Value;
 import heart.alsvfd.expressions.ExpressionBuilderInterface;
+import heart.alsvfd.expressions.ExpressionCompiler;
 import heart.alsvfd.expressions.ExpressionInterface;
 import heart.exceptions.AttributeNotRegisteredException;
 import heart.exceptions.BuilderException;
@@ -42,6 +43,11 @@ public class Decision {
 	protected Attribute attr;
 	protected ExpressionInterface decision;
 	protected ExpressionInterface tail;
+
+	/**
+	 * The decision compiled with {@link ExpressionCompiler}, used when the decision is executed.
+	 */
+	protected ExpressionInterface compiledDecision;
 	
 	/**
 	 * A variable that contains a name of a Action class
@@ -63,11 +69,21 @@ public class Decision {
 	}
 	protected void setDecision(ExpressionInterface decision) {
 		this.decision = this.tail =  decision;
+		this.compiledDecision = ExpressionCompiler.compile(decision);
+	}
+
+	/**
+	 * @return the compiled form of the decision, evaluating to the same values as {@link #getDecision()}
+	 */
+	public ExpressionInterface getCompiledDecision() {
+		return compiledDecision;
 	}
 
 	public boolean execute(WorkingMemory wm, UncertainTrue certainty) throws UnsupportedOperationException, NotInTheDomainException, UnknownValueException {
 		try{
-			Value newValue = decision.evaluate(wm);
+			// The decision may evaluate to a constant from the model or to a value held by the working memory,
+			// so a copy is stored, as the certainty factor of the shared object must not be modified
+			Value newValue = compiledDecision.evaluate(wm).clone();
 			newValue.setCertaintyFactor(certainty.getCertinatyFactor());
 			wm.setAttributeValue(attr, newValue, true);
 	
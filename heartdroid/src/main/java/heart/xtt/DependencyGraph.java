@@ -0,0 +1,524 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.xtt;
+
+import heart.alsvfd.Formulae;
+import heart.alsvfd.expressions.BinaryExpression;
+import heart.alsvfd.expressions.ExpressionInterface;
+import heart.alsvfd.expressions.StatisticalExpression;
+import heart.alsvfd.expressions.UnaryExpression;
+import heart.alsvfd.expressions.Valat;
+
+import java.util.*;
+
+/**
+ * An immutable producer/consumer index of the tables of an {@link XTTModel}.
+ * It is built once, when the model is built, and lets the inference algorithms
+ * walk the dependencies between tables without scanning the whole model.
+ *
+ * All the lists returned by this class preserve the order in which the tables
+ * appear in {@link XTTModel#getTables()}, so the traversal order is the same
+ * as the one obtained by scanning the model.
+ */
+public class DependencyGraph {
+
+    private final Map<String, Table> tablesByName;
+    private final Map<Attribute, List<Table>> consumers;
+    private final Map<Attribute, List<Table>> producers;
+    private final Map<Table, List<Table>> downstream;
+    private final Map<Table, List<Table>> upstream;
+    private final Map<Table, Set<Attribute>> inputs;
+    private final Map<Table, Set<Attribute>> outputs;
+    private final Set<Table> historyDependent;
+    private final Set<Table> withCallbacks;
+    private final Set<Table> withActions;
+    private final Map<Rule, Table> owners;
+    private final Set<Table> linkTargets;
+    private final List<StatisticalExpression> statistics;
+    private final boolean pure;
+
+    DependencyGraph(List<Table> tables) {
+        Map<String, Table> byName = new HashMap<String, Table>();
+        Map<Attribute, List<Table>> cons = new HashMap<Attribute, List<Table>>();
+        Map<Attribute, List<Table>> prods = new HashMap<Attribute, List<Table>>();
+
+        for (Table t : tables) {
+            byName.put(t.getName(), t);
+            index(cons, t.precondition, t);
+            index(prods, t.conclusion, t);
+        }
+        freeze(cons);
+        freeze(prods);
+
+        this.tablesByName = Collections.unmodifiableMap(byName);
+        this.consumers = Collections.unmodifiableMap(cons);
+        this.producers = Collections.unmodifiableMap(prods);
+
+        Map<Table, List<Table>> down = new HashMap<Table, List<Table>>();
+        Map<Table, List<Table>> up = new HashMap<Table, List<Table>>();
+        for (Table t : tables) {
+            down.put(t, neighbourhood(t.conclusion, consumers));
+            up.put(t, neighbourhood(t.precondition, producers));
+        }
+        this.downstream = Collections.unmodifiableMap(down);
+        this.upstream = Collections.unmodifiableMap(up);
+
+        Map<Table, Set<Attribute>> in = new HashMap<Table, Set<Attribute>>();
+        Map<Table, Set<Attribute>> out = new HashMap<Table, Set<Attribute>>();
+        Set<Table> history = new HashSet<Table>();
+        Set<Table> callbacks = new HashSet<Table>();
+        Set<Table> actions = new HashSet<Table>();
+        List<StatisticalExpression> stats = new ArrayList<StatisticalExpression>();
+        for (Table t : tables) {
+            Set<Attribute> reads = new LinkedHashSet<Attribute>(t.precondition);
+            Set<Attribute> writes = new LinkedHashSet<Attribute>(t.conclusion);
+            boolean usesHistory = false;
+            boolean hasActions = false;
+            for (Rule r : t.rules) {
+                for (Formulae f : r.conditions) {
+                    usesHistory |= f.hasTimeBasedParameter() || !(f.getLHS() instanceof Attribute);
+                    collectStatistics(f.getLHS(), stats);
+                    collectStatistics(f.getRHS(), stats);
+                }
+                for (Decision d : r.decisions) {
+                    usesHistory |= collectInputs(d.decision, reads);
+                    collectStatistics(d.decision, stats);
+                    // a decision copying an attribute sets the certainty of the very same value object
+                    if (d.decision instanceof Attribute) {
+                        writes.add((Attribute) d.decision);
+                    }
+                }
+                for (String action : r.actions) {
+                    hasActions |= (action != null);
+                }
+            }
+            in.put(t, Collections.unmodifiableSet(reads));
+            out.put(t, Collections.unmodifiableSet(writes));
+            if (usesHistory) {
+                history.add(t);
+            }
+            if (hasActions) {
+                actions.add(t);
+            }
+            for (Attribute a : reads) {
+                if (Attribute.COMM_IN.equals(a.getComm()) && a.getCallback() != null) {
+                    callbacks.add(t);
+                }
+            }
+        }
+        this.inputs = Collections.unmodifiableMap(in);
+        this.outputs = Collections.unmodifiableMap(out);
+        this.historyDependent = Collections.unmodifiableSet(history);
+        this.withCallbacks = Collections.unmodifiableSet(callbacks);
+        this.withActions = Collections.unmodifiableSet(actions);
+        this.statistics = Collections.unmodifiableList(stats);
+
+        Map<Rule, Table> own = new HashMap<Rule, Table>();
+        for (Table t : tables) {
+            for (Rule r : t.rules) {
+                own.put(r, t);
+            }
+        }
+        Set<Table> targets = new HashSet<Table>();
+        for (Table t : tables) {
+            for (Rule r : t.rules) {
+                targets.addAll(r.tabLinks);
+                for (Rule linked : r.ruleLinks) {
+                    Table owner = own.get(linked);
+                    if (owner != null) {
+                        targets.add(owner);
+                    }
+                }
+            }
+        }
+        this.owners = Collections.unmodifiableMap(own);
+        this.linkTargets = Collections.unmodifiableSet(targets);
+
+        boolean allPure = true;
+        for (Table t : tables) {
+            allPure &= !isBarrier(t);
+        }
+        this.pure = allPure;
+    }
+
+    /**
+     * @return the statistical expressions used in the conditions and the decisions of the model
+     */
+    public List<StatisticalExpression> getStatisticalExpressions() {
+        return statistics;
+    }
+
+    /**
+     * @param name the name of the table
+     * @return the table with the given name, or null if the model does not contain such table
+     */
+    public Table getTable(String name) {
+        return tablesByName.get(name);
+    }
+
+    /**
+     * @param attribute the attribute to look for
+     * @return the tables that have the attribute in their preconditions
+     */
+    public List<Table> getConsumers(Attribute attribute) {
+        return lookup(consumers, attribute);
+    }
+
+    /**
+     * @param attribute the attribute to look for
+     * @return the tables that have the attribute in their conclusions
+     */
+    public List<Table> getProducers(Attribute attribute) {
+        return lookup(producers, attribute);
+    }
+
+    /**
+     * Returns the tables that read at least one of the attributes concluded by the given table.
+     * When a table reads several such attributes, it is placed according to the last of them,
+     * the same way as {@link heart.inference.DataDrivenInference} used to build its neighbourhood.
+     *
+     * @param table the table whose successors are requested
+     * @return the tables directly downstream of the given table
+     */
+    public List<Table> getDownstreamTables(Table table) {
+        return lookup(downstream, table);
+    }
+
+    /**
+     * Returns the tables that conclude at least one of the attributes from the preconditions
+     * of the given table.
+     *
+     * @param table the table whose predecessors are requested
+     * @return the tables directly upstream of the given table
+     */
+    public List<Table> getUpstreamTables(Table table) {
+        return lookup(upstream, table);
+    }
+
+    /**
+     * Returns all the attributes which values are read while processing the given table.
+     * These are the attributes from the table preconditions and the attributes used in
+     * the expressions of the rules decisions.
+     *
+     * @param table the table to look for
+     * @return the attributes read by the table
+     */
+    public Set<Attribute> getInputAttributes(Table table) {
+        Set<Attribute> result = inputs.get(table);
+        if (result == null) {
+            return Collections.emptySet();
+        }
+        return result;
+    }
+
+    /**
+     * @param table the table to check
+     * @return true if the rules of the table use time-based or statistical operators,
+     * and thus their result depends on the history log
+     */
+    public boolean isHistoryDependent(Table table) {
+        return historyDependent.contains(table);
+    }
+
+    /**
+     * @param table the table to check
+     * @return true if the table reads attributes whose values are obtained with callbacks
+     */
+    public boolean hasCallbacks(Table table) {
+        return withCallbacks.contains(table);
+    }
+
+    /**
+     * @param table the table to check
+     * @return true if any rule of the table triggers actions
+     */
+    public boolean hasActions(Table table) {
+        return withActions.contains(table);
+    }
+
+    /**
+     * Tells if the inference result of the whole model depends only on its initial state.
+     *
+     * @return true if no table of the model uses callbacks, actions or the history log
+     * @see #isPure(Table[])
+     */
+    public boolean isPure() {
+        return pure;
+    }
+
+    /**
+     * Tells if the result of processing the tables depends only on the initial state of the inference,
+     * so it can be memoized (see {@link heart.inference.ResultCache}).
+     *
+     * @param plan the tables to check
+     * @return true if none of the tables uses callbacks, actions or the history log
+     */
+    public boolean isPure(Table[] plan) {
+        if (pure) {
+            return true;
+        }
+        for (Table t : plan) {
+            if (isBarrier(t)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param rule the rule to look for
+     * @return the table the rule belongs to, or null if the rule does not belong to the model
+     */
+    public Table getTable(Rule rule) {
+        return owners.get(rule);
+    }
+
+    /**
+     * @param table the table to check
+     * @return true if any rule of the model links to the table or to one of its rules
+     */
+    public boolean isLinkTarget(Table table) {
+        return linkTargets.contains(table);
+    }
+
+    /**
+     * Splits the plan into layers of tables that can be processed concurrently.
+     * Processing the layers one after another, in any order within a layer, gives the same
+     * result as processing the plan sequentially:
+     * <ul>
+     * <li>a table is placed after every earlier table that concludes an attribute it reads or concludes,</li>
+     * <li>a table concluding an attribute is placed after every earlier table that reads it,</li>
+     * <li>tables that use callbacks, actions or the history log may read or modify anything,
+     * so each of them forms a separate layer that separates the earlier and the later tables.</li>
+     * </ul>
+     * Tables within a layer keep their order from the plan.
+     *
+     * @param plan the tables in the order in which they would be processed sequentially
+     * @return the consecutive layers of the plan
+     */
+    public List<List<Table>> splitIntoLayers(Table[] plan) {
+        List<List<Table>> layers = new ArrayList<List<Table>>();
+        Map<Attribute, Integer> lastWrite = new HashMap<Attribute, Integer>();
+        Map<Attribute, Integer> lastRead = new HashMap<Attribute, Integer>();
+        Map<Table, Integer> lastLayer = new HashMap<Table, Integer>();
+        int floor = 0;
+
+        for (Table t : plan) {
+            int layer;
+            if (isBarrier(t)) {
+                layer = layers.size();
+                floor = layer + 1;
+            } else {
+                Set<Attribute> writes = outputs.get(t);
+                if (writes == null) {
+                    writes = new HashSet<Attribute>(t.conclusion);
+                }
+                layer = Math.max(floor, after(lastLayer, t));
+                for (Attribute a : getInputAttributes(t)) {
+                    layer = Math.max(layer, after(lastWrite, a));
+                }
+                for (Attribute a : writes) {
+                    layer = Math.max(layer, Math.max(after(lastWrite, a), after(lastRead, a)));
+                }
+                for (Attribute a : getInputAttributes(t)) {
+                    Integer read = lastRead.get(a);
+                    lastRead.put(a, read == null ? layer : Math.max(read, layer));
+                }
+                for (Attribute a : writes) {
+                    lastWrite.put(a, layer);
+                }
+            }
+            while (layers.size() <= layer) {
+                layers.add(new ArrayList<Table>());
+            }
+            layers.get(layer).add(t);
+            lastLayer.put(t, layer);
+        }
+        return layers;
+    }
+
+    /**
+     * Reorders the plan so that the tables with higher priorities (see {@link Table#getPriority()})
+     * are processed as early as possible, without changing the result of the inference.
+     * A table is never moved before an earlier table of the plan it depends on, using the same
+     * dependencies as {@link #splitIntoLayers(Table[])}. Tables with equal priorities keep their order.
+     *
+     * @param plan the tables in the order in which they would be processed sequentially
+     * @return the reordered plan
+     */
+    public Table[] orderByPriority(Table[] plan) {
+        int n = plan.length;
+        List<List<Integer>> successors = new ArrayList<List<Integer>>(n);
+        int[] predecessors = new int[n];
+        for (int j = 0; j < n; j++) {
+            successors.add(new ArrayList<Integer>());
+            for (int i = 0; i < j; i++) {
+                if (mustPrecede(plan[i], plan[j])) {
+                    successors.get(i).add(j);
+                    predecessors[j]++;
+                }
+            }
+        }
+
+        final Table[] tables = plan;
+        PriorityQueue<Integer> ready = new PriorityQueue<Integer>(Math.max(1, n), new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int byPriority = Integer.compare(tables[b].getPriority(), tables[a].getPriority());
+                return byPriority != 0 ? byPriority : Integer.compare(a, b);
+            }
+        });
+        for (int i = 0; i < n; i++) {
+            if (predecessors[i] == 0) {
+                ready.add(i);
+            }
+        }
+        Table[] result = new Table[n];
+        int position = 0;
+        while (!ready.isEmpty()) {
+            int i = ready.poll();
+            result[position++] = plan[i];
+            for (int j : successors.get(i)) {
+                if (--predecessors[j] == 0) {
+                    ready.add(j);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the earlier table has to be processed before the later one
+     */
+    private boolean mustPrecede(Table earlier, Table later) {
+        if (earlier == later || isBarrier(earlier) || isBarrier(later)) {
+            return true;
+        }
+        Set<Attribute> earlierWrites = getOutputAttributes(earlier);
+        Set<Attribute> laterWrites = getOutputAttributes(later);
+        return intersects(getInputAttributes(later), earlierWrites)
+                || intersects(laterWrites, earlierWrites)
+                || intersects(laterWrites, getInputAttributes(earlier));
+    }
+
+    /**
+     * @param t the table to check
+     * @return the attributes the table may modify, i.e. its conclusions and the attributes which certainty its decisions change
+     */
+    public Set<Attribute> getOutputAttributes(Table t) {
+        Set<Attribute> writes = outputs.get(t);
+        return writes != null ? writes : new HashSet<Attribute>(t.conclusion);
+    }
+
+    private static boolean intersects(Set<Attribute> a, Set<Attribute> b) {
+        for (Attribute attribute : a) {
+            if (b.contains(attribute)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBarrier(Table t) {
+        return hasCallbacks(t) || hasActions(t) || isHistoryDependent(t);
+    }
+
+    private static <K> int after(Map<K, Integer> layers, K key) {
+        Integer layer = layers.get(key);
+        return layer == null ? 0 : layer + 1;
+    }
+
+    /**
+     * Adds attributes referenced by the expression to the set.
+     *
+     * @return true if the expression refers to historical values of attributes
+     */
+    static boolean collectInputs(ExpressionInterface e, Set<Attribute> reads) {
+        if (e instanceof Attribute) {
+            reads.add((Attribute) e);
+        } else if (e instanceof BinaryExpression) {
+            BinaryExpression be = (BinaryExpression) e;
+            boolean left = collectInputs(be.getLeftOperand(), reads);
+            boolean right = collectInputs(be.getRightOperand(), reads);
+            return left || right;
+        } else if (e instanceof UnaryExpression) {
+            return collectInputs(((UnaryExpression) e).getArgument(), reads);
+        } else if (e instanceof StatisticalExpression || e instanceof Valat) {
+            return true;
+        }
+        return false;
+    }
+
+    private static void collectStatistics(ExpressionInterface e, List<StatisticalExpression> statistics) {
+        if (e instanceof StatisticalExpression) {
+            statistics.add((StatisticalExpression) e);
+        } else if (e instanceof BinaryExpression) {
+            collectStatistics(((BinaryExpression) e).getLeftOperand(), statistics);
+            collectStatistics(((BinaryExpression) e).getRightOperand(), statistics);
+        } else if (e instanceof UnaryExpression) {
+            collectStatistics(((UnaryExpression) e).getArgument(), statistics);
+        }
+    }
+
+    private static <K> List<Table> lookup(Map<K, List<Table>> index, K key) {
+        List<Table> result = index.get(key);
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return result;
+    }
+
+    private static void index(Map<Attribute, List<Table>> index, List<Attribute> attributes, Table t) {
+        for (Attribute a : attributes) {
+            List<Table> list = index.get(a);
+            if (list == null) {
+                list = new ArrayList<Table>();
+                index.put(a, list);
+            }
+            // tables are indexed one after another, so a duplicate can only be the last entry
+            if (list.isEmpty() || list.get(list.size() - 1) != t) {
+                list.add(t);
+            }
+        }
+    }
+
+    private static void freeze(Map<Attribute, List<Table>> index) {
+        for (Map.Entry<Attribute, List<Table>> entry : index.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+    }
+
+    private static List<Table> neighbourhood(List<Attribute> attributes, Map<Attribute, List<Table>> index) {
+        LinkedHashSet<Table> neighbourhood = new LinkedHashSet<Table>();
+        for (Attribute a : attributes) {
+            List<Table> partial = lookup(index, a);
+            for (Table t : partial) {
+                neighbourhood.remove(t);
+            }
+            neighbourhood.addAll(partial);
+        }
+        return Collections.unmodifiableList(new ArrayList<Table>(neighbourhood));
+    }
+}
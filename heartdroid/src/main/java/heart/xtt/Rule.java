@@ -40,9 +40,13 @@ import heart.xtt.annotation.Annotation;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 public class Rule implements Annotated {
@@ -98,6 +102,29 @@ public class Rule implements Annotated {
 	
 	protected List<Annotation> annotations;
 
+	/**
+	 * The number of adaptive evaluations after which the conditions are reordered.
+	 */
+	public static final int REORDER_INTERVAL = 64;
+
+	/**
+	 * The conditions in the order in which they were written, evaluated by the non-adaptive mode.
+	 * Created on the first evaluation and dropped when the conditions change.
+	 */
+	private volatile Formulae[] conditionArray;
+
+	/**
+	 * Statistics of the conditions in the order in which they were written. Created on the first adaptive evaluation.
+	 */
+	private volatile ConditionStatistics[] conditionStatistics;
+
+	/**
+	 * Statistics of the conditions in the order in which they are evaluated in the adaptive mode.
+	 */
+	private volatile ConditionStatistics[] evaluationOrder;
+
+	private final AtomicLong adaptiveEvaluations = new AtomicLong();
+
 	public Rule() {
 		conditions = new LinkedList<Formulae>();
 		decisions = new LinkedList<Decision>();
@@ -120,20 +147,28 @@ public class Rule implements Annotated {
 	 * @throws NotInTheDomainException
 	 */
 	public UncertainTrue evaluate(WorkingMemory wm, UncertainTrueEvaluator ute) throws NotInTheDomainException, UnknownValueException {
-		Debug.debug(Debug.heartTag, Level.CONDITIONS, "Checking conditions of rule " + this.getName() + " (ID: " + this.getId() + ")");
+		boolean debug = Debug.isEnabled(Level.CONDITIONS);
+		if(debug){
+			Debug.debug(Debug.heartTag, Level.CONDITIONS, "Checking conditions of rule " + this.getName() + " (ID: " + this.getId() + ")");
+		}
 		try{
-			UncertainTrue finalResult = new UncertainTrue(ute.getMaxCertainty()); 
-			for(Formulae f : conditions){
-				Debug.debug(Debug.heartTag, Level.CONDITIONS, "Checking condition "+f);
+			UncertainTrue finalResult = UncertainTrue.valueOf(ute.getMaxCertainty());
+			for(Formulae f : getConditionArray()){
+				if(debug){
+					Debug.debug(Debug.heartTag, Level.CONDITIONS, "Checking condition "+f);
+				}
 				UncertainTrue partialResult = f.evaluate(wm, ute);
-				Debug.debug(Debug.heartTag, Level.CONDITIONS, 
-						"Condition "+f+" satisfied with certainty ("+partialResult.getCertinatyFactor()+").");
+				if(debug){
+					Debug.debug(Debug.heartTag, Level.CONDITIONS, 
+							"Condition "+f+" satisfied with certainty ("+partialResult.getCertinatyFactor()+").");
+				}
 			
 				if(partialResult.getCertinatyFactor() < finalResult.getCertinatyFactor()){
 					finalResult = partialResult;
-					Debug.debug(Debug.heartTag, Level.CONDITIONS, 
-							"Changing the rule evaluation result to be true with certainty ("+finalResult.getCertinatyFactor()+").");
-					
+					if(debug){
+						Debug.debug(Debug.heartTag, Level.CONDITIONS, 
+								"Changing the rule evaluation result to be true with certainty ("+finalResult.getCertinatyFactor()+").");
+					}
 				}
 			}
 			return finalResult;
@@ -143,6 +178,144 @@ public class Rule implements Annotated {
 		}
 	}
 	
+	/**
+	 * Method that evaluates the rule conditions, optionally in the adaptive mode.
+	 * In the adaptive mode the evaluation stops at the first condition that yields the minimal certainty
+	 * of the evaluator, or which value is unknown, as the result of the rule cannot be higher than that.
+	 * The statistics of the conditions are collected (see {@link #getConditionStatistics()}), and every
+	 * {@link #REORDER_INTERVAL} evaluations the conditions are reordered, so that the cheapest ones
+	 * (without callbacks and history lookups) and then the ones that fail most often are evaluated first.
+	 *
+	 * The certainty of a satisfied rule is the same in both modes. A rule that is not satisfied
+	 * may return the minimal certainty instead of failing on a condition that was not evaluated.
+	 *
+	 * @param wm a working memory object that contains information about attributes values
+	 * @param ute the evaluator of the conditions
+	 * @param adaptive true to use the adaptive mode, false to call {@link #evaluate(WorkingMemory, UncertainTrueEvaluator)}
+	 * @return the certainty of the rule conditions
+	 * @throws NotInTheDomainException
+	 * @throws UnknownValueException
+	 */
+	public UncertainTrue evaluate(WorkingMemory wm, UncertainTrueEvaluator ute, boolean adaptive) throws NotInTheDomainException, UnknownValueException {
+		if(!adaptive){
+			return evaluate(wm, ute);
+		}
+		if(Debug.isEnabled(Level.CONDITIONS)){
+			Debug.debug(Debug.heartTag, Level.CONDITIONS, "Checking conditions of rule " + this.getName() + " (ID: " + this.getId() + ") in the adaptive order");
+		}
+		ConditionStatistics[] order = getEvaluationOrder();
+		UncertainTrue finalResult = UncertainTrue.valueOf(ute.getMaxCertainty());
+		try{
+			for(int i = 0; i < order.length; i++){
+				ConditionStatistics cs = order[i];
+				UncertainTrue partialResult;
+				try {
+					partialResult = cs.getCondition().evaluate(wm, ute);
+				} catch (UnknownValueException e) {
+					cs.recordEvaluation(true);
+					skipRemaining(order, i);
+					throw e;
+				}
+				boolean failed = partialResult.getCertinatyFactor() <= ute.getMinCertainty();
+				cs.recordEvaluation(failed);
+				if(partialResult.getCertinatyFactor() < finalResult.getCertinatyFactor()){
+					finalResult = partialResult;
+				}
+				if(failed){
+					if(Debug.isEnabled(Level.CONDITIONS)){
+						Debug.debug(Debug.heartTag, Level.CONDITIONS,
+								"Condition "+cs.getCondition()+" not satisfied. Skipping remaining conditions.");
+					}
+					skipRemaining(order, i);
+					break;
+				}
+			}
+			return finalResult;
+		}finally{
+			if(adaptiveEvaluations.incrementAndGet() % REORDER_INTERVAL == 0){
+				reorderConditions();
+			}
+		}
+	}
+
+	/**
+	 * Returns the statistics of the conditions collected by the adaptive evaluation,
+	 * in the order in which the conditions were written.
+	 *
+	 * @return the statistics of the conditions
+	 */
+	public List<ConditionStatistics> getConditionStatistics() {
+		return Collections.unmodifiableList(Arrays.asList(getStatistics()));
+	}
+
+	/**
+	 * @return the conditions in the order in which they are evaluated in the adaptive mode
+	 */
+	public LinkedList<Formulae> getAdaptiveConditionOrder() {
+		LinkedList<Formulae> result = new LinkedList<Formulae>();
+		for(ConditionStatistics cs : getEvaluationOrder()){
+			result.add(cs.getCondition());
+		}
+		return result;
+	}
+
+	/**
+	 * Sorts the conditions by their cost, and then by the fraction of failed evaluations.
+	 * Conditions with equal statistics keep their relative order.
+	 */
+	void reorderConditions() {
+		ConditionStatistics[] order = getEvaluationOrder().clone();
+		Arrays.sort(order, new Comparator<ConditionStatistics>() {
+			@Override
+			public int compare(ConditionStatistics a, ConditionStatistics b) {
+				if(a.getCost() != b.getCost()){
+					return a.getCost() < b.getCost() ? -1 : 1;
+				}
+				return Double.compare(b.getSelectivity(), a.getSelectivity());
+			}
+		});
+		evaluationOrder = order;
+	}
+
+	private void skipRemaining(ConditionStatistics[] order, int evaluated) {
+		for(int j = evaluated + 1; j < order.length; j++){
+			order[j].recordSkip();
+		}
+	}
+
+	private Formulae[] getConditionArray() {
+		Formulae[] result = conditionArray;
+		if(result == null){
+			result = conditions.toArray(new Formulae[conditions.size()]);
+			conditionArray = result;
+		}
+		return result;
+	}
+
+	private ConditionStatistics[] getStatistics() {
+		ConditionStatistics[] result = conditionStatistics;
+		if(result == null){
+			synchronized (this) {
+				if(conditionStatistics == null){
+					ConditionStatistics[] statistics = new ConditionStatistics[conditions.size()];
+					int i = 0;
+					for(Formulae f : conditions){
+						statistics[i++] = new ConditionStatistics(f);
+					}
+					evaluationOrder = statistics.clone();
+					conditionStatistics = statistics;
+				}
+				result = conditionStatistics;
+			}
+		}
+		return result;
+	}
+
+	private ConditionStatistics[] getEvaluationOrder() {
+		getStatistics();
+		return evaluationOrder;
+	}
+
 	/**
 	 * Method that fires the decision part of the rule. 
 	 * It does not evaluate the rule conditions. 
@@ -154,20 +327,27 @@ public class Rule implements Annotated {
 	 * @throws NotInTheDomainException
 	 */
 	public boolean execute(WorkingMemory wm, UncertainTrue certainty) throws UnsupportedOperationException, NotInTheDomainException {
+		boolean debug = Debug.isEnabled(Level.RULES);
 		try{	
-			Debug.debug(Debug.heartTag, Level.RULES, "Executing decisinos of rule "+this.getName()+" (ID: "+this.getId()+")");
+			if(debug){
+				Debug.debug(Debug.heartTag, Level.RULES, "Executing decisinos of rule "+this.getName()+" (ID: "+this.getId()+")");
+			}
 			//Exeute decisions - set new attributes values
 			for(Decision d : decisions){
-				Debug.debug(Debug.heartTag, Level.RULES, "Executing decisions "+d);
+				if(debug){
+					Debug.debug(Debug.heartTag, Level.RULES, "Executing decisions "+d);
+				}
 				if(!d.execute(wm,certainty)){
 					Debug.debug(Debug.heartTag, Level.RULES, "Executing decisions "+d+" failed.");
 					return false;
-				}else{
+				}else if(debug){
 					Debug.debug(Debug.heartTag, Level.RULES, "Executing decisions "+d+" succeeded.");
 				}
 			}
 			//Execute actions
-			Debug.debug(Debug.heartTag, Level.RULES, "Executing actions of rule "+this.getName()+" (ID: "+this.getId()+")");
+			if(debug){
+				Debug.debug(Debug.heartTag, Level.RULES, "Executing actions of rule "+this.getName()+" (ID: "+this.getId()+")");
+			}
 			for(String a : actions){
 				if(a != null){
 					Class<?> actionClass =  Class.forName(a);
@@ -288,6 +468,37 @@ public class Rule implements Annotated {
 
 	private void setConditions(LinkedList<Formulae> conditions) {
 		this.conditions = conditions;
+		conditionsChanged();
+	}
+
+	/**
+	 * Removes a condition from the rule. Used by the {@link RuleBaseOptimizer} before the model is used for inference.
+	 *
+	 * @param condition the condition to be removed
+	 */
+	void removeCondition(Formulae condition) {
+		conditions.remove(condition);
+		conditionsChanged();
+	}
+
+	/**
+	 * Replaces a condition of the rule. Used by the {@link RuleBaseOptimizer} before the model is used for inference.
+	 *
+	 * @param index the position of the condition
+	 * @param condition the new condition
+	 */
+	void setCondition(int index, Formulae condition) {
+		conditions.set(index, condition);
+		conditionsChanged();
+	}
+
+	/**
+	 * Drops the array and the statistics of the conditions, so that they are created again for the new conditions.
+	 */
+	private synchronized void conditionsChanged() {
+		conditionArray = null;
+		conditionStatistics = null;
+		evaluationOrder = null;
 	}
 
 	public LinkedList<Decision> getDecisions() {
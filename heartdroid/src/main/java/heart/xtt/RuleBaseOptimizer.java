@@ -0,0 +1,552 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+
+package heart.xtt;
+
+import heart.alsvfd.Any;
+import heart.alsvfd.Formulae;
+import heart.alsvfd.Formulae.ConditionalOperator;
+import heart.alsvfd.Range;
+import heart.alsvfd.SetValue;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.alsvfd.Value;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An optional pass of {@link XTTModel.Builder#build()} that simplifies the rule base before it is used for inference.
+ * It removes:
+ * <ul>
+ *     <li>conditions that are always true, like {@code x eq any} or {@code x in} the whole domain of the attribute,</li>
+ *     <li>rules that can never fire, because one of their conditions accepts only values outside the domain of the attribute,</li>
+ *     <li>rules subsumed by an earlier rule of the same table, if the tables are resolved with the first-win strategy,</li>
+ * </ul>
+ * and merges adjacent rules that have the same conclusions and differ only in the values accepted by one condition.
+ *
+ * Only conditions that compare a simple attribute with constant values using {@code eq} or {@code in}
+ * are analysed, all the other conditions are left untouched. Rules that are targets of rule links
+ * are never removed. The pass follows the crisp ALSV(FD) semantics of the conditions, so it should not be used
+ * with models evaluated with a certainty factors algebra.
+ */
+public class RuleBaseOptimizer {
+
+    private final boolean firstWinTables;
+    private final boolean knownValuesAssumed;
+
+    private RuleBaseOptimizer(Builder builder) {
+        this.firstWinTables = builder.isFirstWinTables();
+        this.knownValuesAssumed = builder.isKnownValuesAssumed();
+    }
+
+    /**
+     * @return true if the optimizer assumes that the tables are resolved with {@link heart.uncertainty.ConflictSetFirstWin}
+     */
+    public boolean isFirstWinTables() {
+        return firstWinTables;
+    }
+
+    /**
+     * @return true if the optimizer assumes that the conditional attributes always have values when their tables are processed
+     */
+    public boolean isKnownValuesAssumed() {
+        return knownValuesAssumed;
+    }
+
+    /**
+     * Optimizes the rules of the given tables in place.
+     *
+     * @param tables the tables of the model
+     * @return the report describing what was removed and merged
+     */
+    public Report optimize(Collection<Table> tables) {
+        Report report = new Report();
+        Set<Rule> linkTargets = new HashSet<Rule>();
+        for (Table t : tables) {
+            for (Rule r : t.getRules()) {
+                linkTargets.addAll(r.getRuleLinks());
+            }
+        }
+
+        for (Table t : tables) {
+            removeTrueConditions(t, report);
+            removeDeadRules(t, linkTargets, report);
+            if (firstWinTables) {
+                removeSubsumedRules(t, linkTargets, report);
+            }
+            mergeAdjacentRules(t, linkTargets, report);
+        }
+        return report;
+    }
+
+    private void removeTrueConditions(Table table, Report report) {
+        for (Rule rule : table.getRules()) {
+            for (Formulae f : rule.getConditions()) {
+                if (isAlwaysTrue(f) && (knownValuesAssumed || requiresKnownValue(rule, f))) {
+                    rule.removeCondition(f);
+                    report.removedConditions.add(rule.getName() + ": " + f);
+                }
+            }
+        }
+    }
+
+    /**
+     * Conditions that are always true still fail when the attribute has no value. They can be dropped
+     * without the assumption of known values only when another condition of the rule fails in that case as well.
+     */
+    private static boolean requiresKnownValue(Rule rule, Formulae trueCondition) {
+        for (Formulae f : rule.conditions) {
+            if (f != trueCondition && f.getAttribute() == trueCondition.getAttribute()
+                    && getElements(f) != null && !isAlwaysTrue(f)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAlwaysTrue(Formulae f) {
+        if (!isAnalysable(f)) {
+            return false;
+        }
+        if (f.getOp() == ConditionalOperator.EQ && f.getRHS() instanceof Any) {
+            return true;
+        }
+        List<Value> elements = getElements(f);
+        List<Value> domain = getDomainElements(f.getAttribute());
+        return f.getOp() == ConditionalOperator.IN && elements != null && domain != null && covers(elements, domain);
+    }
+
+    private void removeDeadRules(Table table, Set<Rule> linkTargets, Report report) {
+        for (Rule rule : table.getRules()) {
+            if (linkTargets.contains(rule)) {
+                continue;
+            }
+            for (Formulae f : rule.conditions) {
+                if (isNeverTrue(f)) {
+                    table.removeRule(rule);
+                    report.deadRules.add(rule.getName() + ": " + f);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static boolean isNeverTrue(Formulae f) {
+        List<Value> elements = getElements(f);
+        List<Value> domain = getDomainElements(f.getAttribute());
+        if (elements == null || domain == null || domain.isEmpty()) {
+            return false;
+        }
+        for (Value e : elements) {
+            for (Value d : domain) {
+                if (!disjoint(e, d)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void removeSubsumedRules(Table table, Set<Rule> linkTargets, Report report) {
+        List<Rule> rules = table.getRules();
+        for (int j = 1; j < rules.size(); j++) {
+            Rule later = rules.get(j);
+            if (linkTargets.contains(later)) {
+                continue;
+            }
+            for (int i = 0; i < j; i++) {
+                Rule earlier = rules.get(i);
+                if (subsumes(earlier, later)) {
+                    table.removeRule(later);
+                    report.subsumedRules.add(later.getName() + " by " + earlier.getName());
+                    rules.remove(j--);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the earlier rule is satisfied whenever the later one is, so that the first-win strategy
+     * never selects the later rule.
+     */
+    private static boolean subsumes(Rule earlier, Rule later) {
+        if (earlier.getCertaintyFactor() <= 0 || earlier.getCertaintyFactor() < later.getCertaintyFactor()) {
+            return false;
+        }
+        for (Formulae e : earlier.conditions) {
+            List<Value> accepted = getElements(e);
+            if (accepted == null || !isInTheDomain(e)) {
+                return false;
+            }
+            boolean implied = false;
+            for (Formulae l : later.conditions) {
+                List<Value> required = getElements(l);
+                if (l.getAttribute() == e.getAttribute() && required != null && covers(accepted, required)) {
+                    implied = true;
+                    break;
+                }
+            }
+            if (!implied) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void mergeAdjacentRules(Table table, Set<Rule> linkTargets, Report report) {
+        List<Rule> rules = table.getRules();
+        int i = 0;
+        while (i + 1 < rules.size()) {
+            Rule first = rules.get(i);
+            Rule second = rules.get(i + 1);
+            if (!linkTargets.contains(second) && merge(first, second)) {
+                table.removeRule(second);
+                report.mergedRules.add(second.getName() + " into " + first.getName());
+                rules.remove(i + 1);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Merges the second rule into the first one if they have the same conclusions and differ only in the values
+     * accepted by a single condition. Unless the tables are resolved with the first-win strategy,
+     * the accepted values have to be disjoint, so that merging does not change how many times the conclusions are fired.
+     */
+    private boolean merge(Rule first, Rule second) {
+        if (first.getCertaintyFactor() != second.getCertaintyFactor()
+                || !first.decisions.toString().equals(second.decisions.toString())
+                || !first.actions.equals(second.actions)
+                || !first.ruleLinks.equals(second.ruleLinks)
+                || !first.tabLinks.equals(second.tabLinks)
+                || !first.annotations.isEmpty() || !second.annotations.isEmpty()
+                || first.conditions.size() != second.conditions.size()) {
+            return false;
+        }
+
+        int differing = -1;
+        for (int k = 0; k < first.conditions.size(); k++) {
+            if (!first.conditions.get(k).toString().equals(second.conditions.get(k).toString())) {
+                if (differing >= 0) {
+                    return false;
+                }
+                differing = k;
+            }
+        }
+        if (differing < 0) {
+            return false;
+        }
+
+        Formulae a = first.conditions.get(differing);
+        Formulae b = second.conditions.get(differing);
+        List<Value> aElements = getElements(a);
+        List<Value> bElements = getElements(b);
+        if (aElements == null || bElements == null || a.getAttribute() != b.getAttribute()) {
+            return false;
+        }
+        if (!firstWinTables) {
+            for (Value x : aElements) {
+                for (Value y : bElements) {
+                    if (!disjoint(x, y)) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        List<Value> merged = new LinkedList<Value>(aElements);
+        merged.addAll(bElements);
+        first.setCondition(differing, a.withRHS(ConditionalOperator.IN, new SetValue(merged)));
+        return true;
+    }
+
+    private static boolean isAnalysable(Formulae f) {
+        return !f.hasTimeBasedParameter()
+                && f.getLHS() instanceof Attribute
+                && Attribute.CLASS_SIMPLE.equals(f.getAttribute().getXTTClass())
+                && f.getRHS() instanceof Value
+                && (f.getOp() == ConditionalOperator.EQ || f.getOp() == ConditionalOperator.IN);
+    }
+
+    private static boolean isInTheDomain(Formulae f) {
+        try {
+            return ((Value) f.getRHS()).isInTheDomain(f.getAttribute().getType());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the constant values and ranges accepted by the condition, or null if the condition is not analysed
+     */
+    private static List<Value> getElements(Formulae f) {
+        if (!isAnalysable(f)) {
+            return null;
+        }
+        Value rhs = (Value) f.getRHS();
+        if (f.getOp() == ConditionalOperator.EQ && !(rhs instanceof SimpleNumeric || rhs instanceof SimpleSymbolic)) {
+            return null;
+        }
+        List<Value> result = new ArrayList<Value>();
+        return flatten(rhs, result) && !result.isEmpty() ? result : null;
+    }
+
+    private static List<Value> getDomainElements(Attribute attribute) {
+        Type type = attribute.getType();
+        if (type == null || type.getDomain() == null) {
+            return null;
+        }
+        List<Value> result = new ArrayList<Value>();
+        return flatten(type.getDomain(), result) ? result : null;
+    }
+
+    private static boolean flatten(Value v, List<Value> result) {
+        if (v instanceof SetValue) {
+            for (Value element : ((SetValue) v).getValues()) {
+                if (!flatten(element, result)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (v instanceof SimpleNumeric || v instanceof SimpleSymbolic || v instanceof Range) {
+            result.add(v);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if each of the inner values is contained in one of the outer ones
+     */
+    private static boolean covers(List<Value> outer, List<Value> inner) {
+        for (Value i : inner) {
+            boolean covered = false;
+            for (Value o : outer) {
+                if (contains(o, i)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if it is certain that the inner value or range is contained in the outer one
+     */
+    private static boolean contains(Value outer, Value inner) {
+        if (outer instanceof SimpleSymbolic && inner instanceof SimpleSymbolic) {
+            return ((SimpleSymbolic) outer).getValue().equals(((SimpleSymbolic) inner).getValue());
+        }
+        if (outer instanceof SimpleNumeric && inner instanceof SimpleNumeric) {
+            return number(outer) == number(inner);
+        }
+        if (!isNumericRange(outer)) {
+            return false;
+        }
+        Range o = (Range) outer;
+        if (inner instanceof SimpleNumeric) {
+            double x = number(inner);
+            return above(x, o.getFrom(), o.isLeftInclusive()) && below(x, o.getTo(), o.isRightInclusive());
+        }
+        if (isNumericRange(inner)) {
+            Range i = (Range) inner;
+            double from = number(i.getFrom());
+            double to = number(i.getTo());
+            return (above(from, o.getFrom(), o.isLeftInclusive()) || (from == number(o.getFrom()) && !i.isLeftInclusive()))
+                    && (below(to, o.getTo(), o.isRightInclusive()) || (to == number(o.getTo()) && !i.isRightInclusive()));
+        }
+        return false;
+    }
+
+    /**
+     * @return true if it is certain that the values or ranges have no common element
+     */
+    private static boolean disjoint(Value a, Value b) {
+        if (a instanceof SimpleSymbolic && b instanceof SimpleSymbolic) {
+            return !contains(a, b);
+        }
+        if (a instanceof SimpleNumeric && b instanceof SimpleNumeric) {
+            return !contains(a, b);
+        }
+        if (isNumericRange(a) && b instanceof SimpleNumeric) {
+            return !contains(a, b);
+        }
+        if (a instanceof SimpleNumeric && isNumericRange(b)) {
+            return !contains(b, a);
+        }
+        if (isNumericRange(a) && isNumericRange(b)) {
+            return endsBefore((Range) a, (Range) b) || endsBefore((Range) b, (Range) a);
+        }
+        return false;
+    }
+
+    private static boolean endsBefore(Range a, Range b) {
+        double to = number(a.getTo());
+        double from = number(b.getFrom());
+        return to < from || (to == from && !(a.isRightInclusive() && b.isLeftInclusive()));
+    }
+
+    private static boolean isNumericRange(Value v) {
+        return v instanceof Range && ((Range) v).getFrom() instanceof SimpleNumeric && ((Range) v).getTo() instanceof SimpleNumeric;
+    }
+
+    private static boolean above(double x, Value from, boolean inclusive) {
+        return inclusive ? x >= number(from) : x > number(from);
+    }
+
+    private static boolean below(double x, Value to, boolean inclusive) {
+        return inclusive ? x <= number(to) : x < number(to);
+    }
+
+    private static double number(Value v) {
+        return ((SimpleNumeric) v).getValue();
+    }
+
+    /**
+     * The summary of a single run of the optimizer.
+     */
+    public static class Report {
+        private final List<String> removedConditions = new LinkedList<String>();
+        private final List<String> deadRules = new LinkedList<String>();
+        private final List<String> subsumedRules = new LinkedList<String>();
+        private final List<String> mergedRules = new LinkedList<String>();
+
+        /**
+         * @return the removed conditions that were always true, as "rule: condition"
+         */
+        public List<String> getRemovedConditions() {
+            return Collections.unmodifiableList(removedConditions);
+        }
+
+        /**
+         * @return the removed rules that could never fire, as "rule: condition that is never true"
+         */
+        public List<String> getDeadRules() {
+            return Collections.unmodifiableList(deadRules);
+        }
+
+        /**
+         * @return the removed rules that were subsumed by earlier rules, as "rule by earlier rule"
+         */
+        public List<String> getSubsumedRules() {
+            return Collections.unmodifiableList(subsumedRules);
+        }
+
+        /**
+         * @return the rules that were merged into the preceding ones, as "rule into preceding rule"
+         */
+        public List<String> getMergedRules() {
+            return Collections.unmodifiableList(mergedRules);
+        }
+
+        /**
+         * @return the number of rules removed from the model
+         */
+        public int getRemovedRuleCount() {
+            return deadRules.size() + subsumedRules.size() + mergedRules.size();
+        }
+
+        public boolean isEmpty() {
+            return removedConditions.isEmpty() && getRemovedRuleCount() == 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Rule base optimization: removed ")
+                    .append(removedConditions.size()).append(" conditions and ")
+                    .append(getRemovedRuleCount()).append(" rules");
+            append(sb, "Conditions that are always true", removedConditions);
+            append(sb, "Rules that never fire", deadRules);
+            append(sb, "Subsumed rules", subsumedRules);
+            append(sb, "Merged rules", mergedRules);
+            return sb.toString();
+        }
+
+        private static void append(StringBuilder sb, String title, List<String> entries) {
+            if (entries.isEmpty()) {
+                return;
+            }
+            sb.append('\n').append(title).append(':');
+            for (String e : entries) {
+                sb.append("\n\t").append(e);
+            }
+        }
+    }
+
+    public static class Builder {
+        private boolean firstWinTables = false;
+        private boolean knownValuesAssumed = false;
+
+        public RuleBaseOptimizer build() {
+            return new RuleBaseOptimizer(this);
+        }
+
+        /**
+         * Declares that the tables of the model are resolved with {@link heart.uncertainty.ConflictSetFirstWin}
+         * and all their rules are evaluated. It enables removing subsumed rules and merging rules
+         * which accepted values overlap.
+         *
+         * @param firstWinTables true if the tables are resolved with the first-win strategy
+         * @return this builder
+         */
+        public Builder setFirstWinTables(boolean firstWinTables) {
+            this.firstWinTables = firstWinTables;
+            return this;
+        }
+
+        public boolean isFirstWinTables() {
+            return firstWinTables;
+        }
+
+        /**
+         * Declares that the conditional attributes always have values when their tables are processed.
+         * Without it, conditions like {@code x eq any}, which fail for unknown values, are removed
+         * only if another condition of the rule fails for the unknown value of the same attribute.
+         *
+         * @param knownValuesAssumed true if the conditional attributes always have values
+         * @return this builder
+         */
+        public Builder setKnownValuesAssumed(boolean knownValuesAssumed) {
+            this.knownValuesAssumed = knownValuesAssumed;
+            return this;
+        }
+
+        public boolean isKnownValuesAssumed() {
+            return knownValuesAssumed;
+        }
+    }
+}
@@ -34,6 +34,11 @@ import java.util.*;
 
 public class Table implements Annotated {
 
+	/**
+	 * The name of the annotation defining the priority of the table, e.g. <code>@Priority(5)</code>.
+	 */
+	public static final String PRIORITY_ANNOTATION = "Priority";
+
 	/**
 	 * This field is used by the SQL module while storing/restoring model into/from database.
 	 * If not provided, this should be null; 
@@ -69,6 +74,7 @@ public class Table implements Annotated {
 	 * This is a list of rules that belongs to the table.
 	 */
 	protected LinkedList<Rule> rules;
+	private volatile Rule[] ruleArray;
 	
 	public Table() {
 		rules = new LinkedList<Rule>();
@@ -113,11 +119,28 @@ public class Table implements Annotated {
 		return new LinkedList<Rule>(rules);
 	}
 
+    /**
+     * Returns the rules of the table without copying them, for the inference that processes
+     * the table many times. The array is shared, so it must not be modified.
+     *
+     * @return the rules of the table in their order
+     */
+    public Rule[] getRuleArray() {
+        Rule[] result = ruleArray;
+        if (result == null) {
+            result = rules.toArray(new Rule[rules.size()]);
+            ruleArray = result;
+        }
+        return result;
+    }
+
 	private void setRules(LinkedList<Rule> rules) {
 		this.rules = rules;
+		this.ruleArray = null;
 	}
         
     protected void addRule(Rule rule) {
+        ruleArray = null;
         if (rules == null) {
             rules = new LinkedList<Rule>();
         }
@@ -132,6 +155,16 @@ public class Table implements Annotated {
         rules.add(i, rule);
     }
 
+    /**
+     * Removes a rule from the table. Used by the {@link RuleBaseOptimizer} before the model is used for inference.
+     *
+     * @param rule the rule to be removed
+     */
+    void removeRule(Rule rule) {
+        ruleArray = null;
+        rules.remove(rule);
+    }
+
 	public String getDescription() {
 		return description;
 	}
@@ -156,6 +189,26 @@ public class Table implements Annotated {
         return annotationsNamed;
     }
 
+    /**
+     * Returns the priority of the table defined with the {@link #PRIORITY_ANNOTATION} annotation.
+     * Tables with higher priorities are processed first when the inference orders the tables by priority
+     * (see {@link heart.Configuration#isPriorityOrderingEnabled()}).
+     *
+     * @return the priority of the table, 0 if it is not defined or is not an integer
+     */
+    public int getPriority() {
+        for (Annotation a : annotations) {
+            if (PRIORITY_ANNOTATION.equals(a.getName()) && a.getAttributeValue() != null) {
+                try {
+                    return Integer.parseInt(a.getAttributeValue().trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
     public static class Builder implements AnnotatedBuilder {
         private String name;
         private String description;
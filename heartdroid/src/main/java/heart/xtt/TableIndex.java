@@ -0,0 +1,640 @@
+/**
+ *
+ *     Copyright 2013-15 by Szymon Bobek, Grzegorz J. Nalepa, Mateusz Ślażyński
+ *
+ *
+ *     This file is part of HeaRTDroid.
+ *     HeaRTDroid is a rule engine that is based on HeaRT inference engine,
+ *     XTT2 representation and other concepts developed within the HeKatE project .
+ *
+ *     HeaRTDroid is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     HeaRTDroid is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with HeaRTDroid.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ **/
+
+package heart.xtt;
+
+import heart.WorkingMemory;
+import heart.alsvfd.Formulae;
+import heart.alsvfd.Range;
+import heart.alsvfd.SetValue;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.alsvfd.Value;
+import heart.exceptions.AttributeNotRegisteredException;
+import heart.exceptions.NotInTheDomainException;
+import heart.exceptions.UnknownValueException;
+import heart.uncertainty.ALSVEvaluator;
+import heart.uncertainty.UncertainTrue;
+
+import java.util.*;
+
+/**
+ * An index of the conditions of the rules of a single {@link Table}.
+ * It is built together with the model and allows to select the rules which
+ * conditions may be satisfied by the current values of the attributes, without evaluating all the rules.
+ *
+ * The index covers conditions which left-hand side is an attribute and the right-hand side is a constant value:
+ * <ul>
+ * <li>for symbolic attributes every condition is evaluated for every value from the attribute domain,
+ * and the rules are stored in buckets by the values for which their conditions hold,</li>
+ * <li>for numeric attributes the constants split the axis into segments, on which the comparison
+ * and membership conditions do not change their results. The segments satisfying the conditions of each rule
+ * are stored in a segment tree.</li>
+ * </ul>
+ * The rules returned by the index still have to be evaluated. The index can be used only with the crisp
+ * {@link ALSVEvaluator}, and it should not be used with other evaluators.
+ * Conditions that raise errors are never used to exclude rules. However, the excluded rules
+ * are not evaluated at all, so the errors raised by their remaining conditions are not reported,
+ * while evaluating all the rules would interrupt the table. Hence the index is disabled by default,
+ * see {@link heart.Configuration.Builder#setRuleIndexEnabled(boolean)}.
+ */
+public class TableIndex {
+    private final Rule[] rules;
+    private final AttributeIndex[] indexes;
+
+    TableIndex(Table table) {
+        this.rules = table.rules.toArray(new Rule[table.rules.size()]);
+
+        Map<Attribute, List<List<Formulae>>> conditions = new LinkedHashMap<Attribute, List<List<Formulae>>>();
+        for (int i = 0; i < rules.length; i++) {
+            for (Formulae f : rules[i].conditions) {
+                if (!isIndexable(f)) {
+                    continue;
+                }
+                List<List<Formulae>> byRule = conditions.get(f.getAttribute());
+                if (byRule == null) {
+                    byRule = new ArrayList<List<Formulae>>(rules.length);
+                    for (int j = 0; j < rules.length; j++) {
+                        byRule.add(null);
+                    }
+                    conditions.put(f.getAttribute(), byRule);
+                }
+                if (byRule.get(i) == null) {
+                    byRule.set(i, new LinkedList<Formulae>());
+                }
+                byRule.get(i).add(f);
+            }
+        }
+
+        List<AttributeIndex> result = new ArrayList<AttributeIndex>();
+        for (Map.Entry<Attribute, List<List<Formulae>>> e : conditions.entrySet()) {
+            Attribute a = e.getKey();
+            AttributeIndex index = null;
+            if (a.getType().isSymbolic()) {
+                index = SymbolicIndex.build(a, e.getValue());
+            } else if (a.getType().isNumeric()) {
+                index = NumericIndex.build(a, e.getValue());
+            }
+            if (index != null) {
+                result.add(index);
+            }
+        }
+        this.indexes = result.toArray(new AttributeIndex[result.size()]);
+    }
+
+    /**
+     * Selects the rules which conditions may be satisfied in the given working memory.
+     * The rules are returned in the order of the table.
+     *
+     * @param wm the working memory with the current values of the attributes
+     * @return the candidate rules
+     */
+    public Rule[] findCandidateRules(WorkingMemory wm) {
+        Candidates candidates = new Candidates();
+        findCandidateRules(wm, candidates);
+        return Arrays.copyOf(candidates.getRules(), candidates.size());
+    }
+
+    /**
+     * Selects the rules which conditions may be satisfied in the given working memory into a reusable buffer,
+     * so that the selection does not allocate objects once the buffer is large enough for the table.
+     * The rules are stored in the order of the table.
+     *
+     * @param wm the working memory with the current values of the attributes
+     * @param result the buffer that receives the candidate rules, its previous content is discarded
+     */
+    public void findCandidateRules(WorkingMemory wm, Candidates result) {
+        BitSet selected = result.selected;
+        selected.clear();
+        selected.set(0, rules.length);
+        for (AttributeIndex index : indexes) {
+            index.retainCandidates(wm.getAttributeValue(index.attribute), selected, result.scratch);
+        }
+
+        if (result.rules.length < rules.length) {
+            result.rules = new Rule[rules.length];
+        }
+        int j = 0;
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+            result.rules[j++] = rules[i];
+        }
+        // the buffer should not hold the rules of the previous selection
+        if (j < result.size) {
+            Arrays.fill(result.rules, j, result.size, null);
+        }
+        result.size = j;
+    }
+
+    /**
+     * A reusable buffer of the rules selected by {@link #findCandidateRules(WorkingMemory, Candidates)}.
+     * It should be used by a single thread at a time.
+     */
+    public static class Candidates {
+        private final BitSet selected = new BitSet();
+        private final BitSet scratch = new BitSet();
+        private Rule[] rules = new Rule[0];
+        private int size;
+
+        /**
+         * @return the number of the selected rules
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the array of the buffer without copying it. Only the first {@link #size()} elements
+         * are the selected rules, and the array is overwritten by the next selection.
+         *
+         * @return the array holding the selected rules
+         */
+        public Rule[] getRules() {
+            return rules;
+        }
+    }
+
+    /**
+     * @return the attributes which conditions are indexed
+     */
+    public List<Attribute> getIndexedAttributes() {
+        List<Attribute> result = new LinkedList<Attribute>();
+        for (AttributeIndex index : indexes) {
+            result.add(index.attribute);
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return indexes.length == 0;
+    }
+
+    /**
+     * @return true if the condition compares an attribute, which value is not obtained with a callback, with a constant
+     */
+    static boolean isIndexable(Formulae f) {
+        if (f.hasTimeBasedParameter() || !(f.getLHS() instanceof Attribute) || !(f.getRHS() instanceof Value)) {
+            return false;
+        }
+        Attribute a = (Attribute) f.getLHS();
+        // reading the value of such attribute would trigger the callback
+        boolean callback = Attribute.COMM_IN.equals(a.getComm()) && a.getCallback() != null;
+        return Attribute.CLASS_SIMPLE.equals(a.getXTTClass()) && a.getType() != null && !callback;
+    }
+
+    /**
+     * Collects the numeric constants of the condition.
+     *
+     * @param points the set to add the constants to, or null to only check if the condition is supported
+     * @return true if the condition is supported by the index. The results of such conditions
+     * do not change between the constants.
+     */
+    static boolean collectPoints(Formulae f, Set<Double> points) {
+        Value rhs = (Value) f.getRHS();
+        switch (f.getOp()) {
+            case EQ:
+            case NEQ:
+            case LT:
+            case LTE:
+            case GT:
+            case GTE:
+                return collectNumber(rhs, points);
+            case IN:
+            case NOTIN:
+                return collectSet(rhs, points);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean collectNumber(Value v, Set<Double> points) {
+        if (!(v instanceof SimpleNumeric) || ((SimpleNumeric) v).getValue() == null
+                || Double.isNaN(((SimpleNumeric) v).getValue())) {
+            return false;
+        }
+        if (points != null) {
+            // negative zero would be a separate point
+            points.add(((SimpleNumeric) v).getValue() + 0.0);
+        }
+        return true;
+    }
+
+    private static boolean collectSet(Value v, Set<Double> points) {
+        if (v instanceof Range) {
+            return collectNumber(((Range) v).getFrom(), points) && collectNumber(((Range) v).getTo(), points);
+        } else if (v instanceof SetValue) {
+            for (Value element : ((SetValue) v).getValues()) {
+                boolean supported = (element instanceof SimpleNumeric)
+                        ? collectNumber(element, points) : collectSet(element, points);
+                if (!supported) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates all the conditions in a working memory holding only a single value of the attribute.
+     *
+     * @return false if the conditions are certainly not satisfied, true if they are satisfied or any of them failed
+     */
+    private static boolean mayBeSatisfied(List<Formulae> conditions, WorkingMemory fakeWm) {
+        ALSVEvaluator evaluator = new ALSVEvaluator();
+        boolean satisfied = true;
+        for (Formulae f : conditions) {
+            try {
+                UncertainTrue result = f.evaluate(fakeWm, evaluator);
+                satisfied &= result.getCertinatyFactor() > evaluator.getSatisfiabilityThreshold();
+            } catch (NotInTheDomainException e) {
+                return true;
+            } catch (UnknownValueException e) {
+                return true;
+            } catch (RuntimeException e) {
+                return true;
+            }
+        }
+        return satisfied;
+    }
+
+    private static abstract class AttributeIndex {
+        protected final Attribute attribute;
+
+        AttributeIndex(Attribute attribute) {
+            this.attribute = attribute;
+        }
+
+        /**
+         * Removes the rules which conditions on the attribute are not satisfied by the value.
+         * Nothing is removed if the index cannot tell anything for the value.
+         *
+         * @param value current value of the attribute
+         * @param candidates the rules to be filtered
+         * @param scratch a set that may be overwritten by the index
+         */
+        abstract void retainCandidates(Value value, BitSet candidates, BitSet scratch);
+    }
+
+    /**
+     * Rules bucketed by the symbolic values of the attribute domain.
+     */
+    private static class SymbolicIndex extends AttributeIndex {
+        private final Map<String, BitSet> buckets;
+
+        private SymbolicIndex(Attribute attribute, Map<String, BitSet> buckets) {
+            super(attribute);
+            this.buckets = buckets;
+        }
+
+        static SymbolicIndex build(Attribute a, List<List<Formulae>> byRule) {
+            Map<String, BitSet> buckets = new HashMap<String, BitSet>();
+            for (Value v : a.getType().getDomain().getValues()) {
+                if (!(v instanceof SimpleSymbolic)) {
+                    return null;
+                }
+                WorkingMemory fakeWm = new WorkingMemory();
+                try {
+                    fakeWm.setAttributeValue(a, v, true);
+                } catch (NotInTheDomainException e) {
+                    return null;
+                } catch (AttributeNotRegisteredException e) {
+                    return null;
+                }
+                BitSet bucket = new BitSet(byRule.size());
+                for (int i = 0; i < byRule.size(); i++) {
+                    if (byRule.get(i) == null || mayBeSatisfied(byRule.get(i), fakeWm)) {
+                        bucket.set(i);
+                    }
+                }
+                buckets.put(((SimpleSymbolic) v).getValue(), bucket);
+            }
+            return new SymbolicIndex(a, buckets);
+        }
+
+        @Override
+        void retainCandidates(Value value, BitSet candidates, BitSet scratch) {
+            if (!(value instanceof SimpleSymbolic)) {
+                return;
+            }
+            BitSet bucket = buckets.get(((SimpleSymbolic) value).getValue());
+            if (bucket != null) {
+                candidates.and(bucket);
+            }
+        }
+    }
+
+    /**
+     * Rules stored in a segment tree over the numeric axis.
+     * For the sorted constants p[0] &lt; ... &lt; p[k-1] the segments are numbered as follows:
+     * 0 is (-inf, p[0]), 2i+1 is the point p[i], 2i+2 is (p[i], p[i+1]) and 2k is (p[k-1], +inf).
+     */
+    private static class NumericIndex extends AttributeIndex {
+        private final double[] points;
+        private final BitSet unconstrained;
+        private final int[][] tree;
+        private final int segments;
+
+        private NumericIndex(Attribute attribute, double[] points, BitSet unconstrained, int[][] tree) {
+            super(attribute);
+            this.points = points;
+            this.unconstrained = unconstrained;
+            this.tree = tree;
+            this.segments = 2 * points.length + 1;
+        }
+
+        static NumericIndex build(Attribute a, List<List<Formulae>> byRule) {
+            Value sample = domainSample(a);
+            if (sample == null) {
+                return null;
+            }
+            TreeSet<Double> constants = new TreeSet<Double>();
+            List<List<Formulae>> indexed = new ArrayList<List<Formulae>>(byRule.size());
+            for (List<Formulae> conditions : byRule) {
+                List<Formulae> usable = null;
+                if (conditions != null) {
+                    for (Formulae f : conditions) {
+                        // conditions that fail for a correct value, fail for every value and cannot exclude the rule
+                        if (collectPoints(f, null) && isSafe(f, a, sample)) {
+                            collectPoints(f, constants);
+                            if (usable == null) {
+                                usable = new LinkedList<Formulae>();
+                            }
+                            usable.add(f);
+                        }
+                    }
+                }
+                indexed.add(usable);
+            }
+            if (constants.isEmpty()) {
+                return null;
+            }
+
+            double[] points = new double[constants.size()];
+            int p = 0;
+            for (Double d : constants) {
+                points[p++] = d;
+            }
+            int segments = 2 * points.length + 1;
+            List<List<Integer>> nodes = new ArrayList<List<Integer>>();
+            for (int i = 0; i < 4 * segments; i++) {
+                nodes.add(null);
+            }
+            BitSet unconstrained = new BitSet(byRule.size());
+            for (int i = 0; i < indexed.size(); i++) {
+                if (indexed.get(i) == null) {
+                    unconstrained.set(i);
+                    continue;
+                }
+                List<int[]> satisfied = full(segments);
+                for (Formulae f : indexed.get(i)) {
+                    satisfied = intersect(satisfied, segmentsOf(f, points, segments));
+                }
+                for (int[] range : satisfied) {
+                    insert(nodes, 1, 0, segments - 1, range[0], range[1], i);
+                }
+            }
+
+            int[][] tree = new int[nodes.size()][];
+            for (int i = 0; i < tree.length; i++) {
+                List<Integer> node = nodes.get(i);
+                if (node != null) {
+                    tree[i] = new int[node.size()];
+                    for (int j = 0; j < tree[i].length; j++) {
+                        tree[i][j] = node.get(j);
+                    }
+                }
+            }
+            return new NumericIndex(a, points, unconstrained, tree);
+        }
+
+        @Override
+        void retainCandidates(Value value, BitSet candidates, BitSet scratch) {
+            if (!(value instanceof SimpleNumeric) || ((SimpleNumeric) value).getValue() == null) {
+                return;
+            }
+            double x = ((SimpleNumeric) value).getValue();
+            if (Double.isNaN(x) || (x == 0 && Double.doubleToRawLongBits(x) != 0)) {
+                // negative zero is equal to zero, but not Double.equals to it
+                return;
+            }
+            int position = Arrays.binarySearch(points, x);
+            int segment = position >= 0 ? 2 * position + 1 : 2 * (-position - 1);
+
+            BitSet result = scratch;
+            result.clear();
+            result.or(unconstrained);
+            int node = 1;
+            int lo = 0;
+            int hi = segments - 1;
+            while (true) {
+                if (tree[node] != null) {
+                    for (int rule : tree[node]) {
+                        result.set(rule);
+                    }
+                }
+                if (lo == hi) {
+                    break;
+                }
+                int mid = (lo + hi) / 2;
+                if (segment <= mid) {
+                    node = 2 * node;
+                    hi = mid;
+                } else {
+                    node = 2 * node + 1;
+                    lo = mid + 1;
+                }
+            }
+            candidates.and(result);
+        }
+
+        private static void insert(List<List<Integer>> nodes, int node, int lo, int hi, int from, int to, int rule) {
+            if (to < lo || hi < from) {
+                return;
+            }
+            if (from <= lo && hi <= to) {
+                if (nodes.get(node) == null) {
+                    nodes.set(node, new ArrayList<Integer>());
+                }
+                nodes.get(node).add(rule);
+                return;
+            }
+            int mid = (lo + hi) / 2;
+            insert(nodes, 2 * node, lo, mid, from, to, rule);
+            insert(nodes, 2 * node + 1, mid + 1, hi, from, to, rule);
+        }
+
+        private static Value domainSample(Attribute a) {
+            for (Value v : a.getType().getDomain().getValues()) {
+                if (v instanceof SimpleNumeric) {
+                    return v;
+                } else if (v instanceof Range && ((Range) v).getFrom() instanceof SimpleNumeric) {
+                    return ((Range) v).getFrom();
+                }
+            }
+            return null;
+        }
+
+        private static boolean isSafe(Formulae f, Attribute a, Value sample) {
+            WorkingMemory fakeWm = new WorkingMemory();
+            try {
+                fakeWm.setAttributeValue(a, sample, true);
+                f.evaluate(fakeWm, new ALSVEvaluator());
+                return true;
+            } catch (NotInTheDomainException e) {
+                return false;
+            } catch (UnknownValueException e) {
+                return false;
+            } catch (AttributeNotRegisteredException e) {
+                return false;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        /**
+         * @return sorted, disjoint ranges of the segments on which the condition is satisfied
+         */
+        private static List<int[]> segmentsOf(Formulae f, double[] points, int segments) {
+            Value rhs = (Value) f.getRHS();
+            switch (f.getOp()) {
+                case EQ:
+                    return point(points, rhs);
+                case NEQ:
+                    return complement(point(points, rhs), segments);
+                case LT:
+                    return range(0, 2 * indexOf(points, rhs));
+                case LTE:
+                    return range(0, 2 * indexOf(points, rhs) + 1);
+                case GT:
+                    return range(2 * indexOf(points, rhs) + 2, segments - 1);
+                case GTE:
+                    return range(2 * indexOf(points, rhs) + 1, segments - 1);
+                case IN:
+                    return membership(points, rhs);
+                case NOTIN:
+                    return complement(membership(points, rhs), segments);
+                default:
+                    return full(segments);
+            }
+        }
+
+        private static List<int[]> membership(double[] points, Value v) {
+            if (v instanceof Range) {
+                Range r = (Range) v;
+                int from = indexOf(points, r.getFrom());
+                int to = indexOf(points, r.getTo());
+                // the same as in SimpleNumeric: from < x < to, or equal to an inclusive boundary
+                List<int[]> result = range(2 * from + 2, 2 * to);
+                if (r.isLeftInclusive()) {
+                    result = union(result, range(2 * from + 1, 2 * from + 1));
+                }
+                if (r.isRightInclusive()) {
+                    result = union(result, range(2 * to + 1, 2 * to + 1));
+                }
+                return result;
+            }
+            List<int[]> result = new ArrayList<int[]>();
+            for (Value element : ((SetValue) v).getValues()) {
+                result = union(result, element instanceof SimpleNumeric ? point(points, element) : membership(points, element));
+            }
+            return result;
+        }
+
+        private static int indexOf(double[] points, Value v) {
+            return Arrays.binarySearch(points, ((SimpleNumeric) v).getValue() + 0.0);
+        }
+
+        private static List<int[]> point(double[] points, Value v) {
+            int segment = 2 * indexOf(points, v) + 1;
+            return range(segment, segment);
+        }
+
+        private static List<int[]> range(int from, int to) {
+            List<int[]> result = new ArrayList<int[]>();
+            if (from <= to) {
+                result.add(new int[]{from, to});
+            }
+            return result;
+        }
+
+        private static List<int[]> full(int segments) {
+            return range(0, segments - 1);
+        }
+
+        private static List<int[]> complement(List<int[]> ranges, int segments) {
+            List<int[]> result = new ArrayList<int[]>();
+            int next = 0;
+            for (int[] r : ranges) {
+                if (r[0] > next) {
+                    result.add(new int[]{next, r[0] - 1});
+                }
+                next = r[1] + 1;
+            }
+            if (next <= segments - 1) {
+                result.add(new int[]{next, segments - 1});
+            }
+            return result;
+        }
+
+        private static List<int[]> union(List<int[]> a, List<int[]> b) {
+            List<int[]> all = new ArrayList<int[]>(a);
+            all.addAll(b);
+            Collections.sort(all, new Comparator<int[]>() {
+                @Override
+                public int compare(int[] x, int[] y) {
+                    return x[0] < y[0] ? -1 : (x[0] == y[0] ? 0 : 1);
+                }
+            });
+            List<int[]> result = new ArrayList<int[]>();
+            for (int[] r : all) {
+                int[] last = result.isEmpty() ? null : result.get(result.size() - 1);
+                if (last != null && r[0] <= last[1] + 1) {
+                    last[1] = Math.max(last[1], r[1]);
+                } else {
+                    result.add(new int[]{r[0], r[1]});
+                }
+            }
+            return result;
+        }
+
+        private static List<int[]> intersect(List<int[]> a, List<int[]> b) {
+            List<int[]> result = new ArrayList<int[]>();
+            int i = 0;
+            int j = 0;
+            while (i < a.size() && j < b.size()) {
+                int from = Math.max(a.get(i)[0], b.get(j)[0]);
+                int to = Math.min(a.get(i)[1], b.get(j)[1]);
+                if (from <= to) {
+                    result.add(new int[]{from, to});
+                }
+                if (a.get(i)[1] < b.get(j)[1]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -25,14 +25,19 @@
 
 package heart.xtt;
 
-
+import heart.Debug;
+import heart.Session;
 import heart.alsvfd.Formulae;
 import heart.exceptions.BuilderException;
 import heart.exceptions.ModelBuildingException;
 import heart.exceptions.NotInTheDomainException;
+import heart.inference.PlanCache;
+import heart.inference.ResultCache;
 import heart.xtt.Rule.Builder.IncompleteRuleId;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 
 public class XTTModel {
@@ -43,17 +48,30 @@ public class XTTModel {
 	private String version;
 	private int source;
 	
-	private LinkedList<Table> tables;
+	private final LinkedList<Table> tables;
 	private LinkedList<Type> types;
 	private LinkedList<Attribute> attributes;
+	private final DependencyGraph dependencyGraph;
+	private PlanCache planCache;
+	private ResultCache resultCache;
+	private final ConcurrentHashMap<Table, TableIndex> tableIndexes = new ConcurrentHashMap<Table, TableIndex>();
+	private RuleBaseOptimizer.Report optimizationReport;
+	private final ConcurrentHashMap<Table, CompiledTable> compiledTables = new ConcurrentHashMap<Table, CompiledTable>();
 
     private XTTModel.Builder builder;
 
 	public XTTModel(int source){
+		this(source, new LinkedList<Table>());
+	}
+
+	private XTTModel(int source, LinkedList<Table> tables){
 		this.source = source;
-		tables = new LinkedList<Table>();
+		this.tables = tables;
 		types = new LinkedList<Type>();
 		attributes = new LinkedList<Attribute>();
+		planCache = new PlanCache();
+		resultCache = new ResultCache();
+		dependencyGraph = new DependencyGraph(tables);
 	}
 
 	public String getVersion() {
@@ -86,12 +104,111 @@ public class XTTModel {
         return source;
     }
 
+    /**
+     * Returns the producer/consumer index of the model tables.
+     * The index is built once, when the model is built by its {@link XTTModel.Builder},
+     * and it does not reflect tables added to the model afterwards.
+     *
+     * @return the dependency graph of the tables of this model
+     */
+    public DependencyGraph getDependencyGraph() {
+        return dependencyGraph;
+    }
+
+    /**
+     * Returns the index of the conditions of the given table. The index is built on the first call,
+     * only once even if the inference runs in several threads.
+     *
+     * @param table the table of this model
+     * @return the index of the table, or null if the table does not belong to this model
+     */
+    public TableIndex getTableIndex(Table table) {
+        if (!contains(table)) {
+            return null;
+        }
+        return tableIndexes.computeIfAbsent(table, INDEXER);
+    }
+
+    /**
+     * Returns the compiled form of the given table. The table is compiled on the first call,
+     * only once even if the inference runs in several threads.
+     *
+     * @param table the table of this model
+     * @return the compiled table, or null if the table does not belong to this model
+     */
+    public CompiledTable getCompiledTable(Table table) {
+        if (!contains(table)) {
+            return null;
+        }
+        return compiledTables.computeIfAbsent(table, COMPILER);
+    }
+
+    /**
+     * @return true if the table is one of the tables the model was built with
+     */
+    private boolean contains(Table table) {
+        return table != null && dependencyGraph.getTable(table.getName()) == table;
+    }
+
+    private static final Function<Table, TableIndex> INDEXER = new Function<Table, TableIndex>() {
+        @Override
+        public TableIndex apply(Table table) {
+            return new TableIndex(table);
+        }
+    };
+
+    private static final Function<Table, CompiledTable> COMPILER = new Function<Table, CompiledTable>() {
+        @Override
+        public CompiledTable apply(Table table) {
+            return new CompiledTable(table);
+        }
+    };
+
+    /**
+     * Returns the cache of inference plans computed for this model.
+     * Every model instance has its own cache, so a rebuilt model never
+     * reuses plans computed for its previous version.
+     *
+     * @return the plan cache of this model
+     */
+    public PlanCache getPlanCache() {
+        return planCache;
+    }
+
+    /**
+     * Returns the cache of inference results computed for this model, used when the memoization
+     * is enabled (see {@link heart.Configuration#isMemoizationEnabled()}).
+     * Every model instance has its own cache, so a reloaded model never reuses results
+     * computed for its previous version.
+     *
+     * @return the result cache of this model
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Tells if the model is pure, i.e. none of its tables uses callbacks, actions or time-based operators.
+     * The result of the inference in such a model depends only on its initial state.
+     * Purity is detected when the model is built.
+     *
+     * @return true if the model is pure
+     */
+    public boolean isPure() {
+        return getDependencyGraph().isPure();
+    }
+
+    /**
+     * @return the report of the rule base optimization run when the model was built,
+     * or null if the optimization was disabled (see {@link Builder#setRuleBaseOptimizer(RuleBaseOptimizer)})
+     */
+    public RuleBaseOptimizer.Report getOptimizationReport() {
+        return optimizationReport;
+    }
+
 	private void setVersion(String version) {
 		this.version = version;
 	}
-	private void setTables(LinkedList<Table> tables) {
-		this.tables = tables;
-	}
 	private void setTypes(LinkedList<Type> types) {
 		this.types = types;
 	}
@@ -119,6 +236,18 @@ public class XTTModel {
     }
 
 
+    /**
+     * Creates a new inference session for the model. The model is shared by all its sessions,
+     * while every session has its own {@link heart.WorkingMemory}, so the sessions can be used
+     * by different threads at the same time.
+     *
+     * @return the new session
+     * @see heart.SessionPool
+     */
+    public Session newSession() {
+        return new Session(this);
+    }
+
     private void setBuilder(XTTModel.Builder builder) {
         this.builder = builder;
     }
@@ -127,6 +256,9 @@ public class XTTModel {
                
         private int source;
         private int version;
+        private int planCacheCapacity = PlanCache.DEFAULT_CAPACITY;
+        private int resultCacheCapacity = ResultCache.DEFAULT_CAPACITY;
+        private RuleBaseOptimizer ruleBaseOptimizer;
 
         private final Map<String, Type.Builder> incTypes;
         private final Map<String, Attribute.Builder> incAttributes;
@@ -145,6 +277,9 @@ public class XTTModel {
         public XTTModel.Builder copy(){
             //TODO: make it deep copy
             XTTModel.Builder b = new Builder();
+            b.planCacheCapacity = this.planCacheCapacity;
+            b.resultCacheCapacity = this.resultCacheCapacity;
+            b.ruleBaseOptimizer = this.ruleBaseOptimizer;
 
             b.incTypes.clear();
             b.incAttributes.clear();
@@ -180,10 +315,17 @@ public class XTTModel {
             } catch (NotInTheDomainException ex) {
                 throw new ModelBuildingException(ex.getMessage());
             }
-            XTTModel model = new XTTModel(this.source);
+            RuleBaseOptimizer.Report optimizationReport = null;
+            if (this.ruleBaseOptimizer != null) {
+                optimizationReport = this.ruleBaseOptimizer.optimize(tables.values());
+                Debug.debug(Debug.heartTag, Debug.Level.TABLES, optimizationReport.toString());
+            }
+            XTTModel model = new XTTModel(this.source, new LinkedList<Table>(tables.values()));
+            model.optimizationReport = optimizationReport;
             model.setTypes(new LinkedList<Type>(types.values()));
             model.setAttributes(new LinkedList<Attribute>(new HashSet<Attribute>(attributes.values())));
-            model.setTables(new LinkedList<Table>(tables.values()));
+            model.planCache = new PlanCache(this.planCacheCapacity);
+            model.resultCache = new ResultCache(this.resultCacheCapacity);
             model.setBuilder(this);
             return model;
         }
@@ -323,6 +465,48 @@ public class XTTModel {
         public int getVersion() {
         return version;
     }
+        /**
+         * Sets the maximal number of inference plans cached by the built model.
+         * Zero disables the plan cache.
+         *
+         * @param capacity maximal number of cached plans
+         * @return this builder
+         */
+        public Builder setPlanCacheCapacity(int capacity) {
+            this.planCacheCapacity = capacity;
+            return this;
+        }
+        public int getPlanCacheCapacity() {
+            return planCacheCapacity;
+        }
+        /**
+         * Sets the maximal number of inference results cached by the built model.
+         * Zero disables the result cache.
+         *
+         * @param capacity maximal number of cached results
+         * @return this builder
+         */
+        public Builder setResultCacheCapacity(int capacity) {
+            this.resultCacheCapacity = capacity;
+            return this;
+        }
+        public int getResultCacheCapacity() {
+            return resultCacheCapacity;
+        }
+        /**
+         * Sets the optimizer run on the rules of the built model, before its dependency graph
+         * and indexes are created. Null disables the optimization, which is the default.
+         *
+         * @param optimizer the rule base optimizer
+         * @return this builder
+         */
+        public Builder setRuleBaseOptimizer(RuleBaseOptimizer optimizer) {
+            this.ruleBaseOptimizer = optimizer;
+            return this;
+        }
+        public RuleBaseOptimizer getRuleBaseOptimizer() {
+            return ruleBaseOptimizer;
+        }
         public int getSource() {
         return source;
     }
@@ -0,0 +1,93 @@
+package heart;
+
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.inference.InferenceAlgorithm;
+import heart.inference.InferenceMode;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.XTTModel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncInferenceTest {
+
+    private XTTModel model;
+
+    private final String MODEL_PATH = "src/test/resources/inference-test.pl";
+    private final String[] TABLES = {"DayTime", "Today", "Actions", "Threats"};
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+    }
+
+    private Configuration configuration(double hour, String activity) throws BuilderException {
+        State initial = new State();
+        initial.addStateElement(new StateElement("hour", new SimpleNumeric(hour)));
+        initial.addStateElement(new StateElement("day", new SimpleSymbolic("mon")));
+        initial.addStateElement(new StateElement("location", new SimpleSymbolic("work")));
+        initial.addStateElement(new StateElement("activity", new SimpleSymbolic(activity)));
+        return new Configuration.Builder().setInitialState(initial).build();
+    }
+
+    @Test
+    public void futuresAreCompletedWithResultStates() throws Exception {
+        AsyncInference async = new AsyncInference(model);
+        List<CompletableFuture<State>> futures = new ArrayList<CompletableFuture<State>>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(async.fixedOrderInference(TABLES, configuration(16, i % 2 == 0 ? "walking" : "driving")));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            State state = futures.get(i).get(10, TimeUnit.SECONDS);
+            assertEquals("leaving", state.getValueOfAttribute("action").toString());
+            assertEquals(i % 2 == 0 ? "[pedestrian_threat]" : "[road_threat]", state.getValueOfAttribute("{threat}").toString());
+        }
+    }
+
+    @Test
+    public void givenExecutorIsUsed() throws Exception {
+        final AtomicInteger executed = new AtomicInteger();
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                executed.incrementAndGet();
+                command.run();
+            }
+        };
+        AsyncInference async = new AsyncInference(model, direct);
+        State state = async.infer(InferenceMode.FIXED_ORDER,
+                new InferenceAlgorithm.TableParameters(TABLES), configuration(8, "idle")).get();
+
+        assertEquals(1, executed.get());
+        assertEquals("morning", state.getValueOfAttribute("daytime").toString());
+        assertEquals(1, async.getSessionPool().getIdleCount());
+    }
+
+    @Test
+    public void failuresCompleteFuturesExceptionally() throws Exception {
+        CompletableFuture<State> future = new AsyncInference(model).infer(InferenceMode.FIXED_ORDER,
+                new InferenceAlgorithm.AttributeParameters("action"), configuration(8, "idle"));
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Fixed order inference does not support attribute parameters");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof UnsupportedOperationException);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package heart;
+
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Attribute;
+import heart.xtt.XTTModel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class SessionTest {
+
+    private XTTModel model;
+
+    private final String MODEL_PATH = "src/test/resources/inference-test.pl";
+    private final String[] TABLES = {"DayTime", "Today", "Actions", "Threats"};
+    private final String[] ACTIVITIES = {"walking", "driving", "cycling", "idle", "running"};
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+    }
+
+    private Configuration configuration(int i) throws BuilderException {
+        State initial = new State();
+        initial.addStateElement(new StateElement("hour", new SimpleNumeric((double) (i % 24))));
+        initial.addStateElement(new StateElement("day", new SimpleSymbolic(i % 2 == 0 ? "mon" : "sat")));
+        initial.addStateElement(new StateElement("location", new SimpleSymbolic(i % 3 == 0 ? "home" : "work")));
+        initial.addStateElement(new StateElement("activity", new SimpleSymbolic(ACTIVITIES[i % ACTIVITIES.length])));
+        return new Configuration.Builder().setInitialState(initial).build();
+    }
+
+    private String infer(Session session, int i) throws BuilderException {
+        session.fixedOrderInference(TABLES, configuration(i));
+        State state = session.getCurrentState();
+        StringBuilder result = new StringBuilder();
+        for (Attribute a : model.getAttributes()) {
+            result.append(a.getName()).append('=').append(state.getValueOfAttribute(a.getName())).append(';');
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void concurrentSessionsMatchSequentialRuns() throws Exception {
+        final int requests = 400;
+        List<String> expected = new ArrayList<String>();
+        Session sequential = model.newSession();
+        for (int i = 0; i < requests; i++) {
+            sequential.reset();
+            expected.add(infer(sequential, i));
+        }
+
+        final SessionPool pool = new SessionPool(model, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < requests; i++) {
+                final int request = i;
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        Session session = pool.acquire();
+                        try {
+                            return infer(session, request);
+                        } finally {
+                            pool.release(session);
+                        }
+                    }
+                }));
+            }
+            for (int i = 0; i < requests; i++) {
+                assertEquals("Request " + i, expected.get(i), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(pool.getIdleCount() <= 2);
+    }
+
+    @Test
+    public void releasedSessionsAreReset() throws BuilderException {
+        SessionPool pool = new SessionPool(model, 1);
+        Session session = pool.acquire();
+        infer(session, 0);
+        assertEquals(1, session.getWorkingMemory().getHistoryLogCopy().size());
+
+        pool.release(session);
+        assertEquals(1, pool.getIdleCount());
+        Session reused = pool.acquire();
+        assertSame(session, reused);
+        assertEquals(0, pool.getIdleCount());
+        assertTrue(reused.getWorkingMemory().getHistoryLogCopy().isEmpty());
+        assertFalse(reused.getWorkingMemory().getCurrentState().iterator().hasNext());
+    }
+
+    @Test
+    public void sessionsDoNotShareWorkingMemory() throws BuilderException {
+        Session first = model.newSession();
+        Session second = model.newSession();
+        infer(first, 16);
+        assertNotSame(first.getWorkingMemory(), second.getWorkingMemory());
+        assertTrue(second.getWorkingMemory().getHistoryLogCopy().isEmpty());
+    }
+}
@@ -0,0 +1,194 @@
+package heart;
+
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.XTTModel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StreamingInferenceTest {
+
+    private XTTModel model;
+
+    private final String MODEL_PATH = "src/test/resources/inference-test.pl";
+    private final String[] TABLES = {"DayTime", "Today"};
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+    }
+
+    private StreamingInference.Builder stream(StreamingInference.Listener listener) {
+        return new StreamingInference.Builder()
+                .setModel(model)
+                .setTablesNames(TABLES)
+                .setListener(listener);
+    }
+
+    @Test
+    public void burstIsCoalescedIntoSingleBatch() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        StreamingInference stream = stream(listener).build();
+        stream.submit("hour", new SimpleNumeric(8d));
+        stream.submit("day", new SimpleSymbolic("mon"));
+        stream.submit("location", new SimpleSymbolic("work"));
+        stream.submit("activity", new SimpleSymbolic("walking"));
+        stream.submit("hour", new SimpleNumeric(16d));
+        stream.start();
+
+        StreamingInference.Update update = listener.next();
+        assertNull(update.getFailure());
+        assertEquals(5, update.getEventCount());
+        assertEquals(4, update.getInputs().getStateElements().size());
+        assertEquals("16.0", update.getInputs().getValueOfAttribute("hour").toString());
+        assertEquals("leaving", update.getChanges().getValueOfAttribute("action").toString());
+
+        // attributes keep their last values, so only the changed conclusions are published
+        stream.submit("activity", new SimpleSymbolic("driving"));
+        update = listener.next();
+        assertEquals(1, update.getEventCount());
+        assertFalse(isChanged(update, "action"));
+        assertEquals("driving", update.getChanges().getValueOfAttribute("activity").toString());
+        assertEquals("leaving", stream.getSession().getCurrentState().getValueOfAttribute("action").toString());
+
+        stream.submit("activity", new SimpleSymbolic("driving"));
+        assertTrue(listener.next().getChanges().getStateElements().isEmpty());
+
+        stream.close();
+        assertTrue(listener.closed.await(1, TimeUnit.SECONDS));
+        assertEquals(3, stream.getBatchCount());
+    }
+
+    @Test
+    public void batchSizeIsLimited() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        StreamingInference stream = stream(listener).setMaxBatchSize(2).build();
+        for (int i = 0; i < 5; i++) {
+            stream.submit("hour", new SimpleNumeric((double) i));
+        }
+        stream.close();
+        assertEquals(2, listener.next().getEventCount());
+        assertEquals(2, listener.next().getEventCount());
+        assertEquals(1, listener.next().getEventCount());
+        assertTrue(listener.updates.isEmpty());
+    }
+
+    @Test
+    public void slowListenerBlocksProducers() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingListener recording = new RecordingListener();
+        StreamingInference stream = stream(new StreamingInference.Listener() {
+            @Override
+            public void onUpdate(StreamingInference.Update update) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                recording.onUpdate(update);
+            }
+
+            @Override
+            public void onClose() {
+                recording.onClose();
+            }
+        }).setQueueCapacity(4).setMaxBatchSize(1).build().start();
+
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (stream.offer(new StateElement("hour", new SimpleNumeric((double) i)), 10, TimeUnit.MILLISECONDS)) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted < 20);
+        assertTrue(stream.getPendingCount() <= 4);
+
+        release.countDown();
+        stream.close();
+        int events = 0;
+        while (!recording.updates.isEmpty()) {
+            events += recording.updates.take().getEventCount();
+        }
+        assertEquals(accepted, events);
+        assertEquals(accepted, stream.getSubmittedCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedStreamRejectsUpdates() throws Exception {
+        StreamingInference stream = stream(new RecordingListener()).build().start();
+        stream.close();
+        stream.submit("hour", new SimpleNumeric(8d));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void streamCannotBeStartedTwice() throws Exception {
+        StreamingInference stream = stream(new RecordingListener()).build().start();
+        try {
+            stream.start();
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void interruptedCloseKeepsTheInterruptFlag() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        StreamingInference stream = stream(listener).build().start();
+        stream.submit("hour", new SimpleNumeric(8d));
+        Thread.currentThread().interrupt();
+        stream.close();
+        assertTrue(Thread.interrupted());
+        assertTrue(stream.isClosed());
+        assertTrue(listener.closed.await(1, TimeUnit.SECONDS));
+        assertEquals(1, stream.getBatchCount());
+    }
+
+    @Test(expected = BuilderException.class)
+    public void listenerIsRequired() throws BuilderException {
+        new StreamingInference.Builder().setModel(model).setTablesNames(TABLES).build();
+    }
+
+    private static boolean isChanged(StreamingInference.Update update, String attributeName) {
+        for (StateElement se : update.getChanges()) {
+            if (se.getAttributeName().equals(attributeName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class RecordingListener implements StreamingInference.Listener {
+        private final BlockingQueue<StreamingInference.Update> updates = new LinkedBlockingQueue<StreamingInference.Update>();
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void onUpdate(StreamingInference.Update update) {
+            updates.add(update);
+        }
+
+        @Override
+        public void onClose() {
+            closed.countDown();
+        }
+
+        StreamingInference.Update next() throws InterruptedException {
+            StreamingInference.Update update = updates.poll(5, TimeUnit.SECONDS);
+            assertNotNull(update);
+            return update;
+        }
+    }
+}
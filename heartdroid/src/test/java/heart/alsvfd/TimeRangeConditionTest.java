@@ -0,0 +1,86 @@
+package heart.alsvfd;
+
+import heart.WorkingMemory;
+import heart.exceptions.AttributeNotRegisteredException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.NotInTheDomainException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.exceptions.UnknownValueException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.uncertainty.ALSVEvaluator;
+import heart.uncertainty.UncertainTrue;
+import heart.uncertainty.UncertainTrueEvaluator;
+import heart.xtt.Attribute;
+import heart.xtt.Rule;
+import heart.xtt.XTTModel;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeRangeConditionTest {
+
+    private XTTModel model;
+    private Formulae atLeastHalfHigh;
+    private Formulae atMostQuarterLow;
+
+    private final String MODEL_PATH = "src/test/resources/time-range-test.pl";
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+        Rule[] rules = model.getTables().getFirst().getRuleArray();
+        atLeastHalfHigh = rules[0].getConditions().getFirst();
+        atMostQuarterLow = rules[1].getConditions().getFirst();
+    }
+
+    private WorkingMemory history(double... levels) throws NotInTheDomainException, AttributeNotRegisteredException {
+        WorkingMemory wm = new WorkingMemory();
+        wm.registerAllAttributes(model);
+        Attribute level = wm.getAttribute("level");
+        for (int i = 0; i < levels.length; i++) {
+            wm.setAttributeValue(level, new SimpleNumeric(levels[i]), false);
+            if (i < levels.length - 1) {
+                wm.recordLog();
+            }
+        }
+        return wm;
+    }
+
+    @Test
+    public void operatorIsResolvedWhenFormulaeIsBuilt() {
+        assertTrue(atLeastHalfHigh.hasTimeBasedParameter());
+        assertEquals(UncertainTrueEvaluator.Operator.GT, atLeastHalfHigh.getEvaluatorOperator());
+        assertEquals(UncertainTrueEvaluator.Operator.LTE, atMostQuarterLow.getEvaluatorOperator());
+        for (Formulae.ConditionalOperator op : Formulae.ConditionalOperator.values()) {
+            assertEquals(op.name(), UncertainTrueEvaluator.Operator.of(op).name());
+        }
+    }
+
+    @Test
+    public void quantifiersAreEvaluatedOverHistory() throws Exception {
+        UncertainTrueEvaluator ute = new ALSVEvaluator();
+
+        WorkingMemory high = history(1, 2, 7, 8, 9, 9);
+        assertSame(UncertainTrue.TRUE, atLeastHalfHigh.evaluate(high, ute));
+        assertSame(UncertainTrue.TRUE, atMostQuarterLow.evaluate(high, ute));
+
+        WorkingMemory low = history(9, 9, 1, 2, 3, 2);
+        assertSame(UncertainTrue.NEGATION, atLeastHalfHigh.evaluate(low, ute));
+        assertSame(UncertainTrue.NEGATION, atMostQuarterLow.evaluate(low, ute));
+    }
+
+    @Test
+    public void directOperatorMatchesEvaluatorMethod() throws Exception {
+        UncertainTrueEvaluator ute = new ALSVEvaluator();
+        WorkingMemory wm = history(7);
+        Formulae f = atLeastHalfHigh;
+        assertSame(ute.evaluateUncertainGt(f.getLHS(), f.getRHS(), wm),
+                UncertainTrueEvaluator.Operator.GT.evaluate(ute, f.getLHS(), f.getRHS(), wm));
+        assertSame(UncertainTrue.TRUE, UncertainTrueEvaluator.Operator.GT.evaluate(ute, f.getLHS(), f.getRHS(), wm));
+        assertSame(UncertainTrue.FALSE, UncertainTrueEvaluator.Operator.LT.evaluate(ute, f.getLHS(), f.getRHS(), wm));
+    }
+}
@@ -0,0 +1,109 @@
+package heart.alsvfd.expressions;
+
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.Value;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Attribute;
+import heart.xtt.Decision;
+import heart.xtt.Rule;
+import heart.xtt.Table;
+import heart.xtt.XTTModel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ExpressionCompilerTest {
+
+    private XTTModel model;
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile("src/test/resources/expression-test.pl"));
+        model = parser.getModel();
+    }
+
+    private List<Decision> decisions() {
+        List<Decision> result = new LinkedList<Decision>();
+        for (Table t : model.getTables()) {
+            for (Rule r : t.getRules()) {
+                result.addAll(r.getDecisions());
+            }
+        }
+        return result;
+    }
+
+    private WorkingMemory memory(Value x, Value y, Value z) throws Exception {
+        WorkingMemory wm = new WorkingMemory();
+        wm.registerAllAttributes(model);
+        wm.setAttributeValue("x", x);
+        wm.setAttributeValue("y", y);
+        wm.setAttributeValue("z", z);
+        return wm;
+    }
+
+    @Test
+    public void compiledDecisionsGiveInterpretedResults() throws Exception {
+        double[][] inputs = {{1, 2, 3}, {-4, 0.5, 7}, {0, 0, 0}, {2, 3, 2}, {10, -1, 0.25}};
+        List<Decision> decisions = decisions();
+        assertFalse(decisions.isEmpty());
+        for (double[] in : inputs) {
+            WorkingMemory wm = memory(new SimpleNumeric(in[0]), new SimpleNumeric(in[1]), new SimpleNumeric(in[2]));
+            for (Decision d : decisions) {
+                assertNotSame(d.getDecision(), d.getCompiledDecision());
+                assertEquals(d.toString(),
+                        d.getDecision().evaluate(wm).toString(), d.getCompiledDecision().evaluate(wm).toString());
+            }
+        }
+    }
+
+    @Test
+    public void nullOperandsFallBackToInterpretation() throws Exception {
+        WorkingMemory wm = memory(new SimpleNumeric(1.), new Null(), new SimpleNumeric(3.));
+        for (Decision d : decisions()) {
+            assertEquals(d.toString(), outcome(d.getDecision(), wm), outcome(d.getCompiledDecision(), wm));
+        }
+        Decision sum = decisions().get(0);
+        assertTrue(sum.getCompiledDecision().evaluate(wm) instanceof Null);
+    }
+
+    private static String outcome(ExpressionInterface e, WorkingMemory wm) {
+        try {
+            Value v = e.evaluate(wm);
+            return v.getClass().getSimpleName() + ":" + v;
+        } catch (Exception ex) {
+            return ex.getClass().getSimpleName();
+        }
+    }
+
+    @Test
+    public void constantSubtreesAreFolded() throws Exception {
+        Attribute x = model.getAttributeByName("x");
+        ExpressionInterface constant = new BinaryExpression(
+                new SimpleNumeric(2.), new UnaryExpression(new SimpleNumeric(-3.), UnaryExpression.UnaryOperator.ABS),
+                BinaryExpression.BinaryOperator.MUL);
+        ExpressionInterface compiled = ExpressionCompiler.compile(
+                new BinaryExpression(x, constant, BinaryExpression.BinaryOperator.SUM));
+
+        WorkingMemory wm = memory(new SimpleNumeric(4.), new SimpleNumeric(0.), new SimpleNumeric(0.));
+        assertEquals(new SimpleNumeric(10.).toString(), compiled.evaluate(wm).toString());
+        assertEquals(new SimpleNumeric(6.).toString(), ExpressionCompiler.compile(constant).evaluate(null).toString());
+    }
+
+    @Test
+    public void expressionsWithoutOperatorsAreNotWrapped() {
+        Attribute x = model.getAttributeByName("x");
+        assertSame(x, ExpressionCompiler.compile(x));
+        SimpleNumeric v = new SimpleNumeric(1.);
+        assertSame(v, ExpressionCompiler.compile(v));
+    }
+}
@@ -0,0 +1,128 @@
+package heart.history;
+
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SetValue;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.alsvfd.Value;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.XTTModel;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import static org.junit.Assert.*;
+
+public class ColumnarHistoryStoreTest {
+
+    private State state(long timestamp, double hour, String day) {
+        State s = new State();
+        s.setTimestamp(timestamp);
+        s.addStateElement(new StateElement("hour", new SimpleNumeric(hour)));
+        s.addStateElement(new StateElement("day", day == null ? new Null() : new SimpleSymbolic(day)));
+        return s;
+    }
+
+    @Test
+    public void valuesAreReadBack() {
+        ColumnarHistoryStore store = new ColumnarHistoryStore(100);
+        for (int i = 0; i < 40; i++) {
+            store.record(state(1000 + i, i, i % 3 == 0 ? null : "d" + (i % 5)));
+        }
+        assertEquals(40, store.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(1000 + i, store.getTimestamp(i));
+            assertEquals(String.valueOf((double) i), store.getValue(i, "hour").toString());
+            Value day = store.getValue(i, "day");
+            assertEquals(i % 3 == 0 ? "null" : "d" + (i % 5), day.toString());
+            assertEquals(1000 + i, store.getValue(i, "hour").getTimestamp());
+        }
+        assertTrue(store.getValue(0, "unknown") instanceof Null);
+
+        State s = store.getState(3);
+        assertEquals(1003, s.getTimestamp());
+        assertEquals(1, s.getStateElements().size());
+        assertEquals("3.0", s.getValueOfAttribute("hour").toString());
+    }
+
+    @Test
+    public void oldestStatesAreOverwritten() {
+        ColumnarHistoryStore store = new ColumnarHistoryStore(10);
+        for (int i = 0; i < 25; i++) {
+            store.record(state(i, i, "d" + i));
+        }
+        assertEquals(10, store.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(15 + i, store.getTimestamp(i));
+            assertEquals("d" + (15 + i), store.getValue(i, "day").toString());
+        }
+        try {
+            store.getValue(10, "hour");
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        store.clear();
+        assertEquals(0, store.size());
+        store.record(state(100, 1, "mon"));
+        assertEquals("mon", store.getValue(0, "day").toString());
+    }
+
+    @Test
+    public void columnsFallBackToObjects() {
+        ColumnarHistoryStore store = new ColumnarHistoryStore(100);
+        store.record(state(1, 1, "mon"));
+        State s = state(2, 2, "tue");
+        s.addStateElement(new StateElement("set", new SetValue(Arrays.<Value>asList(new SimpleSymbolic("a")))));
+        store.record(s);
+        State uncertain = new State();
+        uncertain.setTimestamp(3);
+        uncertain.addStateElement(new StateElement("hour", new SimpleNumeric(3d, 0.5f)));
+        store.record(uncertain);
+
+        assertEquals("1.0", store.getValue(0, "hour").toString());
+        assertEquals(0.5f, store.getValue(2, "hour").getCertaintyFactor(), 0);
+        assertEquals("[a]", store.getValue(1, "set").toString());
+        assertTrue(store.getValue(0, "set") instanceof Null);
+        assertTrue(store.getValue(2, "day") instanceof Null);
+    }
+
+    @Test
+    public void workingMemoryRecordsIntoStore() throws ModelBuildingException, ParsingSyntaxException, Exception {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile("src/test/resources/inference-test.pl"));
+        XTTModel model = parser.getModel();
+
+        WorkingMemory columnar = new WorkingMemory(new ColumnarHistoryStore(WorkingMemory.MAX_HISTORY_SIZE));
+        WorkingMemory objects = new WorkingMemory();
+        for (WorkingMemory wm : Arrays.asList(columnar, objects)) {
+            wm.registerAllAttributes(model);
+            for (int i = 0; i < 5; i++) {
+                wm.setAttributeValue("hour", new SimpleNumeric((double) i));
+                wm.setAttributeValue("day", new SimpleSymbolic(i % 2 == 0 ? "mon" : "tue"));
+                wm.recordLog();
+            }
+        }
+
+        LinkedList<State> expected = objects.getHistoryLogCopy();
+        LinkedList<State> actual = columnar.getHistoryLogCopy();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            for (String name : Arrays.asList("hour", "day", "action")) {
+                assertEquals(expected.get(i).getValueOfAttribute(name).toString(),
+                        actual.get(i).getValueOfAttribute(name).toString());
+            }
+        }
+
+        columnar.reset();
+        assertEquals(0, columnar.getHistoryStore().size());
+    }
+}
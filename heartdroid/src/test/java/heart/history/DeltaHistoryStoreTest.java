@@ -0,0 +1,146 @@
+package heart.history;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.inference.FixedOrderInference;
+import heart.inference.InferenceAlgorithm;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Attribute;
+import heart.xtt.XTTModel;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import static org.junit.Assert.*;
+
+public class DeltaHistoryStoreTest {
+
+    private State changes(long timestamp, String name, double value) {
+        State s = new State();
+        s.setTimestamp(timestamp);
+        s.addStateElement(new StateElement(name, new SimpleNumeric(value)));
+        return s;
+    }
+
+    @Test
+    public void valuesAreReconstructedFromChanges() {
+        DeltaHistoryStore store = new DeltaHistoryStore(100, 4);
+        State keyframe = changes(0, "a", 0);
+        keyframe.addStateElement(new StateElement("b", new SimpleNumeric(10d)));
+        store.record(keyframe);
+        for (int i = 1; i < 10; i++) {
+            assertEquals(i % 4 == 0, store.isKeyframeDue());
+            store.recordChanges(changes(i, "a", i));
+        }
+        assertEquals(10, store.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, store.getTimestamp(i));
+            assertEquals(String.valueOf((double) i), store.getValue(i, "a").toString());
+        }
+        // the keyframes made from the changes do not know the values that did not change
+        assertEquals("10.0", store.getValue(3, "b").toString());
+        assertTrue(store.getValue(4, "b") instanceof Null);
+        assertTrue(store.getValue(0, "c") instanceof Null);
+
+        State s = store.getState(2);
+        assertEquals(2, s.getTimestamp());
+        assertEquals("2.0", s.getValueOfAttribute("a").toString());
+        assertEquals("10.0", s.getValueOfAttribute("b").toString());
+        assertEquals(11, store.getStoredValueCount());
+    }
+
+    @Test
+    public void oldestSegmentIsEvicted() {
+        DeltaHistoryStore store = new DeltaHistoryStore(8, 4);
+        for (int i = 0; i < 10; i++) {
+            store.record(changes(i, "a", i));
+        }
+        assertEquals(6, store.size());
+        for (int i = 0; i < 6; i++) {
+            assertEquals(4 + i, store.getTimestamp(i));
+            assertEquals(String.valueOf(4d + i), store.getValue(i, "a").toString());
+        }
+        assertEquals(6, store.getStoredValueCount());
+        try {
+            store.getValue(6, "a");
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertTrue(store.isKeyframeDue());
+    }
+
+    @Test
+    public void fullStoreKeepsAllButOneSegment() {
+        for (DeltaHistoryStore store : Arrays.asList(new DeltaHistoryStore(10), new DeltaHistoryStore(10, 4),
+                new DeltaHistoryStore(100), new DeltaHistoryStore(2))) {
+            int capacity = store.getCapacity();
+            int interval = store.getKeyframeInterval();
+            assertTrue(interval <= Math.max(1, capacity / 2));
+            for (int i = 0; i < 5 * capacity; i++) {
+                store.recordChanges(changes(i, "a", i));
+                if (i >= capacity) {
+                    assertTrue(store.size() > capacity - interval);
+                    assertTrue(store.size() <= capacity);
+                }
+                assertEquals(i, store.getTimestamp(store.size() - 1));
+                assertEquals(i - store.size() + 1, store.getTimestamp(0));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void keyframeIntervalCannotExceedCapacity() {
+        new DeltaHistoryStore(4, 8);
+    }
+
+    @Test
+    public void workingMemoryRecordsOnlyChanges() throws Exception {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile("src/test/resources/inference-test.pl"));
+        XTTModel model = parser.getModel();
+
+        DeltaHistoryStore store = new DeltaHistoryStore(WorkingMemory.MAX_HISTORY_SIZE, 8);
+        WorkingMemory delta = new WorkingMemory(store);
+        WorkingMemory objects = new WorkingMemory();
+        for (WorkingMemory wm : Arrays.asList(delta, objects)) {
+            for (int i = 0; i < 30; i++) {
+                State initial = new State();
+                initial.addStateElement(new StateElement("hour", new SimpleNumeric((double) (i % 24))));
+                initial.addStateElement(new StateElement("day", new SimpleSymbolic(i < 15 ? "mon" : "sat")));
+                initial.addStateElement(new StateElement("location", new SimpleSymbolic("work")));
+                initial.addStateElement(new StateElement("activity", new SimpleSymbolic(i % 7 == 0 ? "walking" : "driving")));
+                Configuration conf = new Configuration.Builder().setInitialState(initial).build();
+                new FixedOrderInference(wm, model, conf).start(new InferenceAlgorithm.TableParameters("DayTime", "Today"));
+            }
+            wm.unregisterAttribute("activity");
+            wm.recordLog();
+        }
+
+        LinkedList<State> expected = objects.getHistoryLogCopy();
+        LinkedList<State> actual = delta.getHistoryLogCopy();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            for (Attribute a : model.getAttributes()) {
+                assertEquals(i + " " + a.getName(), expected.get(i).getValueOfAttribute(a.getName()).toString(),
+                        actual.get(i).getValueOfAttribute(a.getName()).toString());
+                assertEquals(expected.get(i).getValueOfAttribute(a.getName()).toString(),
+                        store.getValue(i, a.getName()).toString());
+            }
+        }
+        assertTrue(store.getStoredValueCount() < expected.size() * model.getAttributes().size() / 2);
+
+        delta.reset();
+        assertEquals(0, store.size());
+    }
+}
@@ -0,0 +1,184 @@
+package heart.history;
+
+import heart.RelativeTimePeriod;
+import heart.RelativeTimestamp;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.Value;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.XTTModel;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import static org.junit.Assert.*;
+
+public class HistoryViewTest {
+
+    private State state(long timestamp, double value) {
+        State s = new State();
+        s.setTimestamp(timestamp);
+        s.addStateElement(new StateElement("a", new SimpleNumeric(value)));
+        return s;
+    }
+
+    @Test
+    public void viewDoesNotSeeLaterRecords() {
+        StateHistoryStore store = new StateHistoryStore(100);
+        for (int i = 0; i < 5; i++) {
+            store.record(state(i, i));
+        }
+        State current = state(10, 10);
+        HistoryView view = new HistoryView(store, current);
+        store.record(state(5, 5));
+
+        assertEquals(6, view.size());
+        assertSame(current, view.get(5));
+        assertEquals(3, view.getTimestamp(3));
+        assertEquals("4.0", view.getValue(4, "a").toString());
+        assertEquals("10.0", view.getValue(5, "a").toString());
+        try {
+            view.get(6);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void removedStatesAreReadAsMissing() {
+        ColumnarHistoryStore store = new ColumnarHistoryStore(4);
+        for (int i = 0; i < 4; i++) {
+            store.record(state(i, i));
+        }
+        HistoryView view = new HistoryView(store, null);
+        store.record(state(4, 4));
+
+        assertEquals(4, view.size());
+        assertEquals("1.0", view.getValue(1, "a").toString());
+        assertEquals(3, view.get(3).getTimestamp());
+        assertTrue(view.getValue(0, "a") instanceof Null);
+        assertEquals(HistoryView.EVICTED_TIMESTAMP, view.getTimestamp(0));
+        assertTrue(view.get(0).getStateElements().isEmpty());
+
+        store.clear();
+        assertEquals(HistoryView.EVICTED_TIMESTAMP, view.getTimestamp(3));
+        assertTrue(view.getValue(3, "a") instanceof Null);
+    }
+
+    @Test
+    public void fullStoreCanBeSearchedWhileRecording() throws Exception {
+        final ColumnarHistoryStore store = new ColumnarHistoryStore(50);
+        WorkingMemory wm = new WorkingMemory(store);
+        for (int i = 0; i < 50; i++) {
+            store.record(state(i, i));
+        }
+        Thread recorder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 50; i < 200000 && !Thread.currentThread().isInterrupted(); i++) {
+                    store.record(state(i, i));
+                }
+            }
+        });
+        recorder.start();
+        try {
+            RelativeTimePeriod period = new RelativeTimePeriod(-50, 0, 1, RelativeTimestamp.TimeType.STATECOUNT);
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(50, wm.findHistoricalValues(wm.getHistoryView(false), period, "a").size());
+            }
+        } finally {
+            recorder.interrupt();
+            recorder.join();
+        }
+    }
+
+    @Test
+    public void currentStateIsReadFromWorkingMemory() throws Exception {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile("src/test/resources/inference-test.pl"));
+        XTTModel model = parser.getModel();
+        WorkingMemory wm = new WorkingMemory();
+        wm.registerAllAttributes(model);
+        wm.setAttributeValue("hour", new SimpleNumeric(5.0));
+        wm.recordLog();
+
+        HistoryView view = wm.getHistoryView(true);
+        wm.setAttributeValue("hour", new SimpleNumeric(7.0));
+        assertEquals(2, view.size());
+        assertEquals("5.0", view.getValue(0, "hour").toString());
+        assertEquals("7.0", view.getValue(1, "hour").toString());
+        assertEquals("7.0", view.get(1).getValueOfAttribute("hour").toString());
+        assertEquals(view.getTimestamp(1), view.get(1).getTimestamp());
+    }
+
+    @Test
+    public void historicalValuesAreTheSameAsForCopy() {
+        for (HistoryStore store : Arrays.<HistoryStore>asList(new StateHistoryStore(100),
+                new ColumnarHistoryStore(100), new DeltaHistoryStore(100, 4))) {
+            WorkingMemory wm = new WorkingMemory(store);
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < 10; i++) {
+                store.record(state(now - 10000 + i * 1000, i % 4));
+            }
+
+            // both searches have to measure the periods from the same moment
+            wm.lockTime();
+            for (RelativeTimePeriod period : Arrays.asList(
+                    new RelativeTimePeriod(-5, 0, 1, RelativeTimestamp.TimeType.STATECOUNT),
+                    new RelativeTimePeriod(-20, -2, 3, RelativeTimestamp.TimeType.STATECOUNT),
+                    new RelativeTimePeriod(-5500, 0, 500, RelativeTimestamp.TimeType.MILISCOUNT),
+                    new RelativeTimePeriod(-15500, 0, 1000, RelativeTimestamp.TimeType.MILISCOUNT))) {
+                HistoryView view = wm.getHistoryView(true);
+                // the copy has to end with the same current state, as its timestamp is the reference point
+                LinkedList<State> copy = wm.getHistoryLogCopy();
+                copy.addLast(view.get(view.size() - 1));
+                LinkedList<Value> values = wm.findHistoricalValues(view, period, "a");
+                assertFalse(values.isEmpty());
+                assertEquals(wm.findHistoricalValues(copy, period, "a").toString(), values.toString());
+            }
+            wm.unlockTime();
+
+            RelativeTimestamp previous = new RelativeTimestamp(-2, RelativeTimestamp.TimeType.STATECOUNT);
+            assertEquals("0.0", wm.findHistoricalValue(wm.getHistoryView(false), "a", previous).toString());
+            assertEquals(now - 2000, wm.findHistoricalState(wm.getHistoryView(false), previous).getTimestamp());
+        }
+    }
+
+    @Test
+    public void longHistoryIsSearchedByTimestamp() {
+        ColumnarHistoryStore store = new ColumnarHistoryStore(200000);
+        WorkingMemory wm = new WorkingMemory(store);
+        long now = System.currentTimeMillis();
+        int count = 100000;
+        for (int i = 0; i < count; i++) {
+            // two states per timestamp, the first one of them has to be found
+            store.record(state(now - 50000000L + (i / 2) * 1000L, i));
+        }
+        HistoryView view = wm.getHistoryView(false);
+
+        State s = wm.findHistoricalState(view, new RelativeTimestamp(-10000500, RelativeTimestamp.TimeType.MILISCOUNT));
+        long expected = now - 10000000L;
+        assertTrue(s.getTimestamp() == expected || s.getTimestamp() == expected + 1000);
+        assertEquals(2 * (s.getTimestamp() - now + 50000000L) / 1000, (long) ((SimpleNumeric) s.getValueOfAttribute("a")).getValue().doubleValue());
+        assertEquals("0.0", wm.findHistoricalValue(view, "a", new RelativeTimestamp(-60000000L, RelativeTimestamp.TimeType.MILISCOUNT)).toString());
+        assertTrue(wm.findHistoricalState(view, new RelativeTimestamp(0, RelativeTimestamp.TimeType.MILISCOUNT)).getStateElements().isEmpty());
+        assertEquals(String.valueOf(count - 3d), wm.findHistoricalValue(view, "a", new RelativeTimestamp(-3, RelativeTimestamp.TimeType.STATECOUNT)).toString());
+
+        // a window of ten seconds long before the most recent states
+        LinkedList<Value> values = wm.findHistoricalValues(view,
+                new RelativeTimePeriod(-30000000L, -29990000L, 1000, RelativeTimestamp.TimeType.MILISCOUNT), "a");
+        // every state is sampled, as each timestamp has two of them
+        assertTrue(values.size() >= 18 && values.size() <= 22);
+        double first = ((SimpleNumeric) values.getFirst()).getValue();
+        assertTrue(first == 40000 || first == 40002);
+        for (int i = 1; i < values.size(); i++) {
+            assertEquals(first + i, ((SimpleNumeric) values.get(i)).getValue(), 0);
+        }
+    }
+}
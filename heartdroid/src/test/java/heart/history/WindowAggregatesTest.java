@@ -0,0 +1,136 @@
+package heart.history;
+
+import heart.RelativeTimePeriod;
+import heart.RelativeTimestamp;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.Value;
+import heart.alsvfd.expressions.StatisticalExpression;
+import heart.alsvfd.expressions.StatisticalExpression.StatisticalOperator;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Attribute;
+import heart.xtt.XTTModel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class WindowAggregatesTest {
+
+    private static final StatisticalOperator[] OPERATORS = {StatisticalOperator.MAX, StatisticalOperator.MIN,
+            StatisticalOperator.MEAN, StatisticalOperator.VAR, StatisticalOperator.STDEV, StatisticalOperator.TREND};
+    private static final long[][] PERIODS = {{-10, 0}, {-5, -1}, {-8, -3}, {-1, 0}, {-3, -3}, {-40, 0}, {-30, -25}};
+
+    private XTTModel parse(String path) throws Exception {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(path));
+        return parser.getModel();
+    }
+
+    private Value compute(StatisticalExpression e, WorkingMemory wm) throws Exception {
+        String name = e.getAttributeName();
+        switch (e.getOperator()) {
+            case MAX:
+                return e.max(name, e.getPeriod(), wm);
+            case MIN:
+                return e.min(name, e.getPeriod(), wm);
+            case MEAN:
+                return e.mean(name, e.getPeriod(), wm);
+            case VAR:
+                return e.var(name, e.getPeriod(), wm);
+            case STDEV:
+                return e.stdev(name, e.getPeriod(), wm);
+            default:
+                return e.trend(name, e.getPeriod(), wm);
+        }
+    }
+
+    private void assertSameResult(String message, Value expected, Value actual) {
+        if (expected instanceof Null) {
+            assertTrue(message + ": " + actual, actual instanceof Null);
+            return;
+        }
+        assertTrue(message + ": " + actual, actual instanceof SimpleNumeric);
+        double e = ((SimpleNumeric) expected).getValue();
+        double a = ((SimpleNumeric) actual).getValue();
+        assertEquals(message, e, a, 1e-9 * Math.max(1, Math.abs(e)));
+        assertEquals(message, expected.getCertaintyFactor(), actual.getCertaintyFactor(), 0);
+    }
+
+    @Test
+    public void aggregatesMatchRecomputedValues() throws Exception {
+        XTTModel model = parse("src/test/resources/inference-test.pl");
+        Map<String, Attribute> attributes = new HashMap<String, Attribute>();
+        for (Attribute a : model.getAttributes()) {
+            attributes.put(a.getName(), a);
+        }
+
+        for (HistoryStore store : Arrays.<HistoryStore>asList(new StateHistoryStore(1000),
+                new StateHistoryStore(20), new ColumnarHistoryStore(1000), new DeltaHistoryStore(48, 16))) {
+            WorkingMemory wm = new WorkingMemory(store);
+            wm.registerAllAttributes(model);
+            List<StatisticalExpression> expressions = new ArrayList<StatisticalExpression>();
+            for (long[] p : PERIODS) {
+                for (StatisticalOperator op : OPERATORS) {
+                    expressions.add((StatisticalExpression) new StatisticalExpression.Builder()
+                            .setAttributeName("hour")
+                            .setOperator(op)
+                            .setPeriod(new RelativeTimePeriod(p[0], p[1], 1, RelativeTimestamp.TimeType.STATECOUNT))
+                            .build(attributes));
+                }
+            }
+            wm.getWindowAggregates().track(expressions);
+            assertEquals(PERIODS.length, wm.getWindowAggregates().size());
+
+            Random random = new Random(7);
+            for (int i = 0; i < 120; i++) {
+                Value v = random.nextInt(10) == 0 ? new Null() : new SimpleNumeric((double) random.nextInt(24));
+                wm.setAttributeValue("hour", v);
+                if (i % 3 != 2) {
+                    wm.recordLog();
+                }
+                if (i == 60) {
+                    // states recorded bypassing the working memory make the aggregates rebuild
+                    store.record(wm.getCurrentState());
+                }
+                for (StatisticalExpression e : expressions) {
+                    String message = store.getClass().getSimpleName() + " " + i + " " + e.getOperator() + " " + e.getPeriod();
+                    assertNotNull(message, wm.getWindowAggregates().evaluate("hour", e.getOperator(), e.getPeriod(), wm));
+                    assertSameResult(message, compute(e, wm), e.evaluate(wm));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void unsupportedWindowsAreNotTracked() {
+        WindowAggregates aggregates = new WindowAggregates();
+        aggregates.track("a", new RelativeTimePeriod(-10, 0, 2, RelativeTimestamp.TimeType.STATECOUNT));
+        aggregates.track("a", new RelativeTimePeriod(-10000, 0, 1, RelativeTimestamp.TimeType.MILISCOUNT));
+        aggregates.track("a", new RelativeTimePeriod(0, 0, 1, RelativeTimestamp.TimeType.STATECOUNT));
+        assertEquals(0, aggregates.size());
+        aggregates.track("a", new RelativeTimePeriod(-10, 0, 1, RelativeTimestamp.TimeType.STATECOUNT));
+        aggregates.track("a", new RelativeTimePeriod(-10, -1, 1, RelativeTimestamp.TimeType.STATECOUNT));
+        assertEquals(1, aggregates.size());
+    }
+
+    @Test
+    public void windowsOfModelAreTracked() throws Exception {
+        XTTModel model = parse("src/test/resources/statistic-expression-test.pl");
+        assertEquals(2, model.getDependencyGraph().getStatisticalExpressions().size());
+        WorkingMemory wm = new WorkingMemory();
+        wm.trackStatistics(model);
+        // both expressions use the same window
+        assertEquals(1, wm.getWindowAggregates().size());
+        wm.reset();
+        assertEquals(0, wm.getWindowAggregates().size());
+    }
+}
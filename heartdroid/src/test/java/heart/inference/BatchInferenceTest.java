@@ -0,0 +1,188 @@
+package heart.inference;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Attribute;
+import heart.xtt.XTTModel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchInferenceTest {
+
+    private XTTModel model;
+
+    private final String MODEL_PATH = "src/test/resources/inference-test.pl";
+    private final String[] TABLES = {"DayTime", "Today", "Actions", "Threats"};
+    private final String[] DAYS = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+    private final String[] LOCATIONS = {"home", "work", "outside"};
+    private final String[] ACTIVITIES = {"walking", "driving", "cycling", "idle", "running"};
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+    }
+
+    private List<State> states(int count) {
+        List<State> states = new ArrayList<State>();
+        for (int i = 0; i < count; i++) {
+            State s = new State();
+            s.addStateElement(new StateElement("hour", new SimpleNumeric((double) (i % 24))));
+            s.addStateElement(new StateElement("day", new SimpleSymbolic(DAYS[i % DAYS.length])));
+            s.addStateElement(new StateElement("location", new SimpleSymbolic(LOCATIONS[i % LOCATIONS.length])));
+            s.addStateElement(new StateElement("activity", new SimpleSymbolic(ACTIVITIES[i % ACTIVITIES.length])));
+            states.add(s);
+        }
+        return states;
+    }
+
+    private BatchInference batch(int workers) throws BuilderException {
+        return new BatchInference.Builder()
+                .setModel(model)
+                .setInferenceMode(InferenceMode.FIXED_ORDER)
+                .setTableParameters(new InferenceAlgorithm.TableParameters(TABLES))
+                .setWorkers(workers)
+                .build();
+    }
+
+    @Test
+    public void resultsMatchSequentialRunsInInputOrder() throws BuilderException, InterruptedException {
+        List<State> states = states(200);
+        BatchInference.Result result = batch(4).run(states);
+
+        assertFalse(result.isCancelled());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(states.size(), result.getProcessedCount());
+        assertEquals(states.size(), result.getStates().size());
+        assertTrue(result.getThroughput() > 0);
+
+        for (int i = 0; i < states.size(); i++) {
+            WorkingMemory wm = new WorkingMemory();
+            Configuration conf = new Configuration.Builder().setInitialState(states.get(i)).build();
+            new FixedOrderInference(wm, model, conf).start(new InferenceAlgorithm.TableParameters(TABLES));
+
+            State batchResult = result.getStates().get(i);
+            for (Attribute a : model.getAttributes()) {
+                assertEquals("Value of " + a.getName() + " for state " + i,
+                        wm.getAttributeValue(a).toString(), batchResult.getValueOfAttribute(a.getName()).toString());
+            }
+        }
+    }
+
+    @Test
+    public void failuresAreReportedPerState() throws BuilderException, InterruptedException {
+        BatchInference batch = new BatchInference.Builder()
+                .setModel(model)
+                .setInferenceMode(InferenceMode.FIXED_ORDER)
+                .setAttributeParameters(new InferenceAlgorithm.AttributeParameters("action"))
+                .setWorkers(2)
+                .build();
+        BatchInference.Result result = batch.run(states(5));
+
+        assertEquals(5, result.getFailures().size());
+        assertTrue(result.getFailures().get(0) instanceof UnsupportedOperationException);
+        assertNull(result.getStates().get(0));
+    }
+
+    @Test
+    public void batchCanBeCancelled() throws Exception {
+        final BatchInference batch = batch(1);
+        final List<State> states = states(200000);
+        final BatchInference.Result[] result = new BatchInference.Result[1];
+        Thread runner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result[0] = batch.run(states);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        runner.start();
+        while (batch.getProcessedCount() == 0) {
+            Thread.sleep(1);
+        }
+        batch.cancel();
+        runner.join();
+
+        assertTrue(result[0].isCancelled());
+        assertTrue(result[0].getProcessedCount() < states.size());
+        assertNotNull(result[0].getStates().get(0));
+        assertNull(result[0].getStates().get(states.size() - 1));
+    }
+
+    @Test
+    public void runCancelledBeforeStartSkipsAllStates() throws Exception {
+        BatchInference batch = batch(2);
+        BatchInference.Run run = new BatchInference.Run();
+        run.cancel();
+        BatchInference.Result result = batch.run(states(10), run);
+
+        assertTrue(result.isCancelled());
+        assertEquals(0, result.getProcessedCount());
+        // the next run of the same batch is not affected
+        BatchInference.Result next = batch.run(states(10));
+        assertFalse(next.isCancelled());
+        assertEquals(10, next.getProcessedCount());
+    }
+
+    @Test
+    public void concurrentRunsHaveSeparateContexts() throws Exception {
+        final BatchInference batch = batch(1);
+        final BatchInference.Run cancelled = new BatchInference.Run();
+        final BatchInference.Result[] result = new BatchInference.Result[1];
+        Thread runner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result[0] = batch.run(states(200000), cancelled);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        runner.start();
+        while (cancelled.getProcessedCount() == 0) {
+            Thread.sleep(1);
+        }
+
+        BatchInference.Run other = new BatchInference.Run();
+        cancelled.cancel();
+        BatchInference.Result otherResult = batch.run(states(20), other);
+        runner.join();
+
+        assertTrue(result[0].isCancelled());
+        assertFalse(otherResult.isCancelled());
+        assertEquals(20, otherResult.getProcessedCount());
+        assertEquals(20, other.getProcessedCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void runContextCannotBeReused() throws Exception {
+        BatchInference batch = batch(1);
+        BatchInference.Run run = new BatchInference.Run();
+        batch.run(states(1), run);
+        batch.run(states(1), run);
+    }
+
+    @Test(expected = BuilderException.class)
+    public void parametersAreRequired() throws BuilderException {
+        new BatchInference.Builder().setModel(model).build();
+    }
+}
@@ -0,0 +1,191 @@
+package heart.inference;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.InferenceInterruptedException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Table;
+import heart.xtt.XTTModel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DeadlineInferenceTest {
+
+    private final String[] TABLES = {"DayTime", "Today", "Actions", "Threats"};
+
+    /**
+     * The time budget in milliseconds, long enough to process a few tables of the test models.
+     */
+    private static final long BUDGET = 500;
+
+    private XTTModel parse(String path) throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(path));
+        return parser.getModel();
+    }
+
+    private Configuration.Builder builder() {
+        State initial = new State();
+        initial.addStateElement(new StateElement("hour", new SimpleNumeric(16.)));
+        initial.addStateElement(new StateElement("day", new SimpleSymbolic("mon")));
+        initial.addStateElement(new StateElement("location", new SimpleSymbolic("work")));
+        initial.addStateElement(new StateElement("activity", new SimpleSymbolic("walking")));
+        initial.addStateElement(new StateElement("a", new SimpleNumeric(1.)));
+        initial.addStateElement(new StateElement("c", new SimpleNumeric(1.)));
+        return new Configuration.Builder().setInitialState(initial);
+    }
+
+    private static List<String> names(List<Table> tables) {
+        List<String> result = new ArrayList<String>();
+        for (Table t : tables) {
+            result.add(t.getName());
+        }
+        return result;
+    }
+
+    @Test
+    public void inferenceWithoutBudgetProcessesAllTables() throws Exception {
+        XTTModel model = parse("src/test/resources/inference-test.pl");
+        WorkingMemory wm = new WorkingMemory();
+        SlowInference inference = new SlowInference(wm, model, builder().build(), 0);
+        inference.start(new InferenceAlgorithm.TableParameters(TABLES));
+
+        assertFalse(inference.isDeadlineExceeded());
+        assertTrue(inference.getUnprocessedTables().isEmpty());
+        assertEquals(Arrays.asList(TABLES), inference.processed);
+    }
+
+    @Test
+    public void inferenceStopsBetweenTables() throws Exception {
+        XTTModel model = parse("src/test/resources/inference-test.pl");
+        WorkingMemory wm = new WorkingMemory();
+        Configuration conf = builder().setTimeBudget(BUDGET, TimeUnit.MILLISECONDS).build();
+        SlowInference inference = new SlowInference(wm, model, conf, 0) {
+            @Override
+            protected void runRules(Table table) throws InferenceInterruptedException {
+                super.runRules(table);
+                if (table.getName().equals("Today")) {
+                    sleep(2 * BUDGET);
+                }
+            }
+        };
+        inference.start(new InferenceAlgorithm.TableParameters(TABLES));
+
+        assertTrue(inference.isDeadlineExceeded());
+        assertEquals(Arrays.asList("Actions", "Threats"), names(inference.getUnprocessedTables()));
+        assertEquals("afternoon", wm.getAttributeValue("daytime").toString());
+        assertEquals("workday", wm.getAttributeValue("today").toString());
+        assertTrue(wm.getAttributeValue("action") instanceof Null);
+    }
+
+    @Test
+    public void inferenceStopsBetweenRules() throws Exception {
+        XTTModel model = parse("src/test/resources/inference-test.pl");
+        WorkingMemory wm = new WorkingMemory();
+        Configuration conf = builder().setTimeBudget(20, TimeUnit.MILLISECONDS).build();
+        SlowInference inference = new SlowInference(wm, model, conf, 100);
+        inference.start(new InferenceAlgorithm.TableParameters(TABLES));
+
+        assertTrue(inference.isDeadlineExceeded());
+        assertEquals(Arrays.asList(TABLES), names(inference.getUnprocessedTables()));
+        assertEquals(Arrays.asList("DayTime"), inference.processed);
+        assertTrue(wm.getAttributeValue("daytime") instanceof Null);
+    }
+
+    @Test
+    public void partialStateIsNotUsedAsIncrementalBaseline() throws Exception {
+        XTTModel model = parse("src/test/resources/inference-test.pl");
+        WorkingMemory wm = new WorkingMemory();
+        Configuration conf = builder().setTimeBudget(20, TimeUnit.MILLISECONDS)
+                .setIncrementalInferenceEnabled(true).build();
+        new SlowInference(wm, model, conf, 100).start(new InferenceAlgorithm.TableParameters(TABLES));
+        assertNull(wm.getIncrementalBaseline());
+    }
+
+    @Test
+    public void tablesAreOrderedByPriority() throws Exception {
+        XTTModel model = parse("src/test/resources/priority-test.pl");
+        String[] tables = {"Low", "High", "Dependent", "Plain"};
+
+        WorkingMemory wm = new WorkingMemory();
+        SlowInference inference = new SlowInference(wm, model, builder().build(), 0);
+        inference.start(new InferenceAlgorithm.TableParameters(tables));
+        assertEquals(Arrays.asList(tables), inference.processed);
+
+        WorkingMemory ordered = new WorkingMemory();
+        inference = new SlowInference(ordered, model, builder().setPriorityOrderingEnabled(true).build(), 0);
+        inference.start(new InferenceAlgorithm.TableParameters(tables));
+        assertEquals(Arrays.asList("High", "Low", "Dependent", "Plain"), inference.processed);
+
+        for (String attribute : new String[]{"b", "d", "e", "f"}) {
+            assertEquals(wm.getAttributeValue(attribute).toString(), ordered.getAttributeValue(attribute).toString());
+        }
+        assertEquals("3.0", ordered.getAttributeValue("e").toString());
+    }
+
+    @Test
+    public void priorityTablesAreProcessedBeforeTheDeadline() throws Exception {
+        XTTModel model = parse("src/test/resources/priority-test.pl");
+        WorkingMemory wm = new WorkingMemory();
+        Configuration conf = builder().setPriorityOrderingEnabled(true)
+                .setTimeBudget(BUDGET, TimeUnit.MILLISECONDS).build();
+        SlowInference inference = new SlowInference(wm, model, conf, 0) {
+            @Override
+            protected void runRules(Table table) throws InferenceInterruptedException {
+                super.runRules(table);
+                sleep(2 * BUDGET);
+            }
+        };
+        inference.start(new InferenceAlgorithm.TableParameters("Low", "High", "Dependent", "Plain"));
+
+        assertEquals("2.0", wm.getAttributeValue("d").toString());
+        assertTrue(wm.getAttributeValue("b") instanceof Null);
+        assertEquals(Arrays.asList("Low", "Dependent", "Plain"), names(inference.getUnprocessedTables()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records the processed tables, and waits for the given time before evaluating the rules of each table.
+     */
+    private static class SlowInference extends FixedOrderInference {
+        final List<String> processed = new LinkedList<String>();
+        private final long delay;
+
+        SlowInference(WorkingMemory wm, XTTModel model, Configuration conf, long delay) {
+            super(wm, model, conf);
+            this.delay = delay;
+        }
+
+        @Override
+        protected void runRules(Table table) throws InferenceInterruptedException {
+            processed.add(table.getName());
+            if (delay > 0) {
+                sleep(delay);
+            }
+            super.runRules(table);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package heart.inference;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.SimpleNumeric;
+import heart.exceptions.BuilderException;
+import heart.exceptions.InferenceInterruptedException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Table;
+import heart.xtt.XTTModel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GoalTerminationTest {
+
+    private XTTModel model;
+
+    private final String MODEL_PATH = "src/test/resources/goal-test.pl";
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+    }
+
+    private Configuration configuration(double sensor, boolean termination) throws BuilderException {
+        State initial = new State();
+        initial.addStateElement(new StateElement("sensor", new SimpleNumeric(sensor)));
+        initial.addStateElement(new StateElement("raw", new SimpleNumeric(5.)));
+        return new Configuration.Builder()
+                .setInitialState(initial)
+                .setGoalTerminationEnabled(termination)
+                .build();
+    }
+
+    private List<String> run(WorkingMemory wm, Configuration conf, String... goals) {
+        RecordingInference inference = new RecordingInference(wm, model, conf);
+        inference.start(new InferenceAlgorithm.AttributeParameters(goals));
+        return inference.processed;
+    }
+
+    @Test
+    public void allContributingTablesAreProcessedByDefault() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        List<String> processed = run(wm, configuration(1, false), "goal");
+        assertEquals(3, processed.size());
+        assertTrue(processed.containsAll(Arrays.asList("Primary", "Backup", "Fallback")));
+    }
+
+    @Test
+    public void inferenceStopsWhenGoalIsResolved() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        assertEquals(Arrays.asList("Primary"), run(wm, configuration(1, true), "goal"));
+        assertEquals("high", wm.getAttributeValue("goal").toString());
+    }
+
+    @Test
+    public void unresolvedGoalIsInferredFurther() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        List<String> processed = run(wm, configuration(0, true), "goal");
+        assertEquals(3, processed.size());
+        assertEquals("low", wm.getAttributeValue("goal").toString());
+    }
+
+    @Test
+    public void tablesOfResolvedGoalsAreSkipped() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        List<String> processed = run(wm, configuration(1, true), "goal", "other");
+        assertTrue(processed.contains("Primary"));
+        assertTrue(processed.contains("Other"));
+        assertFalse(processed.contains("Fallback"));
+        assertEquals("high", wm.getAttributeValue("goal").toString());
+        assertEquals("5.0", wm.getAttributeValue("other").toString());
+    }
+
+    @Test
+    public void goalsOfTablesAreTheirConclusions() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        RecordingInference inference = new RecordingInference(wm, model, configuration(1, true));
+        inference.start(new InferenceAlgorithm.TableParameters("Fallback"));
+        assertEquals(Arrays.asList("Backup", "Fallback"), inference.processed);
+    }
+
+    private static class RecordingInference extends GoalDrivenInference {
+        private final List<String> processed = new LinkedList<String>();
+
+        RecordingInference(WorkingMemory wm, XTTModel model, Configuration conf) {
+            super(wm, model, conf);
+        }
+
+        @Override
+        protected void runRules(Table table) throws InferenceInterruptedException {
+            processed.add(table.getName());
+            super.runRules(table);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package heart.inference;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.InferenceInterruptedException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.NotInTheDomainException;
+import heart.exceptions.AttributeNotRegisteredException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Attribute;
+import heart.xtt.Table;
+import heart.xtt.XTTModel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IncrementalInferenceTest {
+
+    private XTTModel model;
+
+    private final String MODEL_PATH = "src/test/resources/inference-test.pl";
+    private final String[] TABLES = {"DayTime", "Today", "Actions", "Threats"};
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+    }
+
+    private Configuration configuration(double hour, String day, String location, String activity, boolean incremental)
+            throws BuilderException {
+        State initial = new State();
+        initial.addStateElement(new StateElement("hour", new SimpleNumeric(hour)));
+        initial.addStateElement(new StateElement("day", new SimpleSymbolic(day)));
+        initial.addStateElement(new StateElement("location", new SimpleSymbolic(location)));
+        initial.addStateElement(new StateElement("activity", new SimpleSymbolic(activity)));
+        return new Configuration.Builder()
+                .setInitialState(initial)
+                .setIncrementalInferenceEnabled(incremental)
+                .build();
+    }
+
+    private List<String> run(WorkingMemory wm, Configuration conf) {
+        RecordingInference inference = new RecordingInference(wm, model, conf);
+        inference.start(new InferenceAlgorithm.TableParameters(TABLES));
+        return inference.processed;
+    }
+
+    private void assertSameState(WorkingMemory expected, WorkingMemory actual) {
+        for (Attribute a : model.getAttributes()) {
+            assertEquals("Value of " + a.getName(),
+                    expected.getAttributeValue(a).toString(), actual.getAttributeValue(a).toString());
+        }
+    }
+
+    @Test
+    public void onlyAffectedTablesAreProcessed() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+
+        assertEquals(Arrays.asList(TABLES), run(wm, configuration(16, "mon", "work", "walking", true)));
+        assertEquals("leaving", wm.getAttributeValue("action").toString());
+
+        assertEquals(Arrays.asList("Threats"), run(wm, configuration(16, "mon", "work", "driving", true)));
+        assertEquals("[road_threat]", wm.getAttributeValue("{threat}").toString());
+
+        assertEquals(Arrays.asList("DayTime", "Actions", "Threats"),
+                run(wm, configuration(8, "mon", "work", "driving", true)));
+
+        assertTrue(run(wm, configuration(8, "mon", "work", "driving", true)).isEmpty());
+    }
+
+    @Test
+    public void incrementalResultsMatchFullRuns() throws BuilderException {
+        WorkingMemory incremental = new WorkingMemory();
+        WorkingMemory full = new WorkingMemory();
+        Object[][] events = {
+                {16d, "mon", "work", "walking"},
+                {16d, "mon", "work", "driving"},
+                {22d, "mon", "home", "idle"},
+                {22d, "sat", "home", "idle"},
+                {8d, "sat", "home", "idle"},
+                {8d, "tue", "home", "running"},
+                {8d, "tue", "outside", "running"},
+        };
+        for (Object[] e : events) {
+            run(incremental, configuration((Double) e[0], (String) e[1], (String) e[2], (String) e[3], true));
+            run(full, configuration((Double) e[0], (String) e[1], (String) e[2], (String) e[3], false));
+            assertSameState(full, incremental);
+        }
+    }
+
+    @Test
+    public void externalChangesAreTracked() throws BuilderException, NotInTheDomainException,
+            AttributeNotRegisteredException {
+        WorkingMemory wm = new WorkingMemory();
+        Configuration conf = configuration(16, "mon", "work", "walking", true);
+        run(wm, conf);
+
+        wm.setAttributeValue("action", new SimpleSymbolic("sleeping"));
+        assertTrue(wm.getChangedAttributes().contains("action"));
+
+        List<String> processed = run(wm, conf);
+        assertTrue(processed.contains("Actions"));
+        assertTrue(processed.contains("Threats"));
+        assertEquals("leaving", wm.getAttributeValue("action").toString());
+        assertTrue(wm.getChangedAttributes().isEmpty());
+    }
+
+    @Test
+    public void fullRunDiscardsBaseline() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        run(wm, configuration(16, "mon", "work", "walking", true));
+        assertNotNull(wm.getIncrementalBaseline());
+
+        run(wm, configuration(16, "mon", "work", "walking", false));
+        assertNull(wm.getIncrementalBaseline());
+        assertEquals(Arrays.asList(TABLES), run(wm, configuration(16, "mon", "work", "walking", true)));
+    }
+
+    private static class RecordingInference extends FixedOrderInference {
+        private final List<String> processed = new LinkedList<String>();
+
+        RecordingInference(WorkingMemory wm, XTTModel model, Configuration conf) {
+            super(wm, model, conf);
+        }
+
+        @Override
+        protected void runRules(Table table) throws InferenceInterruptedException {
+            processed.add(table.getName());
+            super.runRules(table);
+        }
+    }
+}
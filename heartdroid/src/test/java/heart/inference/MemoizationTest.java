@@ -0,0 +1,191 @@
+package heart.inference;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.alsvfd.Value;
+import heart.exceptions.BuilderException;
+import heart.exceptions.InferenceInterruptedException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Attribute;
+import heart.xtt.Table;
+import heart.xtt.XTTModel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MemoizationTest {
+
+    private XTTModel model;
+
+    private final String MODEL_PATH = "src/test/resources/inference-test.pl";
+    private final String[] TABLES = {"DayTime", "Today", "Actions", "Threats"};
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        model = parse();
+    }
+
+    private XTTModel parse() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        return parser.getModel();
+    }
+
+    private Configuration configuration(double hour, String day, String location, String activity, boolean memoization)
+            throws BuilderException {
+        State initial = new State();
+        initial.addStateElement(new StateElement("hour", new SimpleNumeric(hour)));
+        initial.addStateElement(new StateElement("day", new SimpleSymbolic(day)));
+        initial.addStateElement(new StateElement("location", new SimpleSymbolic(location)));
+        initial.addStateElement(new StateElement("activity", new SimpleSymbolic(activity)));
+        return new Configuration.Builder()
+                .setInitialState(initial)
+                .setMemoizationEnabled(memoization)
+                .build();
+    }
+
+    private List<String> run(XTTModel model, WorkingMemory wm, Configuration conf) {
+        RecordingInference inference = new RecordingInference(wm, model, conf);
+        inference.start(new InferenceAlgorithm.TableParameters(TABLES));
+        return inference.processed;
+    }
+
+    private void assertSameState(WorkingMemory expected, WorkingMemory actual) {
+        for (Attribute a : model.getAttributes()) {
+            assertEquals("Value of " + a.getName(),
+                    expected.getAttributeValue(a).toString(), actual.getAttributeValue(a).toString());
+        }
+    }
+
+    @Test
+    public void modelIsPure() {
+        assertTrue(model.isPure());
+        assertEquals(0, model.getResultCache().size());
+    }
+
+    @Test
+    public void cachedResultIsApplied() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        assertEquals(Arrays.asList(TABLES), run(model, wm, configuration(16, "mon", "work", "driving", true)));
+        assertEquals(1, model.getResultCache().size());
+
+        WorkingMemory memoized = new WorkingMemory();
+        assertTrue(run(model, memoized, configuration(16, "mon", "work", "driving", true)).isEmpty());
+        assertSameState(wm, memoized);
+        assertEquals("[road_threat]", memoized.getAttributeValue("{threat}").toString());
+
+        assertEquals(1, model.getResultCache().getHits());
+        assertEquals(1, model.getResultCache().getMisses());
+        assertEquals(0.5, model.getResultCache().getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void memoizedResultsMatchFullRuns() throws BuilderException {
+        WorkingMemory memoized = new WorkingMemory();
+        Object[][] events = {
+                {16d, "mon", "work", "walking"},
+                {22d, "sat", "home", "idle"},
+                {16d, "mon", "work", "driving"},
+                {16d, "mon", "work", "walking"},
+                {8d, "tue", "outside", "running"},
+                {22d, "sat", "home", "idle"},
+                {16d, "mon", "work", "driving"},
+        };
+        for (Object[] e : events) {
+            WorkingMemory full = new WorkingMemory();
+            run(model, full, configuration((Double) e[0], (String) e[1], (String) e[2], (String) e[3], false));
+            run(model, memoized, configuration((Double) e[0], (String) e[1], (String) e[2], (String) e[3], true));
+            assertSameState(full, memoized);
+        }
+        assertEquals(4, model.getResultCache().size());
+        assertEquals(3, model.getResultCache().getHits());
+    }
+
+    @Test
+    public void differentPlansAreCachedSeparately() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        run(model, wm, configuration(16, "mon", "work", "driving", true));
+
+        RecordingInference inference = new RecordingInference(wm, model, configuration(16, "mon", "work", "driving", true));
+        inference.start(new InferenceAlgorithm.TableParameters(new String[]{"DayTime"}));
+        assertEquals(Arrays.asList("DayTime"), inference.processed);
+        assertEquals(2, model.getResultCache().size());
+    }
+
+    @Test
+    public void reloadedModelStartsWithEmptyCache() throws BuilderException, ModelBuildingException, ParsingSyntaxException {
+        run(model, new WorkingMemory(), configuration(16, "mon", "work", "driving", true));
+
+        XTTModel reloaded = parse();
+        assertEquals(0, reloaded.getResultCache().size());
+        assertEquals(Arrays.asList(TABLES), run(reloaded, new WorkingMemory(), configuration(16, "mon", "work", "driving", true)));
+    }
+
+    @Test
+    public void disabledMemoizationDoesNotUseCache() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        run(model, wm, configuration(16, "mon", "work", "driving", false));
+        assertEquals(Arrays.asList(TABLES), run(model, wm, configuration(16, "mon", "work", "driving", false)));
+        assertEquals(0, model.getResultCache().size());
+        assertEquals(0, model.getResultCache().getMisses());
+    }
+
+    @Test
+    public void tokenPassingIsNotMemoized() throws BuilderException {
+        Configuration conf = new Configuration.Builder(configuration(16, "mon", "work", "driving", true))
+                .withTokenPassingEnabled(true)
+                .build();
+        List<String> processed = run(model, new WorkingMemory(), conf);
+        assertFalse(processed.isEmpty());
+        assertEquals(processed, run(model, new WorkingMemory(), conf));
+        assertEquals(0, model.getResultCache().size());
+        assertEquals(0, model.getResultCache().getMisses());
+    }
+
+    @Test
+    public void leastRecentlyUsedResultIsEvicted() throws BuilderException {
+        ResultCache cache = new ResultCache(2);
+        ResultCache.Key[] keys = new ResultCache.Key[3];
+        for (int i = 0; i < keys.length; i++) {
+            State s = configuration(i, "mon", "work", "driving", true).getInitialState();
+            keys[i] = new ResultCache.Key(FixedOrderInference.class, model.getTables().toArray(new Table[0]),
+                    Object.class, Object.class, ResultCache.Key.canonicalInputs(s, model.getAttributes()));
+            cache.put(keys[i], new HashMap<String, Value>());
+            if (i == 1) {
+                assertNotNull(cache.get(keys[0]));
+            }
+        }
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNotNull(cache.get(keys[0]));
+        assertNull(cache.get(keys[1]));
+        assertNotNull(cache.get(keys[2]));
+    }
+
+    private static class RecordingInference extends FixedOrderInference {
+        private final List<String> processed = new LinkedList<String>();
+
+        RecordingInference(WorkingMemory wm, XTTModel model, Configuration conf) {
+            super(wm, model, conf);
+        }
+
+        @Override
+        protected void runRules(Table table) throws InferenceInterruptedException {
+            processed.add(table.getName());
+            super.runRules(table);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package heart.inference;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Attribute;
+import heart.xtt.XTTModel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelInferenceTest {
+
+    private XTTModel model;
+    private ForkJoinPool pool;
+
+    private final String MODEL_PATH = "src/test/resources/inference-test.pl";
+    private final String[] TABLES = {"DayTime", "Today", "Actions", "Threats"};
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private Configuration.Builder builder(double hour, String day, String location, String activity) {
+        State initial = new State();
+        initial.addStateElement(new StateElement("hour", new SimpleNumeric(hour)));
+        initial.addStateElement(new StateElement("day", new SimpleSymbolic(day)));
+        initial.addStateElement(new StateElement("location", new SimpleSymbolic(location)));
+        initial.addStateElement(new StateElement("activity", new SimpleSymbolic(activity)));
+        return new Configuration.Builder().setInitialState(initial);
+    }
+
+    private void assertSameState(WorkingMemory expected, WorkingMemory actual) {
+        for (Attribute a : model.getAttributes()) {
+            assertEquals("Value of " + a.getName(),
+                    expected.getAttributeValue(a).toString(), actual.getAttributeValue(a).toString());
+        }
+    }
+
+    @Test
+    public void parallelResultsMatchSequentialRuns() throws BuilderException {
+        Object[][] events = {
+                {16d, "mon", "work", "walking"},
+                {16d, "mon", "work", "driving"},
+                {22d, "mon", "home", "idle"},
+                {8d, "sat", "home", "idle"},
+                {8d, "tue", "outside", "running"},
+        };
+        for (Object[] e : events) {
+            WorkingMemory sequential = new WorkingMemory();
+            WorkingMemory parallel = new WorkingMemory();
+            Configuration.Builder b = builder((Double) e[0], (String) e[1], (String) e[2], (String) e[3]);
+
+            new FixedOrderInference(sequential, model, b.build()).start(new InferenceAlgorithm.TableParameters(TABLES));
+            new FixedOrderInference(parallel, model, b.setParallelism(4).setForkJoinPool(pool).build())
+                    .start(new InferenceAlgorithm.TableParameters(TABLES));
+            assertSameState(sequential, parallel);
+
+            WorkingMemory dataDriven = new WorkingMemory();
+            new DataDrivenInference(dataDriven, model, b.build()).start(new InferenceAlgorithm.TableParameters("DayTime", "Today"));
+            assertSameState(sequential, dataDriven);
+        }
+    }
+
+    @Test
+    public void parallelismIsSetWithBuilder() throws BuilderException {
+        Configuration sequential = builder(16, "mon", "work", "walking").build();
+        assertEquals(1, sequential.getParallelism());
+        assertNull(sequential.getForkJoinPool());
+
+        Configuration shared = builder(16, "mon", "work", "walking").setParallelism(2).build();
+        assertNotNull(shared.getForkJoinPool());
+        assertSame(shared.getForkJoinPool(), builder(8, "tue", "home", "idle").setParallelism(2).build().getForkJoinPool());
+
+        Configuration own = builder(16, "mon", "work", "walking").setParallelism(2).setForkJoinPool(pool).build();
+        assertSame(pool, own.getForkJoinPool());
+    }
+
+    @Test
+    public void sharedPoolsAreLimited() throws BuilderException {
+        int common = ForkJoinPool.getCommonPoolParallelism();
+        if (common > 1) {
+            assertSame(ForkJoinPool.commonPool(), builder(16, "mon", "work", "walking").setParallelism(common).build().getForkJoinPool());
+        }
+        Set<ForkJoinPool> pools = Collections.newSetFromMap(new IdentityHashMap<ForkJoinPool, Boolean>());
+        for (int parallelism = 2; parallelism < 2 + 2 * Configuration.MAX_SHARED_POOLS; parallelism++) {
+            pools.add(builder(16, "mon", "work", "walking").setParallelism(parallelism).build().getForkJoinPool());
+        }
+        pools.remove(ForkJoinPool.commonPool());
+        assertTrue(pools.size() <= Configuration.MAX_SHARED_POOLS);
+    }
+
+    @Test(expected = BuilderException.class)
+    public void parallelismHasToBePositive() throws BuilderException {
+        builder(16, "mon", "work", "walking").setParallelism(0).build();
+    }
+}
@@ -0,0 +1,85 @@
+package heart.inference;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.uncertainty.ConflictSetFireAll;
+import heart.uncertainty.ConflictSetFirstWin;
+import heart.uncertainty.ConflictSetLastWin;
+import heart.uncertainty.ConflictSetResolution;
+import heart.xtt.XTTModel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelRuleEvaluationTest {
+
+    private XTTModel model;
+    private ForkJoinPool pool;
+
+    private final String MODEL_PATH = "src/test/resources/large-table-test.pl";
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private String grade(double level, String colour, ConflictSetResolution csr, boolean parallel) throws BuilderException {
+        State initial = new State();
+        initial.addStateElement(new StateElement("level", new SimpleNumeric(level)));
+        initial.addStateElement(new StateElement("colour", new SimpleSymbolic(colour)));
+        Configuration.Builder builder = new Configuration.Builder().setInitialState(initial).setCsr(csr);
+        if (parallel) {
+            builder.setParallelism(4).setForkJoinPool(pool).setParallelRuleThreshold(100);
+        }
+        WorkingMemory wm = new WorkingMemory();
+        new FixedOrderInference(wm, model, builder.build()).start(new InferenceAlgorithm.TableParameters("Grades"));
+        return wm.getAttributeValue("grade").toString();
+    }
+
+    @Test
+    public void conflictSetKeepsRuleOrder() throws BuilderException {
+        assertEquals("1.0", grade(250, "green", new ConflictSetFirstWin(), true));
+        assertEquals("250.0", grade(250, "green", new ConflictSetLastWin(), true));
+        assertEquals("3.0", grade(500, "red", new ConflictSetFirstWin(), true));
+        assertEquals("498.0", grade(500, "red", new ConflictSetLastWin(), true));
+    }
+
+    @Test
+    public void parallelResultsMatchSequentialEvaluation() throws BuilderException {
+        ConflictSetResolution[] resolutions = {new ConflictSetFirstWin(), new ConflictSetLastWin(), new ConflictSetFireAll()};
+        String[] colours = {"red", "green", "blue"};
+        for (ConflictSetResolution csr : resolutions) {
+            for (String colour : colours) {
+                for (double level = 0; level <= 700; level += 70) {
+                    assertEquals(grade(level, colour, csr, false), grade(level, colour, csr, true));
+                }
+            }
+        }
+    }
+
+    @Test(expected = BuilderException.class)
+    public void thresholdHasToBePositive() throws BuilderException {
+        new Configuration.Builder().setParallelRuleThreshold(0).build();
+    }
+}
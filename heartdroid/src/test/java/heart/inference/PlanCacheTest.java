@@ -0,0 +1,105 @@
+package heart.inference;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Table;
+import heart.xtt.XTTModel;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PlanCacheTest {
+
+    private XTTModel model;
+    private Configuration conf;
+
+    private final String MODEL_PATH = "src/test/resources/inference-test.pl";
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException, BuilderException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+
+        State initial = new State();
+        initial.addStateElement(new StateElement("hour", new SimpleNumeric(16d)));
+        initial.addStateElement(new StateElement("day", new SimpleSymbolic("mon", 1)));
+        initial.addStateElement(new StateElement("location", new SimpleSymbolic("work")));
+        initial.addStateElement(new StateElement("activity", new SimpleSymbolic("walking")));
+        conf = new Configuration.Builder().setInitialState(initial).build();
+    }
+
+    @Test
+    public void plansAreReusedForTheSameParameters() {
+        WorkingMemory wm = new WorkingMemory();
+        PlanCache cache = model.getPlanCache();
+
+        new DataDrivenInference(wm, model, conf).start(new InferenceAlgorithm.AttributeParameters("hour", "day"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getHits());
+
+        new DataDrivenInference(wm, model, conf).start(new InferenceAlgorithm.AttributeParameters("hour", "day"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals("leaving", wm.getAttributeValue("action").toString());
+
+        new GoalDrivenInference(wm, model, conf).start(new InferenceAlgorithm.AttributeParameters("hour"));
+        new DataDrivenInference(wm, model, conf).start(new InferenceAlgorithm.TableParameters("DayTime"));
+        assertEquals(3, cache.getMisses());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void cachedPlanKeepsTheStackOrder() {
+        InferenceAlgorithm algorithm = new DataDrivenInference(new WorkingMemory(), model, conf);
+        algorithm.start(new InferenceAlgorithm.TableParameters("DayTime"));
+
+        Table[] plan = model.getPlanCache().get(
+                new PlanCache.Key(DataDrivenInference.class, false, new String[]{"DayTime"}));
+        assertNotNull(plan);
+        assertEquals(3, plan.length);
+        assertEquals("DayTime", plan[0].getName());
+        assertEquals("Actions", plan[1].getName());
+        assertEquals("Threats", plan[2].getName());
+    }
+
+    @Test
+    public void leastRecentlyUsedPlanIsEvicted() {
+        PlanCache cache = new PlanCache(2);
+        PlanCache.Key a = new PlanCache.Key(FixedOrderInference.class, false, new String[]{"A"});
+        PlanCache.Key b = new PlanCache.Key(FixedOrderInference.class, false, new String[]{"B"});
+        PlanCache.Key c = new PlanCache.Key(FixedOrderInference.class, false, new String[]{"C"});
+        cache.put(a, new Table[0]);
+        cache.put(b, new Table[0]);
+        cache.get(a);
+        cache.put(c, new Table[0]);
+
+        assertNotNull(cache.get(a));
+        assertNull(cache.get(b));
+        assertNotNull(cache.get(c));
+
+        cache.invalidate();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void rebuiltModelStartsWithEmptyCache() throws ModelBuildingException {
+        new FixedOrderInference(new WorkingMemory(), model, conf)
+                .start(new InferenceAlgorithm.TableParameters("DayTime", "Today"));
+        assertEquals(1, model.getPlanCache().size());
+
+        XTTModel rebuilt = model.getBuilder().build();
+        assertNotSame(model.getPlanCache(), rebuilt.getPlanCache());
+        assertEquals(0, rebuilt.getPlanCache().size());
+    }
+}
@@ -0,0 +1,113 @@
+package heart.inference;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.InferenceInterruptedException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Table;
+import heart.xtt.XTTModel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TokenPassingTest {
+
+    private XTTModel model;
+
+    private final String MODEL_PATH = "src/test/resources/token-passing-test.pl";
+    private final String[] TABLES = {"Start", "Left", "Right", "Final"};
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+    }
+
+    private Configuration configuration(String mode, boolean tokenPassing) throws BuilderException {
+        State initial = new State();
+        initial.addStateElement(new StateElement("mode", new SimpleSymbolic(mode)));
+        return new Configuration.Builder()
+                .setInitialState(initial)
+                .withTokenPassingEnabled(tokenPassing)
+                .build();
+    }
+
+    private List<String> run(WorkingMemory wm, Configuration conf, String... tables) {
+        RecordingInference inference = new RecordingInference(wm, model, conf);
+        inference.start(new InferenceAlgorithm.TableParameters(tables));
+        return inference.processed;
+    }
+
+    @Test
+    public void allTablesAreProcessedWithoutTokens() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        assertEquals(Arrays.asList(TABLES), run(wm, configuration("a", false), TABLES));
+        assertEquals("1.0", wm.getAttributeValue("left_score").toString());
+    }
+
+    @Test
+    public void onlyLinkedTablesAreProcessed() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        assertEquals(Arrays.asList("Start", "Left", "Final"), run(wm, configuration("a", true), TABLES));
+        assertEquals("1.0", wm.getAttributeValue("left_score").toString());
+        assertTrue(wm.getAttributeValue("right_score") instanceof Null);
+
+        wm = new WorkingMemory();
+        assertEquals(Arrays.asList("Start", "Right"), run(wm, configuration("b", true), TABLES));
+        assertEquals("2.0", wm.getAttributeValue("right_score").toString());
+        assertTrue(wm.getAttributeValue("result") instanceof Null);
+
+        wm = new WorkingMemory();
+        assertEquals(Arrays.asList("Start"), run(wm, configuration("c", true), TABLES));
+        assertEquals("left", wm.getAttributeValue("route").toString());
+        assertTrue(wm.getAttributeValue("left_score") instanceof Null);
+    }
+
+    @Test
+    public void ruleTokensRestrictEvaluatedRules() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        run(wm, configuration("a", true), TABLES);
+        assertEquals("other", wm.getAttributeValue("result").toString());
+    }
+
+    @Test
+    public void processedTablesArePushedWhenTheyReceiveTokens() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        assertEquals(Arrays.asList("Start", "Left", "Final"), run(wm, configuration("a", true), "Left", "Start"));
+        assertEquals("other", wm.getAttributeValue("result").toString());
+    }
+
+    @Test
+    public void firstTableReceivesTokenWhenAllAreLinked() throws BuilderException {
+        WorkingMemory wm = new WorkingMemory();
+        assertEquals(Arrays.asList("Final"), run(wm, configuration("a", true), "Final", "Left"));
+    }
+
+    private static class RecordingInference extends FixedOrderInference {
+        private final List<String> processed = new LinkedList<String>();
+
+        RecordingInference(WorkingMemory wm, XTTModel model, Configuration conf) {
+            super(wm, model, conf);
+        }
+
+        @Override
+        protected void runRules(Table table) throws InferenceInterruptedException {
+            processed.add(table.getName());
+            super.runRules(table);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package heart.uncertainty;
+
+import heart.Configuration;
+import heart.Debug;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.inference.FixedOrderInference;
+import heart.inference.InferenceAlgorithm;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.xtt.Rule;
+import heart.xtt.XTTModel;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CrispEvaluationAllocationTest {
+
+    private static final int WARM_UP = 5000;
+    private static final int ITERATIONS = 2000;
+    private static final int REPEATS = 10;
+
+    private XTTModel model;
+    private WorkingMemory wm;
+    private Debug.Level debugLevel;
+
+    private final String MODEL_PATH = "src/test/resources/inference-test.pl";
+    private final String LARGE_MODEL_PATH = "src/test/resources/large-table-test.pl";
+    private final String[] TABLES = {"DayTime", "Today", "Actions", "Threats"};
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException, BuilderException {
+        debugLevel = Debug.debugLevel;
+        Debug.debugLevel = Debug.Level.SILENT;
+
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+
+        State initial = new State();
+        initial.addStateElement(new StateElement("hour", new SimpleNumeric(16.0)));
+        initial.addStateElement(new StateElement("day", new SimpleSymbolic("mon")));
+        initial.addStateElement(new StateElement("location", new SimpleSymbolic("work")));
+        initial.addStateElement(new StateElement("activity", new SimpleSymbolic("driving")));
+        wm = new WorkingMemory();
+        new FixedOrderInference(wm, model, new Configuration.Builder().setInitialState(initial).build())
+                .start(new InferenceAlgorithm.TableParameters(TABLES));
+    }
+
+    @After
+    public void tearDown() {
+        Debug.debugLevel = debugLevel;
+    }
+
+    @Test
+    public void sharedConstantsCannotBeModified() {
+        assertSame(UncertainTrue.TRUE, UncertainTrue.valueOf(1.0f));
+        assertSame(UncertainTrue.FALSE, UncertainTrue.valueOf(0.0f));
+        assertEquals(0.5f, UncertainTrue.valueOf(0.5f).getCertinatyFactor(), 0);
+        try {
+            UncertainTrue.TRUE.setCertinatyFactor(0.5f);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertEquals(1.0f, UncertainTrue.TRUE.getCertinatyFactor(), 0);
+        }
+        try {
+            Null.INSTANCE.setCertaintyFactor(0.5f);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertSame(Null.INSTANCE, wm.getAttributeValue("not_registered"));
+        Null copy = (Null) Null.INSTANCE.clone();
+        copy.setCertaintyFactor(0.5f);
+        assertEquals(0.5f, copy.getCertaintyFactor(), 0);
+    }
+
+    @Test
+    public void conflictSetKeepsOrderAndFirstCertainty() {
+        ConflictSet cs = new ConflictSet();
+        Rule[] rules = new Rule[40];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = new Rule();
+            cs.add(rules[i], UncertainTrue.TRUE);
+        }
+        cs.add(rules[3], UncertainTrue.FALSE);
+        cs.add(rules[30], UncertainTrue.FALSE);
+        assertEquals(rules.length, cs.size());
+        assertSame(UncertainTrue.TRUE, cs.getCertainty(3));
+        assertSame(UncertainTrue.TRUE, cs.getCertainty(30));
+        assertSame(rules[0], cs.getFirst().getKey());
+        assertSame(rules[rules.length - 1], cs.getLast().getKey());
+
+        ConflictSet toExecute = new ConflictSet();
+        new ConflictSetLastWin().resolveConflictSet(cs, toExecute);
+        assertEquals(1, toExecute.size());
+        assertSame(rules[rules.length - 1], toExecute.getRule(0));
+
+        cs.clear();
+        assertTrue(cs.isEmpty());
+        assertFalse(cs.iterator().hasNext());
+
+        // the hash table of the rules is reused after clearing
+        for (int i = rules.length - 1; i >= 0; i--) {
+            cs.add(rules[i], UncertainTrue.FALSE);
+            cs.add(rules[i], UncertainTrue.TRUE);
+        }
+        assertEquals(rules.length, cs.size());
+        assertSame(rules[0], cs.getLast().getKey());
+        assertSame(UncertainTrue.FALSE, cs.getCertainty(0));
+    }
+
+    @Test
+    public void crispInferenceDoesNotAllocatePerRule() throws ModelBuildingException, ParsingSyntaxException, BuilderException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(LARGE_MODEL_PATH));
+        XTTModel large = parser.getModel();
+        int rules = large.getDependencyGraph().getTable("Grades").getRuleArray().length;
+
+        State initial = new State();
+        initial.addStateElement(new StateElement("level", new SimpleNumeric(250d)));
+        initial.addStateElement(new StateElement("colour", new SimpleSymbolic("green")));
+        for (Configuration conf : Arrays.asList(
+                new Configuration.Builder().setInitialState(initial).build(),
+                new Configuration.Builder().setInitialState(initial).setRuleIndexEnabled(true).build(),
+                new Configuration.Builder().setInitialState(initial).setTableCompilationEnabled(true).build())) {
+            // the tables are processed many times in a single run, so that the cost of the run itself can be subtracted
+            long once = allocatedPerRun(threads, large, conf, 1);
+            long repeated = allocatedPerRun(threads, large, conf, 1 + REPEATS);
+            long perTable = (repeated - once) / REPEATS;
+            assertTrue("Allocated " + perTable + " bytes per table of " + rules + " rules", perTable < rules);
+        }
+    }
+
+    /**
+     * Runs the inference on the same working memory many times and returns the average number of bytes allocated by a run.
+     */
+    private static long allocatedPerRun(com.sun.management.ThreadMXBean threads, XTTModel model, Configuration conf, int tables) {
+        String[] names = new String[tables];
+        Arrays.fill(names, "Grades");
+        InferenceAlgorithm.TableParameters parameters = new InferenceAlgorithm.TableParameters(names);
+        WorkingMemory wm = new WorkingMemory();
+        FixedOrderInference inference = new FixedOrderInference(wm, model, conf);
+        for (int i = 0; i < WARM_UP; i++) {
+            inference.start(parameters);
+        }
+        long tid = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < ITERATIONS; i++) {
+            inference.start(parameters);
+        }
+        long allocated = threads.getThreadAllocatedBytes(tid) - before;
+        assertEquals("1.0", wm.getAttributeValue("grade").toString());
+        return allocated / ITERATIONS;
+    }
+}
@@ -0,0 +1,130 @@
+package heart.xtt;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.Formulae;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.inference.FixedOrderInference;
+import heart.inference.InferenceAlgorithm;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.uncertainty.ALSVEvaluator;
+import heart.uncertainty.ConflictSetFirstWin;
+import heart.uncertainty.ConflictSetLastWin;
+import heart.uncertainty.ConflictSetResolution;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveConditionOrderingTest {
+
+    private XTTModel model;
+
+    private final String MODEL_PATH = "src/test/resources/large-table-test.pl";
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+    }
+
+    private Rule firstRule() {
+        return model.getDependencyGraph().getTable("Grades").getRules().getFirst();
+    }
+
+    @Test
+    public void failingConditionsAreMovedToTheFront() throws Exception {
+        Rule rule = firstRule();
+        Formulae level = rule.getConditions().get(0);
+        Formulae colour = rule.getConditions().get(1);
+
+        WorkingMemory wm = new WorkingMemory();
+        wm.registerAllAttributes(model);
+        wm.setAttributeValue("level", new SimpleNumeric(500d));
+        wm.setAttributeValue("colour", new SimpleSymbolic("red"));
+
+        ALSVEvaluator ute = new ALSVEvaluator();
+        for (int i = 0; i < Rule.REORDER_INTERVAL; i++) {
+            assertEquals(rule.evaluate(wm, ute).getCertinatyFactor(), rule.evaluate(wm, ute, true).getCertinatyFactor(), 0);
+        }
+        List<ConditionStatistics> statistics = rule.getConditionStatistics();
+        assertSame(level, statistics.get(0).getCondition());
+        assertEquals(Rule.REORDER_INTERVAL, statistics.get(0).getEvaluations());
+        assertEquals(0, statistics.get(0).getFailures());
+        assertEquals(1.0, statistics.get(1).getSelectivity(), 0);
+        assertSame(colour, rule.getAdaptiveConditionOrder().getFirst());
+
+        assertEquals(ute.getMinCertainty(), rule.evaluate(wm, ute, true).getCertinatyFactor(), 0);
+        assertEquals(1, statistics.get(0).getSkipped());
+        assertEquals(Rule.REORDER_INTERVAL, statistics.get(0).getEvaluations());
+    }
+
+    @Test
+    public void writtenOrderIsUsedWithoutAdaptiveMode() throws Exception {
+        Rule rule = firstRule();
+        WorkingMemory wm = new WorkingMemory();
+        wm.registerAllAttributes(model);
+        wm.setAttributeValue("level", new SimpleNumeric(0d));
+        wm.setAttributeValue("colour", new SimpleSymbolic("green"));
+
+        rule.evaluate(wm, new ALSVEvaluator());
+        assertEquals(0, rule.getConditionStatistics().get(0).getEvaluations());
+        assertEquals(rule.getConditions(), rule.getAdaptiveConditionOrder());
+    }
+
+    @Test
+    public void changedConditionsAreEvaluated() throws Exception {
+        Rule rule = firstRule();
+        WorkingMemory wm = new WorkingMemory();
+        wm.registerAllAttributes(model);
+        wm.setAttributeValue("level", new SimpleNumeric(500d));
+        wm.setAttributeValue("colour", new SimpleSymbolic("red"));
+
+        ALSVEvaluator ute = new ALSVEvaluator();
+        assertEquals(ute.getMinCertainty(), rule.evaluate(wm, ute).getCertinatyFactor(), 0);
+        assertEquals(ute.getMinCertainty(), rule.evaluate(wm, ute, true).getCertinatyFactor(), 0);
+
+        rule.removeCondition(rule.getConditions().get(1));
+        assertEquals(ute.getMaxCertainty(), rule.evaluate(wm, ute).getCertinatyFactor(), 0);
+        assertEquals(ute.getMaxCertainty(), rule.evaluate(wm, ute, true).getCertinatyFactor(), 0);
+        assertEquals(1, rule.getConditionStatistics().size());
+    }
+
+    @Test
+    public void adaptiveInferenceMatchesFullEvaluation() throws BuilderException {
+        ConflictSetResolution[] resolutions = {new ConflictSetFirstWin(), new ConflictSetLastWin()};
+        String[] colours = {"red", "green", "blue"};
+        for (ConflictSetResolution csr : resolutions) {
+            for (String colour : colours) {
+                for (double level = 0; level <= 700; level += 35) {
+                    assertEquals(grade(level, colour, csr, false), grade(level, colour, csr, true));
+                }
+            }
+        }
+    }
+
+    private String grade(double level, String colour, ConflictSetResolution csr, boolean adaptive) throws BuilderException {
+        State initial = new State();
+        initial.addStateElement(new StateElement("level", new SimpleNumeric(level)));
+        initial.addStateElement(new StateElement("colour", new SimpleSymbolic(colour)));
+        Configuration conf = new Configuration.Builder()
+                .setInitialState(initial)
+                .setCsr(csr)
+                .setRuleIndexEnabled(false)
+                .setAdaptiveConditionOrderingEnabled(adaptive)
+                .build();
+        WorkingMemory wm = new WorkingMemory();
+        new FixedOrderInference(wm, model, conf).start(new InferenceAlgorithm.TableParameters("Grades"));
+        return wm.getAttributeValue("grade").toString();
+    }
+}
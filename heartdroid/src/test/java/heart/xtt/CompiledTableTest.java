@@ -0,0 +1,140 @@
+package heart.xtt;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.AttributeNotRegisteredException;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.NotInTheDomainException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.exceptions.UnknownValueException;
+import heart.inference.FixedOrderInference;
+import heart.inference.InferenceAlgorithm;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.uncertainty.ALSVEvaluator;
+import heart.uncertainty.ConflictSetFirstWin;
+import heart.uncertainty.ConflictSetLastWin;
+import heart.uncertainty.ConflictSetResolution;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CompiledTableTest {
+
+    private final String[] TABLES = {"DayTime", "Today", "Actions", "Threats"};
+
+    private XTTModel parse(String path) throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(path));
+        return parser.getModel();
+    }
+
+    private WorkingMemory memory(XTTModel model, Object... values)
+            throws NotInTheDomainException, AttributeNotRegisteredException {
+        WorkingMemory wm = new WorkingMemory();
+        wm.registerAllAttributes(model);
+        for (int i = 0; i < values.length; i += 2) {
+            wm.setAttributeValue((String) values[i], values[i + 1] instanceof Double
+                    ? new SimpleNumeric((Double) values[i + 1]) : new SimpleSymbolic((String) values[i + 1]));
+        }
+        return wm;
+    }
+
+    @Test
+    public void allConstantConditionsAreCompiled() throws Exception {
+        XTTModel model = parse("src/test/resources/large-table-test.pl");
+        CompiledTable compiled = model.getCompiledTable(model.getDependencyGraph().getTable("Grades"));
+        assertEquals(1200, compiled.getCompiledConditionCount());
+        assertEquals(0, compiled.getInterpretedConditionCount());
+        assertEquals(2, compiled.getSlotAttributes().size());
+        assertSame(compiled, model.getCompiledTable(model.getDependencyGraph().getTable("Grades")));
+    }
+
+    @Test
+    public void compiledRulesMatchInterpretedOnes() throws Exception {
+        XTTModel model = parse("src/test/resources/inference-test.pl");
+        ALSVEvaluator ute = new ALSVEvaluator();
+        Table dayTime = model.getDependencyGraph().getTable("DayTime");
+        CompiledTable compiled = model.getCompiledTable(dayTime);
+        for (double hour = 0; hour <= 23; hour += 0.25) {
+            WorkingMemory wm = memory(model, "hour", hour);
+            int[] classes = compiled.classify(wm);
+            for (Rule r : dayTime.getRules()) {
+                assertEquals(r.getName() + " for " + hour,
+                        r.evaluate(wm, ute).getCertinatyFactor(),
+                        compiled.evaluate(r, classes, wm, ute).getCertinatyFactor(), 0);
+            }
+        }
+    }
+
+    @Test(expected = UnknownValueException.class)
+    public void unknownValuesAreInterpreted() throws Exception {
+        XTTModel model = parse("src/test/resources/inference-test.pl");
+        Table dayTime = model.getDependencyGraph().getTable("DayTime");
+        WorkingMemory wm = memory(model);
+        wm.setAttributeValue("hour", new Null());
+        CompiledTable compiled = model.getCompiledTable(dayTime);
+        compiled.evaluate(dayTime.getRules().getFirst(), compiled.classify(wm), wm, new ALSVEvaluator());
+    }
+
+    @Test
+    public void compiledInferenceMatchesInterpreter() throws Exception {
+        XTTModel large = parse("src/test/resources/large-table-test.pl");
+        ConflictSetResolution[] resolutions = {new ConflictSetFirstWin(), new ConflictSetLastWin()};
+        String[] colours = {"red", "green", "blue"};
+        for (ConflictSetResolution csr : resolutions) {
+            for (String colour : colours) {
+                for (double level = -0.0; level <= 1000; level += 37.5) {
+                    State initial = new State();
+                    initial.addStateElement(new StateElement("level", new SimpleNumeric(level)));
+                    initial.addStateElement(new StateElement("colour", new SimpleSymbolic(colour)));
+                    assertEquals(run(large, initial, csr, false, "Grades").getAttributeValue("grade").toString(),
+                            run(large, initial, csr, true, "Grades").getAttributeValue("grade").toString());
+                }
+            }
+        }
+
+        XTTModel model = parse("src/test/resources/inference-test.pl");
+        String[] days = {"mon", "sat"};
+        String[] locations = {"home", "work", "outside"};
+        String[] activities = {"walking", "driving", "idle"};
+        for (double hour = 0; hour <= 23; hour += 0.5) {
+            for (String day : days) {
+                for (String location : locations) {
+                    for (String activity : activities) {
+                        State initial = new State();
+                        initial.addStateElement(new StateElement("hour", new SimpleNumeric(hour)));
+                        initial.addStateElement(new StateElement("day", new SimpleSymbolic(day)));
+                        initial.addStateElement(new StateElement("location", new SimpleSymbolic(location)));
+                        initial.addStateElement(new StateElement("activity", new SimpleSymbolic(activity)));
+                        WorkingMemory interpreted = run(model, initial, new ConflictSetFirstWin(), false, TABLES);
+                        WorkingMemory compiled = run(model, initial, new ConflictSetFirstWin(), true, TABLES);
+                        for (Attribute a : model.getAttributes()) {
+                            assertEquals(a.getName(), interpreted.getAttributeValue(a).toString(),
+                                    compiled.getAttributeValue(a).toString());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private WorkingMemory run(XTTModel model, State initial, ConflictSetResolution csr, boolean compiled, String... tables)
+            throws BuilderException {
+        Configuration conf = new Configuration.Builder()
+                .setInitialState(initial)
+                .setCsr(csr)
+                .setRuleIndexEnabled(false)
+                .setTableCompilationEnabled(compiled)
+                .build();
+        WorkingMemory wm = new WorkingMemory();
+        new FixedOrderInference(wm, model, conf).start(new InferenceAlgorithm.TableParameters(tables));
+        return wm;
+    }
+}
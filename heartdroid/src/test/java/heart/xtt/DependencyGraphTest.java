@@ -0,0 +1,83 @@
+package heart.xtt;
+
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DependencyGraphTest {
+
+    private XTTModel model;
+    private DependencyGraph graph;
+
+    private final String MODEL_PATH = "src/test/resources/inference-test.pl";
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+        graph = model.getDependencyGraph();
+    }
+
+    @Test
+    public void graphIsBuiltWithTheModel() {
+        assertSame(graph, model.getDependencyGraph());
+    }
+
+    @Test
+    public void tablesAreResolvedByName() {
+        assertEquals("Actions", graph.getTable("Actions").getName());
+        assertNull(graph.getTable("NoSuchTable"));
+    }
+
+    @Test
+    public void consumersAndProducers() {
+        Attribute daytime = model.getAttributeByName("daytime");
+        assertEquals(Collections.singletonList(graph.getTable("Actions")), graph.getConsumers(daytime));
+        assertEquals(Collections.singletonList(graph.getTable("DayTime")), graph.getProducers(daytime));
+
+        Attribute activity = model.getAttributeByName("activity");
+        assertTrue(graph.getProducers(activity).isEmpty());
+        assertTrue(graph.getConsumers(null).isEmpty());
+    }
+
+    @Test
+    public void downstreamAndUpstream() {
+        Table actions = graph.getTable("Actions");
+        assertEquals(Collections.singletonList(graph.getTable("Threats")), graph.getDownstreamTables(actions));
+
+        List<Table> upstream = graph.getUpstreamTables(actions);
+        assertEquals(2, upstream.size());
+        assertTrue(upstream.containsAll(Arrays.asList(graph.getTable("DayTime"), graph.getTable("Today"))));
+        assertTrue(graph.getDownstreamTables(graph.getTable("Threats")).isEmpty());
+    }
+
+    @Test
+    public void independentTablesShareLayer() {
+        Table[] plan = {graph.getTable("DayTime"), graph.getTable("Today"),
+                graph.getTable("Actions"), graph.getTable("Threats")};
+        List<List<Table>> layers = graph.splitIntoLayers(plan);
+        assertEquals(3, layers.size());
+        assertEquals(Arrays.asList(plan[0], plan[1]), layers.get(0));
+        assertEquals(Collections.singletonList(plan[2]), layers.get(1));
+        assertEquals(Collections.singletonList(plan[3]), layers.get(2));
+
+        // a table concluding an attribute has to wait for the tables reading its previous value
+        Table[] reversed = {plan[2], plan[0]};
+        assertEquals(2, graph.splitIntoLayers(reversed).size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void graphIsImmutable() {
+        graph.getConsumers(model.getAttributeByName("hour")).clear();
+    }
+}
@@ -0,0 +1,122 @@
+package heart.xtt;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.inference.FixedOrderInference;
+import heart.inference.InferenceAlgorithm;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RuleBaseOptimizerTest {
+
+    private XTTModel model;
+
+    private final String MODEL_PATH = "src/test/resources/optimizer-test.pl";
+    private final String[] DAYS = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+
+    @Before
+    public void setUp() throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(MODEL_PATH));
+        model = parser.getModel();
+    }
+
+    private XTTModel optimize(RuleBaseOptimizer optimizer) throws ModelBuildingException {
+        return model.getBuilder().copy().setRuleBaseOptimizer(optimizer).build();
+    }
+
+    private Table heating(XTTModel model) {
+        return model.getTables().getFirst();
+    }
+
+    private String run(XTTModel model, String day, double hour) throws BuilderException {
+        State initial = new State();
+        initial.addStateElement(new StateElement("day", new SimpleSymbolic(day)));
+        initial.addStateElement(new StateElement("hour", new SimpleNumeric(hour)));
+        // the dead rule fails for every value, so the original model concludes anything
+        // only when the index excludes that rule from the evaluation
+        Configuration conf = new Configuration.Builder()
+                .setInitialState(initial)
+                .setRuleIndexEnabled(true)
+                .build();
+        WorkingMemory wm = new WorkingMemory();
+        new FixedOrderInference(wm, model, conf).start(new InferenceAlgorithm.TableParameters(new String[]{"Heating"}));
+        return wm.getAttributeValue("mode").toString();
+    }
+
+    @Test
+    public void optimizationIsDisabledByDefault() {
+        assertNull(model.getOptimizationReport());
+        assertEquals(6, heating(model).getRules().size());
+    }
+
+    @Test
+    public void deadRulesAreRemovedAndDisjointRulesMerged() throws ModelBuildingException {
+        XTTModel optimized = optimize(new RuleBaseOptimizer.Builder().build());
+        RuleBaseOptimizer.Report report = optimized.getOptimizationReport();
+
+        assertEquals(1, report.getDeadRules().size());
+        assertTrue(report.getDeadRules().get(0).startsWith("Heating/3"));
+        assertEquals(Arrays.asList("Heating/5 into Heating/4"), report.getMergedRules());
+        assertTrue(report.getSubsumedRules().isEmpty());
+        // without the assumption of known values, conditions that are always true still guard against unknown ones
+        assertTrue(report.getRemovedConditions().isEmpty());
+
+        List<Rule> rules = heating(optimized).getRules();
+        assertEquals(4, rules.size());
+        assertEquals(4, heating(optimized).getRuleArray().length);
+        assertEquals("Heating/4", rules.get(2).getName());
+        assertEquals("day IN [mon ,tue]", rules.get(2).getConditions().getFirst().toString());
+    }
+
+    @Test
+    public void subsumedRulesAndTrueConditionsAreRemoved() throws ModelBuildingException {
+        XTTModel optimized = optimize(new RuleBaseOptimizer.Builder()
+                .setFirstWinTables(true)
+                .setKnownValuesAssumed(true)
+                .build());
+        RuleBaseOptimizer.Report report = optimized.getOptimizationReport();
+
+        assertEquals(2, report.getRemovedConditions().size());
+        assertEquals(Arrays.asList("Heating/2 by Heating/1"), report.getSubsumedRules());
+        assertEquals(3, report.getRemovedRuleCount());
+
+        List<Rule> rules = heating(optimized).getRules();
+        assertEquals(3, rules.size());
+        assertEquals(1, rules.get(0).getConditions().size());
+        assertEquals(1, rules.get(2).getConditions().size());
+    }
+
+    @Test
+    public void optimizedModelGivesTheSameConclusions() throws ModelBuildingException, BuilderException {
+        XTTModel optimized = optimize(new RuleBaseOptimizer.Builder()
+                .setFirstWinTables(true)
+                .setKnownValuesAssumed(true)
+                .build());
+        for (String day : DAYS) {
+            for (int hour = 0; hour <= 23; hour++) {
+                if (day.equals("mon")) {
+                    // the dead rule interrupts the original table with a value outside of the domain
+                    continue;
+                }
+                assertEquals(day + " " + hour, run(model, day, hour), run(optimized, day, hour));
+            }
+        }
+        assertEquals("boost", run(optimized, "mon", 5));
+        assertEquals("null", run(model, "mon", 5));
+    }
+}
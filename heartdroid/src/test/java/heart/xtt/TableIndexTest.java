@@ -0,0 +1,139 @@
+package heart.xtt;
+
+import heart.Configuration;
+import heart.State;
+import heart.StateElement;
+import heart.WorkingMemory;
+import heart.alsvfd.Null;
+import heart.alsvfd.SimpleNumeric;
+import heart.alsvfd.SimpleSymbolic;
+import heart.exceptions.AttributeNotRegisteredException;
+import heart.exceptions.BuilderException;
+import heart.exceptions.ModelBuildingException;
+import heart.exceptions.NotInTheDomainException;
+import heart.exceptions.ParsingSyntaxException;
+import heart.inference.FixedOrderInference;
+import heart.inference.InferenceAlgorithm;
+import heart.parser.hmr.HMRParser;
+import heart.parser.hmr.runtime.SourceFile;
+import heart.uncertainty.ConflictSetFirstWin;
+import heart.uncertainty.ConflictSetLastWin;
+import heart.uncertainty.ConflictSetResolution;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TableIndexTest {
+
+    private XTTModel parse(String path) throws ModelBuildingException, ParsingSyntaxException {
+        HMRParser parser = new HMRParser();
+        parser.parse(new SourceFile(path));
+        return parser.getModel();
+    }
+
+    private WorkingMemory memory(XTTModel model, Object... values)
+            throws NotInTheDomainException, AttributeNotRegisteredException {
+        WorkingMemory wm = new WorkingMemory();
+        wm.registerAllAttributes(model);
+        for (int i = 0; i < values.length; i += 2) {
+            wm.setAttributeValue((String) values[i], values[i + 1] instanceof Double
+                    ? new SimpleNumeric((Double) values[i + 1]) : new SimpleSymbolic((String) values[i + 1]));
+        }
+        return wm;
+    }
+
+    @Test
+    public void indexSelectsOnlyMatchingRules() throws Exception {
+        XTTModel model = parse("src/test/resources/large-table-test.pl");
+        Table grades = model.getDependencyGraph().getTable("Grades");
+        TableIndex index = model.getTableIndex(grades);
+        assertEquals(2, index.getIndexedAttributes().size());
+
+        Rule[] candidates = index.findCandidateRules(memory(model, "level", 250d, "colour", "green"));
+        assertEquals(84, candidates.length);
+        assertEquals("Grades/1", candidates[0].getName());
+        assertEquals("Grades/250", candidates[candidates.length - 1].getName());
+
+        assertEquals(0, index.findCandidateRules(memory(model, "level", 0d, "colour", "red")).length);
+    }
+
+    @Test
+    public void indexIsBuiltOnlyForModelTables() throws Exception {
+        XTTModel model = parse("src/test/resources/large-table-test.pl");
+        Table grades = model.getDependencyGraph().getTable("Grades");
+        assertSame(model.getTableIndex(grades), model.getTableIndex(grades));
+
+        XTTModel other = parse("src/test/resources/large-table-test.pl");
+        assertNull(model.getTableIndex(other.getDependencyGraph().getTable("Grades")));
+        assertNull(model.getCompiledTable(other.getDependencyGraph().getTable("Grades")));
+    }
+
+    @Test
+    public void rangeBoundariesAreRespected() throws Exception {
+        XTTModel model = parse("src/test/resources/inference-test.pl");
+        TableIndex index = model.getTableIndex(model.getDependencyGraph().getTable("DayTime"));
+
+        assertEquals(1, index.findCandidateRules(memory(model, "hour", 18d)).length);
+        assertEquals(0, index.findCandidateRules(memory(model, "hour", 18.5d)).length);
+        assertEquals("DayTime/3", index.findCandidateRules(memory(model, "hour", 0d))[0].getName());
+    }
+
+    @Test
+    public void reusedBufferGivesTheSameRules() throws Exception {
+        XTTModel model = parse("src/test/resources/large-table-test.pl");
+        TableIndex index = model.getTableIndex(model.getDependencyGraph().getTable("Grades"));
+        TableIndex.Candidates buffer = new TableIndex.Candidates();
+        for (String colour : new String[]{"green", "red", "blue"}) {
+            for (double level = 1000; level >= 0; level -= 125) {
+                WorkingMemory wm = memory(model, "level", level, "colour", colour);
+                Rule[] expected = index.findCandidateRules(wm);
+                index.findCandidateRules(wm, buffer);
+                assertEquals(expected.length, buffer.size());
+                for (int i = 0; i < expected.length; i++) {
+                    assertSame(expected[i], buffer.getRules()[i]);
+                }
+                for (int i = buffer.size(); i < buffer.getRules().length; i++) {
+                    assertNull(buffer.getRules()[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void unknownValuesAreNotFiltered() throws Exception {
+        XTTModel model = parse("src/test/resources/inference-test.pl");
+        Table dayTime = model.getDependencyGraph().getTable("DayTime");
+        WorkingMemory wm = memory(model);
+        wm.setAttributeValue("hour", new Null());
+        assertEquals(dayTime.getRules().size(), model.getTableIndex(dayTime).findCandidateRules(wm).length);
+    }
+
+    @Test
+    public void indexedInferenceMatchesFullEvaluation() throws Exception {
+        XTTModel model = parse("src/test/resources/large-table-test.pl");
+        ConflictSetResolution[] resolutions = {new ConflictSetFirstWin(), new ConflictSetLastWin()};
+        String[] colours = {"red", "green", "blue"};
+        for (ConflictSetResolution csr : resolutions) {
+            for (String colour : colours) {
+                for (double level = 0; level <= 1000; level += 37.5) {
+                    assertEquals(grade(model, level, colour, csr, false), grade(model, level, colour, csr, true));
+                }
+            }
+        }
+    }
+
+    private String grade(XTTModel model, double level, String colour, ConflictSetResolution csr, boolean indexed)
+            throws BuilderException {
+        State initial = new State();
+        initial.addStateElement(new StateElement("level", new SimpleNumeric(level)));
+        initial.addStateElement(new StateElement("colour", new SimpleSymbolic(colour)));
+        Configuration conf = new Configuration.Builder()
+                .setInitialState(initial)
+                .setCsr(csr)
+                .setRuleIndexEnabled(indexed)
+                .build();
+        WorkingMemory wm = new WorkingMemory();
+        new FixedOrderInference(wm, model, conf).start(new InferenceAlgorithm.TableParameters("Grades"));
+        return wm.getAttributeValue("grade").toString();
+    }
+}
@@ -0,0 +1,41 @@
+xtype [name: level_type,
+       base: numeric,
+       length: 3,
+       desc: level,
+       domain: [0 to 100]
+      ].
+xtype [name: goal_type,
+       base: symbolic,
+       domain: [high,low]
+      ].
+
+%%%%%%%%%%%%%%%%%%%%%%%%% ATTRIBUTES DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%%%
+xattr [name: sensor, abbrev: sens1, class: simple, type: level_type, comm: in].
+xattr [name: raw, abbrev: raw1, class: simple, type: level_type, comm: in].
+xattr [name: backup, abbrev: back1, class: simple, type: level_type, comm: inter].
+xattr [name: goal, abbrev: goal1, class: simple, type: goal_type, comm: out].
+xattr [name: other, abbrev: othe1, class: simple, type: level_type, comm: out].
+
+%%%%%%%%%%%%%%%%%%%%%%%% TABLE SCHEMAS DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%
+xschm 'Primary': [sensor] ==> [goal].
+xschm 'Backup': [raw] ==> [backup].
+xschm 'Fallback': [backup] ==> [goal].
+xschm 'Other': [raw] ==> [other].
+
+%%%%%%%%%%%%%%%%%%%%%%%%%%%% RULES DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%%%%%
+xrule 'Primary'/1:
+      [sensor gt 0]
+    ==>
+      [goal set high].
+xrule 'Backup'/1:
+      [raw gt 0]
+    ==>
+      [backup set raw].
+xrule 'Fallback'/1:
+      [backup gt 0]
+    ==>
+      [goal set low].
+xrule 'Other'/1:
+      [raw gt 0]
+    ==>
+      [other set raw].
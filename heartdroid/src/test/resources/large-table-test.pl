@@ -0,0 +1,3038 @@
+xtype [name: level_type,
+       base: numeric,
+       domain: [0 to 1000]
+      ].
+xtype [name: colour_type,
+       base: symbolic,
+       domain: [red,green,blue]
+      ].
+
+%%%%%%%%%%%%%%%%%%%%%%%%% ATTRIBUTES DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%%%
+
+xattr [name: level,
+       abbrev: leve1,
+       class: simple,
+       type: level_type,
+       comm: in
+      ].
+xattr [name: colour,
+       abbrev: colo1,
+       class: simple,
+       type: colour_type,
+       comm: in
+      ].
+xattr [name: grade,
+       abbrev: grad1,
+       class: simple,
+       type: level_type,
+       comm: out
+      ].
+
+%%%%%%%%%%%%%%%%%%%%%%%% TABLE SCHEMAS DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%
+
+xschm 'Grades': [level,colour] ==> [grade].
+
+%%%%%%%%%%%%%%%%%%%%%%%%%%%% RULES DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%%%%%
+
+xrule 'Grades'/1:
+      [level gte 1,
+       colour eq green]
+    ==>
+      [grade set 1].
+xrule 'Grades'/2:
+      [level gte 2,
+       colour eq blue]
+    ==>
+      [grade set 2].
+xrule 'Grades'/3:
+      [level gte 3,
+       colour eq red]
+    ==>
+      [grade set 3].
+xrule 'Grades'/4:
+      [level gte 4,
+       colour eq green]
+    ==>
+      [grade set 4].
+xrule 'Grades'/5:
+      [level gte 5,
+       colour eq blue]
+    ==>
+      [grade set 5].
+xrule 'Grades'/6:
+      [level gte 6,
+       colour eq red]
+    ==>
+      [grade set 6].
+xrule 'Grades'/7:
+      [level gte 7,
+       colour eq green]
+    ==>
+      [grade set 7].
+xrule 'Grades'/8:
+      [level gte 8,
+       colour eq blue]
+    ==>
+      [grade set 8].
+xrule 'Grades'/9:
+      [level gte 9,
+       colour eq red]
+    ==>
+      [grade set 9].
+xrule 'Grades'/10:
+      [level gte 10,
+       colour eq green]
+    ==>
+      [grade set 10].
+xrule 'Grades'/11:
+      [level gte 11,
+       colour eq blue]
+    ==>
+      [grade set 11].
+xrule 'Grades'/12:
+      [level gte 12,
+       colour eq red]
+    ==>
+      [grade set 12].
+xrule 'Grades'/13:
+      [level gte 13,
+       colour eq green]
+    ==>
+      [grade set 13].
+xrule 'Grades'/14:
+      [level gte 14,
+       colour eq blue]
+    ==>
+      [grade set 14].
+xrule 'Grades'/15:
+      [level gte 15,
+       colour eq red]
+    ==>
+      [grade set 15].
+xrule 'Grades'/16:
+      [level gte 16,
+       colour eq green]
+    ==>
+      [grade set 16].
+xrule 'Grades'/17:
+      [level gte 17,
+       colour eq blue]
+    ==>
+      [grade set 17].
+xrule 'Grades'/18:
+      [level gte 18,
+       colour eq red]
+    ==>
+      [grade set 18].
+xrule 'Grades'/19:
+      [level gte 19,
+       colour eq green]
+    ==>
+      [grade set 19].
+xrule 'Grades'/20:
+      [level gte 20,
+       colour eq blue]
+    ==>
+      [grade set 20].
+xrule 'Grades'/21:
+      [level gte 21,
+       colour eq red]
+    ==>
+      [grade set 21].
+xrule 'Grades'/22:
+      [level gte 22,
+       colour eq green]
+    ==>
+      [grade set 22].
+xrule 'Grades'/23:
+      [level gte 23,
+       colour eq blue]
+    ==>
+      [grade set 23].
+xrule 'Grades'/24:
+      [level gte 24,
+       colour eq red]
+    ==>
+      [grade set 24].
+xrule 'Grades'/25:
+      [level gte 25,
+       colour eq green]
+    ==>
+      [grade set 25].
+xrule 'Grades'/26:
+      [level gte 26,
+       colour eq blue]
+    ==>
+      [grade set 26].
+xrule 'Grades'/27:
+      [level gte 27,
+       colour eq red]
+    ==>
+      [grade set 27].
+xrule 'Grades'/28:
+      [level gte 28,
+       colour eq green]
+    ==>
+      [grade set 28].
+xrule 'Grades'/29:
+      [level gte 29,
+       colour eq blue]
+    ==>
+      [grade set 29].
+xrule 'Grades'/30:
+      [level gte 30,
+       colour eq red]
+    ==>
+      [grade set 30].
+xrule 'Grades'/31:
+      [level gte 31,
+       colour eq green]
+    ==>
+      [grade set 31].
+xrule 'Grades'/32:
+      [level gte 32,
+       colour eq blue]
+    ==>
+      [grade set 32].
+xrule 'Grades'/33:
+      [level gte 33,
+       colour eq red]
+    ==>
+      [grade set 33].
+xrule 'Grades'/34:
+      [level gte 34,
+       colour eq green]
+    ==>
+      [grade set 34].
+xrule 'Grades'/35:
+      [level gte 35,
+       colour eq blue]
+    ==>
+      [grade set 35].
+xrule 'Grades'/36:
+      [level gte 36,
+       colour eq red]
+    ==>
+      [grade set 36].
+xrule 'Grades'/37:
+      [level gte 37,
+       colour eq green]
+    ==>
+      [grade set 37].
+xrule 'Grades'/38:
+      [level gte 38,
+       colour eq blue]
+    ==>
+      [grade set 38].
+xrule 'Grades'/39:
+      [level gte 39,
+       colour eq red]
+    ==>
+      [grade set 39].
+xrule 'Grades'/40:
+      [level gte 40,
+       colour eq green]
+    ==>
+      [grade set 40].
+xrule 'Grades'/41:
+      [level gte 41,
+       colour eq blue]
+    ==>
+      [grade set 41].
+xrule 'Grades'/42:
+      [level gte 42,
+       colour eq red]
+    ==>
+      [grade set 42].
+xrule 'Grades'/43:
+      [level gte 43,
+       colour eq green]
+    ==>
+      [grade set 43].
+xrule 'Grades'/44:
+      [level gte 44,
+       colour eq blue]
+    ==>
+      [grade set 44].
+xrule 'Grades'/45:
+      [level gte 45,
+       colour eq red]
+    ==>
+      [grade set 45].
+xrule 'Grades'/46:
+      [level gte 46,
+       colour eq green]
+    ==>
+      [grade set 46].
+xrule 'Grades'/47:
+      [level gte 47,
+       colour eq blue]
+    ==>
+      [grade set 47].
+xrule 'Grades'/48:
+      [level gte 48,
+       colour eq red]
+    ==>
+      [grade set 48].
+xrule 'Grades'/49:
+      [level gte 49,
+       colour eq green]
+    ==>
+      [grade set 49].
+xrule 'Grades'/50:
+      [level gte 50,
+       colour eq blue]
+    ==>
+      [grade set 50].
+xrule 'Grades'/51:
+      [level gte 51,
+       colour eq red]
+    ==>
+      [grade set 51].
+xrule 'Grades'/52:
+      [level gte 52,
+       colour eq green]
+    ==>
+      [grade set 52].
+xrule 'Grades'/53:
+      [level gte 53,
+       colour eq blue]
+    ==>
+      [grade set 53].
+xrule 'Grades'/54:
+      [level gte 54,
+       colour eq red]
+    ==>
+      [grade set 54].
+xrule 'Grades'/55:
+      [level gte 55,
+       colour eq green]
+    ==>
+      [grade set 55].
+xrule 'Grades'/56:
+      [level gte 56,
+       colour eq blue]
+    ==>
+      [grade set 56].
+xrule 'Grades'/57:
+      [level gte 57,
+       colour eq red]
+    ==>
+      [grade set 57].
+xrule 'Grades'/58:
+      [level gte 58,
+       colour eq green]
+    ==>
+      [grade set 58].
+xrule 'Grades'/59:
+      [level gte 59,
+       colour eq blue]
+    ==>
+      [grade set 59].
+xrule 'Grades'/60:
+      [level gte 60,
+       colour eq red]
+    ==>
+      [grade set 60].
+xrule 'Grades'/61:
+      [level gte 61,
+       colour eq green]
+    ==>
+      [grade set 61].
+xrule 'Grades'/62:
+      [level gte 62,
+       colour eq blue]
+    ==>
+      [grade set 62].
+xrule 'Grades'/63:
+      [level gte 63,
+       colour eq red]
+    ==>
+      [grade set 63].
+xrule 'Grades'/64:
+      [level gte 64,
+       colour eq green]
+    ==>
+      [grade set 64].
+xrule 'Grades'/65:
+      [level gte 65,
+       colour eq blue]
+    ==>
+      [grade set 65].
+xrule 'Grades'/66:
+      [level gte 66,
+       colour eq red]
+    ==>
+      [grade set 66].
+xrule 'Grades'/67:
+      [level gte 67,
+       colour eq green]
+    ==>
+      [grade set 67].
+xrule 'Grades'/68:
+      [level gte 68,
+       colour eq blue]
+    ==>
+      [grade set 68].
+xrule 'Grades'/69:
+      [level gte 69,
+       colour eq red]
+    ==>
+      [grade set 69].
+xrule 'Grades'/70:
+      [level gte 70,
+       colour eq green]
+    ==>
+      [grade set 70].
+xrule 'Grades'/71:
+      [level gte 71,
+       colour eq blue]
+    ==>
+      [grade set 71].
+xrule 'Grades'/72:
+      [level gte 72,
+       colour eq red]
+    ==>
+      [grade set 72].
+xrule 'Grades'/73:
+      [level gte 73,
+       colour eq green]
+    ==>
+      [grade set 73].
+xrule 'Grades'/74:
+      [level gte 74,
+       colour eq blue]
+    ==>
+      [grade set 74].
+xrule 'Grades'/75:
+      [level gte 75,
+       colour eq red]
+    ==>
+      [grade set 75].
+xrule 'Grades'/76:
+      [level gte 76,
+       colour eq green]
+    ==>
+      [grade set 76].
+xrule 'Grades'/77:
+      [level gte 77,
+       colour eq blue]
+    ==>
+      [grade set 77].
+xrule 'Grades'/78:
+      [level gte 78,
+       colour eq red]
+    ==>
+      [grade set 78].
+xrule 'Grades'/79:
+      [level gte 79,
+       colour eq green]
+    ==>
+      [grade set 79].
+xrule 'Grades'/80:
+      [level gte 80,
+       colour eq blue]
+    ==>
+      [grade set 80].
+xrule 'Grades'/81:
+      [level gte 81,
+       colour eq red]
+    ==>
+      [grade set 81].
+xrule 'Grades'/82:
+      [level gte 82,
+       colour eq green]
+    ==>
+      [grade set 82].
+xrule 'Grades'/83:
+      [level gte 83,
+       colour eq blue]
+    ==>
+      [grade set 83].
+xrule 'Grades'/84:
+      [level gte 84,
+       colour eq red]
+    ==>
+      [grade set 84].
+xrule 'Grades'/85:
+      [level gte 85,
+       colour eq green]
+    ==>
+      [grade set 85].
+xrule 'Grades'/86:
+      [level gte 86,
+       colour eq blue]
+    ==>
+      [grade set 86].
+xrule 'Grades'/87:
+      [level gte 87,
+       colour eq red]
+    ==>
+      [grade set 87].
+xrule 'Grades'/88:
+      [level gte 88,
+       colour eq green]
+    ==>
+      [grade set 88].
+xrule 'Grades'/89:
+      [level gte 89,
+       colour eq blue]
+    ==>
+      [grade set 89].
+xrule 'Grades'/90:
+      [level gte 90,
+       colour eq red]
+    ==>
+      [grade set 90].
+xrule 'Grades'/91:
+      [level gte 91,
+       colour eq green]
+    ==>
+      [grade set 91].
+xrule 'Grades'/92:
+      [level gte 92,
+       colour eq blue]
+    ==>
+      [grade set 92].
+xrule 'Grades'/93:
+      [level gte 93,
+       colour eq red]
+    ==>
+      [grade set 93].
+xrule 'Grades'/94:
+      [level gte 94,
+       colour eq green]
+    ==>
+      [grade set 94].
+xrule 'Grades'/95:
+      [level gte 95,
+       colour eq blue]
+    ==>
+      [grade set 95].
+xrule 'Grades'/96:
+      [level gte 96,
+       colour eq red]
+    ==>
+      [grade set 96].
+xrule 'Grades'/97:
+      [level gte 97,
+       colour eq green]
+    ==>
+      [grade set 97].
+xrule 'Grades'/98:
+      [level gte 98,
+       colour eq blue]
+    ==>
+      [grade set 98].
+xrule 'Grades'/99:
+      [level gte 99,
+       colour eq red]
+    ==>
+      [grade set 99].
+xrule 'Grades'/100:
+      [level gte 100,
+       colour eq green]
+    ==>
+      [grade set 100].
+xrule 'Grades'/101:
+      [level gte 101,
+       colour eq blue]
+    ==>
+      [grade set 101].
+xrule 'Grades'/102:
+      [level gte 102,
+       colour eq red]
+    ==>
+      [grade set 102].
+xrule 'Grades'/103:
+      [level gte 103,
+       colour eq green]
+    ==>
+      [grade set 103].
+xrule 'Grades'/104:
+      [level gte 104,
+       colour eq blue]
+    ==>
+      [grade set 104].
+xrule 'Grades'/105:
+      [level gte 105,
+       colour eq red]
+    ==>
+      [grade set 105].
+xrule 'Grades'/106:
+      [level gte 106,
+       colour eq green]
+    ==>
+      [grade set 106].
+xrule 'Grades'/107:
+      [level gte 107,
+       colour eq blue]
+    ==>
+      [grade set 107].
+xrule 'Grades'/108:
+      [level gte 108,
+       colour eq red]
+    ==>
+      [grade set 108].
+xrule 'Grades'/109:
+      [level gte 109,
+       colour eq green]
+    ==>
+      [grade set 109].
+xrule 'Grades'/110:
+      [level gte 110,
+       colour eq blue]
+    ==>
+      [grade set 110].
+xrule 'Grades'/111:
+      [level gte 111,
+       colour eq red]
+    ==>
+      [grade set 111].
+xrule 'Grades'/112:
+      [level gte 112,
+       colour eq green]
+    ==>
+      [grade set 112].
+xrule 'Grades'/113:
+      [level gte 113,
+       colour eq blue]
+    ==>
+      [grade set 113].
+xrule 'Grades'/114:
+      [level gte 114,
+       colour eq red]
+    ==>
+      [grade set 114].
+xrule 'Grades'/115:
+      [level gte 115,
+       colour eq green]
+    ==>
+      [grade set 115].
+xrule 'Grades'/116:
+      [level gte 116,
+       colour eq blue]
+    ==>
+      [grade set 116].
+xrule 'Grades'/117:
+      [level gte 117,
+       colour eq red]
+    ==>
+      [grade set 117].
+xrule 'Grades'/118:
+      [level gte 118,
+       colour eq green]
+    ==>
+      [grade set 118].
+xrule 'Grades'/119:
+      [level gte 119,
+       colour eq blue]
+    ==>
+      [grade set 119].
+xrule 'Grades'/120:
+      [level gte 120,
+       colour eq red]
+    ==>
+      [grade set 120].
+xrule 'Grades'/121:
+      [level gte 121,
+       colour eq green]
+    ==>
+      [grade set 121].
+xrule 'Grades'/122:
+      [level gte 122,
+       colour eq blue]
+    ==>
+      [grade set 122].
+xrule 'Grades'/123:
+      [level gte 123,
+       colour eq red]
+    ==>
+      [grade set 123].
+xrule 'Grades'/124:
+      [level gte 124,
+       colour eq green]
+    ==>
+      [grade set 124].
+xrule 'Grades'/125:
+      [level gte 125,
+       colour eq blue]
+    ==>
+      [grade set 125].
+xrule 'Grades'/126:
+      [level gte 126,
+       colour eq red]
+    ==>
+      [grade set 126].
+xrule 'Grades'/127:
+      [level gte 127,
+       colour eq green]
+    ==>
+      [grade set 127].
+xrule 'Grades'/128:
+      [level gte 128,
+       colour eq blue]
+    ==>
+      [grade set 128].
+xrule 'Grades'/129:
+      [level gte 129,
+       colour eq red]
+    ==>
+      [grade set 129].
+xrule 'Grades'/130:
+      [level gte 130,
+       colour eq green]
+    ==>
+      [grade set 130].
+xrule 'Grades'/131:
+      [level gte 131,
+       colour eq blue]
+    ==>
+      [grade set 131].
+xrule 'Grades'/132:
+      [level gte 132,
+       colour eq red]
+    ==>
+      [grade set 132].
+xrule 'Grades'/133:
+      [level gte 133,
+       colour eq green]
+    ==>
+      [grade set 133].
+xrule 'Grades'/134:
+      [level gte 134,
+       colour eq blue]
+    ==>
+      [grade set 134].
+xrule 'Grades'/135:
+      [level gte 135,
+       colour eq red]
+    ==>
+      [grade set 135].
+xrule 'Grades'/136:
+      [level gte 136,
+       colour eq green]
+    ==>
+      [grade set 136].
+xrule 'Grades'/137:
+      [level gte 137,
+       colour eq blue]
+    ==>
+      [grade set 137].
+xrule 'Grades'/138:
+      [level gte 138,
+       colour eq red]
+    ==>
+      [grade set 138].
+xrule 'Grades'/139:
+      [level gte 139,
+       colour eq green]
+    ==>
+      [grade set 139].
+xrule 'Grades'/140:
+      [level gte 140,
+       colour eq blue]
+    ==>
+      [grade set 140].
+xrule 'Grades'/141:
+      [level gte 141,
+       colour eq red]
+    ==>
+      [grade set 141].
+xrule 'Grades'/142:
+      [level gte 142,
+       colour eq green]
+    ==>
+      [grade set 142].
+xrule 'Grades'/143:
+      [level gte 143,
+       colour eq blue]
+    ==>
+      [grade set 143].
+xrule 'Grades'/144:
+      [level gte 144,
+       colour eq red]
+    ==>
+      [grade set 144].
+xrule 'Grades'/145:
+      [level gte 145,
+       colour eq green]
+    ==>
+      [grade set 145].
+xrule 'Grades'/146:
+      [level gte 146,
+       colour eq blue]
+    ==>
+      [grade set 146].
+xrule 'Grades'/147:
+      [level gte 147,
+       colour eq red]
+    ==>
+      [grade set 147].
+xrule 'Grades'/148:
+      [level gte 148,
+       colour eq green]
+    ==>
+      [grade set 148].
+xrule 'Grades'/149:
+      [level gte 149,
+       colour eq blue]
+    ==>
+      [grade set 149].
+xrule 'Grades'/150:
+      [level gte 150,
+       colour eq red]
+    ==>
+      [grade set 150].
+xrule 'Grades'/151:
+      [level gte 151,
+       colour eq green]
+    ==>
+      [grade set 151].
+xrule 'Grades'/152:
+      [level gte 152,
+       colour eq blue]
+    ==>
+      [grade set 152].
+xrule 'Grades'/153:
+      [level gte 153,
+       colour eq red]
+    ==>
+      [grade set 153].
+xrule 'Grades'/154:
+      [level gte 154,
+       colour eq green]
+    ==>
+      [grade set 154].
+xrule 'Grades'/155:
+      [level gte 155,
+       colour eq blue]
+    ==>
+      [grade set 155].
+xrule 'Grades'/156:
+      [level gte 156,
+       colour eq red]
+    ==>
+      [grade set 156].
+xrule 'Grades'/157:
+      [level gte 157,
+       colour eq green]
+    ==>
+      [grade set 157].
+xrule 'Grades'/158:
+      [level gte 158,
+       colour eq blue]
+    ==>
+      [grade set 158].
+xrule 'Grades'/159:
+      [level gte 159,
+       colour eq red]
+    ==>
+      [grade set 159].
+xrule 'Grades'/160:
+      [level gte 160,
+       colour eq green]
+    ==>
+      [grade set 160].
+xrule 'Grades'/161:
+      [level gte 161,
+       colour eq blue]
+    ==>
+      [grade set 161].
+xrule 'Grades'/162:
+      [level gte 162,
+       colour eq red]
+    ==>
+      [grade set 162].
+xrule 'Grades'/163:
+      [level gte 163,
+       colour eq green]
+    ==>
+      [grade set 163].
+xrule 'Grades'/164:
+      [level gte 164,
+       colour eq blue]
+    ==>
+      [grade set 164].
+xrule 'Grades'/165:
+      [level gte 165,
+       colour eq red]
+    ==>
+      [grade set 165].
+xrule 'Grades'/166:
+      [level gte 166,
+       colour eq green]
+    ==>
+      [grade set 166].
+xrule 'Grades'/167:
+      [level gte 167,
+       colour eq blue]
+    ==>
+      [grade set 167].
+xrule 'Grades'/168:
+      [level gte 168,
+       colour eq red]
+    ==>
+      [grade set 168].
+xrule 'Grades'/169:
+      [level gte 169,
+       colour eq green]
+    ==>
+      [grade set 169].
+xrule 'Grades'/170:
+      [level gte 170,
+       colour eq blue]
+    ==>
+      [grade set 170].
+xrule 'Grades'/171:
+      [level gte 171,
+       colour eq red]
+    ==>
+      [grade set 171].
+xrule 'Grades'/172:
+      [level gte 172,
+       colour eq green]
+    ==>
+      [grade set 172].
+xrule 'Grades'/173:
+      [level gte 173,
+       colour eq blue]
+    ==>
+      [grade set 173].
+xrule 'Grades'/174:
+      [level gte 174,
+       colour eq red]
+    ==>
+      [grade set 174].
+xrule 'Grades'/175:
+      [level gte 175,
+       colour eq green]
+    ==>
+      [grade set 175].
+xrule 'Grades'/176:
+      [level gte 176,
+       colour eq blue]
+    ==>
+      [grade set 176].
+xrule 'Grades'/177:
+      [level gte 177,
+       colour eq red]
+    ==>
+      [grade set 177].
+xrule 'Grades'/178:
+      [level gte 178,
+       colour eq green]
+    ==>
+      [grade set 178].
+xrule 'Grades'/179:
+      [level gte 179,
+       colour eq blue]
+    ==>
+      [grade set 179].
+xrule 'Grades'/180:
+      [level gte 180,
+       colour eq red]
+    ==>
+      [grade set 180].
+xrule 'Grades'/181:
+      [level gte 181,
+       colour eq green]
+    ==>
+      [grade set 181].
+xrule 'Grades'/182:
+      [level gte 182,
+       colour eq blue]
+    ==>
+      [grade set 182].
+xrule 'Grades'/183:
+      [level gte 183,
+       colour eq red]
+    ==>
+      [grade set 183].
+xrule 'Grades'/184:
+      [level gte 184,
+       colour eq green]
+    ==>
+      [grade set 184].
+xrule 'Grades'/185:
+      [level gte 185,
+       colour eq blue]
+    ==>
+      [grade set 185].
+xrule 'Grades'/186:
+      [level gte 186,
+       colour eq red]
+    ==>
+      [grade set 186].
+xrule 'Grades'/187:
+      [level gte 187,
+       colour eq green]
+    ==>
+      [grade set 187].
+xrule 'Grades'/188:
+      [level gte 188,
+       colour eq blue]
+    ==>
+      [grade set 188].
+xrule 'Grades'/189:
+      [level gte 189,
+       colour eq red]
+    ==>
+      [grade set 189].
+xrule 'Grades'/190:
+      [level gte 190,
+       colour eq green]
+    ==>
+      [grade set 190].
+xrule 'Grades'/191:
+      [level gte 191,
+       colour eq blue]
+    ==>
+      [grade set 191].
+xrule 'Grades'/192:
+      [level gte 192,
+       colour eq red]
+    ==>
+      [grade set 192].
+xrule 'Grades'/193:
+      [level gte 193,
+       colour eq green]
+    ==>
+      [grade set 193].
+xrule 'Grades'/194:
+      [level gte 194,
+       colour eq blue]
+    ==>
+      [grade set 194].
+xrule 'Grades'/195:
+      [level gte 195,
+       colour eq red]
+    ==>
+      [grade set 195].
+xrule 'Grades'/196:
+      [level gte 196,
+       colour eq green]
+    ==>
+      [grade set 196].
+xrule 'Grades'/197:
+      [level gte 197,
+       colour eq blue]
+    ==>
+      [grade set 197].
+xrule 'Grades'/198:
+      [level gte 198,
+       colour eq red]
+    ==>
+      [grade set 198].
+xrule 'Grades'/199:
+      [level gte 199,
+       colour eq green]
+    ==>
+      [grade set 199].
+xrule 'Grades'/200:
+      [level gte 200,
+       colour eq blue]
+    ==>
+      [grade set 200].
+xrule 'Grades'/201:
+      [level gte 201,
+       colour eq red]
+    ==>
+      [grade set 201].
+xrule 'Grades'/202:
+      [level gte 202,
+       colour eq green]
+    ==>
+      [grade set 202].
+xrule 'Grades'/203:
+      [level gte 203,
+       colour eq blue]
+    ==>
+      [grade set 203].
+xrule 'Grades'/204:
+      [level gte 204,
+       colour eq red]
+    ==>
+      [grade set 204].
+xrule 'Grades'/205:
+      [level gte 205,
+       colour eq green]
+    ==>
+      [grade set 205].
+xrule 'Grades'/206:
+      [level gte 206,
+       colour eq blue]
+    ==>
+      [grade set 206].
+xrule 'Grades'/207:
+      [level gte 207,
+       colour eq red]
+    ==>
+      [grade set 207].
+xrule 'Grades'/208:
+      [level gte 208,
+       colour eq green]
+    ==>
+      [grade set 208].
+xrule 'Grades'/209:
+      [level gte 209,
+       colour eq blue]
+    ==>
+      [grade set 209].
+xrule 'Grades'/210:
+      [level gte 210,
+       colour eq red]
+    ==>
+      [grade set 210].
+xrule 'Grades'/211:
+      [level gte 211,
+       colour eq green]
+    ==>
+      [grade set 211].
+xrule 'Grades'/212:
+      [level gte 212,
+       colour eq blue]
+    ==>
+      [grade set 212].
+xrule 'Grades'/213:
+      [level gte 213,
+       colour eq red]
+    ==>
+      [grade set 213].
+xrule 'Grades'/214:
+      [level gte 214,
+       colour eq green]
+    ==>
+      [grade set 214].
+xrule 'Grades'/215:
+      [level gte 215,
+       colour eq blue]
+    ==>
+      [grade set 215].
+xrule 'Grades'/216:
+      [level gte 216,
+       colour eq red]
+    ==>
+      [grade set 216].
+xrule 'Grades'/217:
+      [level gte 217,
+       colour eq green]
+    ==>
+      [grade set 217].
+xrule 'Grades'/218:
+      [level gte 218,
+       colour eq blue]
+    ==>
+      [grade set 218].
+xrule 'Grades'/219:
+      [level gte 219,
+       colour eq red]
+    ==>
+      [grade set 219].
+xrule 'Grades'/220:
+      [level gte 220,
+       colour eq green]
+    ==>
+      [grade set 220].
+xrule 'Grades'/221:
+      [level gte 221,
+       colour eq blue]
+    ==>
+      [grade set 221].
+xrule 'Grades'/222:
+      [level gte 222,
+       colour eq red]
+    ==>
+      [grade set 222].
+xrule 'Grades'/223:
+      [level gte 223,
+       colour eq green]
+    ==>
+      [grade set 223].
+xrule 'Grades'/224:
+      [level gte 224,
+       colour eq blue]
+    ==>
+      [grade set 224].
+xrule 'Grades'/225:
+      [level gte 225,
+       colour eq red]
+    ==>
+      [grade set 225].
+xrule 'Grades'/226:
+      [level gte 226,
+       colour eq green]
+    ==>
+      [grade set 226].
+xrule 'Grades'/227:
+      [level gte 227,
+       colour eq blue]
+    ==>
+      [grade set 227].
+xrule 'Grades'/228:
+      [level gte 228,
+       colour eq red]
+    ==>
+      [grade set 228].
+xrule 'Grades'/229:
+      [level gte 229,
+       colour eq green]
+    ==>
+      [grade set 229].
+xrule 'Grades'/230:
+      [level gte 230,
+       colour eq blue]
+    ==>
+      [grade set 230].
+xrule 'Grades'/231:
+      [level gte 231,
+       colour eq red]
+    ==>
+      [grade set 231].
+xrule 'Grades'/232:
+      [level gte 232,
+       colour eq green]
+    ==>
+      [grade set 232].
+xrule 'Grades'/233:
+      [level gte 233,
+       colour eq blue]
+    ==>
+      [grade set 233].
+xrule 'Grades'/234:
+      [level gte 234,
+       colour eq red]
+    ==>
+      [grade set 234].
+xrule 'Grades'/235:
+      [level gte 235,
+       colour eq green]
+    ==>
+      [grade set 235].
+xrule 'Grades'/236:
+      [level gte 236,
+       colour eq blue]
+    ==>
+      [grade set 236].
+xrule 'Grades'/237:
+      [level gte 237,
+       colour eq red]
+    ==>
+      [grade set 237].
+xrule 'Grades'/238:
+      [level gte 238,
+       colour eq green]
+    ==>
+      [grade set 238].
+xrule 'Grades'/239:
+      [level gte 239,
+       colour eq blue]
+    ==>
+      [grade set 239].
+xrule 'Grades'/240:
+      [level gte 240,
+       colour eq red]
+    ==>
+      [grade set 240].
+xrule 'Grades'/241:
+      [level gte 241,
+       colour eq green]
+    ==>
+      [grade set 241].
+xrule 'Grades'/242:
+      [level gte 242,
+       colour eq blue]
+    ==>
+      [grade set 242].
+xrule 'Grades'/243:
+      [level gte 243,
+       colour eq red]
+    ==>
+      [grade set 243].
+xrule 'Grades'/244:
+      [level gte 244,
+       colour eq green]
+    ==>
+      [grade set 244].
+xrule 'Grades'/245:
+      [level gte 245,
+       colour eq blue]
+    ==>
+      [grade set 245].
+xrule 'Grades'/246:
+      [level gte 246,
+       colour eq red]
+    ==>
+      [grade set 246].
+xrule 'Grades'/247:
+      [level gte 247,
+       colour eq green]
+    ==>
+      [grade set 247].
+xrule 'Grades'/248:
+      [level gte 248,
+       colour eq blue]
+    ==>
+      [grade set 248].
+xrule 'Grades'/249:
+      [level gte 249,
+       colour eq red]
+    ==>
+      [grade set 249].
+xrule 'Grades'/250:
+      [level gte 250,
+       colour eq green]
+    ==>
+      [grade set 250].
+xrule 'Grades'/251:
+      [level gte 251,
+       colour eq blue]
+    ==>
+      [grade set 251].
+xrule 'Grades'/252:
+      [level gte 252,
+       colour eq red]
+    ==>
+      [grade set 252].
+xrule 'Grades'/253:
+      [level gte 253,
+       colour eq green]
+    ==>
+      [grade set 253].
+xrule 'Grades'/254:
+      [level gte 254,
+       colour eq blue]
+    ==>
+      [grade set 254].
+xrule 'Grades'/255:
+      [level gte 255,
+       colour eq red]
+    ==>
+      [grade set 255].
+xrule 'Grades'/256:
+      [level gte 256,
+       colour eq green]
+    ==>
+      [grade set 256].
+xrule 'Grades'/257:
+      [level gte 257,
+       colour eq blue]
+    ==>
+      [grade set 257].
+xrule 'Grades'/258:
+      [level gte 258,
+       colour eq red]
+    ==>
+      [grade set 258].
+xrule 'Grades'/259:
+      [level gte 259,
+       colour eq green]
+    ==>
+      [grade set 259].
+xrule 'Grades'/260:
+      [level gte 260,
+       colour eq blue]
+    ==>
+      [grade set 260].
+xrule 'Grades'/261:
+      [level gte 261,
+       colour eq red]
+    ==>
+      [grade set 261].
+xrule 'Grades'/262:
+      [level gte 262,
+       colour eq green]
+    ==>
+      [grade set 262].
+xrule 'Grades'/263:
+      [level gte 263,
+       colour eq blue]
+    ==>
+      [grade set 263].
+xrule 'Grades'/264:
+      [level gte 264,
+       colour eq red]
+    ==>
+      [grade set 264].
+xrule 'Grades'/265:
+      [level gte 265,
+       colour eq green]
+    ==>
+      [grade set 265].
+xrule 'Grades'/266:
+      [level gte 266,
+       colour eq blue]
+    ==>
+      [grade set 266].
+xrule 'Grades'/267:
+      [level gte 267,
+       colour eq red]
+    ==>
+      [grade set 267].
+xrule 'Grades'/268:
+      [level gte 268,
+       colour eq green]
+    ==>
+      [grade set 268].
+xrule 'Grades'/269:
+      [level gte 269,
+       colour eq blue]
+    ==>
+      [grade set 269].
+xrule 'Grades'/270:
+      [level gte 270,
+       colour eq red]
+    ==>
+      [grade set 270].
+xrule 'Grades'/271:
+      [level gte 271,
+       colour eq green]
+    ==>
+      [grade set 271].
+xrule 'Grades'/272:
+      [level gte 272,
+       colour eq blue]
+    ==>
+      [grade set 272].
+xrule 'Grades'/273:
+      [level gte 273,
+       colour eq red]
+    ==>
+      [grade set 273].
+xrule 'Grades'/274:
+      [level gte 274,
+       colour eq green]
+    ==>
+      [grade set 274].
+xrule 'Grades'/275:
+      [level gte 275,
+       colour eq blue]
+    ==>
+      [grade set 275].
+xrule 'Grades'/276:
+      [level gte 276,
+       colour eq red]
+    ==>
+      [grade set 276].
+xrule 'Grades'/277:
+      [level gte 277,
+       colour eq green]
+    ==>
+      [grade set 277].
+xrule 'Grades'/278:
+      [level gte 278,
+       colour eq blue]
+    ==>
+      [grade set 278].
+xrule 'Grades'/279:
+      [level gte 279,
+       colour eq red]
+    ==>
+      [grade set 279].
+xrule 'Grades'/280:
+      [level gte 280,
+       colour eq green]
+    ==>
+      [grade set 280].
+xrule 'Grades'/281:
+      [level gte 281,
+       colour eq blue]
+    ==>
+      [grade set 281].
+xrule 'Grades'/282:
+      [level gte 282,
+       colour eq red]
+    ==>
+      [grade set 282].
+xrule 'Grades'/283:
+      [level gte 283,
+       colour eq green]
+    ==>
+      [grade set 283].
+xrule 'Grades'/284:
+      [level gte 284,
+       colour eq blue]
+    ==>
+      [grade set 284].
+xrule 'Grades'/285:
+      [level gte 285,
+       colour eq red]
+    ==>
+      [grade set 285].
+xrule 'Grades'/286:
+      [level gte 286,
+       colour eq green]
+    ==>
+      [grade set 286].
+xrule 'Grades'/287:
+      [level gte 287,
+       colour eq blue]
+    ==>
+      [grade set 287].
+xrule 'Grades'/288:
+      [level gte 288,
+       colour eq red]
+    ==>
+      [grade set 288].
+xrule 'Grades'/289:
+      [level gte 289,
+       colour eq green]
+    ==>
+      [grade set 289].
+xrule 'Grades'/290:
+      [level gte 290,
+       colour eq blue]
+    ==>
+      [grade set 290].
+xrule 'Grades'/291:
+      [level gte 291,
+       colour eq red]
+    ==>
+      [grade set 291].
+xrule 'Grades'/292:
+      [level gte 292,
+       colour eq green]
+    ==>
+      [grade set 292].
+xrule 'Grades'/293:
+      [level gte 293,
+       colour eq blue]
+    ==>
+      [grade set 293].
+xrule 'Grades'/294:
+      [level gte 294,
+       colour eq red]
+    ==>
+      [grade set 294].
+xrule 'Grades'/295:
+      [level gte 295,
+       colour eq green]
+    ==>
+      [grade set 295].
+xrule 'Grades'/296:
+      [level gte 296,
+       colour eq blue]
+    ==>
+      [grade set 296].
+xrule 'Grades'/297:
+      [level gte 297,
+       colour eq red]
+    ==>
+      [grade set 297].
+xrule 'Grades'/298:
+      [level gte 298,
+       colour eq green]
+    ==>
+      [grade set 298].
+xrule 'Grades'/299:
+      [level gte 299,
+       colour eq blue]
+    ==>
+      [grade set 299].
+xrule 'Grades'/300:
+      [level gte 300,
+       colour eq red]
+    ==>
+      [grade set 300].
+xrule 'Grades'/301:
+      [level gte 301,
+       colour eq green]
+    ==>
+      [grade set 301].
+xrule 'Grades'/302:
+      [level gte 302,
+       colour eq blue]
+    ==>
+      [grade set 302].
+xrule 'Grades'/303:
+      [level gte 303,
+       colour eq red]
+    ==>
+      [grade set 303].
+xrule 'Grades'/304:
+      [level gte 304,
+       colour eq green]
+    ==>
+      [grade set 304].
+xrule 'Grades'/305:
+      [level gte 305,
+       colour eq blue]
+    ==>
+      [grade set 305].
+xrule 'Grades'/306:
+      [level gte 306,
+       colour eq red]
+    ==>
+      [grade set 306].
+xrule 'Grades'/307:
+      [level gte 307,
+       colour eq green]
+    ==>
+      [grade set 307].
+xrule 'Grades'/308:
+      [level gte 308,
+       colour eq blue]
+    ==>
+      [grade set 308].
+xrule 'Grades'/309:
+      [level gte 309,
+       colour eq red]
+    ==>
+      [grade set 309].
+xrule 'Grades'/310:
+      [level gte 310,
+       colour eq green]
+    ==>
+      [grade set 310].
+xrule 'Grades'/311:
+      [level gte 311,
+       colour eq blue]
+    ==>
+      [grade set 311].
+xrule 'Grades'/312:
+      [level gte 312,
+       colour eq red]
+    ==>
+      [grade set 312].
+xrule 'Grades'/313:
+      [level gte 313,
+       colour eq green]
+    ==>
+      [grade set 313].
+xrule 'Grades'/314:
+      [level gte 314,
+       colour eq blue]
+    ==>
+      [grade set 314].
+xrule 'Grades'/315:
+      [level gte 315,
+       colour eq red]
+    ==>
+      [grade set 315].
+xrule 'Grades'/316:
+      [level gte 316,
+       colour eq green]
+    ==>
+      [grade set 316].
+xrule 'Grades'/317:
+      [level gte 317,
+       colour eq blue]
+    ==>
+      [grade set 317].
+xrule 'Grades'/318:
+      [level gte 318,
+       colour eq red]
+    ==>
+      [grade set 318].
+xrule 'Grades'/319:
+      [level gte 319,
+       colour eq green]
+    ==>
+      [grade set 319].
+xrule 'Grades'/320:
+      [level gte 320,
+       colour eq blue]
+    ==>
+      [grade set 320].
+xrule 'Grades'/321:
+      [level gte 321,
+       colour eq red]
+    ==>
+      [grade set 321].
+xrule 'Grades'/322:
+      [level gte 322,
+       colour eq green]
+    ==>
+      [grade set 322].
+xrule 'Grades'/323:
+      [level gte 323,
+       colour eq blue]
+    ==>
+      [grade set 323].
+xrule 'Grades'/324:
+      [level gte 324,
+       colour eq red]
+    ==>
+      [grade set 324].
+xrule 'Grades'/325:
+      [level gte 325,
+       colour eq green]
+    ==>
+      [grade set 325].
+xrule 'Grades'/326:
+      [level gte 326,
+       colour eq blue]
+    ==>
+      [grade set 326].
+xrule 'Grades'/327:
+      [level gte 327,
+       colour eq red]
+    ==>
+      [grade set 327].
+xrule 'Grades'/328:
+      [level gte 328,
+       colour eq green]
+    ==>
+      [grade set 328].
+xrule 'Grades'/329:
+      [level gte 329,
+       colour eq blue]
+    ==>
+      [grade set 329].
+xrule 'Grades'/330:
+      [level gte 330,
+       colour eq red]
+    ==>
+      [grade set 330].
+xrule 'Grades'/331:
+      [level gte 331,
+       colour eq green]
+    ==>
+      [grade set 331].
+xrule 'Grades'/332:
+      [level gte 332,
+       colour eq blue]
+    ==>
+      [grade set 332].
+xrule 'Grades'/333:
+      [level gte 333,
+       colour eq red]
+    ==>
+      [grade set 333].
+xrule 'Grades'/334:
+      [level gte 334,
+       colour eq green]
+    ==>
+      [grade set 334].
+xrule 'Grades'/335:
+      [level gte 335,
+       colour eq blue]
+    ==>
+      [grade set 335].
+xrule 'Grades'/336:
+      [level gte 336,
+       colour eq red]
+    ==>
+      [grade set 336].
+xrule 'Grades'/337:
+      [level gte 337,
+       colour eq green]
+    ==>
+      [grade set 337].
+xrule 'Grades'/338:
+      [level gte 338,
+       colour eq blue]
+    ==>
+      [grade set 338].
+xrule 'Grades'/339:
+      [level gte 339,
+       colour eq red]
+    ==>
+      [grade set 339].
+xrule 'Grades'/340:
+      [level gte 340,
+       colour eq green]
+    ==>
+      [grade set 340].
+xrule 'Grades'/341:
+      [level gte 341,
+       colour eq blue]
+    ==>
+      [grade set 341].
+xrule 'Grades'/342:
+      [level gte 342,
+       colour eq red]
+    ==>
+      [grade set 342].
+xrule 'Grades'/343:
+      [level gte 343,
+       colour eq green]
+    ==>
+      [grade set 343].
+xrule 'Grades'/344:
+      [level gte 344,
+       colour eq blue]
+    ==>
+      [grade set 344].
+xrule 'Grades'/345:
+      [level gte 345,
+       colour eq red]
+    ==>
+      [grade set 345].
+xrule 'Grades'/346:
+      [level gte 346,
+       colour eq green]
+    ==>
+      [grade set 346].
+xrule 'Grades'/347:
+      [level gte 347,
+       colour eq blue]
+    ==>
+      [grade set 347].
+xrule 'Grades'/348:
+      [level gte 348,
+       colour eq red]
+    ==>
+      [grade set 348].
+xrule 'Grades'/349:
+      [level gte 349,
+       colour eq green]
+    ==>
+      [grade set 349].
+xrule 'Grades'/350:
+      [level gte 350,
+       colour eq blue]
+    ==>
+      [grade set 350].
+xrule 'Grades'/351:
+      [level gte 351,
+       colour eq red]
+    ==>
+      [grade set 351].
+xrule 'Grades'/352:
+      [level gte 352,
+       colour eq green]
+    ==>
+      [grade set 352].
+xrule 'Grades'/353:
+      [level gte 353,
+       colour eq blue]
+    ==>
+      [grade set 353].
+xrule 'Grades'/354:
+      [level gte 354,
+       colour eq red]
+    ==>
+      [grade set 354].
+xrule 'Grades'/355:
+      [level gte 355,
+       colour eq green]
+    ==>
+      [grade set 355].
+xrule 'Grades'/356:
+      [level gte 356,
+       colour eq blue]
+    ==>
+      [grade set 356].
+xrule 'Grades'/357:
+      [level gte 357,
+       colour eq red]
+    ==>
+      [grade set 357].
+xrule 'Grades'/358:
+      [level gte 358,
+       colour eq green]
+    ==>
+      [grade set 358].
+xrule 'Grades'/359:
+      [level gte 359,
+       colour eq blue]
+    ==>
+      [grade set 359].
+xrule 'Grades'/360:
+      [level gte 360,
+       colour eq red]
+    ==>
+      [grade set 360].
+xrule 'Grades'/361:
+      [level gte 361,
+       colour eq green]
+    ==>
+      [grade set 361].
+xrule 'Grades'/362:
+      [level gte 362,
+       colour eq blue]
+    ==>
+      [grade set 362].
+xrule 'Grades'/363:
+      [level gte 363,
+       colour eq red]
+    ==>
+      [grade set 363].
+xrule 'Grades'/364:
+      [level gte 364,
+       colour eq green]
+    ==>
+      [grade set 364].
+xrule 'Grades'/365:
+      [level gte 365,
+       colour eq blue]
+    ==>
+      [grade set 365].
+xrule 'Grades'/366:
+      [level gte 366,
+       colour eq red]
+    ==>
+      [grade set 366].
+xrule 'Grades'/367:
+      [level gte 367,
+       colour eq green]
+    ==>
+      [grade set 367].
+xrule 'Grades'/368:
+      [level gte 368,
+       colour eq blue]
+    ==>
+      [grade set 368].
+xrule 'Grades'/369:
+      [level gte 369,
+       colour eq red]
+    ==>
+      [grade set 369].
+xrule 'Grades'/370:
+      [level gte 370,
+       colour eq green]
+    ==>
+      [grade set 370].
+xrule 'Grades'/371:
+      [level gte 371,
+       colour eq blue]
+    ==>
+      [grade set 371].
+xrule 'Grades'/372:
+      [level gte 372,
+       colour eq red]
+    ==>
+      [grade set 372].
+xrule 'Grades'/373:
+      [level gte 373,
+       colour eq green]
+    ==>
+      [grade set 373].
+xrule 'Grades'/374:
+      [level gte 374,
+       colour eq blue]
+    ==>
+      [grade set 374].
+xrule 'Grades'/375:
+      [level gte 375,
+       colour eq red]
+    ==>
+      [grade set 375].
+xrule 'Grades'/376:
+      [level gte 376,
+       colour eq green]
+    ==>
+      [grade set 376].
+xrule 'Grades'/377:
+      [level gte 377,
+       colour eq blue]
+    ==>
+      [grade set 377].
+xrule 'Grades'/378:
+      [level gte 378,
+       colour eq red]
+    ==>
+      [grade set 378].
+xrule 'Grades'/379:
+      [level gte 379,
+       colour eq green]
+    ==>
+      [grade set 379].
+xrule 'Grades'/380:
+      [level gte 380,
+       colour eq blue]
+    ==>
+      [grade set 380].
+xrule 'Grades'/381:
+      [level gte 381,
+       colour eq red]
+    ==>
+      [grade set 381].
+xrule 'Grades'/382:
+      [level gte 382,
+       colour eq green]
+    ==>
+      [grade set 382].
+xrule 'Grades'/383:
+      [level gte 383,
+       colour eq blue]
+    ==>
+      [grade set 383].
+xrule 'Grades'/384:
+      [level gte 384,
+       colour eq red]
+    ==>
+      [grade set 384].
+xrule 'Grades'/385:
+      [level gte 385,
+       colour eq green]
+    ==>
+      [grade set 385].
+xrule 'Grades'/386:
+      [level gte 386,
+       colour eq blue]
+    ==>
+      [grade set 386].
+xrule 'Grades'/387:
+      [level gte 387,
+       colour eq red]
+    ==>
+      [grade set 387].
+xrule 'Grades'/388:
+      [level gte 388,
+       colour eq green]
+    ==>
+      [grade set 388].
+xrule 'Grades'/389:
+      [level gte 389,
+       colour eq blue]
+    ==>
+      [grade set 389].
+xrule 'Grades'/390:
+      [level gte 390,
+       colour eq red]
+    ==>
+      [grade set 390].
+xrule 'Grades'/391:
+      [level gte 391,
+       colour eq green]
+    ==>
+      [grade set 391].
+xrule 'Grades'/392:
+      [level gte 392,
+       colour eq blue]
+    ==>
+      [grade set 392].
+xrule 'Grades'/393:
+      [level gte 393,
+       colour eq red]
+    ==>
+      [grade set 393].
+xrule 'Grades'/394:
+      [level gte 394,
+       colour eq green]
+    ==>
+      [grade set 394].
+xrule 'Grades'/395:
+      [level gte 395,
+       colour eq blue]
+    ==>
+      [grade set 395].
+xrule 'Grades'/396:
+      [level gte 396,
+       colour eq red]
+    ==>
+      [grade set 396].
+xrule 'Grades'/397:
+      [level gte 397,
+       colour eq green]
+    ==>
+      [grade set 397].
+xrule 'Grades'/398:
+      [level gte 398,
+       colour eq blue]
+    ==>
+      [grade set 398].
+xrule 'Grades'/399:
+      [level gte 399,
+       colour eq red]
+    ==>
+      [grade set 399].
+xrule 'Grades'/400:
+      [level gte 400,
+       colour eq green]
+    ==>
+      [grade set 400].
+xrule 'Grades'/401:
+      [level gte 401,
+       colour eq blue]
+    ==>
+      [grade set 401].
+xrule 'Grades'/402:
+      [level gte 402,
+       colour eq red]
+    ==>
+      [grade set 402].
+xrule 'Grades'/403:
+      [level gte 403,
+       colour eq green]
+    ==>
+      [grade set 403].
+xrule 'Grades'/404:
+      [level gte 404,
+       colour eq blue]
+    ==>
+      [grade set 404].
+xrule 'Grades'/405:
+      [level gte 405,
+       colour eq red]
+    ==>
+      [grade set 405].
+xrule 'Grades'/406:
+      [level gte 406,
+       colour eq green]
+    ==>
+      [grade set 406].
+xrule 'Grades'/407:
+      [level gte 407,
+       colour eq blue]
+    ==>
+      [grade set 407].
+xrule 'Grades'/408:
+      [level gte 408,
+       colour eq red]
+    ==>
+      [grade set 408].
+xrule 'Grades'/409:
+      [level gte 409,
+       colour eq green]
+    ==>
+      [grade set 409].
+xrule 'Grades'/410:
+      [level gte 410,
+       colour eq blue]
+    ==>
+      [grade set 410].
+xrule 'Grades'/411:
+      [level gte 411,
+       colour eq red]
+    ==>
+      [grade set 411].
+xrule 'Grades'/412:
+      [level gte 412,
+       colour eq green]
+    ==>
+      [grade set 412].
+xrule 'Grades'/413:
+      [level gte 413,
+       colour eq blue]
+    ==>
+      [grade set 413].
+xrule 'Grades'/414:
+      [level gte 414,
+       colour eq red]
+    ==>
+      [grade set 414].
+xrule 'Grades'/415:
+      [level gte 415,
+       colour eq green]
+    ==>
+      [grade set 415].
+xrule 'Grades'/416:
+      [level gte 416,
+       colour eq blue]
+    ==>
+      [grade set 416].
+xrule 'Grades'/417:
+      [level gte 417,
+       colour eq red]
+    ==>
+      [grade set 417].
+xrule 'Grades'/418:
+      [level gte 418,
+       colour eq green]
+    ==>
+      [grade set 418].
+xrule 'Grades'/419:
+      [level gte 419,
+       colour eq blue]
+    ==>
+      [grade set 419].
+xrule 'Grades'/420:
+      [level gte 420,
+       colour eq red]
+    ==>
+      [grade set 420].
+xrule 'Grades'/421:
+      [level gte 421,
+       colour eq green]
+    ==>
+      [grade set 421].
+xrule 'Grades'/422:
+      [level gte 422,
+       colour eq blue]
+    ==>
+      [grade set 422].
+xrule 'Grades'/423:
+      [level gte 423,
+       colour eq red]
+    ==>
+      [grade set 423].
+xrule 'Grades'/424:
+      [level gte 424,
+       colour eq green]
+    ==>
+      [grade set 424].
+xrule 'Grades'/425:
+      [level gte 425,
+       colour eq blue]
+    ==>
+      [grade set 425].
+xrule 'Grades'/426:
+      [level gte 426,
+       colour eq red]
+    ==>
+      [grade set 426].
+xrule 'Grades'/427:
+      [level gte 427,
+       colour eq green]
+    ==>
+      [grade set 427].
+xrule 'Grades'/428:
+      [level gte 428,
+       colour eq blue]
+    ==>
+      [grade set 428].
+xrule 'Grades'/429:
+      [level gte 429,
+       colour eq red]
+    ==>
+      [grade set 429].
+xrule 'Grades'/430:
+      [level gte 430,
+       colour eq green]
+    ==>
+      [grade set 430].
+xrule 'Grades'/431:
+      [level gte 431,
+       colour eq blue]
+    ==>
+      [grade set 431].
+xrule 'Grades'/432:
+      [level gte 432,
+       colour eq red]
+    ==>
+      [grade set 432].
+xrule 'Grades'/433:
+      [level gte 433,
+       colour eq green]
+    ==>
+      [grade set 433].
+xrule 'Grades'/434:
+      [level gte 434,
+       colour eq blue]
+    ==>
+      [grade set 434].
+xrule 'Grades'/435:
+      [level gte 435,
+       colour eq red]
+    ==>
+      [grade set 435].
+xrule 'Grades'/436:
+      [level gte 436,
+       colour eq green]
+    ==>
+      [grade set 436].
+xrule 'Grades'/437:
+      [level gte 437,
+       colour eq blue]
+    ==>
+      [grade set 437].
+xrule 'Grades'/438:
+      [level gte 438,
+       colour eq red]
+    ==>
+      [grade set 438].
+xrule 'Grades'/439:
+      [level gte 439,
+       colour eq green]
+    ==>
+      [grade set 439].
+xrule 'Grades'/440:
+      [level gte 440,
+       colour eq blue]
+    ==>
+      [grade set 440].
+xrule 'Grades'/441:
+      [level gte 441,
+       colour eq red]
+    ==>
+      [grade set 441].
+xrule 'Grades'/442:
+      [level gte 442,
+       colour eq green]
+    ==>
+      [grade set 442].
+xrule 'Grades'/443:
+      [level gte 443,
+       colour eq blue]
+    ==>
+      [grade set 443].
+xrule 'Grades'/444:
+      [level gte 444,
+       colour eq red]
+    ==>
+      [grade set 444].
+xrule 'Grades'/445:
+      [level gte 445,
+       colour eq green]
+    ==>
+      [grade set 445].
+xrule 'Grades'/446:
+      [level gte 446,
+       colour eq blue]
+    ==>
+      [grade set 446].
+xrule 'Grades'/447:
+      [level gte 447,
+       colour eq red]
+    ==>
+      [grade set 447].
+xrule 'Grades'/448:
+      [level gte 448,
+       colour eq green]
+    ==>
+      [grade set 448].
+xrule 'Grades'/449:
+      [level gte 449,
+       colour eq blue]
+    ==>
+      [grade set 449].
+xrule 'Grades'/450:
+      [level gte 450,
+       colour eq red]
+    ==>
+      [grade set 450].
+xrule 'Grades'/451:
+      [level gte 451,
+       colour eq green]
+    ==>
+      [grade set 451].
+xrule 'Grades'/452:
+      [level gte 452,
+       colour eq blue]
+    ==>
+      [grade set 452].
+xrule 'Grades'/453:
+      [level gte 453,
+       colour eq red]
+    ==>
+      [grade set 453].
+xrule 'Grades'/454:
+      [level gte 454,
+       colour eq green]
+    ==>
+      [grade set 454].
+xrule 'Grades'/455:
+      [level gte 455,
+       colour eq blue]
+    ==>
+      [grade set 455].
+xrule 'Grades'/456:
+      [level gte 456,
+       colour eq red]
+    ==>
+      [grade set 456].
+xrule 'Grades'/457:
+      [level gte 457,
+       colour eq green]
+    ==>
+      [grade set 457].
+xrule 'Grades'/458:
+      [level gte 458,
+       colour eq blue]
+    ==>
+      [grade set 458].
+xrule 'Grades'/459:
+      [level gte 459,
+       colour eq red]
+    ==>
+      [grade set 459].
+xrule 'Grades'/460:
+      [level gte 460,
+       colour eq green]
+    ==>
+      [grade set 460].
+xrule 'Grades'/461:
+      [level gte 461,
+       colour eq blue]
+    ==>
+      [grade set 461].
+xrule 'Grades'/462:
+      [level gte 462,
+       colour eq red]
+    ==>
+      [grade set 462].
+xrule 'Grades'/463:
+      [level gte 463,
+       colour eq green]
+    ==>
+      [grade set 463].
+xrule 'Grades'/464:
+      [level gte 464,
+       colour eq blue]
+    ==>
+      [grade set 464].
+xrule 'Grades'/465:
+      [level gte 465,
+       colour eq red]
+    ==>
+      [grade set 465].
+xrule 'Grades'/466:
+      [level gte 466,
+       colour eq green]
+    ==>
+      [grade set 466].
+xrule 'Grades'/467:
+      [level gte 467,
+       colour eq blue]
+    ==>
+      [grade set 467].
+xrule 'Grades'/468:
+      [level gte 468,
+       colour eq red]
+    ==>
+      [grade set 468].
+xrule 'Grades'/469:
+      [level gte 469,
+       colour eq green]
+    ==>
+      [grade set 469].
+xrule 'Grades'/470:
+      [level gte 470,
+       colour eq blue]
+    ==>
+      [grade set 470].
+xrule 'Grades'/471:
+      [level gte 471,
+       colour eq red]
+    ==>
+      [grade set 471].
+xrule 'Grades'/472:
+      [level gte 472,
+       colour eq green]
+    ==>
+      [grade set 472].
+xrule 'Grades'/473:
+      [level gte 473,
+       colour eq blue]
+    ==>
+      [grade set 473].
+xrule 'Grades'/474:
+      [level gte 474,
+       colour eq red]
+    ==>
+      [grade set 474].
+xrule 'Grades'/475:
+      [level gte 475,
+       colour eq green]
+    ==>
+      [grade set 475].
+xrule 'Grades'/476:
+      [level gte 476,
+       colour eq blue]
+    ==>
+      [grade set 476].
+xrule 'Grades'/477:
+      [level gte 477,
+       colour eq red]
+    ==>
+      [grade set 477].
+xrule 'Grades'/478:
+      [level gte 478,
+       colour eq green]
+    ==>
+      [grade set 478].
+xrule 'Grades'/479:
+      [level gte 479,
+       colour eq blue]
+    ==>
+      [grade set 479].
+xrule 'Grades'/480:
+      [level gte 480,
+       colour eq red]
+    ==>
+      [grade set 480].
+xrule 'Grades'/481:
+      [level gte 481,
+       colour eq green]
+    ==>
+      [grade set 481].
+xrule 'Grades'/482:
+      [level gte 482,
+       colour eq blue]
+    ==>
+      [grade set 482].
+xrule 'Grades'/483:
+      [level gte 483,
+       colour eq red]
+    ==>
+      [grade set 483].
+xrule 'Grades'/484:
+      [level gte 484,
+       colour eq green]
+    ==>
+      [grade set 484].
+xrule 'Grades'/485:
+      [level gte 485,
+       colour eq blue]
+    ==>
+      [grade set 485].
+xrule 'Grades'/486:
+      [level gte 486,
+       colour eq red]
+    ==>
+      [grade set 486].
+xrule 'Grades'/487:
+      [level gte 487,
+       colour eq green]
+    ==>
+      [grade set 487].
+xrule 'Grades'/488:
+      [level gte 488,
+       colour eq blue]
+    ==>
+      [grade set 488].
+xrule 'Grades'/489:
+      [level gte 489,
+       colour eq red]
+    ==>
+      [grade set 489].
+xrule 'Grades'/490:
+      [level gte 490,
+       colour eq green]
+    ==>
+      [grade set 490].
+xrule 'Grades'/491:
+      [level gte 491,
+       colour eq blue]
+    ==>
+      [grade set 491].
+xrule 'Grades'/492:
+      [level gte 492,
+       colour eq red]
+    ==>
+      [grade set 492].
+xrule 'Grades'/493:
+      [level gte 493,
+       colour eq green]
+    ==>
+      [grade set 493].
+xrule 'Grades'/494:
+      [level gte 494,
+       colour eq blue]
+    ==>
+      [grade set 494].
+xrule 'Grades'/495:
+      [level gte 495,
+       colour eq red]
+    ==>
+      [grade set 495].
+xrule 'Grades'/496:
+      [level gte 496,
+       colour eq green]
+    ==>
+      [grade set 496].
+xrule 'Grades'/497:
+      [level gte 497,
+       colour eq blue]
+    ==>
+      [grade set 497].
+xrule 'Grades'/498:
+      [level gte 498,
+       colour eq red]
+    ==>
+      [grade set 498].
+xrule 'Grades'/499:
+      [level gte 499,
+       colour eq green]
+    ==>
+      [grade set 499].
+xrule 'Grades'/500:
+      [level gte 500,
+       colour eq blue]
+    ==>
+      [grade set 500].
+xrule 'Grades'/501:
+      [level gte 501,
+       colour eq red]
+    ==>
+      [grade set 501].
+xrule 'Grades'/502:
+      [level gte 502,
+       colour eq green]
+    ==>
+      [grade set 502].
+xrule 'Grades'/503:
+      [level gte 503,
+       colour eq blue]
+    ==>
+      [grade set 503].
+xrule 'Grades'/504:
+      [level gte 504,
+       colour eq red]
+    ==>
+      [grade set 504].
+xrule 'Grades'/505:
+      [level gte 505,
+       colour eq green]
+    ==>
+      [grade set 505].
+xrule 'Grades'/506:
+      [level gte 506,
+       colour eq blue]
+    ==>
+      [grade set 506].
+xrule 'Grades'/507:
+      [level gte 507,
+       colour eq red]
+    ==>
+      [grade set 507].
+xrule 'Grades'/508:
+      [level gte 508,
+       colour eq green]
+    ==>
+      [grade set 508].
+xrule 'Grades'/509:
+      [level gte 509,
+       colour eq blue]
+    ==>
+      [grade set 509].
+xrule 'Grades'/510:
+      [level gte 510,
+       colour eq red]
+    ==>
+      [grade set 510].
+xrule 'Grades'/511:
+      [level gte 511,
+       colour eq green]
+    ==>
+      [grade set 511].
+xrule 'Grades'/512:
+      [level gte 512,
+       colour eq blue]
+    ==>
+      [grade set 512].
+xrule 'Grades'/513:
+      [level gte 513,
+       colour eq red]
+    ==>
+      [grade set 513].
+xrule 'Grades'/514:
+      [level gte 514,
+       colour eq green]
+    ==>
+      [grade set 514].
+xrule 'Grades'/515:
+      [level gte 515,
+       colour eq blue]
+    ==>
+      [grade set 515].
+xrule 'Grades'/516:
+      [level gte 516,
+       colour eq red]
+    ==>
+      [grade set 516].
+xrule 'Grades'/517:
+      [level gte 517,
+       colour eq green]
+    ==>
+      [grade set 517].
+xrule 'Grades'/518:
+      [level gte 518,
+       colour eq blue]
+    ==>
+      [grade set 518].
+xrule 'Grades'/519:
+      [level gte 519,
+       colour eq red]
+    ==>
+      [grade set 519].
+xrule 'Grades'/520:
+      [level gte 520,
+       colour eq green]
+    ==>
+      [grade set 520].
+xrule 'Grades'/521:
+      [level gte 521,
+       colour eq blue]
+    ==>
+      [grade set 521].
+xrule 'Grades'/522:
+      [level gte 522,
+       colour eq red]
+    ==>
+      [grade set 522].
+xrule 'Grades'/523:
+      [level gte 523,
+       colour eq green]
+    ==>
+      [grade set 523].
+xrule 'Grades'/524:
+      [level gte 524,
+       colour eq blue]
+    ==>
+      [grade set 524].
+xrule 'Grades'/525:
+      [level gte 525,
+       colour eq red]
+    ==>
+      [grade set 525].
+xrule 'Grades'/526:
+      [level gte 526,
+       colour eq green]
+    ==>
+      [grade set 526].
+xrule 'Grades'/527:
+      [level gte 527,
+       colour eq blue]
+    ==>
+      [grade set 527].
+xrule 'Grades'/528:
+      [level gte 528,
+       colour eq red]
+    ==>
+      [grade set 528].
+xrule 'Grades'/529:
+      [level gte 529,
+       colour eq green]
+    ==>
+      [grade set 529].
+xrule 'Grades'/530:
+      [level gte 530,
+       colour eq blue]
+    ==>
+      [grade set 530].
+xrule 'Grades'/531:
+      [level gte 531,
+       colour eq red]
+    ==>
+      [grade set 531].
+xrule 'Grades'/532:
+      [level gte 532,
+       colour eq green]
+    ==>
+      [grade set 532].
+xrule 'Grades'/533:
+      [level gte 533,
+       colour eq blue]
+    ==>
+      [grade set 533].
+xrule 'Grades'/534:
+      [level gte 534,
+       colour eq red]
+    ==>
+      [grade set 534].
+xrule 'Grades'/535:
+      [level gte 535,
+       colour eq green]
+    ==>
+      [grade set 535].
+xrule 'Grades'/536:
+      [level gte 536,
+       colour eq blue]
+    ==>
+      [grade set 536].
+xrule 'Grades'/537:
+      [level gte 537,
+       colour eq red]
+    ==>
+      [grade set 537].
+xrule 'Grades'/538:
+      [level gte 538,
+       colour eq green]
+    ==>
+      [grade set 538].
+xrule 'Grades'/539:
+      [level gte 539,
+       colour eq blue]
+    ==>
+      [grade set 539].
+xrule 'Grades'/540:
+      [level gte 540,
+       colour eq red]
+    ==>
+      [grade set 540].
+xrule 'Grades'/541:
+      [level gte 541,
+       colour eq green]
+    ==>
+      [grade set 541].
+xrule 'Grades'/542:
+      [level gte 542,
+       colour eq blue]
+    ==>
+      [grade set 542].
+xrule 'Grades'/543:
+      [level gte 543,
+       colour eq red]
+    ==>
+      [grade set 543].
+xrule 'Grades'/544:
+      [level gte 544,
+       colour eq green]
+    ==>
+      [grade set 544].
+xrule 'Grades'/545:
+      [level gte 545,
+       colour eq blue]
+    ==>
+      [grade set 545].
+xrule 'Grades'/546:
+      [level gte 546,
+       colour eq red]
+    ==>
+      [grade set 546].
+xrule 'Grades'/547:
+      [level gte 547,
+       colour eq green]
+    ==>
+      [grade set 547].
+xrule 'Grades'/548:
+      [level gte 548,
+       colour eq blue]
+    ==>
+      [grade set 548].
+xrule 'Grades'/549:
+      [level gte 549,
+       colour eq red]
+    ==>
+      [grade set 549].
+xrule 'Grades'/550:
+      [level gte 550,
+       colour eq green]
+    ==>
+      [grade set 550].
+xrule 'Grades'/551:
+      [level gte 551,
+       colour eq blue]
+    ==>
+      [grade set 551].
+xrule 'Grades'/552:
+      [level gte 552,
+       colour eq red]
+    ==>
+      [grade set 552].
+xrule 'Grades'/553:
+      [level gte 553,
+       colour eq green]
+    ==>
+      [grade set 553].
+xrule 'Grades'/554:
+      [level gte 554,
+       colour eq blue]
+    ==>
+      [grade set 554].
+xrule 'Grades'/555:
+      [level gte 555,
+       colour eq red]
+    ==>
+      [grade set 555].
+xrule 'Grades'/556:
+      [level gte 556,
+       colour eq green]
+    ==>
+      [grade set 556].
+xrule 'Grades'/557:
+      [level gte 557,
+       colour eq blue]
+    ==>
+      [grade set 557].
+xrule 'Grades'/558:
+      [level gte 558,
+       colour eq red]
+    ==>
+      [grade set 558].
+xrule 'Grades'/559:
+      [level gte 559,
+       colour eq green]
+    ==>
+      [grade set 559].
+xrule 'Grades'/560:
+      [level gte 560,
+       colour eq blue]
+    ==>
+      [grade set 560].
+xrule 'Grades'/561:
+      [level gte 561,
+       colour eq red]
+    ==>
+      [grade set 561].
+xrule 'Grades'/562:
+      [level gte 562,
+       colour eq green]
+    ==>
+      [grade set 562].
+xrule 'Grades'/563:
+      [level gte 563,
+       colour eq blue]
+    ==>
+      [grade set 563].
+xrule 'Grades'/564:
+      [level gte 564,
+       colour eq red]
+    ==>
+      [grade set 564].
+xrule 'Grades'/565:
+      [level gte 565,
+       colour eq green]
+    ==>
+      [grade set 565].
+xrule 'Grades'/566:
+      [level gte 566,
+       colour eq blue]
+    ==>
+      [grade set 566].
+xrule 'Grades'/567:
+      [level gte 567,
+       colour eq red]
+    ==>
+      [grade set 567].
+xrule 'Grades'/568:
+      [level gte 568,
+       colour eq green]
+    ==>
+      [grade set 568].
+xrule 'Grades'/569:
+      [level gte 569,
+       colour eq blue]
+    ==>
+      [grade set 569].
+xrule 'Grades'/570:
+      [level gte 570,
+       colour eq red]
+    ==>
+      [grade set 570].
+xrule 'Grades'/571:
+      [level gte 571,
+       colour eq green]
+    ==>
+      [grade set 571].
+xrule 'Grades'/572:
+      [level gte 572,
+       colour eq blue]
+    ==>
+      [grade set 572].
+xrule 'Grades'/573:
+      [level gte 573,
+       colour eq red]
+    ==>
+      [grade set 573].
+xrule 'Grades'/574:
+      [level gte 574,
+       colour eq green]
+    ==>
+      [grade set 574].
+xrule 'Grades'/575:
+      [level gte 575,
+       colour eq blue]
+    ==>
+      [grade set 575].
+xrule 'Grades'/576:
+      [level gte 576,
+       colour eq red]
+    ==>
+      [grade set 576].
+xrule 'Grades'/577:
+      [level gte 577,
+       colour eq green]
+    ==>
+      [grade set 577].
+xrule 'Grades'/578:
+      [level gte 578,
+       colour eq blue]
+    ==>
+      [grade set 578].
+xrule 'Grades'/579:
+      [level gte 579,
+       colour eq red]
+    ==>
+      [grade set 579].
+xrule 'Grades'/580:
+      [level gte 580,
+       colour eq green]
+    ==>
+      [grade set 580].
+xrule 'Grades'/581:
+      [level gte 581,
+       colour eq blue]
+    ==>
+      [grade set 581].
+xrule 'Grades'/582:
+      [level gte 582,
+       colour eq red]
+    ==>
+      [grade set 582].
+xrule 'Grades'/583:
+      [level gte 583,
+       colour eq green]
+    ==>
+      [grade set 583].
+xrule 'Grades'/584:
+      [level gte 584,
+       colour eq blue]
+    ==>
+      [grade set 584].
+xrule 'Grades'/585:
+      [level gte 585,
+       colour eq red]
+    ==>
+      [grade set 585].
+xrule 'Grades'/586:
+      [level gte 586,
+       colour eq green]
+    ==>
+      [grade set 586].
+xrule 'Grades'/587:
+      [level gte 587,
+       colour eq blue]
+    ==>
+      [grade set 587].
+xrule 'Grades'/588:
+      [level gte 588,
+       colour eq red]
+    ==>
+      [grade set 588].
+xrule 'Grades'/589:
+      [level gte 589,
+       colour eq green]
+    ==>
+      [grade set 589].
+xrule 'Grades'/590:
+      [level gte 590,
+       colour eq blue]
+    ==>
+      [grade set 590].
+xrule 'Grades'/591:
+      [level gte 591,
+       colour eq red]
+    ==>
+      [grade set 591].
+xrule 'Grades'/592:
+      [level gte 592,
+       colour eq green]
+    ==>
+      [grade set 592].
+xrule 'Grades'/593:
+      [level gte 593,
+       colour eq blue]
+    ==>
+      [grade set 593].
+xrule 'Grades'/594:
+      [level gte 594,
+       colour eq red]
+    ==>
+      [grade set 594].
+xrule 'Grades'/595:
+      [level gte 595,
+       colour eq green]
+    ==>
+      [grade set 595].
+xrule 'Grades'/596:
+      [level gte 596,
+       colour eq blue]
+    ==>
+      [grade set 596].
+xrule 'Grades'/597:
+      [level gte 597,
+       colour eq red]
+    ==>
+      [grade set 597].
+xrule 'Grades'/598:
+      [level gte 598,
+       colour eq green]
+    ==>
+      [grade set 598].
+xrule 'Grades'/599:
+      [level gte 599,
+       colour eq blue]
+    ==>
+      [grade set 599].
+xrule 'Grades'/600:
+      [level gte 600,
+       colour eq red]
+    ==>
+      [grade set 600].
+
+%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%%
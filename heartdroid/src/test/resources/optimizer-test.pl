@@ -0,0 +1,64 @@
+xtype [name: hour_type,
+       base: numeric,
+       domain: [0 to 23]
+      ].
+xtype [name: day_type,
+       base: symbolic,
+       domain: [mon,tue,wed,thu,fri,sat,sun]
+      ].
+xtype [name: mode_type,
+       base: symbolic,
+       domain: [eco,normal,boost]
+      ].
+
+xattr [name: hour,
+       abbrev: hour,
+       class: simple,
+       type: hour_type,
+       comm: in
+      ].
+xattr [name: day,
+       abbrev: day,
+       class: simple,
+       type: day_type,
+       comm: in
+      ].
+xattr [name: mode,
+       abbrev: mode,
+       class: simple,
+       type: mode_type,
+       comm: out
+      ].
+
+xschm 'Heating': [day,hour] ==> [mode].
+
+xrule 'Heating'/1:
+      [day in [sat,sun],
+       hour eq any]
+    ==>
+      [mode set eco].
+xrule 'Heating'/2:
+      [day eq sat,
+       hour in [8 to 12]]
+    ==>
+      [mode set normal].
+xrule 'Heating'/3:
+      [day eq mon,
+       hour in [30 to 40]]
+    ==>
+      [mode set boost].
+xrule 'Heating'/4:
+      [day eq mon,
+       hour in [0 to 7]]
+    ==>
+      [mode set boost].
+xrule 'Heating'/5:
+      [day eq tue,
+       hour in [0 to 7]]
+    ==>
+      [mode set boost].
+xrule 'Heating'/6:
+      [day in [wed,thu,fri],
+       hour in [0 to 23]]
+    ==>
+      [mode set normal].
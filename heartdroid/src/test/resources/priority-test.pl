@@ -0,0 +1,41 @@
+xtype [name: level_type,
+       base: numeric,
+       length: 3,
+       desc: level,
+       domain: [0 to 100]
+      ].
+
+%%%%%%%%%%%%%%%%%%%%%%%%% ATTRIBUTES DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%%%
+xattr [name: a, abbrev: a, class: simple, type: level_type, comm: in].
+xattr [name: b, abbrev: b, class: simple, type: level_type, comm: inter].
+xattr [name: c, abbrev: c, class: simple, type: level_type, comm: in].
+xattr [name: d, abbrev: d, class: simple, type: level_type, comm: inter].
+xattr [name: e, abbrev: e, class: simple, type: level_type, comm: out].
+xattr [name: f, abbrev: f, class: simple, type: level_type, comm: out].
+
+%%%%%%%%%%%%%%%%%%%%%%%% TABLE SCHEMAS DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%
+@Priority(1)
+xschm 'Low': [a] ==> [b].
+@Priority(5)
+xschm 'High': [c] ==> [d].
+@Priority(10)
+xschm 'Dependent': [b] ==> [e].
+xschm 'Plain': [d] ==> [f].
+
+%%%%%%%%%%%%%%%%%%%%%%%%%%%% RULES DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%%%%%
+xrule 'Low'/1:
+      [a gt 0]
+    ==>
+      [b set a + 1].
+xrule 'High'/1:
+      [c gt 0]
+    ==>
+      [d set c + 1].
+xrule 'Dependent'/1:
+      [b gt 0]
+    ==>
+      [e set b + 1].
+xrule 'Plain'/1:
+      [d gt 0]
+    ==>
+      [f set d + 1].
@@ -0,0 +1,32 @@
+xtype [name: level_type,
+       base: numeric,
+       domain: [0 to 10]
+      ].
+xtype [name: alarm_type,
+       base: symbolic,
+       domain: [yes,no]
+      ].
+
+xattr [name: level,
+       abbrev: level,
+       class: simple,
+       type: level_type,
+       comm: in
+      ].
+xattr [name: alarm,
+       abbrev: alarm,
+       class: simple,
+       type: alarm_type,
+       comm: out
+      ].
+
+xschm 'Alarm': [level] ==> [alarm].
+
+xrule 'Alarm'/1:
+      [level gt {min 50% in -4 to 0} 5]
+    ==>
+      [alarm set yes].
+xrule 'Alarm'/2:
+      [level lte {max 25% in -4 to 0} 5]
+    ==>
+      [alarm set no].
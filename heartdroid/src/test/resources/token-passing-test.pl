@@ -0,0 +1,89 @@
+xtype [name: score_type,
+       base: numeric,
+       length: 3,
+       desc: score,
+       domain: [0 to 100]
+      ].
+xtype [name: mode_type,
+       base: symbolic,
+       domain: [a,b,c]
+      ].
+xtype [name: route_type,
+       base: symbolic,
+       domain: [left,right]
+      ].
+xtype [name: result_type,
+       base: symbolic,
+       domain: [done,other]
+      ].
+
+%%%%%%%%%%%%%%%%%%%%%%%%% ATTRIBUTES DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%%%
+xattr [name: mode,
+       abbrev: mode1,
+       class: simple,
+       type: mode_type,
+       comm: in
+      ].
+xattr [name: route,
+       abbrev: rout1,
+       class: simple,
+       type: route_type,
+       comm: inter
+      ].
+xattr [name: left_score,
+       abbrev: lsco1,
+       class: simple,
+       type: score_type,
+       comm: inter
+      ].
+xattr [name: right_score,
+       abbrev: rsco1,
+       class: simple,
+       type: score_type,
+       comm: inter
+      ].
+xattr [name: result,
+       abbrev: resu1,
+       class: simple,
+       type: result_type,
+       comm: out
+      ].
+
+%%%%%%%%%%%%%%%%%%%%%%%% TABLE SCHEMAS DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%
+xschm 'Start': [mode] ==> [route].
+xschm 'Left': [route] ==> [left_score].
+xschm 'Right': [route] ==> [right_score].
+xschm 'Final': [route] ==> [result].
+
+%%%%%%%%%%%%%%%%%%%%%%%%%%%% RULES DEFINITIONS %%%%%%%%%%%%%%%%%%%%%%%%%%%%
+xrule 'Start'/1:
+      [mode eq a]
+    ==>
+      [route set left]
+    : 'Left'.
+xrule 'Start'/2:
+      [mode eq b]
+    ==>
+      [route set right]
+    : 'Right'.
+xrule 'Start'/3:
+      [mode eq c]
+    ==>
+      [route set left].
+xrule 'Left'/1:
+      [route eq left]
+    ==>
+      [left_score set 1]
+    : 'Final'/2.
+xrule 'Right'/1:
+      [route eq right]
+    ==>
+      [right_score set 2].
+xrule 'Final'/1:
+      [route in [left,right]]
+    ==>
+      [result set done].
+xrule 'Final'/2:
+      [route in [left,right]]
+    ==>
+      [result set other].